@@ -0,0 +1,306 @@
+package me.asu.http;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static me.asu.http.Bytes.getBytes;
+
+/**
+ * {@code AdmissionController} 在任务执行之前进行准入控制。
+ * <p>
+ * 同时执行的任务数不超过 {@code maxInFlight}，超出的任务进入等待队列，
+ * 队列长度不超过 {@code maxQueued}；队列已满，或任务在队列中等待超过
+ * {@code maxQueueTime} 毫秒时，任务将被拒绝（经 {@link #execute} 排队的任务由计时器按时移出队列，
+ * 不必等到有许可释放）。
+ * 任务既可以通过 {@link #execute} 交给执行器（排队时不占用线程），
+ * 也可以在当前线程上通过 {@link #acquire()} 等待许可、结束后 {@link #release()} 释放。
+ * 被拒绝的请求应使用预先序列化的 {@link #getRejectResponse() 503 响应} 应答。
+ * <p>
+ * 该类是线程安全的。
+ */
+public class AdmissionController {
+
+    protected final int maxInFlight;
+    protected final int maxQueued;
+    protected final long maxQueueNanos;
+    protected final byte[] rejectResponse;
+
+    protected final Semaphore permits; // fair, so that waiters in acquire() are served in order
+    protected final AtomicInteger queued = new AtomicInteger();
+    protected final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    protected final LongAdder admitted = new LongAdder();
+    protected final LongAdder rejectedQueueFull = new LongAdder();
+    protected final LongAdder rejectedQueueTimeout = new LongAdder();
+    protected final LongAdder dequeued = new LongAdder();
+    protected final LongAdder totalWaitNanos = new LongAdder();
+    protected final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * 构造一个准入控制器。
+     *
+     * @param maxInFlight  同时执行的最大任务数（必须为正数）
+     * @param maxQueued    等待队列的最大长度，0 表示不排队
+     * @param maxQueueTime 任务在队列中的最长等待时间（毫秒），0 表示不限
+     * @param retryAfter   拒绝响应中 Retry-After 头部的秒数
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public AdmissionController(int maxInFlight, int maxQueued, long maxQueueTime, int retryAfter) {
+        if (maxInFlight < 1 || maxQueued < 0 || maxQueueTime < 0 || retryAfter < 0)
+            throw new IllegalArgumentException("invalid admission limits");
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueTime);
+        this.permits = new Semaphore(maxInFlight, true);
+        this.rejectResponse = getBytes("HTTP/1.1 503 ", Response.statuses[503], "\r\n",
+                "Retry-After: ", Integer.toString(retryAfter), "\r\n",
+                "Content-Length: 0\r\n",
+                "Connection: close\r\n\r\n");
+    }
+
+    /**
+     * 在准入许可下执行给定任务，或将其加入等待队列，或拒绝它。
+     *
+     * @param executor 执行任务的执行器
+     * @param task     要执行的任务
+     * @param rejected 任务被拒绝时执行的动作（可能在任意线程上执行）
+     * @return 任务是否被接受（立即执行或进入队列）；若返回 false，则拒绝动作已被执行
+     */
+    public boolean execute(Executor executor, Runnable task, Runnable rejected) {
+        Pending pending = new Pending(executor, task, rejected);
+        if (tryAcquire()) {
+            dispatch(pending);
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejectedQueueFull.increment();
+            rejected.run();
+            return false;
+        }
+        queue.offer(pending);
+        if (maxQueueNanos > 0)
+            pending.expiry = ExpiryTimer.INSTANCE.schedule(() -> expire(pending), maxQueueNanos,
+                    TimeUnit.NANOSECONDS);
+        // all permits may have been released before the task was queued
+        if (tryAcquire())
+            runNext();
+        return true;
+    }
+
+    /**
+     * 拒绝在队列中等待超过 {@code maxQueueTime} 的任务，除非它已被取出执行。
+     *
+     * @param pending 等待的任务
+     */
+    protected void expire(Pending pending) {
+        if (!queue.remove(pending)) // already taken by runNext
+            return;
+        queued.decrementAndGet();
+        rejectedQueueTimeout.increment();
+        pending.rejected.run();
+    }
+
+    /**
+     * 在当前线程上获取一个许可，必要时在队列中等待，但最多等待 {@code maxQueueTime} 毫秒。
+     * 获取成功后必须调用 {@link #release()} 释放许可。
+     *
+     * @return 是否获得了许可；队列已满或等待超时时返回 false，此时请求应被拒绝
+     * @throws InterruptedException 如果等待时线程被中断
+     */
+    public boolean acquire() throws InterruptedException {
+        if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) { // unlike tryAcquire(), doesn't overtake waiters
+            admitted.increment();
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejectedQueueFull.increment();
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            if (maxQueueNanos > 0) {
+                acquired = permits.tryAcquire(maxQueueNanos, TimeUnit.NANOSECONDS);
+            } else {
+                permits.acquire();
+                acquired = true;
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedQueueTimeout.increment();
+            return false;
+        }
+        long waited = System.nanoTime() - start;
+        dequeued.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        admitted.increment();
+        return true;
+    }
+
+    /**
+     * 释放通过 {@link #acquire()} 获得的许可，将其交给下一个等待的任务。
+     */
+    public void release() {
+        runNext();
+    }
+
+    protected boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    /**
+     * 使用当前持有的许可执行队列中的下一个任务，若队列为空则释放许可。
+     */
+    protected void runNext() {
+        while (true) {
+            Pending next = queue.poll();
+            if (next == null) {
+                permits.release();
+                // a task may have been queued after the poll but before the release
+                if (queue.isEmpty() || !tryAcquire())
+                    return;
+                continue;
+            }
+            queued.decrementAndGet();
+            ScheduledFuture<?> expiry = next.expiry;
+            if (expiry != null)
+                expiry.cancel(false);
+            long waited = System.nanoTime() - next.enqueued;
+            if (maxQueueNanos > 0 && waited > maxQueueNanos) {
+                rejectedQueueTimeout.increment();
+                next.rejected.run();
+                continue;
+            }
+            dequeued.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            dispatch(next);
+            return;
+        }
+    }
+
+    protected void dispatch(Pending pending) {
+        admitted.increment();
+        try {
+            pending.executor.execute(() -> {
+                try {
+                    pending.task.run();
+                } finally {
+                    runNext();
+                }
+            });
+        } catch (RejectedExecutionException ree) { // e.g. executor is shutting down
+            pending.rejected.run();
+            runNext();
+        }
+    }
+
+    /**
+     * 返回预先序列化的 503 响应（包含 Retry-After 头部），用于应答被拒绝的请求。
+     *
+     * @return 503 响应的字节（不得修改）
+     */
+    public byte[] getRejectResponse() {
+        return rejectResponse;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /** @return 当前正在执行的任务数 */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /** @return 当前在队列中等待的任务数 */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /** @return 已获准执行的任务总数 */
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /** @return 因队列已满而被拒绝的任务数 */
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    /** @return 因排队超时而被拒绝的任务数 */
+    public long getRejectedQueueTimeout() {
+        return rejectedQueueTimeout.sum();
+    }
+
+    /** @return 被拒绝的任务总数 */
+    public long getRejected() {
+        return rejectedQueueFull.sum() + rejectedQueueTimeout.sum();
+    }
+
+    /** @return 经过排队后执行的任务的平均等待时间（毫秒） */
+    public double getAverageWaitMillis() {
+        long n = dequeued.sum();
+        return n == 0 ? 0 : totalWaitNanos.sum() / (n * 1e6);
+    }
+
+    /** @return 经过排队后执行的任务的最长等待时间（毫秒） */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdmissionController[inFlight=%d/%d, queued=%d/%d, admitted=%d, "
+                        + "rejectedQueueFull=%d, rejectedQueueTimeout=%d, avgWait=%.3fms, maxWait=%.3fms]",
+                getInFlight(), maxInFlight, getQueueDepth(), maxQueued, getAdmitted(),
+                getRejectedQueueFull(), getRejectedQueueTimeout(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+
+    /**
+     * 一个等待执行的任务。
+     */
+    protected static class Pending {
+        final Executor executor;
+        final Runnable task;
+        final Runnable rejected;
+        final long enqueued = System.nanoTime();
+        volatile ScheduledFuture<?> expiry; // rejects the task once it has waited too long
+
+        Pending(Executor executor, Runnable task, Runnable rejected) {
+            this.executor = executor;
+            this.task = task;
+            this.rejected = rejected;
+        }
+    }
+
+    /**
+     * 所有准入控制器共用的排队超时计时器，在首次需要时创建。
+     */
+    static class ExpiryTimer {
+        static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1,
+                new NamedThreadFactory("Http-Admission-Expiry", true));
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true); // most timers are cancelled
+        }
+    }
+}
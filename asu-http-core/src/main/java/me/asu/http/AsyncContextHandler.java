@@ -0,0 +1,66 @@
+package me.asu.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An {@code AsyncContextHandler} serves the content of resources within a context
+ * asynchronously, without holding a worker thread while the result is pending.
+ * <p>
+ * 当 {@link #serveAsync} 返回的结果尚未完成时，服务器会挂起该连接并释放工作线程，
+ * 待结果完成后再继续发送响应并处理该连接上的后续请求。
+ * 如果在结果完成前客户端断开连接，结果将被取消（{@code cancel(true)}）；
+ * 如果超过 {@link #getTimeout() 超时时间}，结果将以 {@code TimeoutException} 异常完成，
+ * 并且在尚未发送响应头时返回 504 响应。
+ * 在线程上阻塞处理的处理器应返回 {@link InterruptibleFuture}，以便取消或超时时中断该线程。
+ *
+ * @see HTTPServer#addContext
+ */
+public interface AsyncContextHandler extends ContextHandler {
+
+    /**
+     * 使用给定的请求和响应异步处理请求。
+     * <p>
+     * 请求体必须在本方法返回之前读取完毕（通常已由请求解析器处理），
+     * 因为连接在挂起期间会被用于检测客户端是否断开。
+     *
+     * @param req  要处理的请求
+     * @param resp 要填充的响应
+     * @return 一个在处理完成时给出HTTP状态码的结果，其含义与 {@link ContextHandler#serve} 的返回值相同
+     * @throws IOException 如果发生输入输出错误
+     */
+    CompletionStage<Integer> serveAsync(Request req, Response resp) throws IOException;
+
+    /**
+     * 返回此处理器的超时时间。
+     *
+     * @return 超时时间（毫秒），0 表示不限时，负值表示使用服务器的
+     * {@link HTTPServer#getAsyncTimeout() 默认超时时间}
+     */
+    default long getTimeout() {
+        return -1;
+    }
+
+    /**
+     * 同步处理请求，阻塞当前线程直到异步结果完成。
+     *
+     * @param req  要处理的请求
+     * @param resp 要填充的响应
+     * @return 异步结果给出的HTTP状态码
+     * @throws IOException 如果发生输入输出错误或异步处理失败
+     */
+    @Override
+    default int serve(Request req, Response resp) throws IOException {
+        try {
+            Integer status = serveAsync(req, resp).toCompletableFuture().get();
+            return status == null ? 0 : status;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for handler");
+        } catch (ExecutionException ee) {
+            throw new IOException(ee.getCause());
+        }
+    }
+}
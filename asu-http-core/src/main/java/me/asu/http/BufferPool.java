@@ -0,0 +1,81 @@
+package me.asu.http;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code BufferPool} 是一个有界的无锁字节数组池，用于在响应之间复用固定大小的缓冲区。
+ * <p>
+ * 池中的缓冲区不绑定到线程，因此在每个请求一个虚拟线程时同样能够被复用。
+ * 池空时分配新的缓冲区，池满时丢弃归还的缓冲区，因此取出和归还都不会阻塞。
+ */
+public class BufferPool {
+
+    /** 默认的池大小 */
+    public static final int DEFAULT_SIZE = Math.max(16, 2 * Runtime.getRuntime().availableProcessors());
+
+    protected final int bufferSize;
+    protected final AtomicReferenceArray<byte[]> slots;
+    protected final int mask;
+
+    /**
+     * 构造一个默认大小的缓冲区池。
+     *
+     * @param bufferSize 缓冲区大小（字节）
+     */
+    public BufferPool(int bufferSize) {
+        this(bufferSize, DEFAULT_SIZE);
+    }
+
+    /**
+     * 构造一个缓冲区池。
+     *
+     * @param bufferSize 缓冲区大小（字节）
+     * @param size       池中最多保留的空闲缓冲区数（将向上取整为2的幂）
+     * @throws IllegalArgumentException 如果参数不是正数
+     */
+    public BufferPool(int bufferSize, int size) {
+        if (bufferSize < 1 || size < 1)
+            throw new IllegalArgumentException("invalid buffer pool size");
+        int n = Integer.highestOneBit(size);
+        n = n < size ? n << 1 : n;
+        this.bufferSize = bufferSize;
+        this.slots = new AtomicReferenceArray<>(n);
+        this.mask = n - 1;
+    }
+
+    /**
+     * 取出一个缓冲区。缓冲区的内容是未定义的。
+     *
+     * @return 大小为 {@link #getBufferSize()} 的缓冲区，用完后应以 {@link #release(byte[])} 归还
+     */
+    public byte[] acquire() {
+        int start = DeflaterPool.start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            byte[] buf = slots.get(slot);
+            if (buf != null && slots.compareAndSet(slot, buf, null))
+                return buf;
+        }
+        return new byte[bufferSize];
+    }
+
+    /**
+     * 将缓冲区归还池中；大小不符或池已满时丢弃它。缓冲区归还后不得再使用。
+     *
+     * @param buf 缓冲区
+     */
+    public void release(byte[] buf) {
+        if (buf == null || buf.length != bufferSize)
+            return;
+        int start = DeflaterPool.start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buf))
+                return;
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,108 @@
+package me.asu.http;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@code Bulkhead} 是一个具名的隔离舱，用于隔离单个或一组上下文的处理。
+ * <p>
+ * 路由到使用隔离舱的上下文的请求会被分派到隔离舱的执行器上处理，连接的工作线程等待处理结束；
+ * 未指定执行器时，请求在连接的工作线程上处理。同时执行的请求数和等待队列由隔离舱自己的
+ * {@link AdmissionController} 限制，请求体由处理器直接从连接读取；超出限制的请求以 503 响应拒绝。
+ * 处理超过 {@link #getTimeout() 超时时间}，或客户端断开连接时，处理器线程将被中断。
+ *
+ * @see ContextConfig#setBulkhead(Bulkhead)
+ * @see HTTPServer#addBulkhead(Bulkhead)
+ */
+public class Bulkhead {
+
+    protected final String name;
+    protected final Executor executor;
+    protected final AdmissionController admission;
+    protected final int retryAfter;
+    protected volatile long timeout = -1;
+
+    /**
+     * 构造一个在连接的工作线程上处理请求的隔离舱。
+     *
+     * @param name          隔离舱名称
+     * @param maxConcurrent 同时处理的最大请求数
+     * @param maxQueued     等待队列的最大长度
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueued) {
+        this(name, maxConcurrent, maxQueued, 0, 1, null);
+    }
+
+    /**
+     * 构造一个隔离舱。
+     *
+     * @param name          隔离舱名称
+     * @param maxConcurrent 同时处理的最大请求数
+     * @param maxQueued     等待队列的最大长度
+     * @param maxQueueTime  请求在队列中的最长等待时间（毫秒），0 表示不限
+     * @param retryAfter    拒绝响应中 Retry-After 头部的秒数
+     * @param executor      处理请求的执行器，null 表示在连接的工作线程上处理
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, long maxQueueTime,
+                    int retryAfter, Executor executor) {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("bulkhead name is required");
+        this.name = name;
+        this.executor = executor;
+        this.retryAfter = retryAfter;
+        this.admission = new AdmissionController(maxConcurrent, maxQueued, maxQueueTime, retryAfter);
+    }
+
+    /**
+     * 在隔离舱中执行给定任务，或将其加入等待队列，或拒绝它。
+     *
+     * @param fallback 隔离舱未指定执行器时使用的执行器
+     * @param task     要执行的任务
+     * @param rejected 任务被拒绝时执行的动作
+     * @return 任务是否被接受
+     */
+    public boolean execute(Executor fallback, Runnable task, Runnable rejected) {
+        return admission.execute(executor != null ? executor : fallback, task, rejected);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 设置隔离舱中请求（包括排队时间）的超时时间，超时的请求以 504 响应。
+     * 请求的截止时间同样约束该时间。
+     *
+     * @param timeout 超时时间（毫秒），0 表示不限时，负值表示使用服务器的
+     *                {@link HTTPServer#getAsyncTimeout() 默认超时时间}
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 返回隔离舱的准入控制器，可用于读取并发数、队列深度、等待时间及拒绝次数等指标。
+     *
+     * @return 准入控制器
+     */
+    public AdmissionController getAdmissionController() {
+        return admission;
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead[" + name + "] " + admission;
+    }
+}
@@ -4,6 +4,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 
 public class Bytes {
     /** A convenience array containing the carriage-return and line feed chars. */
@@ -33,6 +34,35 @@ public class Bytes {
     }
 
 
+    /**
+     * 解析字节数组中的十进制整数（例如 JSON 数字），不创建中间字符串：
+     * 不超过 18 位的数直接累加，其余（包括非法的数）交给 {@link Long#parseLong(String)}。
+     *
+     * @param b     字节数组
+     * @param begin 第一个字节的位置
+     * @param end   最后一个字节之后的位置
+     * @return 解析的值
+     * @throws NumberFormatException 如果不是合法的 long
+     */
+    public static long parseLong(byte[] b, int begin, int end) {
+        int p = begin;
+        boolean negative = p < end && b[p] == '-';
+        if (negative)
+            p++;
+        if (p < end && end - p <= 18) {
+            long value = 0;
+            for (; p < end; p++) {
+                int d = b[p] - '0';
+                if (d < 0 || d > 9)
+                    break;
+                value = value * 10 + d;
+            }
+            if (p == end)
+                return negative ? -value : value;
+        }
+        return Long.parseLong(new String(b, begin, end - begin, StandardCharsets.ISO_8859_1));
+    }
+
     /**
      * 快速判断是否是空串
      *
@@ -0,0 +1,159 @@
+package me.asu.http;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code ConnectionLimiter} 在接受连接时限制打开的连接总数和每个远程地址的连接数。
+ * <p>
+ * 每个地址的连接数记录在按地址哈希分条的无锁计数器中，因此内存占用是固定的。
+ * 不同地址可能共享同一个计数器，此时它们共同受每地址上限的约束；
+ * 分条数足够大时这种情况很少发生。
+ */
+public class ConnectionLimiter {
+
+    protected final int maxConnections;
+    protected final int maxPerAddress;
+    protected final int mask;
+    protected final AtomicInteger open = new AtomicInteger();
+    protected final AtomicIntegerArray stripes;
+
+    protected final LongAdder accepted = new LongAdder();
+    protected final LongAdder rejectedTotal = new LongAdder();
+    protected final LongAdder rejectedPerAddress = new LongAdder();
+
+    /**
+     * 构造一个使用 4096 个分条计数器的连接限制器。
+     *
+     * @param maxConnections 打开的连接总数上限，0 表示不限
+     * @param maxPerAddress  每个远程地址的连接数上限，0 表示不限
+     */
+    public ConnectionLimiter(int maxConnections, int maxPerAddress) {
+        this(maxConnections, maxPerAddress, 4096);
+    }
+
+    /**
+     * 构造一个连接限制器。
+     *
+     * @param maxConnections 打开的连接总数上限，0 表示不限
+     * @param maxPerAddress  每个远程地址的连接数上限，0 表示不限
+     * @param stripes        分条计数器的数量（将向上取整为2的幂）
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public ConnectionLimiter(int maxConnections, int maxPerAddress, int stripes) {
+        if (maxConnections < 0 || maxPerAddress < 0 || stripes < 1)
+            throw new IllegalArgumentException("invalid connection limits");
+        this.maxConnections = maxConnections;
+        this.maxPerAddress = maxPerAddress;
+        int n = Integer.highestOneBit(stripes);
+        n = n < stripes ? n << 1 : n;
+        this.mask = n - 1;
+        this.stripes = new AtomicIntegerArray(n);
+    }
+
+    /**
+     * 尝试为来自给定地址的新连接获取一个名额。
+     * 获取成功的连接在关闭时必须调用 {@link #release}。
+     *
+     * @param address 远程地址
+     * @return 是否接受该连接
+     */
+    public boolean acquire(InetAddress address) {
+        if (!increment(open, maxConnections)) {
+            rejectedTotal.increment();
+            return false;
+        }
+        if (maxPerAddress > 0) {
+            int i = index(address);
+            for (int n = stripes.get(i); ; n = stripes.get(i)) {
+                if (n >= maxPerAddress) {
+                    open.decrementAndGet();
+                    rejectedPerAddress.increment();
+                    return false;
+                }
+                if (stripes.compareAndSet(i, n, n + 1))
+                    break;
+            }
+        }
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * 释放之前为给定地址获取的连接名额。
+     *
+     * @param address 远程地址
+     */
+    public void release(InetAddress address) {
+        if (maxPerAddress > 0)
+            stripes.decrementAndGet(index(address));
+        open.decrementAndGet();
+    }
+
+    protected static boolean increment(AtomicInteger counter, int max) {
+        if (max <= 0) {
+            counter.incrementAndGet();
+            return true;
+        }
+        for (int n = counter.get(); n < max; n = counter.get())
+            if (counter.compareAndSet(n, n + 1))
+                return true;
+        return false;
+    }
+
+    protected int index(InetAddress address) {
+        int h = address == null ? 0 : address.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b; // spread sequential addresses across stripes
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxPerAddress() {
+        return maxPerAddress;
+    }
+
+    /** @return 当前打开的连接数 */
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    /**
+     * 返回与给定地址共享计数器的打开连接数。
+     *
+     * @param address 远程地址
+     * @return 该地址（及与其共享计数器的地址）的打开连接数，未限制每地址连接数时返回 -1
+     */
+    public int getOpenConnections(InetAddress address) {
+        return maxPerAddress > 0 ? stripes.get(index(address)) : -1;
+    }
+
+    /** @return 已接受的连接总数 */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /** @return 因超过连接总数上限而被拒绝的连接数 */
+    public long getRejectedTotal() {
+        return rejectedTotal.sum();
+    }
+
+    /** @return 因超过每地址连接数上限而被拒绝的连接数 */
+    public long getRejectedPerAddress() {
+        return rejectedPerAddress.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionLimiter[open=%d/%d, perAddress=%d, accepted=%d, "
+                        + "rejectedTotal=%d, rejectedPerAddress=%d]",
+                getOpenConnections(), maxConnections, maxPerAddress, getAccepted(),
+                getRejectedTotal(), getRejectedPerAddress());
+    }
+}
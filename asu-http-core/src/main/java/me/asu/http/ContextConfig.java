@@ -0,0 +1,84 @@
+package me.asu.http;
+
+/**
+ * {@code ContextConfig} 保存单个上下文注册的可选设置。
+ *
+ * @see HTTPServer#addContext(String, ContextHandler, ContextConfig, String...)
+ */
+public class ContextConfig {
+
+    protected RateLimiter rateLimiter;
+    protected Bulkhead bulkhead;
+    protected long timeout;
+    protected boolean streamBody;
+    protected boolean lazyJson;
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * 设置该上下文的速率限制器。超出限制的请求在解析请求体之前以 429 响应拒绝。
+     *
+     * @param rateLimiter 速率限制器，null 表示不限制
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * 设置处理该上下文请求的隔离舱。
+     *
+     * @param bulkhead 隔离舱，null 表示直接在服务器的工作线程上处理
+     */
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 设置该上下文的请求截止时间，覆盖服务器的 {@link HTTPServer#getRequestTimeout() 默认值}。
+     *
+     * @param timeout 从读取请求行开始计算的毫秒数，0 表示使用服务器的默认值
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isStreamBody() {
+        return streamBody;
+    }
+
+    /**
+     * 设置服务器是否跳过对该上下文请求体的解析（表单、multipart、XML 或 JSON），
+     * 由处理器自行从 {@link Request#getBody()} 流式读取，例如以 {@code OkJsonStreamParser} 逐个处理很大的 JSON 数组。
+     * 此时请求体不受服务器的 {@link HTTPServer#getMaxBodySize() 最大请求体大小} 限制。
+     *
+     * @param streamBody 是否由处理器自行读取请求体
+     */
+    public void setStreamBody(boolean streamBody) {
+        this.streamBody = streamBody;
+    }
+
+    public boolean isLazyJson() {
+        return lazyJson;
+    }
+
+    /**
+     * 设置是否将该上下文的 JSON 请求体解析为 {@link JsonDoc}，而不是完整的 Map。
+     * 服务器只对请求体建立索引，处理器以 {@link Request#getJsonDoc()} 按需读取字段；
+     * 调用 {@link Request#getDataMap()} 时才转换为 Map。
+     *
+     * @param lazyJson 是否惰性解析 JSON 请求体
+     */
+    public void setLazyJson(boolean lazyJson) {
+        this.lazyJson = lazyJson;
+    }
+}
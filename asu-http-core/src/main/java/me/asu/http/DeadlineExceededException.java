@@ -0,0 +1,18 @@
+package me.asu.http;
+
+import java.io.IOException;
+
+/**
+ * 表示请求的处理超过了其截止时间。
+ * <p>
+ * 处理器可以调用 {@link Request#checkDeadline()} 协作式地检查截止时间；
+ * 在响应头尚未发送时，服务器以 504 响应此异常。
+ *
+ * @see Request#getRemainingTime()
+ */
+public class DeadlineExceededException extends IOException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
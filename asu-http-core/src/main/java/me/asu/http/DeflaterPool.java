@@ -0,0 +1,128 @@
+package me.asu.http;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * {@code DeflaterPool} 是一个有界的无锁 {@link Deflater} 池，用于在响应之间复用压缩器。
+ * <p>
+ * 每个 Deflater 都持有 zlib 的本地内存，若为每个响应新建一个 Deflater，
+ * 这些本地内存要等到 GC 清理时才会释放。池中的 Deflater 在归还时被重置；
+ * 池满时归还的 Deflater 会立即被 {@link Deflater#end() 结束}，
+ * 因此空闲压缩器占用的本地内存以池的大小为上限。
+ * <p>
+ * 取出和归还都不会阻塞：池空时创建新的 Deflater，池满时丢弃归还的 Deflater。
+ *
+ * @see HTTPServer.GzipConfig
+ */
+public class DeflaterPool {
+
+    /** 默认的池大小 */
+    public static final int DEFAULT_SIZE = Math.max(16, 2 * Runtime.getRuntime().availableProcessors());
+
+    /** 用于 gzip 编码的池（不带 zlib 头部和校验和） */
+    public static final DeflaterPool GZIP = new DeflaterPool(true, DEFAULT_SIZE);
+
+    /** 用于 deflate 编码（zlib 格式）的池 */
+    public static final DeflaterPool ZLIB = new DeflaterPool(false, DEFAULT_SIZE);
+
+    protected final boolean nowrap;
+    protected final AtomicReferenceArray<Deflater> slots;
+    protected final int mask;
+
+    protected final LongAdder created = new LongAdder();
+    protected final LongAdder reused = new LongAdder();
+    protected final LongAdder discarded = new LongAdder();
+
+    /**
+     * 构造一个 Deflater 池。
+     *
+     * @param nowrap 是否省略 zlib 头部和校验和（用于 gzip）
+     * @param size   池中最多保留的空闲 Deflater 数（将向上取整为2的幂）
+     * @throws IllegalArgumentException 如果池大小不是正数
+     */
+    public DeflaterPool(boolean nowrap, int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("invalid pool size: " + size);
+        int n = Integer.highestOneBit(size);
+        n = n < size ? n << 1 : n;
+        this.nowrap = nowrap;
+        this.slots = new AtomicReferenceArray<>(n);
+        this.mask = n - 1;
+    }
+
+    /**
+     * 取出一个 Deflater，并设置其压缩级别和策略。
+     *
+     * @param level    压缩级别（{@link Deflater#DEFAULT_COMPRESSION} 或 0-9）
+     * @param strategy 压缩策略（{@link Deflater#DEFAULT_STRATEGY}、{@link Deflater#FILTERED}
+     *                 或 {@link Deflater#HUFFMAN_ONLY}）
+     * @return 处于初始状态的 Deflater，用完后须以 {@link #release(Deflater)} 归还
+     */
+    public Deflater acquire(int level, int strategy) {
+        int start = start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            Deflater def = slots.get(slot);
+            if (def != null && slots.compareAndSet(slot, def, null)) {
+                reused.increment();
+                def.setLevel(level);
+                def.setStrategy(strategy);
+                return def;
+            }
+        }
+        created.increment();
+        Deflater def = new Deflater(level, nowrap);
+        def.setStrategy(strategy);
+        return def;
+    }
+
+    /**
+     * 重置一个 Deflater 并将其归还池中；池已满时结束它以立即释放本地内存。
+     * Deflater 归还后不得再使用。
+     *
+     * @param def 由 {@link #acquire(int, int)} 取得的 Deflater
+     */
+    public void release(Deflater def) {
+        def.reset();
+        int start = start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, def))
+                return;
+        }
+        discarded.increment();
+        def.end();
+    }
+
+    protected static int start() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9; // spread sequential thread ids
+    }
+
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+    /** @return 新创建的 Deflater 数 */
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /** @return 从池中复用的 Deflater 数 */
+    public long getReused() {
+        return reused.sum();
+    }
+
+    /** @return 因池满而结束的 Deflater 数 */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeflaterPool[nowrap=%b, created=%d, reused=%d, discarded=%d]",
+                nowrap, getCreated(), getReused(), getDiscarded());
+    }
+}
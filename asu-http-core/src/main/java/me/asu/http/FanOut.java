@@ -0,0 +1,283 @@
+package me.asu.http;
+
+import me.asu.log.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * {@code FanOut} 是一个请求范围内的结构化并发作用域，用于在处理器中并发调用多个后端。
+ * <p>
+ * 每个子任务运行在独立的虚拟线程上，同时运行的子任务数受每个请求的并发上限约束。
+ * {@link #join()} 等待所有子任务完成；任一子任务失败、请求超过截止时间、
+ * 或连接被挂起的请求被取消（例如客户端断开）时，其余子任务都会被取消（中断）。
+ * 作用域关闭时会取消并等待所有尚未结束的子任务，因此子任务不会比作用域存活得更久。
+ * <pre>{@code
+ * try (FanOut scope = req.fanOut()) {
+ *     FanOut.Subtask<User> user = scope.fork("user", () -> users.get(id));
+ *     FanOut.Subtask<List<Order>> orders = scope.fork("orders", () -> orders.list(id));
+ *     scope.join();
+ *     resp.send(200, render(user.get(), orders.get()));
+ * }
+ * }</pre>
+ * 作用域只能由创建它的线程使用。
+ *
+ * @see Request#fanOut()
+ */
+public class FanOut implements AutoCloseable {
+
+    protected final Request request;
+    protected final Semaphore permits;
+    protected final ThreadFactory factory = Thread.ofVirtual().name("FanOut-", 0).factory();
+    protected final List<Subtask<?>> subtasks = new ArrayList<>();
+    protected final CompletableFuture<Void> failed = new CompletableFuture<>();
+    protected volatile boolean cancelled;
+    protected boolean closed;
+
+    /**
+     * 构造一个请求范围内的作用域。
+     *
+     * @param request        所属的请求（提供截止时间），可以为 null
+     * @param maxConcurrency 同时运行的最大子任务数
+     * @throws IllegalArgumentException 如果并发上限不是正数
+     */
+    public FanOut(Request request, int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("invalid concurrency: " + maxConcurrency);
+        this.request = request;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * 在新的虚拟线程上启动一个子任务，以 "subtask-n" 命名。
+     *
+     * @param task 子任务
+     * @param <T>  结果类型
+     * @return 子任务句柄
+     */
+    public <T> Subtask<T> fork(Callable<? extends T> task) {
+        return fork("subtask-" + subtasks.size(), task);
+    }
+
+    /**
+     * 在新的虚拟线程上启动一个具名的子任务。
+     *
+     * @param name 子任务名称（用于计时和错误信息）
+     * @param task 子任务
+     * @param <T>  结果类型
+     * @return 子任务句柄
+     * @throws IllegalStateException 如果作用域已关闭
+     */
+    public <T> Subtask<T> fork(String name, Callable<? extends T> task) {
+        if (closed)
+            throw new IllegalStateException("scope is closed");
+        Subtask<T> subtask = new Subtask<>(name, task);
+        subtasks.add(subtask);
+        if (cancelled) {
+            subtask.result.cancel(false);
+        } else {
+            subtask.thread = factory.newThread(subtask);
+            subtask.thread.start();
+        }
+        return subtask;
+    }
+
+    /**
+     * 等待所有子任务成功完成。任一子任务失败或超过请求截止时间时，取消其余子任务。
+     *
+     * @throws DeadlineExceededException 如果在所有子任务完成前超过了请求截止时间
+     * @throws InterruptedIOException    如果等待被中断或作用域被取消
+     * @throws IOException               如果某个子任务失败（原因为该子任务的异常）
+     */
+    public void join() throws IOException {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[subtasks.size()];
+        for (int i = 0; i < results.length; i++)
+            results[i] = subtasks.get(i).result;
+        CompletableFuture<Object> done = CompletableFuture.anyOf(CompletableFuture.allOf(results), failed);
+        try {
+            long remaining = request == null ? Long.MAX_VALUE : request.getRemainingNanos();
+            if (remaining == Long.MAX_VALUE)
+                done.get();
+            else
+                done.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException te) {
+            cancel();
+            throw new DeadlineExceededException("request deadline exceeded while waiting for subtasks");
+        } catch (InterruptedException ie) {
+            cancel();
+            if (request != null && request.isDeadlineExceeded()) // interrupted at the deadline
+                throw new DeadlineExceededException("request deadline exceeded while waiting for subtasks");
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for subtasks");
+        } catch (ExecutionException | CancellationException e) {
+            // reported below
+        }
+        for (Subtask<?> subtask : subtasks) {
+            if (subtask.state() == Subtask.State.FAILED) {
+                cancel();
+                throw new IOException("subtask " + subtask.name + " failed", subtask.exception());
+            }
+        }
+        if (cancelled)
+            throw new InterruptedIOException("subtasks were cancelled");
+    }
+
+    /**
+     * 取消所有尚未结束的子任务（中断其线程）。
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Subtask<?> subtask : new ArrayList<>(subtasks))
+            subtask.cancel();
+    }
+
+    /**
+     * 返回各子任务的耗时（纳秒），不包括等待并发许可的时间；尚未结束的子任务不包括在内。
+     *
+     * @return 子任务名称到耗时的有序映射
+     */
+    public Map<String, Long> getTimings() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (Subtask<?> subtask : subtasks)
+            if (subtask.endNanos != 0)
+                timings.put(subtask.name, subtask.getElapsedNanos());
+        return timings;
+    }
+
+    /**
+     * 取消并等待所有尚未结束的子任务，然后关闭作用域。
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        cancel();
+        boolean interrupted = false;
+        for (Subtask<?> subtask : subtasks) {
+            while (subtask.thread != null && subtask.thread.isAlive()) {
+                try {
+                    subtask.thread.join();
+                } catch (InterruptedException ie) {
+                    interrupted = true; // keep waiting - subtasks must not outlive the scope
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (Log.DEBUG && !subtasks.isEmpty())
+            Log.debug("FanOut " + (request == null ? "" : request.getPath() + " ") + "timings(ns): " + getTimings());
+    }
+
+    /**
+     * {@code Subtask} 是一个已启动的子任务的句柄。
+     *
+     * @param <T> 结果类型
+     */
+    public class Subtask<T> implements Runnable {
+
+        public enum State {UNAVAILABLE, SUCCESS, FAILED}
+
+        protected final String name;
+        protected final Callable<? extends T> task;
+        protected final CompletableFuture<T> result = new CompletableFuture<>();
+        protected final long forkNanos = System.nanoTime();
+        protected volatile Thread thread;
+        protected volatile long startNanos;
+        protected volatile long endNanos;
+
+        Subtask(String name, Callable<? extends T> task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ie) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                startNanos = System.nanoTime();
+                if (!cancelled)
+                    result.complete(task.call());
+            } catch (Throwable t) {
+                if (result.completeExceptionally(t) && !cancelled)
+                    failed.complete(null); // fail fast - wake up the joiner
+            } finally {
+                endNanos = System.nanoTime();
+                permits.release();
+                result.cancel(false); // no-op unless cancelled before running
+            }
+        }
+
+        void cancel() {
+            if (result.cancel(false)) {
+                Thread t = thread;
+                if (t != null)
+                    t.interrupt();
+            }
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * 返回子任务的状态。被取消的子任务状态为 {@link State#UNAVAILABLE}。
+         *
+         * @return 子任务的状态
+         */
+        public State state() {
+            if (!result.isDone() || result.isCancelled())
+                return State.UNAVAILABLE;
+            return result.isCompletedExceptionally() ? State.FAILED : State.SUCCESS;
+        }
+
+        /**
+         * 返回子任务的结果。
+         *
+         * @return 子任务的结果
+         * @throws IllegalStateException 如果子任务未成功完成
+         */
+        public T get() {
+            if (state() != State.SUCCESS)
+                throw new IllegalStateException("subtask " + name + " did not complete successfully");
+            return result.join();
+        }
+
+        /**
+         * 返回子任务失败的异常。
+         *
+         * @return 子任务的异常
+         * @throws IllegalStateException 如果子任务没有失败
+         */
+        public Throwable exception() {
+            if (state() != State.FAILED)
+                throw new IllegalStateException("subtask " + name + " did not fail");
+            try {
+                result.join();
+                return null; // not reached
+            } catch (CompletionException ce) {
+                return ce.getCause();
+            }
+        }
+
+        /** @return 子任务的运行耗时（纳秒），尚未结束时返回 -1 */
+        public long getElapsedNanos() {
+            return endNanos == 0 || startNanos == 0 ? -1 : endNanos - startNanos;
+        }
+
+        /** @return 子任务等待并发许可的时间（纳秒），尚未开始时返回 -1 */
+        public long getWaitNanos() {
+            return startNanos == 0 ? -1 : startNanos - forkNanos;
+        }
+    }
+}
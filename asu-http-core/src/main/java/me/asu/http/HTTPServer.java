@@ -10,11 +10,11 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
 
 import static me.asu.http.Bytes.CRLF;
 import static me.asu.http.Bytes.getBytes;
@@ -34,12 +34,25 @@ public class HTTPServer {
     protected volatile boolean enableCors;
     protected final Set<String> methods = new CopyOnWriteArraySet<>();
     protected final ContextInfo rootContext = new ContextInfo("", ""); // root of context tree
+    protected final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
     protected volatile int port = 80;
     protected volatile int nThreads = 256;
     protected volatile int socketTimeout = 5000;
+    protected volatile long asyncTimeout = 30000;
+    protected volatile long requestTimeout = 0;
+    protected volatile int fanOutConcurrency = 16;
+    protected volatile int chunkBufferSize = 8192;
+    protected volatile int responseBufferSize = 16 * 1024;
+    protected volatile BufferPool responseBuffers; // created on start from the response buffer size
+    protected volatile BufferPool chunkBuffers; // created on start from the chunk buffer size
+    protected volatile int maxBodySize = 1024 * 1024;
+    protected volatile ScheduledExecutorService scheduler; // deadline timers, created on demand
+    protected final LongAdder deadlineExceeded = new LongAdder();
     protected volatile ServerSocketFactory serverSocketFactory;
     protected volatile boolean secure = false;
     protected volatile Executor executor;
+    protected volatile AdmissionController admissionController;
+    protected volatile ConnectionLimiter connectionLimiter;
     protected volatile ServerSocket serv;
     protected CorsConfig corsConfig = new CorsConfig();
     protected GzipConfig gzipConfig = new GzipConfig();
@@ -48,6 +61,19 @@ public class HTTPServer {
         this.port = port;
     }
 
+    public GzipConfig getGzipConfig() {
+        return gzipConfig;
+    }
+
+    /**
+     * 设置响应压缩的配置。
+     *
+     * @param gzipConfig 压缩配置
+     */
+    public void setGzipConfig(GzipConfig gzipConfig) {
+        this.gzipConfig = gzipConfig;
+    }
+
     public boolean isEnableCors() {
         return enableCors;
     }
@@ -56,6 +82,158 @@ public class HTTPServer {
         this.executor = executor;
     }
 
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * 设置对每个请求进行准入控制的控制器。请求在读取请求头之后、处理之前获取许可，
+     * 处理结束（或被挂起）时释放许可，因此空闲的持久连接不占用许可。
+     * 超出限制的请求将以 503 响应拒绝，并关闭连接。
+     *
+     * @param admissionController 准入控制器，null 表示不限制
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * 注册一个具名的隔离舱，以便上下文按名称引用它。
+     *
+     * @param bulkhead 隔离舱
+     */
+    public void addBulkhead(Bulkhead bulkhead) {
+        bulkheads.put(bulkhead.getName(), bulkhead);
+    }
+
+    /**
+     * 返回具有给定名称的隔离舱。
+     *
+     * @param name 隔离舱名称
+     * @return 隔离舱，如果未注册则返回 null
+     */
+    public Bulkhead getBulkhead(String name) {
+        return bulkheads.get(name);
+    }
+
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    public ConnectionLimiter getConnectionLimiter() {
+        return connectionLimiter;
+    }
+
+    /**
+     * 设置在接受连接时限制连接总数和每个远程地址连接数的限制器。
+     * 超出限制的连接在接受后立即关闭。
+     *
+     * @param connectionLimiter 连接限制器，null 表示不限制
+     */
+    public void setConnectionLimiter(ConnectionLimiter connectionLimiter) {
+        this.connectionLimiter = connectionLimiter;
+    }
+
+    public int getChunkBufferSize() {
+        return chunkBufferSize;
+    }
+
+    /**
+     * 设置分块编码的缓冲区大小。长度未知的响应体先累积在该大小的缓冲区中，
+     * 缓冲区写满或被刷新时才输出一个数据块。
+     *
+     * @param chunkBufferSize 缓冲区大小（字节），0 表示不累积，每次写入都输出一个数据块
+     * @throws IllegalArgumentException 如果大小为负数
+     */
+    public void setChunkBufferSize(int chunkBufferSize) {
+        if (chunkBufferSize < 0)
+            throw new IllegalArgumentException("invalid chunk buffer size: " + chunkBufferSize);
+        this.chunkBufferSize = chunkBufferSize;
+    }
+
+    public int getResponseBufferSize() {
+        return responseBufferSize;
+    }
+
+    /**
+     * 设置响应缓冲区大小。不超过该大小的、长度未知的响应体（包括压缩后的响应体）被缓冲，
+     * 并在响应结束时以 Content-Length 连同响应头一次写出；超出时改为分块编码。
+     *
+     * @param responseBufferSize 缓冲区大小（字节），0 表示不缓冲
+     * @throws IllegalArgumentException 如果大小为负数
+     */
+    public void setResponseBufferSize(int responseBufferSize) {
+        if (responseBufferSize < 0)
+            throw new IllegalArgumentException("invalid response buffer size: " + responseBufferSize);
+        this.responseBufferSize = responseBufferSize;
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * 设置完整读入内存的请求体（JSON、XML 或文本）的最大大小。超过该大小的请求被拒绝（413），
+     * 上传文件应使用 multipart/form-data 请求。
+     *
+     * @param maxBodySize 最大大小（字节）
+     * @throws IllegalArgumentException 如果大小为负数
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        if (maxBodySize < 0)
+            throw new IllegalArgumentException("invalid max body size: " + maxBodySize);
+        this.maxBodySize = maxBodySize;
+    }
+
+    public int getFanOutConcurrency() {
+        return fanOutConcurrency;
+    }
+
+    /**
+     * 设置每个请求通过 {@link Request#fanOut()} 同时运行的默认最大子任务数。
+     *
+     * @param fanOutConcurrency 最大子任务数
+     */
+    public void setFanOutConcurrency(int fanOutConcurrency) {
+        this.fanOutConcurrency = fanOutConcurrency;
+    }
+
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * 设置请求的默认截止时间。截止时间从读取请求行时开始计算，超时的处理器线程将被中断，
+     * 并在响应头尚未发送时返回 504 响应。上下文可以通过 {@link ContextConfig#setTimeout} 覆盖此值。
+     *
+     * @param requestTimeout 截止时间（毫秒），0 表示不限时
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * 返回超过截止时间的请求数。
+     *
+     * @return 超过截止时间的请求数
+     */
+    public long getDeadlineExceeded() {
+        return deadlineExceeded.sum();
+    }
+
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * 设置 {@link AsyncContextHandler} 及 {@link Bulkhead 隔离舱}中请求的默认超时时间。
+     *
+     * @param asyncTimeout 超时时间（毫秒），0 表示不限时
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
     /**
      * 将一个上下文及其相应的上下文处理器添加至本服务器。
      * 路径通过去除尾部斜杠（根路径除外）进行规范化，并且
@@ -69,12 +247,26 @@ public class HTTPServer {
      * @throws IllegalArgumentException 如果路径格式不正确
      */
     public void addContext(String path, ContextHandler handler, String... methods) {
+        addContext(path, handler, null, methods);
+    }
+
+    /**
+     * 将一个上下文及其相应的上下文处理器和设置添加至本服务器。
+     *
+     * @param path    上下文的路径（必须以‘/’开头）
+     * @param handler 该路径的上下文处理器
+     * @param config  该上下文的设置（例如速率限制），可以为 null
+     * @param methods 该上下文处理器支持的HTTP方法（默认为“GET”）
+     * @throws IllegalArgumentException 如果路径格式不正确
+     * @see #addContext(String, ContextHandler, String...)
+     */
+    public void addContext(String path, ContextHandler handler, ContextConfig config, String... methods) {
         if (path == null || !path.startsWith("/") && !path.equals("*"))
             throw new IllegalArgumentException("invalid path: " + path);
         if (path.length() > 1)
             path = trimRight(path, '/'); // remove trailing slash
         ContextInfo context = rootContext.getContext(path, 0, true, 0, null);
-        context.addHandler(handler, methods);
+        context.addHandler(handler, config, methods);
     }
 
 
@@ -102,6 +294,8 @@ public class HTTPServer {
      * 如果为 null 或未设置，则使用默认的 {@link ServerSocketFactory#getDefault()}。
      * 对于安全套接字（HTTPS），请使用 SSLServerSocketFactory 实例。
      * 对于 HTTPS，端口通常也应更改，例如使用 443 端口而不是 80。
+     * 若工厂创建基于通道的套接字（例如 {@code ServerSocketChannel.open().socket()}），
+     * 未经编码的文件响应体将通过 {@link java.nio.channels.FileChannel#transferTo} 直接写入连接。
      * <p>
      * 如果使用 {@link SSLServerSocketFactory#getDefault()} 返回的默认 SSLServerSocketFactory，
      * 则必须设置适当的系统属性以配置默认的 JSSE 提供程序，例如
@@ -131,6 +325,8 @@ public class HTTPServer {
             executor = Executors.newVirtualThreadPerTaskExecutor();
         }
         Response.gzipConfig = gzipConfig;
+        chunkBuffers = chunkBufferSize == 0 ? null : new BufferPool(chunkBufferSize);
+        responseBuffers = responseBufferSize == 0 ? null : new BufferPool(responseBufferSize + Response.HEADER_ROOM);
         new SocketHandlerThread().start();
     }
 
@@ -155,21 +351,47 @@ public class HTTPServer {
      * @param in   从中读取传入请求的流
      * @param out  将传出响应写入的流
      * @param sock 连接的套接字
+     * @return 连接是否已移交给尚未完成的 {@link AsyncContextHandler}，
+     * 此时调用方不得关闭套接字，连接将在异步处理完成后继续处理或关闭
      * @throws IOException 如果发生错误
      */
-    protected void handleConnection(InputStream in, OutputStream out, Socket sock) throws IOException {
-        in = new BufferedInputStream(in, 4096);
-        out = new BufferedOutputStream(out, 4096);
+    protected boolean handleConnection(InputStream in, OutputStream out, Socket sock) throws IOException {
+        in = new BufferedInputStream(new GuardedInputStream(in), 4096);
+        out = new BufferedOutputStream(new GuardedOutputStream(out), 4096);
+        return handleTransactions(in, out, sock);
+    }
+
+    /**
+     * 在已缓冲的连接流上依次处理事务，直到连接应关闭或事务被挂起。
+     *
+     * @param in   从中读取传入请求的流（必须支持 mark/reset）
+     * @param out  将传出响应写入的流
+     * @param sock 连接的套接字
+     * @return 连接是否已移交给尚未完成的异步处理器
+     * @throws IOException 如果发生错误
+     */
+    protected boolean handleTransactions(InputStream in, OutputStream out, Socket sock) throws IOException {
         Request req;
         Response resp;
         do {
             // create request and response and handle transaction
             req = null;
-            resp = new Response(out);
+            resp = new Response(out, responseBuffers, chunkBuffers);
+            resp.setChannel(sock.getChannel()); // only channel-based sockets have one
+            AdmissionController admission = admissionController;
+            boolean admitted = false;
+            boolean suspended = false;
             try {
                 req = new Request(this, in, sock);
                 resp.setClientCapabilities(req);
-                if (preprocess(req, resp)) handleMethod(req, resp);
+                if (admission != null && !(admitted = admit(admission, resp)))
+                    break; // rejected - proceed to close connection
+                if (preprocess(req, resp) && parseBody(req, resp)) handleMethod(req, resp);
+                if (req.async != null) { // handed off to an asynchronous handler
+                    suspended = true;
+                    suspend(req, resp, in, sock);
+                    return true;
+                }
             } catch (Throwable t) { // unhandled errors (not normal error responses like 404)
                 if (req == null) { // error reading request
                     if (t instanceof IOException && t.getMessage().contains("missing request line"))
@@ -181,22 +403,240 @@ public class HTTPServer {
                         resp.sendError(414); // [RFC9112#3] must return 414 if URI is too long
                     else
                         resp.sendError(400, "Invalid request: " + t.getMessage());
-                } else if (!resp.headersSent()) { // if headers were not already sent, we can send an error response
-                    resp = new Response(out); // ignore whatever headers may have already been set
-                    resp.getHeaders().add(CONNECTION, CLOSE); // about to close connection
-                    resp.sendError(500, "Error processing request: " + t.getMessage());
-                } // otherwise just abort the connection since we can't recover
+                } else {
+                    boolean expired = isDeadlineExceeded(t);
+                    if (expired)
+                        deadlineExceeded.increment();
+                    if (!resp.isCommitted()) { // if nothing was sent yet, we can send an error response
+                        resp.abandon(); // return its pooled deflater and buffers without writing anything
+                        resp = new Response(out); // ignore whatever headers may have already been set
+                        resp.getHeaders().add(CONNECTION, CLOSE); // about to close connection
+                        if (expired)
+                            resp.sendError(504, "Request deadline exceeded");
+                        else if (t.getCause() instanceof TimeoutException)
+                            resp.sendError(504, "Request processing timed out");
+                        else
+                            resp.sendError(500, "Error processing request: " + t.getMessage());
+                    } // otherwise just abort the connection since we can't recover
+                }
                 break; // proceed to close connection
             } finally {
-                resp.close(); // close response and flush output
-                // consume any leftover body data so next request can be processed
-                if (req != null) transfer(req.getBody(), null, -1);
-                // [RFC9112#9.3/9.6] persist connection unless client or server close explicitly (or legacy client)
-                if (req != null) req.cleanup();
+                if (!suspended) { // otherwise the response is completed by the asynchronous handler
+                    if (req != null && req.async != null)
+                        req.async.cancel(true); // failed before suspending
+                    resp.close(); // close response and flush output
+                    // before reusing the connection, wait until it's no longer watched (see serveInBulkhead)
+                    if (req != null && req.watcher != null && isKeepAlive(req, resp) && !req.watcher.join())
+                        resp.getHeaders().replace(CONNECTION, CLOSE); // client is gone or idle
+                    // consume any leftover body data so next request can be processed
+                    // (unless the connection is closing anyway, e.g. the request was rejected)
+                    if (req != null && isKeepAlive(req, resp)) transfer(req.getBody(), null, -1);
+                    // [RFC9112#9.3/9.6] persist connection unless client or server close explicitly (or legacy client)
+                    if (req != null) req.cleanup();
+                }
+                if (admitted)
+                    admission.release(); // the connection doesn't hold a permit while idle or suspended
+            }
+
+        } while (isKeepAlive(req, resp));
+        return false;
+    }
+
+    /**
+     * 为请求获取准入许可，必要时在准入控制器的队列中等待。
+     * 请求被拒绝时发送 503 响应，并关闭连接。
+     *
+     * @param admission 准入控制器
+     * @param resp      响应
+     * @return 是否获得了许可（获得后必须释放）
+     * @throws IOException 如果发生错误或等待时被中断
+     */
+    protected boolean admit(AdmissionController admission, Response resp) throws IOException {
+        try {
+            if (admission.acquire())
+                return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for admission");
+        }
+        resp.getHeaders().add(CONNECTION, CLOSE); // the body is not read, so the connection can't be reused
+        resp.sendRaw(admission.getRejectResponse());
+        return false;
+    }
+
+    /**
+     * 返回在当前事务结束后是否应保持连接。
+     *
+     * @param req  请求
+     * @param resp 响应
+     * @return 是否应继续处理该连接上的下一个请求
+     */
+    protected boolean isKeepAlive(Request req, Response resp) {
+        String connection = resp.getHeaders().get(CONNECTION);
+        return !CLOSE.equalsIgnoreCase(connection)
+                && (isVer11(req) || KEEP_ALIVE.equalsIgnoreCase(connection)) // HTTP/1.0 only if agreed
+                && serv != null; // also close if the server is shutting down
+    }
+
+    /**
+     * 挂起一个由异步处理器处理的事务。
+     * 挂起期间由一个虚拟线程监视连接，以便在客户端断开时取消处理；
+     * 处理完成后在执行器上完成响应，并在连接可复用时继续处理后续请求。
+     *
+     * @param req  被挂起的请求
+     * @param resp 被挂起的响应
+     * @param in   连接的（已缓冲的）输入流
+     * @param sock 连接的套接字
+     */
+    protected void suspend(Request req, Response resp, InputStream in, Socket sock) {
+        CompletableFuture<Integer> result = req.async;
+        CompletableFuture<Boolean> readable = new CompletableFuture<>();
+        Thread.ofVirtual().name("AsyncWatcher-" + port).start(() -> watch(in, result, readable));
+        result.whenCompleteAsync((status, t) -> {
+            boolean keepAlive = false;
+            try {
+                keepAlive = completeAsync(req, resp, status, t);
+            } finally { // the connection must be resumed or closed, even if completing the response failed
+                if (keepAlive) // wait until the next request arrives (or the connection is lost)
+                    readable.thenAcceptAsync(alive -> resume(alive, in, resp.getOutputStream(), sock), executor);
+                else
+                    closeConnection(sock);
+            }
+        }, executor);
+    }
+
+    /**
+     * 监视被挂起的连接，直到有新数据到达或连接断开。
+     * 读取到的数据会被退回流中，以便后续请求正常解析。
+     *
+     * @param in       连接的（已缓冲的）输入流
+     * @param result   异步处理结果，连接断开时将被取消
+     * @param readable 监视结束时完成，其值表示连接是否仍然可用
+     */
+    void watch(InputStream in, CompletableFuture<Integer> result, CompletableFuture<Boolean> readable) {
+        boolean alive = false;
+        try {
+            while (true) {
+                try {
+                    in.mark(1);
+                    if (in.read() >= 0) {
+                        in.reset(); // leave the data for the next request
+                        alive = true;
+                    }
+                    break;
+                } catch (SocketTimeoutException ste) {
+                    if (result.isDone())
+                        break; // idle connection - close it just like a synchronous one
+                }
+            }
+        } catch (IOException ignore) { // connection lost
+        } finally {
+            if (!alive)
+                result.cancel(true); // client is gone - cancel the handler (no-op if already completed)
+            readable.complete(alive);
+        }
+    }
+
+    /**
+     * 在异步处理完成后完成响应。
+     *
+     * @param req    请求
+     * @param resp   响应
+     * @param status 处理器给出的状态码（异常完成时为 null）
+     * @param t      处理器的异常（正常完成时为 null）
+     * @return 是否应保持连接
+     */
+    boolean completeAsync(Request req, Response resp, Integer status, Throwable t) {
+        try {
+            try {
+                if (t == null) {
+                    if (status != null && status > 0) resp.sendError(status);
+                    resp.close();
+                    return isKeepAlive(req, resp);
+                }
+                if (t instanceof CompletionException && t.getCause() != null)
+                    t = t.getCause();
+                boolean expired = isDeadlineExceeded(t) || t instanceof TimeoutException && req.isDeadlineExceeded();
+                if (expired)
+                    deadlineExceeded.increment();
+                boolean committed = resp.isCommitted();
+                resp.abandon(); // the connection is closed, so just return its pooled deflater and buffers
+                if (!(t instanceof CancellationException) && !committed) {
+                    Response error = new Response(resp.getOutputStream()); // ignore headers already set
+                    error.getHeaders().add(CONNECTION, CLOSE); // about to close connection
+                    if (expired)
+                        error.sendError(504, "Request deadline exceeded");
+                    else if (t instanceof TimeoutException)
+                        error.sendError(504, "Request processing timed out");
+                    else
+                        error.sendError(500, "Error processing request: " + t.getMessage());
+                    error.close();
+                }
+                return false; // cancelled (client is gone), timed out or failed
+            } finally {
+                req.cleanup();
             }
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
 
-        } while (!CLOSE.equalsIgnoreCase(resp.getHeaders().get(CONNECTION))
-                && isVer11(req) && serv != null); // also close if the server is shutting down
+    /**
+     * 在异步事务完成后继续处理连接上的后续请求。
+     *
+     * @param alive 连接是否仍然可用
+     * @param in    连接的（已缓冲的）输入流
+     * @param out   连接的（已缓冲的）输出流
+     * @param sock  连接的套接字
+     */
+    void resume(boolean alive, InputStream in, OutputStream out, Socket sock) {
+        boolean suspended = false;
+        try {
+            suspended = alive && serv != null && handleTransactions(in, out, sock);
+        } catch (IOException ignore) {
+        } finally {
+            if (!suspended) closeConnection(sock); // unless suspended again
+        }
+    }
+
+    /**
+     * 在工作线程上处理一个已接受的连接，并在处理结束（且未被挂起）时关闭它。
+     *
+     * @param sock 连接的套接字
+     */
+    protected void serveConnection(Socket sock) {
+        boolean suspended = false;
+        try {
+            sock.setSoTimeout(socketTimeout);
+            sock.setTcpNoDelay(true); // we buffer anyway, so improve latency
+            suspended = handleConnection(sock.getInputStream(), sock.getOutputStream(), sock);
+        } catch (IOException ignore) {
+        } finally {
+            if (!suspended) closeConnection(sock);
+        }
+    }
+
+    /**
+     * 优雅地关闭连接。
+     *
+     * @param sock 连接的套接字
+     */
+    protected void closeConnection(Socket sock) {
+        ConnectionLimiter limiter = connectionLimiter;
+        if (limiter != null)
+            limiter.release(sock.getInetAddress());
+        try {
+            try {
+                // [RFC9112#9.6] close socket gracefully
+                // (except SSL socket which doesn't support half-closing)
+                if (!(sock instanceof SSLSocket)) {
+                    sock.shutdownOutput(); // half-close socket (only output)
+                    transfer(sock.getInputStream(), null, -1); // consume input
+                }
+            } finally {
+                sock.close(); // and finally close socket fully
+            }
+        } catch (IOException ignore) {}
     }
 
     /**
@@ -217,6 +657,9 @@ public class HTTPServer {
                 resp.sendError(400, "Exactly one Host header is required");
                 return false;
             }
+            // enforce the context's rate limits before a continue response invites the body
+            if (!checkRateLimit(req, resp))
+                return false;
             // return a continue response before reading body
             String expect = headers.get(EXPECT);
             if (expect != null) {
@@ -233,10 +676,59 @@ public class HTTPServer {
         } else if (!isSupportVer(req)) {  // [RFC9112#C1] drop HTTP/0.9 support
             resp.sendError(505);
             return false;
+        } else if (!checkRateLimit(req, resp)) {
+            return false;
         }
         return true;
     }
 
+    /**
+     * 执行上下文的速率限制。超出限制的请求以 429 响应拒绝，并且不读取其请求体，而是关闭连接。
+     *
+     * @param req  请求
+     * @param resp 响应
+     * @return 是否允许该请求
+     * @throws IOException 如果发生错误
+     */
+    protected boolean checkRateLimit(Request req, Response resp) throws IOException {
+        ContextConfig config = req.getContext().getConfig(req.getMethod());
+        RateLimiter limiter = config == null ? null : config.getRateLimiter();
+        if (limiter == null || limiter.tryAcquire(req.socket == null ? null : req.socket.getInetAddress()))
+            return true;
+        resp.getHeaders().add(CONNECTION, CLOSE); // the body is not read, so the connection can't be reused
+        resp.sendRaw(limiter.getRejectResponse());
+        return false;
+    }
+
+    /**
+     * 在预处理通过之后解析请求体（表单、multipart、XML 或 JSON），
+     * 上下文配置为{@link ContextConfig#setStreamBody(boolean) 自行读取请求体}时除外。
+     *
+     * @param req  请求
+     * @param resp 响应
+     * @return 是否应对该交易执行进一步处理
+     * @throws IOException 如果发生错误
+     */
+    protected boolean parseBody(Request req, Response resp) throws IOException {
+        ContextConfig config = req.getContext().getConfig(req.getMethod());
+        if (config != null && config.isStreamBody())
+            return true; // the handler reads the body itself
+        try {
+            req.initBody();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof RuntimeException && e.getCause() != null ? e.getCause() : e;
+            resp.getHeaders().add(CONNECTION, CLOSE); // the body may be left partially read
+            if (cause instanceof InterruptedIOException) // e.g. SocketTimeoutException
+                resp.sendError(408);
+            else if (cause instanceof IOException && String.valueOf(cause.getMessage()).contains("too large"))
+                resp.sendError(413, "Request body too large");
+            else
+                resp.sendError(400, "Invalid request body: " + cause.getMessage());
+            return false;
+        }
+    }
+
     protected boolean isVer11(Request req) {
         int version = req.getVersion();
         return version == 11;
@@ -364,16 +856,387 @@ public class HTTPServer {
                 req.setPath(path + index); // 重新计算上下文和处理程序，并使用更新后的路径。
                 ContextHandler indexHandler = handlers.get(req.getMethod());
                 if (indexHandler != null)
-                    status = indexHandler.serve(req, resp);
+                    status = invoke(indexHandler, req, resp);
                 req.setPath(path);
             }
         }
-        if (status == 404)
-            status = handler.serve(req, resp);
+        if (status == 404) {
+            ContextConfig config = context.getConfig(req.getMethod());
+            if (config != null && config.getBulkhead() != null) {
+                serveInBulkhead(config.getBulkhead(), handler, req, resp);
+                return;
+            }
+            if (handler instanceof AsyncContextHandler) {
+                serveAsync((AsyncContextHandler) handler, req, resp);
+                return;
+            }
+            status = invoke(handler, req, resp);
+        }
 
         if (status > 0) resp.sendError(status);
     }
 
+    /**
+     * 在请求截止时间的约束下同步调用上下文处理器。
+     * 若处理器在截止时间到达时仍在运行，其线程将被中断（正在连接上进行 I/O 时推迟到该 I/O 结束，
+     * 以免连接被关闭），此后处理器抛出的任何异常都将被视为 {@link DeadlineExceededException}。
+     *
+     * @param handler 上下文处理器
+     * @param req     请求
+     * @param resp    响应
+     * @return 处理器返回的状态码
+     * @throws IOException 如果发生错误或超过截止时间
+     */
+    int invoke(ContextHandler handler, Request req, Response resp) throws IOException {
+        if (!req.hasDeadline())
+            return handler.serve(req, resp);
+        req.checkDeadline();
+        Interrupter interrupter = new Interrupter(Thread.currentThread());
+        Interrupter.CURRENT.set(interrupter);
+        ScheduledFuture<?> timer = scheduler().schedule(interrupter, req.getRemainingNanos(), TimeUnit.NANOSECONDS);
+        try {
+            return handler.serve(req, resp);
+        } catch (IOException | RuntimeException | Error e) {
+            if (interrupter.isFired())
+                throw new DeadlineExceededException("request deadline exceeded: " + e);
+            throw e;
+        } finally {
+            timer.cancel(false);
+            Interrupter.CURRENT.remove();
+            if (interrupter.finish())
+                Thread.interrupted(); // don't leak the interrupt into the next request on this thread
+        }
+    }
+
+    /**
+     * 返回给定异常（或其原因链中的异常）是否表示超过了请求截止时间。
+     *
+     * @param t 异常
+     * @return 是否超过了截止时间
+     */
+    static boolean isDeadlineExceeded(Throwable t) {
+        for (int i = 0; t != null && i < 8; t = t.getCause(), i++)
+            if (t instanceof DeadlineExceededException)
+                return true;
+        return false;
+    }
+
+    /**
+     * 返回用于截止时间计时的调度器，必要时创建它。
+     *
+     * @return 调度器
+     */
+    ScheduledExecutorService scheduler() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null) {
+            synchronized (this) {
+                if ((s = scheduler) == null) {
+                    ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor(1,
+                            new NamedThreadFactory("Http-Deadline-" + port, true));
+                    stpe.setRemoveOnCancelPolicy(true); // most timers are cancelled
+                    scheduler = s = stpe;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * {@code Interrupter} 在截止时间到达时中断处理器线程，除非处理器已经结束。
+     * <p>
+     * 中断正在进行套接字或通道 I/O 的线程会关闭连接（虚拟线程的套接字和 {@code InterruptibleChannel} 均如此），
+     * 此后就无法再发送 504 响应。因此处理器线程在连接上进行 I/O 期间（见 {@link #enterIo()}）不会被中断，
+     * 而是只设置截止标志：该 I/O 结束后才中断线程，并且之后的连接 I/O 在开始前即抛出 {@link DeadlineExceededException}。
+     */
+    static class Interrupter implements Runnable {
+
+        /** 当前线程上正在运行的处理器的 Interrupter，仅在 {@link #invoke} 期间设置 */
+        static final ThreadLocal<Interrupter> CURRENT = new ThreadLocal<>();
+
+        final Thread thread;
+        int state; // 0 running, 1 fired, 2 finished
+        int io; // depth of connection I/O in progress on the thread
+        boolean interrupted; // whether the thread was interrupted
+
+        Interrupter(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (state == 0) {
+                state = 1;
+                if (io == 0) // otherwise deferred until the I/O completes
+                    interrupt();
+            }
+        }
+
+        void interrupt() {
+            interrupted = true;
+            thread.interrupt();
+        }
+
+        synchronized boolean isFired() {
+            return state == 1;
+        }
+
+        /**
+         * 标记处理器已结束。
+         *
+         * @return 线程是否已被中断
+         */
+        synchronized boolean finish() {
+            state = 2;
+            return interrupted;
+        }
+
+        /**
+         * 标记当前线程开始在连接上进行 I/O，期间不会被中断。
+         *
+         * @throws DeadlineExceededException 如果已经超过截止时间
+         */
+        static void enterIo() throws DeadlineExceededException {
+            Interrupter i = CURRENT.get();
+            if (i != null) {
+                synchronized (i) {
+                    if (i.state == 1)
+                        throw new DeadlineExceededException("request deadline exceeded");
+                    i.io++;
+                }
+            }
+        }
+
+        /**
+         * 标记当前线程结束在连接上的 I/O。若期间已超过截止时间，则现在中断线程。
+         */
+        static void exitIo() {
+            Interrupter i = CURRENT.get();
+            if (i != null) {
+                synchronized (i) {
+                    if (--i.io == 0 && i.state == 1 && !i.interrupted)
+                        i.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code GuardedInputStream} 在读取连接时标记正在进行的 I/O，以免处理器线程因截止时间被中断时关闭连接。
+     *
+     * @see Interrupter
+     */
+    static class GuardedInputStream extends FilterInputStream {
+
+        GuardedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            Interrupter.enterIo();
+            try {
+                return in.read();
+            } finally {
+                Interrupter.exitIo();
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Interrupter.enterIo();
+            try {
+                return in.read(b, off, len);
+            } finally {
+                Interrupter.exitIo();
+            }
+        }
+    }
+
+    /**
+     * {@code GuardedOutputStream} 在写入连接时标记正在进行的 I/O，以免处理器线程因截止时间被中断时关闭连接。
+     *
+     * @see Interrupter
+     */
+    static class GuardedOutputStream extends FilterOutputStream {
+
+        GuardedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            Interrupter.enterIo();
+            try {
+                out.write(b);
+            } finally {
+                Interrupter.exitIo();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            Interrupter.enterIo();
+            try {
+                out.write(b, off, len);
+            } finally {
+                Interrupter.exitIo();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            Interrupter.enterIo();
+            try {
+                out.flush();
+            } finally {
+                Interrupter.exitIo();
+            }
+        }
+    }
+
+    /**
+     * 在隔离舱中处理请求。隔离舱指定了执行器时，处理器在该执行器上运行，当前（连接的）线程等待其结束；
+     * 否则处理器在当前线程上，于隔离舱的准入许可下运行（交给服务器的执行器再等待它，会使固定大小的线程池
+     * 被等待中的连接线程占满，而处理任务在同一线程池的队列中无法执行）。两种情况下请求体都由处理器直接从连接读取。
+     * 若请求体已被读取完毕，则在处理期间监视连接，客户端断开时取消处理（中断处理器线程）。
+     * 若隔离舱拒绝该请求，则以 503 响应；
+     * 超过隔离舱的{@link Bulkhead#getTimeout() 超时时间}（包括排队时间）或请求的截止时间时，处理器被中断并以 504 响应。
+     *
+     * @param bulkhead 隔离舱
+     * @param handler  上下文处理器
+     * @param req      请求
+     * @param resp     响应
+     * @throws IOException 如果发生错误、超时或客户端断开连接
+     */
+    void serveInBulkhead(Bulkhead bulkhead, ContextHandler handler, Request req, Response resp) throws IOException {
+        InterruptibleFuture<Integer> result = new InterruptibleFuture<>();
+        if (req.isBodyConsumed()) { // otherwise the handler reads from the connection itself
+            req.watcher = new CompletableFuture<>(); // awaited before the next request is read
+            Thread.ofVirtual().name("BulkheadWatcher-" + port).start(() -> watch(req.in, result, req.watcher));
+        }
+        Runnable rejected = () -> {
+            resp.getHeaders().add("Retry-After", Integer.toString(bulkhead.getRetryAfter()));
+            result.complete(503);
+        };
+        long timeout = TimeUnit.MILLISECONDS.toNanos(bulkhead.getTimeout() < 0 ? asyncTimeout : bulkhead.getTimeout());
+        if (req.hasDeadline()) // the request deadline bounds the bulkhead timeout
+            timeout = timeout > 0 ? Math.min(timeout, req.getRemainingNanos()) : req.getRemainingNanos();
+        boolean inline = bulkhead.getExecutor() == null;
+        if (inline) {
+            // interrupts this thread, whether it is waiting for a permit or running the handler
+            ScheduledFuture<?> timer = timeout == 0 ? null : scheduler().schedule(
+                    () -> result.completeExceptionally(new TimeoutException()), Math.max(1, timeout), TimeUnit.NANOSECONDS);
+            try {
+                result.run(() -> {
+                    AdmissionController admission = bulkhead.getAdmissionController();
+                    if (!admission.acquire()) {
+                        rejected.run();
+                        return 503;
+                    }
+                    try {
+                        return invoke(handler, req, resp);
+                    } finally {
+                        admission.release();
+                    }
+                });
+            } finally {
+                if (timer != null)
+                    timer.cancel(false);
+            }
+        } else {
+            bulkhead.execute(executor, () -> result.run(() -> invoke(handler, req, resp)), rejected);
+        }
+        Integer status;
+        try {
+            status = timeout == 0 || inline ? result.get() : result.get(Math.max(1, timeout), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException te) {
+            stop(result);
+            throw timedOut(bulkhead, req, te);
+        } catch (CancellationException ce) { // the client is gone
+            stop(result);
+            throw new IOException("client disconnected", ce);
+        } catch (InterruptedException ie) {
+            stop(result);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for bulkhead " + bulkhead.getName());
+        } catch (ExecutionException ee) {
+            Throwable t = ee.getCause();
+            if (t instanceof TimeoutException) // timed out while running on this thread
+                throw timedOut(bulkhead, req, t);
+            if (t instanceof IOException)
+                throw (IOException) t;
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            if (t instanceof Error)
+                throw (Error) t;
+            throw new IOException(t);
+        }
+        if (status != null && status > 0) resp.sendError(status);
+    }
+
+    /**
+     * 返回表示隔离舱中的请求超时的异常：超过请求截止时间时为 {@link DeadlineExceededException}，
+     * 否则为原因是 {@link TimeoutException} 的 IOException（均以 504 响应）。
+     *
+     * @param bulkhead 隔离舱
+     * @param req      请求
+     * @param cause    超时异常
+     * @return 要抛出的异常
+     */
+    static IOException timedOut(Bulkhead bulkhead, Request req, Throwable cause) {
+        if (req.isDeadlineExceeded())
+            return new DeadlineExceededException("request deadline exceeded in bulkhead " + bulkhead.getName());
+        return new IOException("request processing timed out in bulkhead " + bulkhead.getName(), cause);
+    }
+
+    /**
+     * 中断并等待隔离舱中的处理器结束，以免它与连接的线程同时写入响应。
+     *
+     * @param result 处理结果
+     * @throws IOException 如果处理器没有及时结束（此时连接必须被中止）
+     */
+    void stop(InterruptibleFuture<Integer> result) throws IOException {
+        result.cancel(true); // no-op if already completed
+        try {
+            if (result.awaitStop(socketTimeout, TimeUnit.MILLISECONDS))
+                return;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IOException("handler did not stop");
+    }
+
+    /**
+     * 调用异步上下文处理器。若结果已完成则直接发送响应，
+     * 否则将结果记录在请求上，由 {@link #handleTransactions} 挂起该事务。
+     *
+     * @param handler 异步上下文处理器
+     * @param req     请求
+     * @param resp    响应
+     * @throws IOException 如果发生错误
+     */
+    void serveAsync(AsyncContextHandler handler, Request req, Response resp) throws IOException {
+        CompletableFuture<Integer> result = handler.serveAsync(req, resp).toCompletableFuture();
+        if (!result.isDone()) {
+            // the body must be consumed before the connection is watched for disconnects
+            transfer(req.getBody(), null, -1);
+            long timeout = TimeUnit.MILLISECONDS.toNanos(handler.getTimeout() < 0 ? asyncTimeout : handler.getTimeout());
+            if (req.hasDeadline()) // the request deadline bounds the handler timeout
+                timeout = timeout > 0 ? Math.min(timeout, req.getRemainingNanos()) : req.getRemainingNanos();
+            if (timeout != 0)
+                result.orTimeout(Math.max(1, timeout), TimeUnit.NANOSECONDS);
+            req.async = result;
+            return;
+        }
+        Integer status; // completed synchronously - no need to suspend the connection
+        try {
+            status = result.join();
+        } catch (CompletionException | CancellationException e) {
+            throw new IOException(e.getCause() != null ? e.getCause() : e);
+        }
+        if (status != null && status > 0) resp.sendError(status);
+    }
+
     /**
      * {@code ContextInfo} 类保存单个上下文的信息。
      * 它同时作为用于将请求路径与上下文进行匹配的基数树中的一个节点。
@@ -387,11 +1250,24 @@ public class HTTPServer {
         protected int rank; // 定义匹配上下文的优先顺序。
         protected ContextInfo[] children = new ContextInfo[0];
         protected Map<String, ContextHandler> handlers = new ConcurrentHashMap<>(2);
+        protected Map<String, ContextConfig> configs = new ConcurrentHashMap<>(2);
 
         public Map<String, ContextHandler> getHandlers() {
             return handlers;
         }
 
+        /**
+         * 返回给定HTTP方法的上下文设置。HEAD 请求在未单独注册时使用 GET 的设置。
+         *
+         * @param method HTTP方法
+         * @return 上下文设置，如果没有则返回 null
+         */
+        public ContextConfig getConfig(String method) {
+            ContextConfig config = configs.get(method);
+            return config == null && method.equals("HEAD") && !handlers.containsKey(method)
+                    ? configs.get("GET") : config;
+        }
+
         /**
          * 利用给定的上下文路径和片段构造一个上下文信息对象。
          *
@@ -442,10 +1318,25 @@ public class HTTPServer {
          * @param methods 由处理器支持的HTTP方法（默认为“GET”）
          */
         public void addHandler(ContextHandler handler, String... methods) {
+            addHandler(handler, null, methods);
+        }
+
+        /**
+         * 为给定的HTTP方法添加（或替换）上下文处理器及其设置。
+         *
+         * @param handler 上下文处理器
+         * @param config  上下文设置，可以为 null
+         * @param methods 由处理器支持的HTTP方法（默认为“GET”）
+         */
+        public void addHandler(ContextHandler handler, ContextConfig config, String... methods) {
             if (methods.length == 0)
                 methods = new String[]{"GET"};
             for (String method : methods) {
                 handlers.put(method, handler);
+                if (config != null)
+                    configs.put(method, config);
+                else
+                    configs.remove(method);
                 HTTPServer.this.methods.add(method);
             }
         }
@@ -528,10 +1419,12 @@ public class HTTPServer {
                 context = new ContextInfo(this.path, segment.substring(j));
                 context.children = this.children;
                 context.handlers.putAll(this.handlers);
+                context.configs.putAll(this.configs);
                 this.path = path.substring(0, i);
                 this.segment = segment.substring(0, j);
                 this.rank -= (slen - j) << 16;
                 this.handlers.clear();
+                this.configs.clear();
                 this.children = new ContextInfo[]{context};
             }
             if (i == len) // 此节点（无论是之前存在的节点还是当前分裂的节点）是上下文。
@@ -561,26 +1454,22 @@ public class HTTPServer {
                 final ServerSocket serv = HTTPServer.this.serv; // keep local to avoid NPE when stopped
                 while (serv != null && !serv.isClosed()) {
                     final Socket sock = serv.accept();
-                    executor.execute(() -> {
+                    ConnectionLimiter limiter = connectionLimiter;
+                    if (limiter != null && !limiter.acquire(sock.getInetAddress())) {
                         try {
-                            try {
-                                sock.setSoTimeout(socketTimeout);
-                                sock.setTcpNoDelay(true); // we buffer anyway, so improve latency
-                                handleConnection(sock.getInputStream(), sock.getOutputStream(), sock);
-                            } finally {
-                                try {
-                                    // [RFC9112#9.6] close socket gracefully
-                                    // (except SSL socket which doesn't support half-closing)
-                                    if (!(sock instanceof SSLSocket)) {
-                                        sock.shutdownOutput(); // half-close socket (only output)
-                                        transfer(sock.getInputStream(), null, -1); // consume input
-                                    }
-                                } finally {
-                                    sock.close(); // and finally close socket fully
-                                }
-                            }
+                            sock.close(); // over the limit - drop it immediately
                         } catch (IOException ignore) {}
-                    });
+                        continue;
+                    }
+                    try {
+                        executor.execute(() -> serveConnection(sock)); // requests are admitted one by one
+                    } catch (RejectedExecutionException ree) { // e.g. executor is shutting down or its queue is full
+                        if (limiter != null)
+                            limiter.release(sock.getInetAddress());
+                        try {
+                            sock.close();
+                        } catch (IOException ignore) {}
+                    }
                 }
             } catch (IOException ignore) {}
         }
@@ -632,18 +1521,271 @@ public class HTTPServer {
 
     @Data
     public static class GzipConfig {
-        final List<String> compressibleContentTypes = new ArrayList<>();
-        long minLengthUsingGzip = 2048000;
-
-        {
-            compressibleContentTypes.add("text/*");
-            compressibleContentTypes.add("*icon");
-            compressibleContentTypes.add("*+xml");
-            compressibleContentTypes.add("*/json");
-            compressibleContentTypes.add("*/js");
-            compressibleContentTypes.add("*/javascript");
-            compressibleContentTypes.add("application/x-javascript");
-            compressibleContentTypes.add("application/x-json");
+        volatile List<String> compressibleContentTypes = List.of("text/*", "*icon", "*+xml", "*/json", "*/js",
+                "*/javascript", "application/x-javascript", "application/x-json"); // replaced when changed
+        long minLengthUsingGzip = 300; // responses of known length below this are sent uncompressed
+        int level = Deflater.DEFAULT_COMPRESSION;
+        int strategy = Deflater.DEFAULT_STRATEGY;
+        final Map<String, int[]> contentTypeCompression = new LinkedHashMap<>(); // pattern -> {level, strategy}
+        boolean parallelCompression = false;
+        int parallelBlockSize = 128 * 1024;
+        int parallelMaxInFlight = Runtime.getRuntime().availableProcessors();
+        Executor parallelExecutor; // null means the common fork-join pool
+        // results for the current types; replaced together with them, so a lookup racing a change
+        // can only fill the old cache
+        transient volatile LookupCache<Boolean> compressible = newCompressibleCache(compressibleContentTypes);
+
+        /**
+         * 返回可压缩的内容类型模式，每个模式可以以 '*' 开头或结尾。
+         *
+         * @return 不可修改的模式列表，使用 {@link #addCompressibleContentType}、
+         * {@link #removeCompressibleContentType} 或 {@link #setCompressibleContentTypes} 修改
+         */
+        public List<String> getCompressibleContentTypes() {
+            return compressibleContentTypes;
+        }
+
+        /**
+         * 设置可压缩的内容类型模式，立即生效。
+         *
+         * @param types 模式，每个模式可以以 '*' 开头或结尾
+         */
+        public synchronized void setCompressibleContentTypes(Collection<String> types) {
+            updateCompressibleContentTypes(new ArrayList<>(types));
+        }
+
+        /**
+         * 添加一个可压缩的内容类型模式，立即生效。
+         *
+         * @param type 模式，可以以 '*' 开头或结尾
+         */
+        public synchronized void addCompressibleContentType(String type) {
+            List<String> types = new ArrayList<>(compressibleContentTypes);
+            if (!types.contains(type)) {
+                types.add(type);
+                updateCompressibleContentTypes(types);
+            }
+        }
+
+        /**
+         * 移除一个可压缩的内容类型模式，立即生效。
+         *
+         * @param type 模式
+         * @return 是否移除了该模式
+         */
+        public synchronized boolean removeCompressibleContentType(String type) {
+            List<String> types = new ArrayList<>(compressibleContentTypes);
+            if (!types.remove(type))
+                return false;
+            updateCompressibleContentTypes(types);
+            return true;
+        }
+
+        private void updateCompressibleContentTypes(List<String> types) {
+            List<String> snapshot = List.copyOf(types);
+            compressibleContentTypes = snapshot;
+            compressible = newCompressibleCache(snapshot);
+        }
+
+        private static LookupCache<Boolean> newCompressibleCache(List<String> types) {
+            return new LookupCache<>(256, contentType -> matchCompressible(types, contentType));
+        }
+
+        /**
+         * 检查给定内容类型（MIME类型）的数据是否可压缩。结果按内容类型缓存。
+         *
+         * @param contentType 内容类型（可以包含参数）
+         * @return 若数据可压缩则返回真，若不可压缩则返回假
+         */
+        public boolean isCompressible(String contentType) {
+            return compressible.get(contentType);
+        }
+
+        protected boolean matchCompressible(String contentType) {
+            return matchCompressible(compressibleContentTypes, contentType);
+        }
+
+        static boolean matchCompressible(List<String> types, String contentType) {
+            int pos = contentType.indexOf(';'); // exclude params
+            String ct = pos < 0 ? contentType : contentType.substring(0, pos);
+            for (String s : types)
+                if (matches(s, ct))
+                    return true;
+            return false;
+        }
+
+        public long getMinLengthUsingGzip() {
+            return minLengthUsingGzip;
+        }
+
+        /**
+         * 设置使用压缩的最小响应长度。长度已知且小于该值的响应不压缩；长度未知的响应总是可以压缩。
+         *
+         * @param minLengthUsingGzip 最小长度（字节）
+         */
+        public void setMinLengthUsingGzip(long minLengthUsingGzip) {
+            this.minLengthUsingGzip = minLengthUsingGzip;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * 设置默认的压缩级别。
+         *
+         * @param level {@link Deflater#DEFAULT_COMPRESSION} 或 0-9
+         * @throws IllegalArgumentException 如果级别无效
+         */
+        public void setLevel(int level) {
+            checkCompression(level, strategy);
+            this.level = level;
+        }
+
+        public int getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * 设置默认的压缩策略。
+         *
+         * @param strategy {@link Deflater#DEFAULT_STRATEGY}、{@link Deflater#FILTERED} 或 {@link Deflater#HUFFMAN_ONLY}
+         * @throws IllegalArgumentException 如果策略无效
+         */
+        public void setStrategy(int strategy) {
+            checkCompression(level, strategy);
+            this.strategy = strategy;
+        }
+
+        /**
+         * 为匹配给定模式的内容类型设置压缩级别和策略，覆盖默认值。
+         * 模式的写法与 {@link #getCompressibleContentTypes()} 相同（可以以 '*' 开头或结尾），
+         * 按设置的顺序匹配，先设置的优先。
+         *
+         * @param contentType 内容类型模式，例如 "text/*" 或 "*&#47;json"
+         * @param level       压缩级别
+         * @param strategy    压缩策略
+         * @throws IllegalArgumentException 如果级别或策略无效
+         */
+        public void setCompression(String contentType, int level, int strategy) {
+            checkCompression(level, strategy);
+            contentTypeCompression.put(contentType, new int[]{level, strategy});
+        }
+
+        /**
+         * 返回给定内容类型使用的压缩级别。
+         *
+         * @param contentType 内容类型（不含参数）
+         * @return 压缩级别
+         */
+        public int getLevel(String contentType) {
+            int[] c = getCompression(contentType);
+            return c == null ? level : c[0];
+        }
+
+        /**
+         * 返回给定内容类型使用的压缩策略。
+         *
+         * @param contentType 内容类型（不含参数）
+         * @return 压缩策略
+         */
+        public int getStrategy(String contentType) {
+            int[] c = getCompression(contentType);
+            return c == null ? strategy : c[1];
+        }
+
+        public boolean isParallelCompression() {
+            return parallelCompression;
+        }
+
+        /**
+         * 设置是否对大的 gzip 响应使用并行的分块压缩（见 {@link ParallelGzipOutputStream}）。
+         * 启用后，长度未知或不小于两个块的 gzip 响应会被切分为块，在 {@link #getParallelExecutor() 执行器} 上并行压缩。
+         *
+         * @param parallelCompression 是否启用并行压缩，默认为 false
+         */
+        public void setParallelCompression(boolean parallelCompression) {
+            this.parallelCompression = parallelCompression;
+        }
+
+        public int getParallelBlockSize() {
+            return parallelBlockSize;
+        }
+
+        /**
+         * 设置并行压缩的块大小。
+         *
+         * @param parallelBlockSize 块大小（字节），不小于 32K
+         * @throws IllegalArgumentException 如果块大小小于 32K
+         */
+        public void setParallelBlockSize(int parallelBlockSize) {
+            if (parallelBlockSize < 32 * 1024)
+                throw new IllegalArgumentException("block size must be at least 32K");
+            this.parallelBlockSize = parallelBlockSize;
+        }
+
+        public int getParallelMaxInFlight() {
+            return parallelMaxInFlight;
+        }
+
+        /**
+         * 设置每个响应同时压缩中的最大块数。达到上限时，写入响应的线程等待最早的块完成。
+         *
+         * @param parallelMaxInFlight 最大块数
+         * @throws IllegalArgumentException 如果不是正数
+         */
+        public void setParallelMaxInFlight(int parallelMaxInFlight) {
+            if (parallelMaxInFlight < 1)
+                throw new IllegalArgumentException("invalid in-flight limit: " + parallelMaxInFlight);
+            this.parallelMaxInFlight = parallelMaxInFlight;
+        }
+
+        /**
+         * 返回压缩块的执行器。
+         *
+         * @return 执行器，未设置时为公共的 fork-join 池
+         */
+        public Executor getParallelExecutor() {
+            return parallelExecutor != null ? parallelExecutor : ForkJoinPool.commonPool();
+        }
+
+        /**
+         * 设置压缩块的执行器。压缩是 CPU 密集型的，执行器的并发度不宜超过 CPU 核数。
+         *
+         * @param parallelExecutor 执行器，null 表示使用公共的 fork-join 池
+         */
+        public void setParallelExecutor(Executor parallelExecutor) {
+            this.parallelExecutor = parallelExecutor;
+        }
+
+        protected int[] getCompression(String contentType) {
+            if (contentType != null && !contentTypeCompression.isEmpty())
+                for (Map.Entry<String, int[]> e : contentTypeCompression.entrySet())
+                    if (matches(e.getKey(), contentType))
+                        return e.getValue();
+            return null;
+        }
+
+        /**
+         * 检查内容类型是否匹配给定模式（可以以 '*' 开头或结尾）。
+         *
+         * @param pattern     内容类型模式
+         * @param contentType 内容类型（不含参数）
+         * @return 是否匹配
+         */
+        static boolean matches(String pattern, String contentType) {
+            return pattern.equals(contentType)
+                    || pattern.charAt(0) == '*' && contentType.endsWith(pattern.substring(1))
+                    || pattern.charAt(pattern.length() - 1) == '*'
+                    && contentType.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+
+        static void checkCompression(int level, int strategy) {
+            if (level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9))
+                throw new IllegalArgumentException("invalid compression level: " + level);
+            if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED
+                    && strategy != Deflater.HUFFMAN_ONLY)
+                throw new IllegalArgumentException("invalid compression strategy: " + strategy);
         }
     }
 }
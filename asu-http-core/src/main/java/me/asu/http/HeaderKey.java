@@ -28,6 +28,7 @@ public class HeaderKey {
     // Values
     public static final String ACCEPT_ENCODING     = "Accept-Encoding";
     public static final String CLOSE               = "close";
+    public static final String KEEP_ALIVE          = "keep-alive";
     public static final String CHUNKED             = "chunked";
     public static final String CONTINUE_100        = "100-continue";
     public static final String FORM_DATA           = "form-data";
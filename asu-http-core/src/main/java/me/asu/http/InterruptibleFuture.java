@@ -0,0 +1,112 @@
+package me.asu.http;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code InterruptibleFuture} 是一个在执行器上运行同步任务的 {@link CompletableFuture}。
+ * <p>
+ * 与 {@link CompletableFuture#supplyAsync} 不同，取消它（{@code cancel(true)}）或使它异常完成
+ * （例如 {@link #orTimeout 超时}）会中断仍在运行该任务的线程。
+ * {@link AsyncContextHandler} 可以用它包装阻塞的处理过程，以便客户端断开或超时时处理器能够及时停止。
+ * <pre>{@code
+ * public CompletionStage<Integer> serveAsync(Request req, Response resp) {
+ *     return InterruptibleFuture.submit(() -> {
+ *         resp.send(200, backend.query(req.getParameter("q"))); // interrupted if the client is gone
+ *         return 0;
+ *     }, executor);
+ * }
+ * }</pre>
+ *
+ * @param <T> 结果类型
+ */
+public class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+    protected Thread runner; // the thread running the task, guarded by this
+    protected boolean interrupted; // whether the runner was interrupted by this future
+
+    /**
+     * 在给定执行器上运行任务，并返回其结果。
+     *
+     * @param task     要运行的任务
+     * @param executor 运行任务的执行器
+     * @param <T>      结果类型
+     * @return 任务的结果，取消它将中断正在运行的任务
+     * @throws java.util.concurrent.RejectedExecutionException 如果执行器拒绝了该任务
+     */
+    public static <T> InterruptibleFuture<T> submit(Callable<? extends T> task, Executor executor) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        executor.execute(() -> future.run(task));
+        return future;
+    }
+
+    /**
+     * 在当前线程上运行任务并以其结果完成，除非在开始前已经完成（例如已被取消）。
+     *
+     * @param task 要运行的任务
+     */
+    protected void run(Callable<? extends T> task) {
+        synchronized (this) {
+            if (isDone())
+                return; // cancelled before it started
+            runner = Thread.currentThread();
+        }
+        try {
+            complete(task.call());
+        } catch (Throwable t) {
+            completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                runner = null;
+                if (interrupted)
+                    Thread.interrupted(); // don't leak the interrupt into the executor's next task
+                notifyAll(); // see awaitStop
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning)
+            interrupt();
+        return cancelled;
+    }
+
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        boolean completed = super.completeExceptionally(ex);
+        if (completed)
+            interrupt(); // e.g. timed out - nobody is waiting for the task anymore
+        return completed;
+    }
+
+    /**
+     * 等待正在运行的任务结束（例如在取消之后），最多等待给定的时间。
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return 任务是否已结束或从未开始运行
+     * @throws InterruptedException 如果等待时线程被中断
+     */
+    public synchronized boolean awaitStop(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        for (long left; runner != null; TimeUnit.NANOSECONDS.timedWait(this, left))
+            if ((left = end - System.nanoTime()) <= 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * 中断正在运行任务的线程（如果有，且不是当前线程）。
+     */
+    protected synchronized void interrupt() {
+        Thread t = runner;
+        if (t != null && t != Thread.currentThread()) {
+            interrupted = true;
+            t.interrupt();
+        }
+    }
+}
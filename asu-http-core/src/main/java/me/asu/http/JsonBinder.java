@@ -0,0 +1,23 @@
+package me.asu.http;
+
+import java.io.IOException;
+
+/**
+ * 将 JSON 直接绑定到给定类型的对象，由 JSON 模块的 {@code JsonParser} 实现，
+ * 供 {@link Request#getBodyAs(Class)} 使用。
+ */
+public interface JsonBinder {
+
+    /**
+     * 将 UTF-8 编码的 JSON 绑定到给定类型的对象。
+     *
+     * @param json   JSON 字节
+     * @param offset 起始偏移
+     * @param length 字节数
+     * @param type   结果类型：普通类、record、Map 或 List
+     * @param <T>    结果类型
+     * @return 绑定的对象
+     * @throws IOException 如果 JSON 不合法或不能绑定到该类型
+     */
+    <T> T bind(byte[] json, int offset, int length, Class<T> type) throws IOException;
+}
@@ -0,0 +1,734 @@
+package me.asu.http;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * {@code JsonDoc} 是一个惰性的、带索引的 JSON 文档。
+ * <p>
+ * 解析时只对输入做一遍结构索引，把每个值的种类和位置记录在一个 int 数组（纸带）中，
+ * 不创建任何 Map、List、字符串或数字对象；值只在被访问时才从原始的 UTF-8 字节中解码。
+ * 处理器通常只读取请求体中的少数几个字段，例如：
+ * <pre>
+ * JsonDoc doc = request.getJsonDoc();
+ * long id = doc.get("user").get("id").asLong();
+ * String name = doc.get("user").get("name").asString(null);
+ * </pre>
+ * 纸带中每个值占 4 个 int：种类、起始偏移、结束偏移，以及其后下一个值的纸带位置，
+ * 因此跳过一个对象或数组是常数时间的。对象的成员依次记录为名称和值。
+ * <p>
+ * {@code JsonDoc} 本身是文档中某个值的不可变视图。不存在的值由 {@link #isMissing()} 为 true 的视图表示，
+ * 因此可以连续调用 {@link #get(String)} 而不必检查中间结果。
+ * 需要时可以用 {@link #toMap()} 转换为与 JSON 请求体解析到 {@link Request#getDataMap()} 中相同的形式。
+ */
+public final class JsonDoc implements Iterable<JsonDoc> {
+
+    // value kinds
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int STRING = 3;
+    static final int STRING_ESCAPED = 4; // a string containing escapes
+    static final int INTEGER = 5;
+    static final int DECIMAL = 6;        // a number with a fraction or exponent
+    static final int TRUE = 7;
+    static final int FALSE = 8;
+    static final int NULL = 9;
+
+    // tape entry layout
+    static final int KIND = 0;
+    static final int BEGIN = 1; // the first byte of the value (for strings, the opening quote)
+    static final int END = 2;   // after the last byte of the value
+    static final int NEXT = 3;  // the tape position after the value and all its children
+    static final int ENTRY = 4;
+
+    private static final JsonDoc MISSING = new JsonDoc(null, null, -1);
+
+    private final byte[] json;
+    private final int[] tape;
+    private final int index;
+
+    private JsonDoc(byte[] json, int[] tape, int index) {
+        this.json = json;
+        this.tape = tape;
+        this.index = index;
+    }
+
+    /**
+     * 解析 UTF-8 编码的 JSON 文档。
+     *
+     * @param json JSON 字节，解析之后不得修改
+     * @return 文档的根值
+     * @throws IOException 如果 JSON 不合法
+     */
+    public static JsonDoc parse(byte[] json) throws IOException {
+        return parse(json, 0, json.length);
+    }
+
+    /**
+     * 解析 UTF-8 编码的 JSON 文档。
+     *
+     * @param json   JSON 字节，解析之后不得修改
+     * @param offset 起始偏移
+     * @param length 字节数
+     * @return 文档的根值
+     * @throws IOException 如果 JSON 不合法
+     */
+    public static JsonDoc parse(byte[] json, int offset, int length) throws IOException {
+        return new JsonDoc(json, new Indexer(json, offset, offset + length).index(), 0);
+    }
+
+    /**
+     * 返回对象中给定名称的成员。名称重复时返回最后一个，与 {@link #toMap()} 一致。
+     *
+     * @param name 成员名称
+     * @return 成员的值；当前值不是对象或没有该成员时，返回一个不存在的值
+     */
+    public JsonDoc get(String name) {
+        if (kind() != OBJECT)
+            return MISSING;
+        int found = -1;
+        for (int i = index + ENTRY, end = tape[index + NEXT]; i < end; i = tape[i + ENTRY + NEXT]) {
+            if (nameEquals(i, name))
+                found = i + ENTRY;
+        }
+        return found < 0 ? MISSING : new JsonDoc(json, tape, found);
+    }
+
+    /**
+     * 返回数组中给定位置的元素。按位置访问需要跳过之前的元素，遍历数组时应使用 {@link #iterator()}。
+     *
+     * @param i 位置
+     * @return 元素；当前值不是数组或位置越界时，返回一个不存在的值
+     */
+    public JsonDoc get(int i) {
+        if (kind() != ARRAY || i < 0)
+            return MISSING;
+        for (int e = index + ENTRY, end = tape[index + NEXT]; e < end; e = tape[e + NEXT]) {
+            if (i-- == 0)
+                return new JsonDoc(json, tape, e);
+        }
+        return MISSING;
+    }
+
+    /**
+     * 返回对象是否有给定名称的成员。
+     *
+     * @param name 成员名称
+     * @return 是否有该成员（值为 null 的成员也算）
+     */
+    public boolean has(String name) {
+        return !get(name).isMissing();
+    }
+
+    /**
+     * 返回对象的成员数或数组的元素数。
+     *
+     * @return 成员数或元素数，其他值返回0
+     */
+    public int size() {
+        int kind = kind();
+        if (kind != OBJECT && kind != ARRAY)
+            return 0;
+        int n = 0;
+        for (int i = index + ENTRY, end = tape[index + NEXT]; i < end; i = tape[i + NEXT])
+            n++;
+        return kind == OBJECT ? n / 2 : n;
+    }
+
+    /**
+     * 按顺序返回对象的成员名称。
+     *
+     * @return 成员名称，当前值不是对象时为空
+     */
+    public List<String> names() {
+        if (kind() != OBJECT)
+            return Collections.emptyList();
+        List<String> names = new ArrayList<>();
+        for (int i = index + ENTRY, end = tape[index + NEXT]; i < end; i = tape[i + ENTRY + NEXT])
+            names.add(string(i));
+        return names;
+    }
+
+    /**
+     * 按顺序遍历数组的元素或对象的成员值。
+     *
+     * @return 迭代器，其他值没有元素
+     */
+    @Override
+    public Iterator<JsonDoc> iterator() {
+        int kind = kind();
+        if (kind != OBJECT && kind != ARRAY)
+            return Collections.emptyIterator();
+        int step = kind == OBJECT ? ENTRY : 0; // skip member names
+        int end = tape[index + NEXT];
+        return new Iterator<JsonDoc>() {
+            int next = index + ENTRY + step;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public JsonDoc next() {
+                if (next >= end)
+                    throw new NoSuchElementException();
+                JsonDoc value = new JsonDoc(json, tape, next);
+                next = tape[next + NEXT] + step;
+                return value;
+            }
+        };
+    }
+
+    public boolean isMissing() {
+        return index < 0;
+    }
+
+    public boolean isNull() {
+        return kind() == NULL;
+    }
+
+    public boolean isObject() {
+        return kind() == OBJECT;
+    }
+
+    public boolean isArray() {
+        return kind() == ARRAY;
+    }
+
+    public boolean isString() {
+        int kind = kind();
+        return kind == STRING || kind == STRING_ESCAPED;
+    }
+
+    public boolean isNumber() {
+        int kind = kind();
+        return kind == INTEGER || kind == DECIMAL;
+    }
+
+    public boolean isBoolean() {
+        int kind = kind();
+        return kind == TRUE || kind == FALSE;
+    }
+
+    /**
+     * 返回字符串的内容，或数字和布尔值的文本。
+     *
+     * @return 文本
+     * @throws IllegalStateException 如果值不存在、为 null，或是对象或数组
+     */
+    public String asString() {
+        String s = asString(null);
+        if (s == null)
+            throw new IllegalStateException("not a scalar: " + describe());
+        return s;
+    }
+
+    /**
+     * 返回字符串的内容，或数字和布尔值的文本。
+     *
+     * @param defaultValue 值不存在、为 null，或是对象或数组时返回的值
+     * @return 文本
+     */
+    public String asString(String defaultValue) {
+        switch (kind()) {
+        case STRING:
+        case STRING_ESCAPED:
+            return string(index);
+        case INTEGER:
+        case DECIMAL:
+        case TRUE:
+        case FALSE:
+            return ascii(index);
+        default:
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 返回整数的值。内容为整数的字符串（例如 {@code "123"}）也可以转换。
+     *
+     * @return 值
+     * @throws IllegalStateException 如果值不是整数
+     * @throws NumberFormatException 如果整数超出 long 的范围
+     */
+    public long asLong() {
+        int kind = kind();
+        if (kind == INTEGER)
+            return Bytes.parseLong(json, tape[index + BEGIN], tape[index + END]);
+        if (kind == STRING) {
+            try {
+                return Bytes.parseLong(json, tape[index + BEGIN] + 1, tape[index + END] - 1);
+            } catch (NumberFormatException e) {
+                // not an integer string
+            }
+        }
+        throw new IllegalStateException("not an integer: " + describe());
+    }
+
+    /**
+     * 返回整数的值。
+     *
+     * @param defaultValue 值不存在、为 null 或不能转换时返回的值
+     * @return 值
+     */
+    public long asLong(long defaultValue) {
+        try {
+            return asLong();
+        } catch (RuntimeException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 返回整数的值，同 {@link #asLong()}。
+     *
+     * @return 值
+     * @throws IllegalStateException 如果值不是整数
+     * @throws NumberFormatException 如果整数超出 int 的范围
+     */
+    public int asInt() {
+        long value = asLong();
+        if ((int) value != value)
+            throw new NumberFormatException("value out of int range: " + value);
+        return (int) value;
+    }
+
+    /**
+     * 返回整数的值。
+     *
+     * @param defaultValue 值不存在、为 null 或不能转换时返回的值
+     * @return 值
+     */
+    public int asInt(int defaultValue) {
+        try {
+            return asInt();
+        } catch (RuntimeException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 返回数字的值。内容为数字的字符串也可以转换。
+     *
+     * @return 值
+     * @throws IllegalStateException 如果值不是数字
+     */
+    public double asDouble() {
+        int kind = kind();
+        if (kind == INTEGER || kind == DECIMAL || kind == STRING) {
+            try {
+                return Double.parseDouble(asString());
+            } catch (NumberFormatException e) {
+                // not a numeric string
+            }
+        }
+        throw new IllegalStateException("not a number: " + describe());
+    }
+
+    /**
+     * 返回数字的值。
+     *
+     * @param defaultValue 值不存在、为 null 或不能转换时返回的值
+     * @return 值
+     */
+    public double asDouble(double defaultValue) {
+        try {
+            return asDouble();
+        } catch (RuntimeException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 返回布尔值。
+     *
+     * @return 值
+     * @throws IllegalStateException 如果值不是 true 或 false
+     */
+    public boolean asBoolean() {
+        int kind = kind();
+        if (kind == TRUE || kind == FALSE)
+            return kind == TRUE;
+        throw new IllegalStateException("not a boolean: " + describe());
+    }
+
+    /**
+     * 返回布尔值。
+     *
+     * @param defaultValue 值不是 true 或 false 时返回的值
+     * @return 值
+     */
+    public boolean asBoolean(boolean defaultValue) {
+        int kind = kind();
+        return kind == TRUE || kind == FALSE ? kind == TRUE : defaultValue;
+    }
+
+    /**
+     * 将对象转换为 Map，形式与 JSON 请求体解析到 {@link Request#getDataMap()} 中的相同：
+     * 对象为 LinkedHashMap（值为 null 的成员被忽略），数组为 LinkedList，
+     * 整数为 BigInteger，其他数字为 BigDecimal。
+     *
+     * @return 新的 Map
+     * @throws IllegalStateException 如果值不是对象
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toMap() {
+        if (kind() != OBJECT)
+            throw new IllegalStateException("not an object: " + describe());
+        return (Map<String, Object>) toValue();
+    }
+
+    /**
+     * 将数组转换为 List，形式同 {@link #toMap()}。
+     *
+     * @return 新的 List
+     * @throws IllegalStateException 如果值不是数组
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> toList() {
+        if (kind() != ARRAY)
+            throw new IllegalStateException("not an array: " + describe());
+        return (List<Object>) toValue();
+    }
+
+    /**
+     * 将值转换为 Java 对象，形式同 {@link #toMap()}。
+     *
+     * @return 新的对象，值不存在或为 null 时返回 null
+     */
+    public Object toValue() {
+        return isMissing() ? null : value(index);
+    }
+
+    /**
+     * 返回值的 JSON 文本，即输入中对应的部分。
+     *
+     * @return JSON 文本，值不存在时返回空字符串
+     */
+    @Override
+    public String toString() {
+        if (isMissing())
+            return "";
+        return new String(json, tape[index + BEGIN], tape[index + END] - tape[index + BEGIN], StandardCharsets.UTF_8);
+    }
+
+    // the raw bytes of the value, for binding it without decoding (see Request#getBodyAs)
+    byte[] bytes() {
+        return json;
+    }
+
+    int begin() {
+        return tape[index + BEGIN];
+    }
+
+    int end() {
+        return tape[index + END];
+    }
+
+    private int kind() {
+        return index < 0 ? 0 : tape[index + KIND];
+    }
+
+    private String describe() {
+        if (isMissing())
+            return "missing value";
+        String s = toString();
+        return s.length() > 32 ? s.substring(0, 32) + "..." : s;
+    }
+
+    private Object value(int i) {
+        switch (tape[i + KIND]) {
+        case OBJECT: {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int e = i + ENTRY, end = tape[i + NEXT]; e < end; e = tape[e + ENTRY + NEXT]) {
+                if (tape[e + ENTRY + KIND] != NULL) // null members are dropped, as in the data map
+                    map.put(string(e), value(e + ENTRY));
+            }
+            return map;
+        }
+        case ARRAY: {
+            List<Object> list = new LinkedList<>();
+            for (int e = i + ENTRY, end = tape[i + NEXT]; e < end; e = tape[e + NEXT])
+                list.add(value(e));
+            return list;
+        }
+        case STRING:
+        case STRING_ESCAPED:
+            return string(i);
+        case INTEGER:
+            return new BigInteger(ascii(i));
+        case DECIMAL:
+            return new BigDecimal(ascii(i));
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        default:
+            return null;
+        }
+    }
+
+    private String ascii(int i) {
+        return new String(json, tape[i + BEGIN], tape[i + END] - tape[i + BEGIN], StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 比较成员名称，ASCII 名称直接与输入的字节比较，不解码。
+     */
+    private boolean nameEquals(int i, String name) {
+        if (tape[i + KIND] == STRING) {
+            int begin = tape[i + BEGIN] + 1;
+            int length = tape[i + END] - 1 - begin;
+            int n = name.length();
+            int k = 0;
+            for (; k < n && k < length; k++) {
+                char c = name.charAt(k);
+                if (c >= 0x80)
+                    break; // compare non-ASCII names decoded
+                if (json[begin + k] != c)
+                    return false;
+            }
+            if (k == n)
+                return k == length;
+            if (k == length)
+                return false;
+        }
+        return name.equals(string(i));
+    }
+
+    private String string(int i) {
+        int begin = tape[i + BEGIN] + 1;
+        int end = tape[i + END] - 1;
+        if (tape[i + KIND] == STRING)
+            return new String(json, begin, end - begin, StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder(end - begin);
+        int run = begin; // the start of the current run of unescaped bytes
+        for (int p = begin; p < end; p++) {
+            if (json[p] != '\\')
+                continue;
+            sb.append(new String(json, run, p - run, StandardCharsets.UTF_8));
+            byte c = json[++p];
+            switch (c) {
+            case 'b': sb.append('\b'); break;
+            case 'f': sb.append('\f'); break;
+            case 'n': sb.append('\n'); break;
+            case 'r': sb.append('\r'); break;
+            case 't': sb.append('\t'); break;
+            case 'u':
+                sb.append((char) Integer.parseInt(new String(json, p + 1, 4, StandardCharsets.ISO_8859_1), 16));
+                p += 4;
+                break;
+            default: sb.append((char) c); // '"', '\\' or '/'
+            }
+            run = p + 1;
+        }
+        return sb.append(new String(json, run, end - run, StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * 对输入做一遍结构索引，生成纸带。
+     */
+    private static final class Indexer {
+        private final byte[] json;
+        private final int end;
+        private int pos;
+        private int[] tape;
+        private int size;
+        private int[] stack = new int[16]; // tape positions of the open containers
+        private int depth;
+
+        Indexer(byte[] json, int offset, int end) {
+            this.json = json;
+            this.pos = offset;
+            this.end = end;
+            this.tape = new int[Math.max(64, (end - offset) / 2 & ~(ENTRY - 1))]; // about one value per 8 bytes
+        }
+
+        int[] index() throws IOException {
+            skipWhitespace();
+            value:
+            while (true) {
+                if (pos >= end)
+                    throw error("unexpected end of input");
+                byte c = json[pos];
+                if (c == '{' || c == '[') {
+                    open(c == '{' ? OBJECT : ARRAY);
+                    skipWhitespace();
+                    if (pos < end && json[pos] == (c == '{' ? '}' : ']')) {
+                        close();
+                    } else {
+                        if (c == '{')
+                            name();
+                        continue;
+                    }
+                } else {
+                    scalar(c);
+                }
+                // after a value: close containers until one continues with ','
+                while (true) {
+                    skipWhitespace();
+                    if (depth == 0)
+                        break value;
+                    if (pos >= end)
+                        throw error("unexpected end of input");
+                    c = json[pos];
+                    boolean object = tape[stack[depth - 1] + KIND] == OBJECT;
+                    if (c == ',') {
+                        pos++;
+                        skipWhitespace();
+                        if (object)
+                            name();
+                        continue value;
+                    }
+                    if (c != (object ? '}' : ']'))
+                        throw error(object ? "expect ',' or '}'" : "expect ',' or ']'");
+                    close();
+                }
+            }
+            if (pos < end)
+                throw error("unexpected data after the end of the value");
+            return tape;
+        }
+
+        private void open(int kind) {
+            int i = add(kind, pos, 0);
+            pos++;
+            if (depth == stack.length)
+                stack = Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = i;
+        }
+
+        private void close() {
+            int i = stack[--depth];
+            pos++;
+            tape[i + END] = pos;
+            tape[i + NEXT] = size;
+        }
+
+        private void name() throws IOException {
+            if (pos >= end || json[pos] != '"')
+                throw error("expect a name");
+            string();
+            skipWhitespace();
+            if (pos >= end || json[pos] != ':')
+                throw error("expect ':'");
+            pos++;
+            skipWhitespace();
+        }
+
+        private void scalar(byte c) throws IOException {
+            if (c == '"')
+                string();
+            else if (c == '-' || c >= '0' && c <= '9')
+                number();
+            else if (c == 't')
+                literal("true", TRUE);
+            else if (c == 'f')
+                literal("false", FALSE);
+            else if (c == 'n')
+                literal("null", NULL);
+            else
+                throw error("unexpected character '" + (char) (c & 0xff) + "'");
+        }
+
+        private void string() throws IOException {
+            int begin = pos++;
+            int kind = STRING;
+            while (true) {
+                if (pos >= end)
+                    throw error("unterminated string");
+                byte c = json[pos++];
+                if (c == '"')
+                    break;
+                if (c == '\\') {
+                    kind = STRING_ESCAPED;
+                    if (pos >= end)
+                        throw error("unterminated string");
+                    c = json[pos++];
+                    if (c == 'u') {
+                        for (int k = 0; k < 4; k++, pos++) {
+                            if (pos >= end || Character.digit(json[pos], 16) < 0)
+                                throw error("invalid unicode escape");
+                        }
+                    } else if ("\"\\/bfnrt".indexOf(c) < 0) {
+                        throw error("invalid escape '\\" + (char) (c & 0xff) + "'");
+                    }
+                }
+            }
+            add(kind, begin, pos);
+        }
+
+        private void number() throws IOException {
+            int begin = pos;
+            int kind = INTEGER;
+            if (json[pos] == '-')
+                pos++;
+            if (pos < end && json[pos] == '0')
+                pos++;
+            else if (digits() == 0)
+                throw error("invalid number");
+            if (pos < end && json[pos] == '.') {
+                kind = DECIMAL;
+                pos++;
+                if (digits() == 0)
+                    throw error("invalid number");
+            }
+            if (pos < end && (json[pos] == 'e' || json[pos] == 'E')) {
+                kind = DECIMAL;
+                pos++;
+                if (pos < end && (json[pos] == '+' || json[pos] == '-'))
+                    pos++;
+                if (digits() == 0)
+                    throw error("invalid number");
+            }
+            add(kind, begin, pos);
+        }
+
+        private int digits() {
+            int begin = pos;
+            while (pos < end && json[pos] >= '0' && json[pos] <= '9')
+                pos++;
+            return pos - begin;
+        }
+
+        private void literal(String text, int kind) throws IOException {
+            int n = text.length();
+            if (end - pos < n)
+                throw error("invalid literal");
+            for (int k = 0; k < n; k++) {
+                if (json[pos + k] != text.charAt(k))
+                    throw error("invalid literal");
+            }
+            add(kind, pos, pos += n);
+        }
+
+        private int add(int kind, int begin, int valueEnd) {
+            if (size + ENTRY > tape.length)
+                tape = Arrays.copyOf(tape, tape.length * 2);
+            int i = size;
+            tape[i + KIND] = kind;
+            tape[i + BEGIN] = begin;
+            tape[i + END] = valueEnd;
+            size += ENTRY;
+            tape[i + NEXT] = size;
+            return i;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte c = json[pos];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                    break;
+                pos++;
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException("invalid JSON: " + message + " at offset " + pos);
+        }
+    }
+}
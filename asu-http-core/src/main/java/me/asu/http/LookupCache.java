@@ -0,0 +1,75 @@
+package me.asu.http;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * {@code LookupCache} 是一个有界的直接映射缓存，用于缓存由少量反复出现的字符串（例如请求头的值）计算出的结果。
+ * <p>
+ * 每个键按哈希值映射到一个固定的槽位，冲突时新条目直接替换旧条目，因此内存占用是有界的，
+ * 查找和更新都不加锁。条目是不可变的，线程之间偶尔看不到彼此的更新只会导致重新计算。
+ * 过长的键不会被缓存。结果所依赖的配置改变后，须调用 {@link #clear()} 使缓存失效。
+ *
+ * @param <V> 结果类型
+ */
+final class LookupCache<V> {
+
+    static final int MAX_KEY_LENGTH = 256;
+
+    private final Entry<V>[] table;
+    private final int mask;
+    private final Function<String, V> loader;
+
+    /**
+     * 构造一个查找缓存。
+     *
+     * @param size   槽位数（将向上取整为2的幂）
+     * @param loader 计算结果的函数（必须是纯函数）
+     */
+    @SuppressWarnings("unchecked")
+    LookupCache(int size, Function<String, V> loader) {
+        int n = Integer.highestOneBit(Math.max(1, size));
+        n = n < size ? n << 1 : n;
+        this.table = (Entry<V>[]) new Entry[n];
+        this.mask = n - 1;
+        this.loader = loader;
+    }
+
+    /**
+     * 返回给定键的结果，必要时计算并缓存它。
+     *
+     * @param key 键
+     * @return 结果（可以为 null）
+     */
+    V get(String key) {
+        if (key.length() > MAX_KEY_LENGTH)
+            return loader.apply(key);
+        int h = key.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        Entry<V> e = table[i];
+        if (e != null && e.hash == h && e.key.equals(key))
+            return e.value;
+        V value = loader.apply(key);
+        table[i] = new Entry<>(h, key, value);
+        return value;
+    }
+
+    /**
+     * 清空缓存，例如在计算结果所依赖的配置改变之后。
+     */
+    void clear() {
+        Arrays.fill(table, null);
+    }
+
+    private static final class Entry<V> {
+        final int hash;
+        final String key;
+        final V value;
+
+        Entry(int hash, String key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package me.asu.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@code ParallelGzipOutputStream} 是一种并行压缩的 gzip 输出流（与 pigz 的做法相同）。
+ * <p>
+ * 写入的数据被切分为固定大小的块，每个块在执行器上使用 {@link DeflaterPool} 中的 Deflater 独立压缩，
+ * 并以前一个块末尾的 32K 数据作为预设字典，因此压缩率与串行压缩相近。
+ * 除最后一个块外，每个块都以同步刷新结束（对齐到字节边界），因此各块压缩后的数据按顺序拼接即为标准的 deflate 流；
+ * CRC-32 在写入线程上按顺序计算。
+ * <p>
+ * 同时压缩中的块数是有界的：达到上限时，写入线程等待最早的块完成并将其写出，从而形成背压。
+ * 只有一个块的数据（小的响应）直接在写入线程上压缩。
+ *
+ * @see HTTPServer.GzipConfig#setParallelCompression(boolean)
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    protected static final int DICT_SIZE = 32 * 1024; // deflate window size
+    protected static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    protected final OutputStream out;
+    protected final Executor executor;
+    protected final DeflaterPool pool;
+    protected final int level;
+    protected final int strategy;
+    protected final int blockSize;
+    protected final int maxInFlight;
+    protected final CRC32 crc = new CRC32();
+    protected final ArrayDeque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>();
+    protected byte[] block;
+    protected int count;
+    protected byte[] dict; // tail of the previously submitted data
+    protected long total;
+    protected int blocks;  // blocks submitted so far
+    protected boolean closed;
+
+    /**
+     * 构造一个并行 gzip 输出流。
+     *
+     * @param out         压缩数据写入的流
+     * @param executor    压缩块的执行器
+     * @param pool        gzip 格式（不带 zlib 包装）的 Deflater 池
+     * @param level       压缩级别
+     * @param strategy    压缩策略
+     * @param blockSize   块大小（字节）
+     * @param maxInFlight 同时压缩中的最大块数
+     * @throws IOException              如果写入 gzip 头部时发生错误
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public ParallelGzipOutputStream(OutputStream out, Executor executor, DeflaterPool pool, int level,
+                                    int strategy, int blockSize, int maxInFlight) throws IOException {
+        if (!pool.isNowrap())
+            throw new IllegalArgumentException("gzip requires a nowrap deflater pool");
+        if (blockSize < DICT_SIZE || maxInFlight < 1)
+            throw new IllegalArgumentException("invalid block size or in-flight limit");
+        this.out = out;
+        this.executor = executor;
+        this.pool = pool;
+        this.level = level;
+        this.strategy = strategy;
+        this.blockSize = blockSize;
+        this.maxInFlight = maxInFlight;
+        this.block = new byte[blockSize];
+        out.write(GZIP_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed)
+            throw new IOException("stream is closed");
+        crc.update(b, off, len);
+        total += len;
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize)
+                submit(false);
+        }
+    }
+
+    /**
+     * 将已写入的数据作为一个（可能不满的）块压缩，等待所有块完成并写出，然后刷新底层流。
+     *
+     * @throws IOException 如果发生错误
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed)
+            return;
+        if (count > 0)
+            submit(false);
+        while (!inFlight.isEmpty())
+            writeHead();
+        out.flush();
+    }
+
+    /**
+     * 压缩剩余的数据，写出所有块和 gzip 尾部，但不关闭底层流。
+     *
+     * @throws IOException 如果发生错误
+     */
+    public void finish() throws IOException {
+        if (closed)
+            return;
+        if (blocks == 0) { // a single block - not worth a hand-off
+            write(deflate(block, count, null, true));
+        } else {
+            submit(true);
+            while (!inFlight.isEmpty())
+                writeHead();
+        }
+        long c = crc.getValue();
+        out.write(new byte[]{(byte) c, (byte) (c >> 8), (byte) (c >> 16), (byte) (c >> 24),
+                (byte) total, (byte) (total >> 8), (byte) (total >> 16), (byte) (total >> 24)});
+        closed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            finish();
+        } finally {
+            abort();
+        }
+        out.close();
+    }
+
+    /**
+     * 放弃所有尚未写出的块并关闭此流（不关闭底层流）。
+     */
+    protected void abort() {
+        closed = true;
+        for (CompletableFuture<ByteBuffer> f : inFlight)
+            f.cancel(false); // their deflaters are returned to the pool when they complete
+        inFlight.clear();
+    }
+
+    /**
+     * 提交当前块进行压缩；若同时压缩中的块已达上限，先等待并写出最早的块。
+     *
+     * @param last 是否为最后一个块
+     * @throws IOException 如果写出之前的块时发生错误
+     */
+    protected void submit(boolean last) throws IOException {
+        while (inFlight.size() >= maxInFlight)
+            writeHead();
+        byte[] data = block;
+        int len = count;
+        byte[] d = dict;
+        dict = tail(d, data, len);
+        inFlight.add(CompletableFuture.supplyAsync(() -> deflate(data, len, d, last), executor));
+        blocks++;
+        block = last ? null : new byte[blockSize];
+        count = 0;
+    }
+
+    /**
+     * 等待最早提交的块压缩完成并将其写出。
+     *
+     * @throws IOException 如果压缩失败、等待被中断或写出时发生错误
+     */
+    protected void writeHead() throws IOException {
+        CompletableFuture<ByteBuffer> f = inFlight.poll();
+        try {
+            write(f.get());
+        } catch (InterruptedException ie) {
+            abort();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while compressing");
+        } catch (ExecutionException ee) {
+            throw new IOException("compression failed", ee.getCause());
+        }
+    }
+
+    /**
+     * 压缩一个块。
+     *
+     * @param data 块数据
+     * @param len  块长度
+     * @param dict 预设字典，或 null
+     * @param last 是否为最后一个块（结束 deflate 流），否则以同步刷新结束
+     * @return 压缩后的数据（从 0 到 limit）
+     */
+    protected ByteBuffer deflate(byte[] data, int len, byte[] dict, boolean last) {
+        Deflater def = pool.acquire(level, strategy);
+        try {
+            if (dict != null)
+                def.setDictionary(dict);
+            def.setInput(data, 0, len);
+            byte[] buf = new byte[len / 2 + 64];
+            int pos = 0;
+            if (last) {
+                def.finish();
+                while (!def.finished()) {
+                    if (pos == buf.length)
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    pos += def.deflate(buf, pos, buf.length - pos);
+                }
+            } else {
+                do {
+                    if (pos == buf.length)
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    pos += def.deflate(buf, pos, buf.length - pos, Deflater.SYNC_FLUSH);
+                } while (pos == buf.length); // a full buffer may mean more pending output
+            }
+            return ByteBuffer.wrap(buf, 0, pos);
+        } finally {
+            pool.release(def);
+        }
+    }
+
+    /**
+     * 返回下一个块的预设字典：已提交数据的最后 32K。
+     */
+    protected static byte[] tail(byte[] prev, byte[] data, int len) {
+        if (len >= DICT_SIZE || prev == null)
+            return Arrays.copyOfRange(data, Math.max(0, len - DICT_SIZE), len);
+        int keep = Math.min(prev.length, DICT_SIZE - len); // short (flushed) block - keep some of the old tail
+        byte[] d = new byte[keep + len];
+        System.arraycopy(prev, prev.length - keep, d, 0, keep);
+        System.arraycopy(data, 0, d, keep, len);
+        return d;
+    }
+
+    private void write(ByteBuffer compressed) throws IOException {
+        out.write(compressed.array(), compressed.arrayOffset(), compressed.limit());
+    }
+}
@@ -0,0 +1,260 @@
+package me.asu.http;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static me.asu.http.Bytes.getBytes;
+
+/**
+ * {@code RateLimiter} 使用令牌桶限制单个上下文的请求速率，包括每个客户端的速率和整个上下文的速率。
+ * <p>
+ * 令牌桶以 GCRA（通用信元速率算法）实现：每个桶只保存一个“理论到达时间”，
+ * 通过 CAS 无锁更新。客户端的桶保存在固定大小的开放寻址表中，因此内存占用是有界的。
+ * 已完全恢复（空闲）的桶与新桶等价，会被直接复用；当表中某一区域饱和时，
+ * 最早恢复的桶会被驱逐，此时被驱逐的客户端将获得一个新的桶。
+ * <p>
+ * 超出限制的请求在解析请求体（以及应答 {@code Expect: 100-continue}）之前
+ * 以预先序列化的 429 响应拒绝，并关闭连接，因此不会读取被拒绝请求的请求体。
+ *
+ * @see ContextConfig#setRateLimiter(RateLimiter)
+ */
+public class RateLimiter {
+
+    protected static final int PROBES = 8; // max slots probed per lookup
+
+    protected final long clientInterval;  // nanos between client permits, 0 means unlimited
+    protected final long clientTolerance; // nanos of accumulated burst
+    protected final long routeInterval;
+    protected final long routeTolerance;
+    protected final LongSupplier clock; // System.nanoTime() unless injected (e.g. in tests)
+    protected final AtomicLong routeTat;
+    protected final AtomicReferenceArray<Bucket> table;
+    protected final int mask;
+    protected final byte[] rejectResponse;
+
+    protected final LongAdder allowed = new LongAdder();
+    protected final LongAdder rejectedClient = new LongAdder();
+    protected final LongAdder rejectedRoute = new LongAdder();
+    protected final LongAdder evicted = new LongAdder();
+
+    /**
+     * 构造一个客户端表大小为 4096 的速率限制器。
+     *
+     * @param clientRate  每个客户端每秒允许的请求数，0 表示不限
+     * @param clientBurst 每个客户端允许的突发请求数
+     * @param routeRate   整个上下文每秒允许的请求数，0 表示不限
+     * @param routeBurst  整个上下文允许的突发请求数
+     */
+    public RateLimiter(double clientRate, int clientBurst, double routeRate, int routeBurst) {
+        this(clientRate, clientBurst, routeRate, routeBurst, 4096);
+    }
+
+    /**
+     * 构造一个速率限制器。
+     *
+     * @param clientRate  每个客户端每秒允许的请求数，0 表示不限
+     * @param clientBurst 每个客户端允许的突发请求数
+     * @param routeRate   整个上下文每秒允许的请求数，0 表示不限
+     * @param routeBurst  整个上下文允许的突发请求数
+     * @param tableSize   客户端表的大小（将向上取整为2的幂），即最多同时跟踪的客户端数
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public RateLimiter(double clientRate, int clientBurst, double routeRate, int routeBurst, int tableSize) {
+        this(clientRate, clientBurst, routeRate, routeBurst, tableSize, System::nanoTime);
+    }
+
+    /**
+     * 构造一个使用给定时钟的速率限制器。
+     *
+     * @param clientRate  每个客户端每秒允许的请求数，0 表示不限
+     * @param clientBurst 每个客户端允许的突发请求数
+     * @param routeRate   整个上下文每秒允许的请求数，0 表示不限
+     * @param routeBurst  整个上下文允许的突发请求数
+     * @param tableSize   客户端表的大小（将向上取整为2的幂），即最多同时跟踪的客户端数
+     * @param clock       纳秒时钟，其值的含义与 {@link System#nanoTime()} 相同
+     * @throws IllegalArgumentException 如果参数无效
+     */
+    public RateLimiter(double clientRate, int clientBurst, double routeRate, int routeBurst, int tableSize,
+                       LongSupplier clock) {
+        if (clientRate < 0 || routeRate < 0 || clientBurst < 0 || routeBurst < 0 || tableSize < 1)
+            throw new IllegalArgumentException("invalid rate limits");
+        this.clientInterval = clientRate == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / clientRate);
+        this.clientTolerance = clientInterval * Math.max(1, clientBurst);
+        this.routeInterval = routeRate == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / routeRate);
+        this.routeTolerance = routeInterval * Math.max(1, routeBurst);
+        this.clock = clock;
+        this.routeTat = new AtomicLong(clock.getAsLong());
+        int n = Integer.highestOneBit(tableSize);
+        n = n < tableSize ? n << 1 : n;
+        this.mask = n - 1;
+        this.table = new AtomicReferenceArray<>(clientInterval == 0 ? 1 : n);
+        long retryAfter = (Math.max(clientInterval, routeInterval) + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1);
+        this.rejectResponse = getBytes("HTTP/1.1 429 ", Response.statuses[429], "\r\n",
+                "Retry-After: ", Long.toString(Math.max(1, retryAfter)), "\r\n",
+                "Content-Length: 0\r\n",
+                "Connection: close\r\n\r\n");
+    }
+
+    /**
+     * 构造一个只限制每个客户端速率的限制器。
+     *
+     * @param rate  每个客户端每秒允许的请求数
+     * @param burst 每个客户端允许的突发请求数
+     * @return 速率限制器
+     */
+    public static RateLimiter perClient(double rate, int burst) {
+        return new RateLimiter(rate, burst, 0, 0);
+    }
+
+    /**
+     * 构造一个只限制整个上下文速率的限制器。
+     *
+     * @param rate  每秒允许的请求数
+     * @param burst 允许的突发请求数
+     * @return 速率限制器
+     */
+    public static RateLimiter perRoute(double rate, int burst) {
+        return new RateLimiter(0, 0, rate, burst);
+    }
+
+    /**
+     * 尝试为来自给定客户端的请求获取一个许可。
+     *
+     * @param client 客户端地址
+     * @return 是否允许该请求
+     */
+    public boolean tryAcquire(InetAddress client) {
+        long now = clock.getAsLong();
+        if (clientInterval > 0 && !take(bucket(client, now).tat, now, clientInterval, clientTolerance)) {
+            rejectedClient.increment();
+            return false;
+        }
+        if (routeInterval > 0 && !take(routeTat, now, routeInterval, routeTolerance)) {
+            rejectedRoute.increment();
+            return false;
+        }
+        allowed.increment();
+        return true;
+    }
+
+    /**
+     * 按 GCRA 从桶中取出一个令牌。
+     *
+     * @param tat       桶的理论到达时间
+     * @param now       当前时间（纳秒）
+     * @param interval  令牌间隔（纳秒）
+     * @param tolerance 允许的突发时长（纳秒）
+     * @return 是否取得令牌
+     */
+    protected static boolean take(AtomicLong tat, long now, long interval, long tolerance) {
+        while (true) {
+            long t = tat.get();
+            long next = (t - now > 0 ? t : now) + interval;
+            if (next - now > tolerance)
+                return false;
+            if (tat.compareAndSet(t, next))
+                return true;
+        }
+    }
+
+    /**
+     * 返回给定客户端的桶，必要时创建它（可能复用空闲的桶或驱逐最早恢复的桶）。
+     *
+     * @param client 客户端地址
+     * @param now    当前时间（纳秒）
+     * @return 客户端的桶
+     */
+    protected Bucket bucket(InetAddress client, long now) {
+        int h = client == null ? 0 : client.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b; // spread sequential addresses
+        h ^= h >>> 16;
+        int victim = -1;
+        long victimTat = 0;
+        for (int p = 0; p < PROBES; p++) {
+            int i = (h + p) & mask;
+            Bucket b = table.get(i);
+            if (b == null) {
+                Bucket created = new Bucket(client, now);
+                if (table.compareAndSet(i, null, created))
+                    return created;
+                if ((b = table.get(i)) == null)
+                    continue;
+            }
+            if (b.matches(client))
+                return b;
+            long t = b.tat.get();
+            if (t - now <= 0) { // idle - a full bucket is equivalent to a new one, so reuse the slot
+                Bucket created = new Bucket(client, now);
+                if (table.compareAndSet(i, b, created)) {
+                    evicted.increment();
+                    return created;
+                }
+            } else if (victim < 0 || t - victimTat < 0) {
+                victim = i;
+                victimTat = t;
+            }
+        }
+        Bucket created = new Bucket(client, now); // saturated - evict the bucket closest to idle
+        table.set(victim < 0 ? h & mask : victim, created);
+        evicted.increment();
+        return created;
+    }
+
+    /**
+     * 返回预先序列化的 429 响应（包含 Retry-After 头部）。
+     *
+     * @return 429 响应的字节（不得修改）
+     */
+    public byte[] getRejectResponse() {
+        return rejectResponse;
+    }
+
+    /** @return 被允许的请求数 */
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    /** @return 因超过客户端速率而被拒绝的请求数 */
+    public long getRejectedClient() {
+        return rejectedClient.sum();
+    }
+
+    /** @return 因超过上下文速率而被拒绝的请求数 */
+    public long getRejectedRoute() {
+        return rejectedRoute.sum();
+    }
+
+    /** @return 被复用或驱逐的客户端桶数 */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RateLimiter[allowed=%d, rejectedClient=%d, rejectedRoute=%d, evicted=%d]",
+                getAllowed(), getRejectedClient(), getRejectedRoute(), getEvicted());
+    }
+
+    /**
+     * 单个客户端的令牌桶。
+     */
+    protected static class Bucket {
+        final InetAddress client;
+        final AtomicLong tat; // theoretical arrival time of the next request
+
+        Bucket(InetAddress client, long now) {
+            this.client = client;
+            this.tat = new AtomicLong(now);
+        }
+
+        boolean matches(InetAddress client) {
+            return this.client == null ? client == null : this.client.equals(client);
+        }
+    }
+}
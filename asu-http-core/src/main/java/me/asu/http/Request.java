@@ -1,16 +1,20 @@
 package me.asu.http;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static me.asu.http.HeaderKey.*;
 import static me.asu.http.Headers.readHeaders;
+import static me.asu.http.Streams.readBytes;
 import static me.asu.http.Streams.readLine;
-import static me.asu.http.Streams.readToken;
 import static me.asu.http.Strings.*;
 
 /**
@@ -27,11 +31,23 @@ public class Request {
     protected int version;
     protected Headers headers;
     protected Headers trailers;
+    @Getter(AccessLevel.NONE)
+    protected InputStream in;   // the connection's (buffered) input stream
     protected InputStream body;
+    protected long contentLength; // -1 if chunked
     protected Socket socket;
     //    protected Map<String, String>          params; // cached value
     protected HTTPServer.ContextInfo context; // cached value
     protected HTTPServer server;
+    // server state, not part of the handler API (handlers use the deadline methods and fanOut)
+    @Getter(AccessLevel.NONE)
+    protected CompletableFuture<Integer> async; // pending result of an asynchronous handler
+    @Getter(AccessLevel.NONE)
+    protected CompletableFuture<Boolean> watcher; // completes when the connection is no longer watched
+    @Getter(AccessLevel.NONE)
+    protected long startNanos;   // when the request line was read
+    @Getter(AccessLevel.NONE)
+    protected long timeoutNanos; // request deadline relative to startNanos, 0 means none
 
     protected final List<Part> files = new ArrayList<>();
 
@@ -49,6 +65,12 @@ public class Request {
      * xml or json parse result
      */
     protected final Map<String, Object> dataMap = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    protected JsonDoc jsonDoc;      // lazily indexed JSON body
+    @Getter(AccessLevel.NONE)
+    protected boolean jsonMapped;   // whether jsonDoc has been copied into dataMap
+    @Getter(AccessLevel.NONE)
+    protected byte[] jsonBody;      // the UTF-8 JSON body once read
 
     public String getMethod() {
         return method;
@@ -78,10 +100,68 @@ public class Request {
         return paramMap;
     }
 
+    /**
+     * 返回 XML 或 JSON 请求体的解析结果。
+     * JSON 请求体被{@link ContextConfig#setLazyJson(boolean) 惰性解析}时，在首次调用时由 {@link JsonDoc} 转换而来。
+     *
+     * @return 解析结果
+     */
     public Map<String, Object> getDataMap() {
+        if (jsonDoc != null && !jsonMapped) {
+            jsonMapped = true;
+            if (jsonDoc.isObject())
+                dataMap.putAll(jsonDoc.toMap());
+        }
         return dataMap;
     }
 
+    /**
+     * 返回 JSON 请求体的惰性文档，只建立索引，字段在访问时才解码。
+     * 上下文配置为{@link ContextConfig#setLazyJson(boolean) 惰性解析 JSON} 时由服务器解析，
+     * 否则由服务器已读取的字节建立，或在首次调用时读取请求体（此时请求体不得已被读取）。
+     *
+     * @return JSON 文档
+     * @throws IOException 如果读取时发生错误，请求体过大，或 JSON 不合法
+     */
+    public JsonDoc getJsonDoc() throws IOException {
+        if (jsonDoc == null)
+            jsonDoc = JsonDoc.parse(readJsonBody());
+        return jsonDoc;
+    }
+
+    /**
+     * 将 JSON 请求体直接绑定到给定类型的对象，不经过中间的 Map。
+     * 支持普通类（需要无参构造器，按 setter 或公有字段写入）和 record（以规范构造器创建），
+     * 类型的元数据按类缓存。
+     * <p>
+     * 直接从服务器已读取的 JSON 请求体字节绑定；启用了{@link ContextConfig#setStreamBody(boolean) 流式请求体}时
+     * 在首次调用时读取请求体，此时请求体不得已被读取。可以多次调用，每次返回新的对象。
+     * 默认配置下服务器仍会把请求体解析到 {@link #getDataMap()} 中（并因此以 400 拒绝不合法的请求体），
+     * 只以本方法读取请求体的处理器可以配置{@link ContextConfig#setLazyJson(boolean) 惰性解析}以免构建 Map。
+     *
+     * @param type 结果类型
+     * @param <T>  结果类型
+     * @return 绑定的对象
+     * @throws IOException 如果读取时发生错误，请求体过大，或 JSON 不合法
+     * @throws IllegalStateException 如果缺少 JSON 模块
+     */
+    public <T> T getBodyAs(Class<T> type) throws IOException {
+        if (!isJsonSupported())
+            throw new IllegalStateException("JSON binding requires me.asu.http.JsonParser");
+        byte[] bytes = readJsonBody();
+        return ((JsonBinder) newJsonParser()).bind(bytes, 0, bytes.length, type);
+    }
+
+    // reads the JSON body once, transcoded to UTF-8 if needed; JsonParser decodes the body through it too
+    byte[] readJsonBody() throws IOException {
+        if (jsonBody == null) {
+            String charset = headers.getParams(CONTENT_TYPE).get("charset");
+            jsonBody = charset == null || charset.equalsIgnoreCase("UTF-8") ? getBytes()
+                    : getString(charset).getBytes(StandardCharsets.UTF_8);
+        }
+        return jsonBody;
+    }
+
     public boolean isMultipartFormData() {
         String ct = contentType();
         return (ct != null && ct.startsWith(CommonContentType.FORM_DATA.type()));
@@ -138,18 +218,34 @@ public class Request {
 
     }
 
+    /**
+     * 返回请求体的长度。
+     *
+     * @return Content-Length 给出的字节数，使用分块传输编码时为 -1
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * 读取完整的请求体。按 Content-Length 一次分配缓冲区，
+     * 请求体不得超过服务器的 {@link HTTPServer#getMaxBodySize() 最大请求体大小}。
+     *
+     * @return 请求体的内容
+     * @throws IOException 如果发生错误，或请求体过大
+     */
+    public byte[] getBytes() throws IOException {
+        return readBytes(body, contentLength, server.getMaxBodySize());
+    }
+
     public String getString() {
         String charset = headers.getParams(CONTENT_TYPE).get("charset");
-        try {
-            return readToken(body, -1, charset == null ? "UTF-8" : charset, 8192);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return getString(charset);
     }
 
     public String getString(String charset) {
         try {
-            return readToken(body, -1, charset == null ? "UTF-8" : charset, 8192);
+            return new String(getBytes(), charset == null ? "UTF-8" : charset);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -210,6 +306,11 @@ public class Request {
         }
     }
 
+    private boolean isLazyJson() {
+        ContextConfig config = getContext().getConfig(method);
+        return config != null && config.isLazyJson();
+    }
+
     public void initBody() throws IOException {
         if (isForm()) {
             formDataParser.parseRequest(this);
@@ -217,11 +318,13 @@ public class Request {
             newMultipartRequestParser().parseRequest(this);
         } else if (isXml() && isXmlSupported()) {
             newXmlParser().parseRequest(this);
-        }  else if (isJson() && isJsonSupported()) {
+        } else if (isJson() && isLazyJson()) {
+            getJsonDoc();
+        } else if (isJson() && isJsonSupported()) {
             newJsonParser().parseRequest(this);
-        }else {
-            // a text data, use getString() to get the content
-            // Max length is 8192, I don't believe a text request is larger than 8 kb.
+        } else {
+            // a text data, use getString() or getBytes() to get the content,
+            // which is limited by the server's max body size.
             // If upload a file, should be use multipart/form-data request.
         }
 
@@ -249,6 +352,7 @@ public class Request {
     public Request(HTTPServer server, InputStream in, Socket socket) throws IOException {
         this.server = server;
         this.socket = socket;
+        this.in = in;
         readRequestLine(in);
         headers = readHeaders(in);
 
@@ -265,13 +369,107 @@ public class Request {
                 throw new IOException("final transfer encoding must be \"chunked\"");
             trailers = new Headers();
             body = new ChunkedInputStream(in, trailers); // [RFC9110#6.5] separate trailers from headers
+            contentLength = -1;
         } else {
             header = headers.get(CONTENT_LENGTH);
             long len = header == null ? 0 : parseULong(header, 10);
             body = new LimitedInputStream(in, len, true);
+            contentLength = len;
         }
         initRequestParam();
-        initBody();
+        initDeadline();
+        // the body is parsed by the server (see HTTPServer#parseBody) once the request
+        // has passed preprocessing, so rejected requests never pay for it
+    }
+
+    /**
+     * 返回请求体是否已被完整读取，此后连接上的数据属于下一个请求。
+     *
+     * @return 请求体是否已被完整读取
+     */
+    boolean isBodyConsumed() {
+        if (body instanceof ChunkedInputStream)
+            return ((ChunkedInputStream) body).limit < 0; // the last chunk was read
+        return body instanceof LimitedInputStream && ((LimitedInputStream) body).limit == 0;
+    }
+
+    private void initDeadline() {
+        long timeout = server.getRequestTimeout();
+        ContextConfig config = getContext().getConfig(method);
+        if (config != null && config.getTimeout() > 0)
+            timeout = config.getTimeout();
+        timeoutNanos = timeout > 0 ? TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    }
+
+    /**
+     * 返回请求是否有截止时间。
+     *
+     * @return 是否有截止时间
+     */
+    public boolean hasDeadline() {
+        return timeoutNanos > 0;
+    }
+
+    /**
+     * 返回距离请求截止时间的剩余纳秒数。
+     *
+     * @return 剩余纳秒数（可能为负），没有截止时间时返回 {@code Long.MAX_VALUE}
+     */
+    public long getRemainingNanos() {
+        return timeoutNanos > 0 ? startNanos + timeoutNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * 返回距离请求截止时间的剩余毫秒数。截止时间从读取请求行时开始计算，
+     * 处理器可以用它来限制对后端的调用。
+     *
+     * @return 剩余毫秒数（已超时时为0），没有截止时间时返回 {@code Long.MAX_VALUE}
+     */
+    public long getRemainingTime() {
+        long remaining = getRemainingNanos();
+        return remaining == Long.MAX_VALUE ? remaining : Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    /**
+     * 返回请求是否已超过截止时间。
+     *
+     * @return 是否已超过截止时间
+     */
+    public boolean isDeadlineExceeded() {
+        return getRemainingNanos() <= 0;
+    }
+
+    /**
+     * 协作式地检查截止时间，供长时间运行的处理器在各步骤之间调用。
+     *
+     * @throws DeadlineExceededException 如果请求已超过截止时间
+     */
+    public void checkDeadline() throws DeadlineExceededException {
+        if (isDeadlineExceeded())
+            throw new DeadlineExceededException("request deadline exceeded");
+    }
+
+    /**
+     * 创建一个请求范围内的结构化并发作用域，使用服务器的 {@link HTTPServer#getFanOutConcurrency() 默认并发上限}。
+     * 子任务在请求超过截止时间或被取消时一并取消。
+     *
+     * @return 一个新的作用域，必须在处理器返回前关闭
+     */
+    public FanOut fanOut() {
+        return fanOut(server.getFanOutConcurrency());
+    }
+
+    /**
+     * 创建一个请求范围内的结构化并发作用域。子任务在请求超过截止时间或被取消时一并取消。
+     *
+     * @param maxConcurrency 同时运行的最大子任务数
+     * @return 一个新的作用域，必须在处理器返回前关闭
+     */
+    public FanOut fanOut(int maxConcurrency) {
+        FanOut scope = new FanOut(this, maxConcurrency);
+        if (async != null) // the suspended request was completed or cancelled elsewhere (e.g. client is gone)
+            async.whenComplete((status, t) -> scope.cancel());
+        return scope;
     }
 
     /**
@@ -499,8 +697,10 @@ public class Request {
                         token++;
                     }
                     if (c == '\n' && token > 0) { // end of request line (unless it's empty)
-                        if (token == 3) // got our 3 valid tokens
+                        if (token == 3) { // got our 3 valid tokens
+                            startNanos = System.nanoTime(); // the request deadline starts now
                             return;
+                        }
                         throw new IOException("invalid request line"); // wrong number of tokens
                     }
                 }
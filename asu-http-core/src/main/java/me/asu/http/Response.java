@@ -5,11 +5,19 @@ import lombok.Data;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 
 import static me.asu.http.HeaderKey.*;
 import static me.asu.http.Bytes.CRLF;
@@ -98,14 +106,26 @@ public class Response implements Closeable {
 
     }
 
-   static HTTPServer.GzipConfig gzipConfig;
+   static HTTPServer.GzipConfig gzipConfig = new HTTPServer.GzipConfig();
+
+    /** 缓冲区中为响应头预留的空间，使响应头和缓冲的响应体能够一次写出 */
+    static final int HEADER_ROOM = 1024;
+
+    /** Accept-Encoding 请求头的值到协商结果的缓存 */
+    static final LookupCache<String> negotiatedEncodings = new LookupCache<>(256,
+            accepted -> getHighestQValue(accepted, "identity", "identity", "gzip", "deflate"));
 
     protected OutputStream outputStream; // the underlying output stream
     protected OutputStream encodedOut;   // chained encoder streams
     protected Headers      headers;
     protected boolean      discardBody;
     protected int          state;       // nothing sent, headers sent, or closed
+    protected long         bodyLength = -1; // length given to sendHeaders, or -1 if unknown
+    protected int          pendingStatus; // status of headers held back while the body is buffered, or 0
     protected Request      request;     // request used in determining client capabilities
+    protected WritableByteChannel channel; // the connection's channel, or null if it has none
+    protected final BufferPool responseBuffers; // buffers bodies of unknown length, or null to send them chunked
+    protected final BufferPool chunkBuffers; // coalesces chunked writes, or null to send a chunk per write
 
     public Headers getHeaders() {
         return headers;
@@ -119,14 +139,49 @@ public class Response implements Closeable {
         this.discardBody = discardBody;
     }
 
+    /**
+     * 设置连接的通道。未经编码的响应体（例如文件和直接缓冲区）可以绕过输出流直接写入该通道。
+     *
+     * @param channel 底层输出流所写入的通道，或 null
+     */
+    public void setChannel(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
     /**
      * Constructs a Response whose output is written to the given stream.
      *
      * @param outputStream the stream to which the response is written
      */
     public Response(OutputStream outputStream) {
+        this(outputStream, null);
+    }
+
+    /**
+     * 构造一个写入给定流的响应，长度未知的响应体缓冲在取自给定池的缓冲区中。
+     *
+     * @param outputStream    响应写入的流
+     * @param responseBuffers 缓冲区池（每个缓冲区包含 {@link #HEADER_ROOM} 字节的响应头空间），
+     *                        为 null 时不缓冲（直接使用分块编码）
+     */
+    public Response(OutputStream outputStream, BufferPool responseBuffers) {
+        this(outputStream, responseBuffers, null);
+    }
+
+    /**
+     * 构造一个写入给定流的响应，长度未知的响应体缓冲在取自给定池的缓冲区中，
+     * 分块编码时写入的数据累积在取自另一个池的缓冲区中。
+     *
+     * @param outputStream    响应写入的流
+     * @param responseBuffers 缓冲区池（每个缓冲区包含 {@link #HEADER_ROOM} 字节的响应头空间），
+     *                        为 null 时不缓冲（直接使用分块编码）
+     * @param chunkBuffers    分块编码的缓冲区池，为 null 时每次写入都输出一个数据块
+     */
+    public Response(OutputStream outputStream, BufferPool responseBuffers, BufferPool chunkBuffers) {
         this.outputStream = outputStream;
         this.headers = new Headers();
+        this.responseBuffers = responseBuffers;
+        this.chunkBuffers = chunkBuffers;
     }
 
     /**
@@ -144,6 +199,14 @@ public class Response implements Closeable {
      */
     public boolean headersSent() {return state == 1;}
 
+    /**
+     * 返回响应是否已开始写入连接。缓冲响应体时，响应头在响应体超出缓冲区、被刷新或响应关闭时才写出，
+     * 在此之前仍可以放弃该响应而改为发送错误响应。
+     *
+     * @return 响应是否已开始写入连接
+     */
+    public boolean isCommitted() {return state == 1 && pendingStatus == 0;}
+
     /**
      * 返回一个输出流，响应体可以写入该流中。
      * 该流根据发送的头部应用编码（例如，压缩）。
@@ -162,16 +225,42 @@ public class Response implements Closeable {
         // set up chain of encoding streams according to headers
         List<String> te = Arrays.asList(splitElements(headers.get("Transfer-Encoding"), true));
         List<String> ce = Arrays.asList(splitElements(headers.get("Content-Encoding"), true));
-        encodedOut = new ResponseOutputStream(outputStream); // leaves underlying stream open when closed
-        if (te.contains("chunked"))
-            encodedOut = new ChunkedOutputStream(encodedOut);
+        if (pendingStatus != 0) { // headers are sent along with the buffered body
+            encodedOut = new BufferedBodyOutputStream(responseBuffers);
+        } else {
+            encodedOut = new ResponseOutputStream(outputStream); // leaves underlying stream open when closed
+            if (te.contains("chunked"))
+                encodedOut = new ChunkedOutputStream(encodedOut, chunkBuffers);
+        }
         if (ce.contains("gzip") || te.contains("gzip"))
-            encodedOut = new GZIPOutputStream(encodedOut, 4096);
+            encodedOut = newCompressedOutputStream(encodedOut, DeflaterPool.GZIP);
         else if (ce.contains("deflate") || te.contains("deflate"))
-            encodedOut = new DeflaterOutputStream(encodedOut);
+            encodedOut = newCompressedOutputStream(encodedOut, DeflaterPool.ZLIB);
         return encodedOut; // return the outermost stream
     }
 
+    /**
+     * 使用池中的 Deflater 创建压缩输出流，压缩级别和策略按响应的内容类型选择。
+     *
+     * @param out  压缩数据写入的流
+     * @param pool Deflater 池
+     * @return 压缩输出流
+     * @throws IOException 如果发生错误
+     */
+    protected OutputStream newCompressedOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+        String ct = headers.get(CONTENT_TYPE);
+        if (ct != null) {
+            int pos = ct.indexOf(';'); // exclude params
+            ct = pos < 0 ? ct : ct.substring(0, pos);
+        }
+        HTTPServer.GzipConfig config = gzipConfig;
+        if (pool.isNowrap() && config.isParallelCompression()
+                && (bodyLength < 0 || bodyLength >= 2L * config.getParallelBlockSize()))
+            return new ParallelGzipOutputStream(out, config.getParallelExecutor(), pool, config.getLevel(ct),
+                    config.getStrategy(ct), config.getParallelBlockSize(), config.getParallelMaxInFlight());
+        return new CompressedOutputStream(out, pool, config.getLevel(ct), config.getStrategy(ct));
+    }
+
     /**
      * 关闭此响应并刷新所有输出。
      *
@@ -179,12 +268,43 @@ public class Response implements Closeable {
      */
     @Override
     public void close() throws IOException {
-        state = -1; // closed
-        if (encodedOut != null)
-            encodedOut.close(); // close all chained streams (except the underlying one)
+        try {
+            if (pendingStatus != 0 && encodedOut == null)
+                getBody(); // the held back headers are written with the (empty) body
+            state = -1; // closed
+            if (encodedOut != null)
+                encodedOut.close(); // close all chained streams (except the underlying one)
+        } catch (Throwable t) {
+            abandon(); // return the pooled deflater and buffers of the streams left unclosed
+            throw t;
+        }
         outputStream.flush();   // always flush underlying stream (even if getBody was never called)
     }
 
+    /**
+     * 放弃此响应：不再写出任何数据，仅将响应体的编码流占用的 Deflater 和缓冲区归还池中。
+     * 若响应尚未提交，此后可以改为发送一个新的（错误）响应；此响应不能再使用。
+     */
+    public void abandon() {
+        state = -1; // closed
+        pendingStatus = 0;
+        OutputStream out = encodedOut;
+        encodedOut = null;
+        while (out != null) { // release the chained streams from the outermost inwards
+            if (out instanceof CompressedOutputStream)
+                out = ((CompressedOutputStream) out).abandon();
+            else if (out instanceof ParallelGzipOutputStream) {
+                ((ParallelGzipOutputStream) out).abort();
+                out = ((ParallelGzipOutputStream) out).out;
+            } else if (out instanceof BufferedBodyOutputStream)
+                out = ((BufferedBodyOutputStream) out).abandon();
+            else if (out instanceof ChunkedOutputStream)
+                out = ((ChunkedOutputStream) out).abandon();
+            else
+                out = null; // the underlying stream is left as is
+        }
+    }
+
 
     /**
      * 发送具有指定响应状态的响应头。
@@ -199,11 +319,41 @@ public class Response implements Closeable {
     public void sendHeaders(int status) throws IOException {
         if (headersSent())
             throw new IOException("headers were already sent");
+        writeHeaders(status, outputStream);
+        state = 1; // headers sent
+    }
+
+    /**
+     * 将状态行和响应头写入给定的流。如果尚不存在，则会添加一个日期头；
+     * 对于请求保持连接的 HTTP/1.0 客户端，带有 Content-Length 的响应会添加 Connection: keep-alive。
+     *
+     * @param status 响应状态
+     * @param out    写入的流
+     * @throws IOException 如果发生错误
+     */
+    protected void writeHeaders(int status, OutputStream out) throws IOException {
         if (!headers.contains("Date"))
             headers.add("Date", DateUtils.formatDate(System.currentTimeMillis()));
-        outputStream.write(getBytes("HTTP/1.1 ", Integer.toString(status), " ", statuses[status]));
-        outputStream.write(CRLF);
-        headers.writeTo(outputStream);
+        if (request != null && request.getVersion() == 10 && headers.contains(CONTENT_LENGTH)
+                && !headers.contains(CONNECTION) && KEEP_ALIVE.equalsIgnoreCase(request.getHeaders().get(CONNECTION)))
+            headers.add(CONNECTION, KEEP_ALIVE); // [RFC9112#C.2.2] HTTP/1.0 persistent connection
+        out.write(getBytes("HTTP/1.1 ", Integer.toString(status), " ", statuses[status]));
+        out.write(CRLF);
+        headers.writeTo(out);
+    }
+
+    /**
+     * 发送一个预先序列化的完整响应（状态行、头部和主体）。
+     * 响应中的头部不会添加到 {@link #getHeaders()} 中；若响应要求关闭连接，调用方需自行添加。
+     *
+     * @param response 完整响应的字节
+     * @throws IOException 如果发生错误或头信息已被发送
+     */
+    public void sendRaw(byte[] response) throws IOException {
+        if (headersSent())
+            throw new IOException("headers were already sent");
+        outputStream.write(response);
+        discardBody = true; // the response is already complete
         state = 1; // headers sent
     }
 
@@ -231,6 +381,8 @@ public class Response implements Closeable {
             if (status == 200)
                 status = 206;
         }
+        bodyLength = length;
+        boolean buffered = false;
         String ct = headers.get(CONTENT_TYPE);
         if (ct == null) {
             ct = contentType != null ? contentType : CommonContentType.OCTET_STREAM.type();
@@ -241,14 +393,20 @@ public class Response implements Closeable {
             // [RFC9112#6.1] transfer encodings must not be sent to an HTTP/1.0 client
             boolean modern      = request != null && request.getVersion() == 11;
             String  accepted    = request == null ? null : request.getHeaders().get(ACCEPT_ENCODING);
-            String  compression = getHighestQValue(accepted, "identity", "identity", "gzip", "deflate");
+            String  compression = accepted == null ? "identity" : negotiatedEncodings.get(accepted);
             if (compression != null && !compression.equals("identity") &&
-                    (length < 0 || length > 300) && isCompressible(ct) && modern) {
-                headers.add(TRANSFER_ENCODING, CHUNKED); // compressed data is always unknown length
+                    (length < 0 || length >= gzipConfig.getMinLengthUsingGzip()) && isCompressible(ct) && modern) {
+                // compressed data is always unknown length - buffer it, or send it chunked
+                buffered = responseBuffers != null && !discardBody;
+                if (!buffered)
+                    headers.add(TRANSFER_ENCODING, CHUNKED);
                 headers.add(CONTENT_ENCODING, compression);
-            } else if (length < 0 && modern) {
-                headers.add(TRANSFER_ENCODING, CHUNKED); // unknown length
-            } else if (length >= 0) {
+            } else if (length < 0) {
+                // unknown length - buffer it, or send it chunked (or until the connection closes if HTTP/1.0)
+                buffered = responseBuffers != null && !discardBody;
+                if (!buffered && modern)
+                    headers.add(TRANSFER_ENCODING, CHUNKED);
+            } else {
                 headers.add(CONTENTLENGTH, Long.toString(length)); // known length
             }
         }
@@ -261,7 +419,14 @@ public class Response implements Closeable {
         if (request != null && CLOSE.equalsIgnoreCase(request.getHeaders().get(CONNECTION))
                 && !headers.contains(CONNECTION))
             headers.add(CONNECTION, CLOSE); // #[RFC9112#9.6] should reply to close with close
-        sendHeaders(status);
+        if (buffered) {
+            if (headersSent())
+                throw new IOException("headers were already sent");
+            pendingStatus = status; // held back until the body length is known
+            state = 1;
+        } else {
+            sendHeaders(status);
+        }
     }
     /**
      * 返回支持的列表中具有最高质量值的元素。
@@ -298,15 +463,10 @@ public class Response implements Closeable {
      *
      * @param contentType 内容类型
      * @return 若数据可压缩则返回真，若不可压缩则返回假
+     * @see HTTPServer.GzipConfig#isCompressible(String)
      */
     public static boolean isCompressible(String contentType) {
-        int pos = contentType.indexOf(';'); // exclude params
-        String ct = pos < 0 ? contentType : contentType.substring(0, pos);
-        for (String s : gzipConfig.compressibleContentTypes)
-            if (s.equals(ct) || s.charAt(0) == '*' && ct.endsWith(s.substring(1))
-                    || s.charAt(s.length() - 1) == '*' && ct.startsWith(s.substring(0, s.length() - 1)))
-                return true;
-        return false;
+        return gzipConfig.isCompressible(contentType);
     }
 
     /**
@@ -318,13 +478,60 @@ public class Response implements Closeable {
      * @throws IOException 如果发生错误
      */
     public void send(int status, String text) throws IOException {
-        byte[] content = text.getBytes("UTF-8");
-        sendHeaders(status, content.length, -1,
-                "W/\"" + Integer.toHexString(text.hashCode()) + "\"",
-                "text/html; charset=utf-8", null);
+        send(status, text.getBytes(StandardCharsets.UTF_8), "text/html; charset=utf-8");
+    }
+
+    /**
+     * 发送带有指定状态的完整响应，并将指定字节作为主体。
+     *
+     * @param status      响应状态
+     * @param body        响应体
+     * @param contentType 响应体的内容类型，如果未知则为 null
+     * @throws IOException 如果发生错误
+     */
+    public void send(int status, byte[] body, String contentType) throws IOException {
+        sendHeaders(status, body.length, -1, null, contentType, null);
         OutputStream out = getBody();
         if (out != null)
-            out.write(content);
+            out.write(body);
+    }
+
+    /**
+     * 发送带有指定状态的完整响应，并将缓冲区中剩余的字节作为主体。缓冲区的位置不会改变。
+     * 堆缓冲区直接从其数组写出；直接缓冲区在响应体未经编码时直接写入连接的通道。
+     *
+     * @param status      响应状态
+     * @param body        响应体（从位置到限制）
+     * @param contentType 响应体的内容类型，如果未知则为 null
+     * @throws IOException 如果发生错误
+     */
+    public void send(int status, ByteBuffer body, String contentType) throws IOException {
+        sendHeaders(status, body.remaining(), -1, null, contentType, null);
+        OutputStream out = getBody();
+        if (out == null)
+            return;
+        if (body.hasArray()) {
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            return;
+        }
+        ByteBuffer b = body.duplicate();
+        WritableByteChannel ch = directChannel(out);
+        if (ch != null) {
+            HTTPServer.Interrupter.enterIo(); // interrupting channel I/O would close the connection
+            try {
+                while (b.hasRemaining())
+                    ch.write(b);
+            } finally {
+                HTTPServer.Interrupter.exitIo();
+            }
+        } else {
+            byte[] buf = new byte[Math.min(8192, b.remaining())];
+            while (b.hasRemaining()) {
+                int n = Math.min(buf.length, b.remaining());
+                b.get(buf, 0, n);
+                out.write(buf, 0, n);
+            }
+        }
     }
 
     /**
@@ -379,6 +586,56 @@ public class Response implements Closeable {
         }
     }
 
+    /**
+     * 发送文件作为响应体。此方法必须在响应头已发送（并且指示存在主体）之后才可调用。
+     * 文件数据以 {@link FileChannel#transferTo} 发送：响应体未经编码且连接具有通道时直接写入该通道
+     * （操作系统可以零拷贝地发送），否则写入 {@link #getBody()} 返回的流。
+     * 发送的字节数不超过 {@link #sendHeaders} 声明的长度，因此在此期间变长的文件不会使响应体超出 Content-Length。
+     *
+     * @param file  要发送的文件
+     * @param range 应该发送的文件中的子范围，如果要发送整个文件则为null
+     * @throws IOException 如果发生错误，或文件在发送过程中被截断
+     */
+    public void sendFile(Path file, long[] range) throws IOException {
+        OutputStream out = getBody();
+        if (out == null)
+            return;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = range == null ? 0 : range[0];
+            // bounded by the declared length, which the file may have outgrown since
+            long count = range != null ? range[1] - range[0] + 1 : bodyLength >= 0 ? bodyLength : fc.size();
+            WritableByteChannel target = directChannel(out);
+            if (target == null)
+                target = Channels.newChannel(out);
+            HTTPServer.Interrupter.enterIo(); // interrupting channel I/O would close the connection
+            try {
+                while (count > 0) {
+                    long n = fc.transferTo(position, count, target);
+                    if (n <= 0 && position >= fc.size())
+                        throw new IOException("unexpected end of file");
+                    position += n;
+                    count -= n;
+                }
+            } finally {
+                HTTPServer.Interrupter.exitIo();
+            }
+        }
+    }
+
+    /**
+     * 若给定的响应体流未经编码且连接具有通道，则刷新已写入底层流的数据（例如响应头）并返回该通道。
+     *
+     * @param body {@link #getBody()} 返回的流
+     * @return 可以直接写入响应体的通道，或 null
+     * @throws IOException 如果发生错误
+     */
+    protected WritableByteChannel directChannel(OutputStream body) throws IOException {
+        if (channel == null || !(body instanceof ResponseOutputStream))
+            return null;
+        outputStream.flush();
+        return channel;
+    }
+
     /**
      * 发送301或302响应，将客户端重定向至指定的URL。
      *
@@ -422,29 +679,263 @@ public class Response implements Closeable {
         public void write(byte[] b, int off, int len) throws IOException {out.write(b, off, len);}
     }
 
+    /**
+     * {@code BufferedBodyOutputStream} 将长度未知的响应体缓冲在取自 {@link BufferPool} 的缓冲区中，
+     * 并推迟发送响应头。
+     * <p>
+     * 若关闭时响应体没有超出缓冲区，则添加 Content-Length 头，并将响应头和响应体一次写出；
+     * 否则（或在被刷新时）立即发送响应头，之后改为流式发送：HTTP/1.1 使用分块编码，
+     * HTTP/1.0 则发送到连接关闭为止。
+     */
+    protected class BufferedBodyOutputStream extends OutputStream {
+
+        protected final BufferPool pool;
+        protected byte[] buf;  // headers are written into the room before the body
+        protected int count;   // body bytes buffered after HEADER_ROOM
+        protected OutputStream streaming; // once the headers are sent
+        protected boolean closed;
+
+        /**
+         * 构造一个缓冲响应体的输出流。
+         *
+         * @param pool 缓冲区池
+         */
+        public BufferedBodyOutputStream(BufferPool pool) {
+            this.pool = pool;
+            this.buf = pool.acquire();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (streaming == null && !closed && HEADER_ROOM + count < buf.length)
+                buf[HEADER_ROOM + count++] = (byte) b;
+            else
+                write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed)
+                throw new IOException("stream is closed");
+            if (streaming == null) {
+                if (len <= buf.length - HEADER_ROOM - count) {
+                    System.arraycopy(b, off, buf, HEADER_ROOM + count, len);
+                    count += len;
+                    return;
+                }
+                startStreaming(); // too large to buffer
+            }
+            streaming.write(b, off, len);
+        }
+
+        /**
+         * 发送响应头和已缓冲的数据，并刷新底层流；此后的数据将以流式发送。
+         *
+         * @throws IOException 如果发生错误
+         */
+        @Override
+        public void flush() throws IOException {
+            if (closed)
+                return;
+            if (streaming == null)
+                startStreaming();
+            streaming.flush();
+        }
+
+        /**
+         * 发送带有 Content-Length 的完整响应（若尚未开始流式发送），或结束流式发送。不关闭底层流。
+         *
+         * @throws IOException 如果发生错误
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                if (streaming != null) {
+                    streaming.close();
+                    return;
+                }
+                headers.add(CONTENT_LENGTH, Integer.toString(count));
+                ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+                writeHeaders(pendingStatus, head);
+                pendingStatus = 0;
+                int n = head.size();
+                if (n <= HEADER_ROOM) { // a single write of headers and body
+                    System.arraycopy(head.toByteArray(), 0, buf, HEADER_ROOM - n, n);
+                    outputStream.write(buf, HEADER_ROOM - n, n + count);
+                } else {
+                    head.writeTo(outputStream);
+                    outputStream.write(buf, HEADER_ROOM, count);
+                }
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * 发送响应头，切换到流式发送，并写出已缓冲的数据。
+         *
+         * @throws IOException 如果发生错误
+         */
+        protected void startStreaming() throws IOException {
+            boolean modern = request != null && request.getVersion() == 11;
+            if (modern)
+                headers.add(TRANSFER_ENCODING, CHUNKED);
+            writeHeaders(pendingStatus, outputStream);
+            pendingStatus = 0;
+            streaming = new ResponseOutputStream(outputStream);
+            if (modern)
+                streaming = new ChunkedOutputStream(streaming, chunkBuffers);
+            streaming.write(buf, HEADER_ROOM, count);
+            release();
+        }
+
+        /**
+         * 不写出任何数据而关闭此流，并归还缓冲区。
+         *
+         * @return 已开始流式发送时的内层流，否则为 null
+         */
+        protected OutputStream abandon() {
+            closed = true;
+            release();
+            return streaming;
+        }
+
+        private void release() {
+            if (buf != null) {
+                pool.release(buf);
+                buf = null;
+            }
+        }
+    }
+
+    /**
+     * {@code CompressedOutputStream} 是一种使用池中 {@link Deflater} 的 gzip 或 deflate 压缩输出流。
+     * 关闭（或结束）流时写入 gzip 尾部，并将 Deflater 归还池中；此后流不能再写入。
+     */
+    static class CompressedOutputStream extends DeflaterOutputStream {
+
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        protected final DeflaterPool pool;
+        protected final CRC32 crc; // null unless gzip
+        protected boolean closed;
+
+        /**
+         * 构造一个压缩输出流。池中的 Deflater 不带 zlib 包装时写出 gzip 格式，否则写出 zlib (deflate) 格式。
+         *
+         * @param out      压缩数据写入的流
+         * @param pool     Deflater 池
+         * @param level    压缩级别
+         * @param strategy 压缩策略
+         * @throws IOException 如果发生错误
+         */
+        public CompressedOutputStream(OutputStream out, DeflaterPool pool, int level, int strategy)
+                throws IOException {
+            super(out, pool.acquire(level, strategy), 4096);
+            this.pool = pool;
+            if (pool.isNowrap()) {
+                crc = new CRC32();
+                out.write(GZIP_HEADER);
+            } else {
+                crc = null;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed)
+                throw new IOException("stream is closed");
+            super.write(b, off, len);
+            if (crc != null)
+                crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (closed || def.finished())
+                return;
+            super.finish();
+            if (crc != null) { // gzip trailer: CRC-32 and uncompressed size (mod 2^32), little-endian
+                long c = crc.getValue();
+                long n = def.getBytesRead();
+                out.write(new byte[]{(byte) c, (byte) (c >> 8), (byte) (c >> 16), (byte) (c >> 24),
+                        (byte) n, (byte) (n >> 8), (byte) (n >> 16), (byte) (n >> 24)});
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            try {
+                finish();
+            } finally {
+                closed = true;
+                pool.release(def); // reset and reuse (or end) the deflater
+            }
+            out.close();
+        }
+
+        /**
+         * 不写出任何数据而关闭此流，并将 Deflater 归还池中。
+         *
+         * @return 内层流
+         */
+        protected OutputStream abandon() {
+            if (!closed) {
+                closed = true;
+                pool.release(def);
+            }
+            return out;
+        }
+    }
+
     /**
      * {@code ChunkedOutputStream} 是一种使用“分块”传输编码的输出流。
      * 它仅应在事先不知道内容长度的情况下使用，
      * 并且响应的 Transfer-Encoding 头部应设置为“chunked”。
      * <p>
-     * 通过调用 {@link #write(byte[], int, int)} 方法将数据写入流中，
-     * 每次调用该方法都会写入一个新的数据块。要结束流，必须调用 {@link #writeTrailingChunk} 方法，或关闭该流。
+     * 写入的数据先累积在一个取自 {@link BufferPool} 的缓冲区中，每当缓冲区写满或调用 {@link #flush()} 时输出一个数据块，
+     * 因此零散的小写入不会产生大量带有分块开销的小数据块；不小于缓冲区的写入直接作为一个数据块输出。
+     * 要结束流，必须调用 {@link #writeTrailingChunk} 方法，或关闭该流。
      */
     static class ChunkedOutputStream extends FilterOutputStream {
 
         protected int state; // the current stream state
+        protected final BufferPool pool;
+        protected byte[] buf; // pending chunk data, or null if not coalescing
+        protected int count;
 
         /**
-         * Constructs a ChunkedOutputStream with the given underlying stream.
+         * Constructs a ChunkedOutputStream with the given underlying stream,
+         * writing every non-empty write as its own chunk.
          *
          * @param out the underlying output stream to which the chunked stream
          *            is written
          * @throws NullPointerException if the given stream is null
          */
         public ChunkedOutputStream(OutputStream out) {
+            this(out, null);
+        }
+
+        /**
+         * Constructs a ChunkedOutputStream with the given underlying stream.
+         *
+         * @param out  the underlying output stream to which the chunked stream
+         *             is written
+         * @param pool the pool providing the buffer into which writes are coalesced,
+         *             or null to write every non-empty write as its own chunk
+         * @throws NullPointerException if the given stream is null
+         */
+        public ChunkedOutputStream(OutputStream out, BufferPool pool) {
             super(out);
             if (out == null)
                 throw new NullPointerException("output stream is null");
+            this.pool = pool;
+            this.buf = pool == null ? null : pool.acquire();
         }
 
         /**
@@ -469,35 +960,59 @@ public class Response implements Closeable {
         }
 
         /**
-         * Writes the trailing chunk which marks the end of the stream.
+         * Writes the buffered data (if any) as a chunk.
+         *
+         * @throws IOException if an error occurs
+         */
+        protected void writeBufferedChunk() throws IOException {
+            if (count > 0) {
+                initChunk(count);
+                out.write(buf, 0, count);
+                count = 0;
+            }
+        }
+
+        /**
+         * Writes the buffered data (if any) and the trailing chunk which marks the end of the stream.
          *
          * @param headers the (optional) trailing headers to write, or null
          * @throws IOException if an error occurs
          */
         public void writeTrailingChunk(Headers headers) throws IOException {
+            writeBufferedChunk();
             initChunk(0); // zero-sized chunk marks the end of the stream
             if (headers == null)
                 out.write(CRLF); // empty header block
             else
                 headers.writeTo(out);
             state = -1;
+            if (buf != null) {
+                pool.release(buf);
+                buf = null;
+            }
         }
 
         /**
-         * Writes a chunk containing the given byte. This method initializes
-         * a new chunk of size 1, and then writes the byte as the chunk data.
+         * Writes the given byte, buffering it until a chunk is written.
          *
-         * @param b the byte to write as a chunk
+         * @param b the byte to write
          * @throws IOException if an error occurs
          */
         @Override
         public void write(int b) throws IOException {
-            write(new byte[]{(byte) b}, 0, 1);
+            if (buf == null || state < 0) {
+                write(new byte[]{(byte) b}, 0, 1);
+                return;
+            }
+            if (count == buf.length)
+                writeBufferedChunk();
+            buf[count++] = (byte) b;
         }
 
         /**
-         * Writes a chunk containing the given bytes. This method initializes
-         * a new chunk of the given size, and then writes the chunk data.
+         * Writes the given bytes. Small writes are buffered and written as a single chunk
+         * when the buffer fills up; writes at least as large as the buffer are written
+         * directly as a chunk of the given size.
          *
          * @param b   an array containing the bytes to write
          * @param off the offset within the array where the data starts
@@ -508,11 +1023,36 @@ public class Response implements Closeable {
          */
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
+            if (buf != null && state >= 0) {
+                if (count + len <= buf.length) {
+                    System.arraycopy(b, off, buf, count, len);
+                    count += len;
+                    return;
+                }
+                writeBufferedChunk();
+                if (len < buf.length) {
+                    System.arraycopy(b, off, buf, 0, len);
+                    count = len;
+                    return;
+                }
+            }
             if (len > 0) // zero-sized chunk is the trailing chunk
                 initChunk(len);
             out.write(b, off, len);
         }
 
+        /**
+         * Writes the buffered data (if any) as a chunk, and flushes the underlying stream.
+         *
+         * @throws IOException if an error occurs
+         */
+        @Override
+        public void flush() throws IOException {
+            if (state >= 0)
+                writeBufferedChunk();
+            out.flush();
+        }
+
         /**
          * Writes the trailing chunk if necessary, and closes the underlying stream.
          *
@@ -524,5 +1064,19 @@ public class Response implements Closeable {
                 writeTrailingChunk(null);
             super.close();
         }
+
+        /**
+         * Ends the stream without writing anything, and returns the buffer to its pool.
+         *
+         * @return the underlying stream
+         */
+        protected OutputStream abandon() {
+            state = -1;
+            if (buf != null) {
+                pool.release(buf);
+                buf = null;
+            }
+            return out;
+        }
     }
 }
@@ -1,6 +1,7 @@
 package me.asu.http;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -570,6 +571,45 @@ public abstract class Streams {
         return list;
     }
 
+    /**
+     * 读取输入流的全部内容。已知长度时（例如请求的 Content-Length）按长度一次分配缓冲区，
+     * 否则从较小的缓冲区开始逐次加倍。
+     *
+     * @param in 输入流
+     * @param length 内容的字节数，若为负数则表示未知，读取到流末尾为止
+     * @param maxLength 读取的最大长度（以字节为单位）
+     * @return 读取的内容
+     * @throws EOFException 如果在读取到给定长度之前到达流的末尾
+     * @throws IOException 如果发生输入输出错误，或者内容超过最大长度
+     */
+    public static byte[] readBytes(InputStream in, long length, int maxLength) throws IOException {
+        if (length > maxLength)
+            throw new IOException("body too large (" + length + " > " + maxLength + ")");
+        if (length >= 0) {
+            byte[] buf = in.readNBytes((int)length);
+            if (buf.length < length)
+                throw new EOFException("unexpected end of stream");
+            return buf;
+        }
+        byte[] buf = new byte[Math.min(8192, maxLength)];
+        int count = 0;
+        while (true) {
+            if (count == buf.length) { // expand buffer
+                if (count == maxLength) {
+                    if (in.read() < 0)
+                        break;
+                    throw new IOException("body too large (> " + maxLength + ")");
+                }
+                buf = Arrays.copyOf(buf, (int)Math.min(2L * count, maxLength));
+            }
+            int n = in.read(buf, count, buf.length - count);
+            if (n < 0)
+                break;
+            count += n;
+        }
+        return count == buf.length ? buf : Arrays.copyOf(buf, count);
+    }
+
     /**
      * 从当前流位置开始读取标记，直到给定分隔符字节的第一次出现，采用指定的编码方式。
      * 如果将换行符 (LF) 指定为分隔符，则 CRLF（回车换行对）也会被视为一个分隔符。
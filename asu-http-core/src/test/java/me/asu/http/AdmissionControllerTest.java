@@ -0,0 +1,176 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdmissionControllerTest extends TestCase {
+
+    @Test
+    public void testQueueBound() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, 0, 1);
+        assertTrue(admission.acquire());
+        assertEquals(1, admission.getInFlight());
+        ExecutorService waiter = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> queued = waiter.submit(admission::acquire);
+            for (int i = 0; i < 500 && admission.getQueueDepth() == 0; i++)
+                Thread.sleep(10);
+            assertEquals(1, admission.getQueueDepth());
+            assertFalse(admission.acquire()); // the queue is full
+            assertEquals(1, admission.getRejectedQueueFull());
+            admission.release(); // hands the permit to the waiter
+            assertEquals(Boolean.TRUE, queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1, admission.getInFlight());
+            assertEquals(0, admission.getQueueDepth());
+            admission.release();
+            assertEquals(0, admission.getInFlight());
+            assertEquals(2, admission.getAdmitted());
+        } finally {
+            waiter.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueueAgeRejection() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 4, 50, 1);
+        assertTrue(admission.acquire());
+        long start = System.nanoTime();
+        assertFalse(admission.acquire()); // waits for 50ms, then gives up
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited + "ms", waited >= 50 && waited < 5000);
+        assertEquals(1, admission.getRejectedQueueTimeout());
+        assertEquals(0, admission.getRejectedQueueFull());
+        assertEquals(0, admission.getQueueDepth());
+        admission.release();
+        assertTrue(admission.acquire()); // the permit is available again
+        admission.release();
+        assertEquals(0, admission.getInFlight());
+    }
+
+    @Test
+    public void testExecuteQueueBound() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, 0, 1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            Runnable task = () -> {
+                running.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException ignore) {}
+                done.countDown();
+            };
+            assertTrue(admission.execute(executor, task, rejected::incrementAndGet));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            assertTrue(admission.execute(executor, task, rejected::incrementAndGet)); // queued
+            assertFalse(admission.execute(executor, task, rejected::incrementAndGet)); // queue is full
+            assertEquals(1, rejected.get());
+            assertEquals(1, admission.getQueueDepth());
+            proceed.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 500 && admission.getInFlight() > 0; i++)
+                Thread.sleep(10);
+            assertEquals(0, admission.getInFlight());
+            assertEquals(2, admission.getAdmitted());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecuteQueueAgeRejection() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, 20, 1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch proceed = new CountDownLatch(1);
+        CountDownLatch rejected = new CountDownLatch(1);
+        try {
+            admission.execute(executor, () -> {
+                try {
+                    proceed.await();
+                } catch (InterruptedException ignore) {}
+            }, () -> fail("rejected"));
+            admission.execute(executor, () -> fail("expired task was run"), rejected::countDown);
+            Thread.sleep(50); // longer than the queue time
+            proceed.countDown();
+            assertTrue(rejected.await(5, TimeUnit.SECONDS));
+            assertEquals(1, admission.getRejectedQueueTimeout());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecuteQueueExpiresWhileBusy() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, 20, 1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch proceed = new CountDownLatch(1);
+        CountDownLatch rejected = new CountDownLatch(1);
+        try {
+            admission.execute(executor, () -> {
+                try {
+                    proceed.await();
+                } catch (InterruptedException ignore) {}
+            }, () -> fail("rejected"));
+            long start = System.nanoTime();
+            admission.execute(executor, () -> fail("expired task was run"), rejected::countDown);
+            // rejected on time, although the running task still holds the only permit
+            assertTrue(rejected.await(5, TimeUnit.SECONDS));
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("waited " + waited + "ms", waited >= 20 && waited < 5000);
+            assertEquals(1, admission.getRejectedQueueTimeout());
+            assertEquals(0, admission.getQueueDepth());
+            assertEquals(1, admission.getInFlight());
+            // the queue has room again
+            CountDownLatch ran = new CountDownLatch(1);
+            assertTrue(admission.execute(executor, ran::countDown, () -> fail("rejected")));
+            proceed.countDown();
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIdleConnectionHoldsNoPermit() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        AdmissionController admission = new AdmissionController(1, 0, 0, 1);
+        server.setAdmissionController(admission);
+        server.addContext("/", (req, resp) -> {
+            resp.send(200, "ok");
+            return 0;
+        });
+        server.start();
+        byte[] get = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        try (Socket idle = AsyncContextHandlerTest.connect(server);
+             Socket other = AsyncContextHandlerTest.connect(server)) {
+            for (Socket sock : new Socket[]{idle, other, idle}) { // the idle keep-alive connection has no permit
+                sock.getOutputStream().write(get);
+                String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+            }
+            assertEquals(0, admission.getInFlight());
+            assertEquals(3, admission.getAdmitted());
+            // a request that can't be admitted is rejected, and its connection closed
+            assertTrue(admission.acquire());
+            other.getOutputStream().write(get);
+            InputStream in = other.getInputStream();
+            String response = AsyncContextHandlerTest.readResponse(in);
+            assertTrue(response, response.startsWith("HTTP/1.1 503"));
+            assertTrue(response, response.contains("Retry-After: 1"));
+            assertEquals(-1, in.read());
+            admission.release();
+        } finally {
+            server.stop();
+        }
+    }
+}
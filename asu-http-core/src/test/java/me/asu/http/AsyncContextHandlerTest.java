@@ -0,0 +1,184 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+public class AsyncContextHandlerTest extends TestCase {
+
+    static final String GET = "GET /async HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    /** 处理器挂起的请求 */
+    static class Pending {
+        final Response resp;
+        final CompletableFuture<Integer> result;
+
+        Pending(Response resp, CompletableFuture<Integer> result) {
+            this.resp = resp;
+            this.result = result;
+        }
+    }
+
+    static HTTPServer start(HTTPServer server, AsyncContextHandler handler) throws IOException {
+        server.setConnectionLimiter(new ConnectionLimiter(16, 16));
+        server.addContext("/async", handler);
+        server.start();
+        return server;
+    }
+
+    static Socket connect(HTTPServer server) throws IOException {
+        Socket sock = new Socket("localhost", server.serv.getLocalPort());
+        sock.setSoTimeout(5000);
+        return sock;
+    }
+
+    /** 读取一个响应（头部及 Content-Length 给出的响应体），返回其文本，连接已关闭时返回 null */
+    static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        for (int b, n = 0; n < 4; ) {
+            if ((b = in.read()) < 0)
+                return head.size() == 0 ? null : head.toString(StandardCharsets.ISO_8859_1);
+            head.write(b);
+            n = b == (n % 2 == 0 ? '\r' : '\n') ? n + 1 : b == '\r' ? 1 : 0;
+        }
+        String text = head.toString(StandardCharsets.ISO_8859_1);
+        int i = text.toLowerCase().indexOf("content-length:");
+        int length = i < 0 ? 0 : Integer.parseInt(text.substring(i + 15, text.indexOf('\r', i)).trim());
+        return text + new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    static void awaitClosed(HTTPServer server) throws InterruptedException {
+        for (int i = 0; i < 500 && server.getConnectionLimiter().getOpenConnections() > 0; i++)
+            Thread.sleep(10);
+        assertEquals("open connections", 0, server.getConnectionLimiter().getOpenConnections());
+    }
+
+    @Test
+    public void testSuspendThenComplete() throws Exception {
+        BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+        HTTPServer server = start(new HTTPServer(0), (AsyncContextHandler) (req, resp) -> {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            pending.add(new Pending(resp, result));
+            return result;
+        });
+        try (Socket sock = connect(server)) {
+            OutputStream out = sock.getOutputStream();
+            InputStream in = sock.getInputStream();
+            for (int i = 0; i < 2; i++) { // the connection is resumed after the first response
+                out.write(GET.getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                Pending p = pending.poll(5, TimeUnit.SECONDS);
+                assertNotNull(p);
+                p.resp.send(200, "done " + i);
+                p.result.complete(0);
+                String response = readResponse(in);
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+                assertTrue(response, response.endsWith("done " + i));
+            }
+        } finally {
+            server.stop();
+        }
+        awaitClosed(server);
+    }
+
+    @Test
+    public void testSuspendThenFail() throws Exception {
+        BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+        HTTPServer server = start(new HTTPServer(0), (AsyncContextHandler) (req, resp) -> {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            pending.add(new Pending(resp, result));
+            return result;
+        });
+        try (Socket sock = connect(server)) {
+            sock.getOutputStream().write(GET.getBytes(StandardCharsets.ISO_8859_1));
+            Pending p = pending.poll(5, TimeUnit.SECONDS);
+            assertNotNull(p);
+            p.result.completeExceptionally(new IllegalStateException("boom"));
+            String response = readResponse(sock.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 500"));
+            assertTrue(response, response.contains("boom"));
+            assertEquals(-1, sock.getInputStream().read()); // closed after the error
+        } finally {
+            server.stop();
+        }
+        awaitClosed(server);
+    }
+
+    @Test
+    public void testSuspendThenCancel() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HTTPServer server = start(new HTTPServer(0), (AsyncContextHandler) (req, resp) ->
+                InterruptibleFuture.submit(() -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException ie) {
+                        interrupted.countDown();
+                    }
+                    return 0;
+                }, executor));
+        try {
+            try (Socket sock = connect(server)) {
+                sock.getOutputStream().write(GET.getBytes(StandardCharsets.ISO_8859_1));
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+            } // the client is gone - the handler must be interrupted
+            assertTrue("handler interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            awaitClosed(server);
+        } finally {
+            server.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletionErrorClosesConnection() throws Exception {
+        BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+        HTTPServer server = start(new HTTPServer(0) {
+            @Override
+            boolean completeAsync(Request req, Response resp, Integer status, Throwable t) {
+                throw new IllegalStateException("completion failed");
+            }
+        }, (AsyncContextHandler) (req, resp) -> {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            pending.add(new Pending(resp, result));
+            return result;
+        });
+        try (Socket sock = connect(server)) {
+            sock.getOutputStream().write(GET.getBytes(StandardCharsets.ISO_8859_1));
+            Pending p = pending.poll(5, TimeUnit.SECONDS);
+            assertNotNull(p);
+            // complete it once the connection is suspended (the handler has returned by then)
+            p.result.completeAsync(() -> 0, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+            assertNull(readResponse(sock.getInputStream())); // closed without a response
+        } finally {
+            server.stop();
+        }
+        awaitClosed(server);
+    }
+
+    @Test
+    public void testInterruptibleFuture() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            InterruptibleFuture<Boolean> future = InterruptibleFuture.submit(() -> {
+                started.countDown();
+                Thread.sleep(60000);
+                return true;
+            }, executor);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(future.cancel(true));
+            // the interrupt is not leaked into the next task on the same thread
+            assertEquals(Boolean.FALSE, executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+            assertEquals(Integer.valueOf(42), InterruptibleFuture.submit(() -> 42, executor).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
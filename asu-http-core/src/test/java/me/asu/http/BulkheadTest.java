@@ -0,0 +1,201 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkheadTest extends TestCase {
+
+    static HTTPServer start(Bulkhead bulkhead, ContextHandler handler, boolean streamBody) throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        server.setConnectionLimiter(new ConnectionLimiter(16, 16));
+        ContextConfig config = new ContextConfig();
+        config.setBulkhead(bulkhead);
+        config.setStreamBody(streamBody);
+        server.addContext("/work", handler, config, "GET", "POST");
+        server.start();
+        return server;
+    }
+
+    static void get(Socket sock) throws Exception {
+        sock.getOutputStream().write("GET /work HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testStreamedBody() throws Exception {
+        HTTPServer server = start(new Bulkhead("io", 2, 2), (req, resp) -> {
+            resp.send(200, Long.toString(req.getBody().transferTo(OutputStream.nullOutputStream())));
+            return 0;
+        }, true);
+        byte[] body = new byte[3 * 1024 * 1024]; // larger than the max body size
+        Arrays.fill(body, (byte) 'x');
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            OutputStream out = sock.getOutputStream();
+            InputStream in = sock.getInputStream();
+            for (int i = 0; i < 2; i++) { // the connection is kept alive
+                out.write(("POST /work HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length + "\r\n\r\n")
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body);
+                String response = AsyncContextHandlerTest.readResponse(in);
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+                assertTrue(response, response.endsWith("\r\n\r\n" + body.length));
+            }
+        } finally {
+            server.stop();
+        }
+        AsyncContextHandlerTest.awaitClosed(server);
+    }
+
+    @Test
+    public void testKeepAliveWhileWatched() throws Exception {
+        HTTPServer server = start(new Bulkhead("cpu", 2, 2), (req, resp) -> {
+            resp.send(200, "ok");
+            return 0;
+        }, false);
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            for (int i = 0; i < 3; i++) {
+                get(sock);
+                String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+            }
+        } finally {
+            server.stop();
+        }
+        AsyncContextHandlerTest.awaitClosed(server);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Bulkhead bulkhead = new Bulkhead("slow", 1, 1);
+        bulkhead.setTimeout(100);
+        HTTPServer server = start(bulkhead, (req, resp) -> {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException ie) {
+                interrupted.countDown();
+            }
+            return 200;
+        }, false);
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            get(sock);
+            String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 504"));
+            assertTrue(response, response.contains("timed out"));
+            assertTrue("handler interrupted", interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            server.stop();
+        }
+        AsyncContextHandlerTest.awaitClosed(server);
+    }
+
+    @Test
+    public void testCancelOnDisconnect() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        HTTPServer server = start(new Bulkhead("slow", 1, 1), (req, resp) -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException ie) {
+                interrupted.countDown();
+            }
+            return 200;
+        }, false);
+        try {
+            try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+                get(sock);
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+            }
+            assertTrue("handler interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            AsyncContextHandlerTest.awaitClosed(server);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Bulkhead bulkhead = new Bulkhead("one", 1, 0, 0, 7, null);
+        HTTPServer server = start(bulkhead, (req, resp) -> {
+            started.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException ignore) {}
+            resp.send(200, "ok");
+            return 0;
+        }, false);
+        try (Socket busy = AsyncContextHandlerTest.connect(server);
+             Socket other = AsyncContextHandlerTest.connect(server)) {
+            get(busy);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            get(other);
+            String response = AsyncContextHandlerTest.readResponse(other.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 503"));
+            assertTrue(response, response.contains("Retry-After: 7"));
+            proceed.countDown();
+            response = AsyncContextHandlerTest.readResponse(busy.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 200"));
+            assertEquals(1, bulkhead.getAdmissionController().getRejectedQueueFull());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testPlatformPool() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Bulkhead bulkhead = new Bulkhead("pool", 2, 4);
+        bulkhead.setTimeout(0); // no timeout to break a deadlock
+        HTTPServer server = new HTTPServer(0);
+        server.setExecutor(pool);
+        server.setConnectionLimiter(new ConnectionLimiter(16, 16));
+        ContextConfig config = new ContextConfig();
+        config.setBulkhead(bulkhead);
+        server.addContext("/work", (req, resp) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignore) {}
+            running.decrementAndGet();
+            resp.send(200, "ok");
+            return 0;
+        }, config, "GET");
+        server.start();
+        Socket[] socks = new Socket[5]; // more requests than pool threads
+        try {
+            for (int i = 0; i < socks.length; i++) {
+                socks[i] = AsyncContextHandlerTest.connect(server);
+                socks[i].getOutputStream().write("GET /work HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.ISO_8859_1));
+            }
+            for (Socket sock : socks) {
+                String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+                sock.close(); // frees the pool thread that is waiting for the close
+            }
+            assertTrue("max running " + maxRunning.get(), maxRunning.get() <= 2);
+            assertEquals(5, bulkhead.getAdmissionController().getAdmitted());
+        } finally {
+            for (Socket sock : socks)
+                if (sock != null)
+                    sock.close();
+            server.stop();
+            pool.shutdownNow();
+        }
+    }
+}
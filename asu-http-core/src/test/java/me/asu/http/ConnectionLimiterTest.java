@@ -0,0 +1,88 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class ConnectionLimiterTest extends TestCase {
+
+    @Test
+    public void testLimits() throws Exception {
+        InetAddress a = InetAddress.getByName("10.0.0.1");
+        InetAddress b = InetAddress.getByName("10.0.0.2");
+        ConnectionLimiter limiter = new ConnectionLimiter(3, 2, 1 << 16);
+        assertTrue(limiter.acquire(a));
+        assertTrue(limiter.acquire(a));
+        assertFalse(limiter.acquire(a)); // per-address limit
+        assertEquals(1, limiter.getRejectedPerAddress());
+        assertTrue(limiter.acquire(b));
+        assertFalse(limiter.acquire(b)); // total limit
+        assertEquals(1, limiter.getRejectedTotal());
+        assertEquals(3, limiter.getOpenConnections());
+        limiter.release(a);
+        assertEquals(1, limiter.getOpenConnections(a));
+        assertTrue(limiter.acquire(b));
+        assertEquals(2, limiter.getOpenConnections(b));
+        assertEquals(4, limiter.getAccepted());
+    }
+
+    @Test
+    public void testReleaseOnHandlerError() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+        server.setConnectionLimiter(limiter);
+        server.addContext("/", (req, resp) -> {
+            throw new IllegalStateException("boom");
+        });
+        server.start();
+        try {
+            for (int i = 0; i < 2; i++) { // the slot is released, so the second connection is accepted
+                try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+                    sock.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                            .getBytes(StandardCharsets.ISO_8859_1));
+                    String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                    assertTrue(response, response.startsWith("HTTP/1.1 500"));
+                    assertEquals(-1, sock.getInputStream().read());
+                }
+                AsyncContextHandlerTest.awaitClosed(server);
+            }
+            try (Socket sock = AsyncContextHandlerTest.connect(server)) { // malformed request
+                sock.getOutputStream().write("GET\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                assertTrue(response, response.startsWith("HTTP/1.1 400"));
+            }
+            AsyncContextHandlerTest.awaitClosed(server);
+            assertEquals(3, limiter.getAccepted());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testReleaseOnRejectedExecution() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+        server.setConnectionLimiter(limiter);
+        server.setExecutor((Executor) task -> {
+            throw new RejectedExecutionException("shutting down");
+        });
+        server.start();
+        try {
+            for (int i = 0; i < 2; i++) {
+                try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+                    assertEquals(-1, sock.getInputStream().read()); // closed right away
+                }
+                AsyncContextHandlerTest.awaitClosed(server);
+            }
+            assertEquals(2, limiter.getAccepted());
+            assertEquals(0, limiter.getRejectedTotal());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class DeadlineTest extends TestCase {
+
+    static final String GET = "GET /work HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    static HTTPServer start(long timeout, ContextHandler handler, boolean streamBody) throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        server.setRequestTimeout(timeout);
+        ContextConfig config = new ContextConfig();
+        config.setStreamBody(streamBody);
+        server.addContext("/work", handler, config, "GET", "POST");
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void testOnTimeHandler() throws Exception {
+        HTTPServer server = start(5000, (req, resp) -> {
+            resp.send(200, "on time");
+            return 0;
+        }, false);
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            for (int i = 0; i < 3; i++) {
+                sock.getOutputStream().write(GET.getBytes(StandardCharsets.ISO_8859_1));
+                String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+                assertTrue(response, response.endsWith("on time"));
+            }
+            assertEquals(0, server.getDeadlineExceeded());
+            // the deadline timers were cancelled rather than left to fire
+            assertEquals(0, ((ScheduledThreadPoolExecutor) server.scheduler()).getQueue().size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testLateHandler() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        HTTPServer server = start(100, (req, resp) -> {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException ie) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+                throw new java.io.InterruptedIOException("interrupted");
+            }
+            return 200;
+        }, false);
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            sock.getOutputStream().write(GET.getBytes(StandardCharsets.ISO_8859_1));
+            String response = AsyncContextHandlerTest.readResponse(sock.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 504"));
+            assertTrue(response, response.contains("deadline exceeded"));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(1, server.getDeadlineExceeded());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testLateDuringConnectionIo() throws Exception {
+        HTTPServer server = start(100, (req, resp) -> {
+            byte[] body = req.getBody().readAllBytes(); // still reading from the connection at the deadline
+            req.checkDeadline();
+            resp.send(200, new String(body, StandardCharsets.UTF_8));
+            return 0;
+        }, true);
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            OutputStream out = sock.getOutputStream();
+            InputStream in = sock.getInputStream();
+            out.write("POST /work HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            Thread.sleep(300);
+            out.write("body".getBytes(StandardCharsets.ISO_8859_1));
+            // the connection was not closed by interrupting the read, so the 504 still arrives
+            String response = AsyncContextHandlerTest.readResponse(in);
+            assertNotNull(response);
+            assertTrue(response, response.startsWith("HTTP/1.1 504"));
+            assertEquals(1, server.getDeadlineExceeded());
+        } finally {
+            server.stop();
+        }
+    }
+}
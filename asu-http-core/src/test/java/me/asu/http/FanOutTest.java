@@ -0,0 +1,154 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FanOutTest extends TestCase {
+
+    static Request request(HTTPServer server) throws IOException {
+        byte[] head = "GET /fan HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        return new Request(server, new ByteArrayInputStream(head), null);
+    }
+
+    /** 一个等待被中断的子任务，中断时计数 */
+    static Integer sleep(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(60000);
+        } catch (InterruptedException ie) {
+            interrupted.countDown();
+        }
+        return 0;
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        IllegalStateException boom = new IllegalStateException("boom");
+        try (FanOut scope = new FanOut(null, 4)) {
+            FanOut.Subtask<Integer> slow = scope.fork("slow", () -> sleep(interrupted));
+            FanOut.Subtask<Integer> failing = scope.fork("failing", () -> {
+                throw boom;
+            });
+            long start = System.nanoTime();
+            try {
+                scope.join();
+                fail("joined although a subtask failed");
+            } catch (IOException e) {
+                assertSame(boom, e.getCause());
+                assertTrue(e.getMessage(), e.getMessage().contains("failing"));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)); // didn't wait for the slow one
+            assertTrue("sibling interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(FanOut.Subtask.State.FAILED, failing.state());
+            assertSame(boom, failing.exception());
+            assertEquals(FanOut.Subtask.State.UNAVAILABLE, slow.state());
+            try {
+                scope.fork(() -> 1).get();
+                fail("a subtask forked after the failure was run");
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        server.setRequestTimeout(100);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Request req = request(server);
+        try (FanOut scope = req.fanOut()) {
+            FanOut.Subtask<Integer> fast = scope.fork("fast", () -> 1);
+            scope.fork("slow", () -> sleep(interrupted));
+            try {
+                scope.join();
+                fail("joined past the deadline");
+            } catch (DeadlineExceededException expected) {
+            }
+            assertTrue(req.isDeadlineExceeded());
+            assertTrue("subtask interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(Integer.valueOf(1), fast.get());
+        }
+    }
+
+    @Test
+    public void testCancelledWithRequest() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Request req = request(new HTTPServer(0));
+        req.async = new CompletableFuture<>(); // suspended
+        try (FanOut scope = req.fanOut(2)) {
+            CountDownLatch started = new CountDownLatch(1);
+            scope.fork(() -> {
+                started.countDown();
+                return sleep(interrupted);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            req.async.cancel(false); // e.g. the client is gone
+            assertTrue("subtask interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            try {
+                scope.join();
+                fail("joined a cancelled scope");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrencyBound() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (FanOut scope = new FanOut(null, 2)) {
+            FanOut.Subtask<?>[] subtasks = new FanOut.Subtask<?>[6];
+            for (int i = 0; i < subtasks.length; i++) {
+                int n = i;
+                subtasks[i] = scope.fork(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return n;
+                });
+            }
+            scope.join();
+            assertEquals(2, maxRunning.get());
+            for (int i = 0; i < subtasks.length; i++)
+                assertEquals(i, subtasks[i].get());
+            assertEquals(subtasks.length, scope.getTimings().size());
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForStragglers() throws Exception {
+        AtomicBoolean finished = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        FanOut scope = new FanOut(null, 1);
+        FanOut.Subtask<Integer> straggler = scope.fork(() -> {
+            started.countDown();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            while (System.nanoTime() < end) { // ignores being interrupted
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            finished.set(true);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scope.close(); // without joining
+        assertTrue("closed before the subtask ended", finished.get());
+        assertEquals(FanOut.Subtask.State.UNAVAILABLE, straggler.state());
+        try {
+            scope.fork(() -> 1);
+            fail("forked in a closed scope");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class JsonDocTest extends TestCase {
+
+    @Test
+    public void testJsonDoc() throws Exception {
+        String json = "{\"user\": {\"id\": 12345678901, \"name\": \"张\\t三\", \"tags\": [\"a\", null, 2.5e1, [true]]}, "
+                + "\"n\": null, \"count\": \"42\", \"ok\": false}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        JsonDoc doc = JsonDoc.parse(body);
+        assertEquals(12345678901L, doc.get("user").get("id").asLong());
+        assertEquals("张\t三", doc.get("user").get("name").asString());
+        assertEquals(4, doc.get("user").get("tags").size());
+        assertTrue(doc.get("user").get("tags").get(1).isNull());
+        assertEquals(25.0, doc.get("user").get("tags").get(2).asDouble());
+        assertEquals("[true]", doc.get("user").get("tags").get(3).toString());
+        assertEquals(42, doc.get("count").asInt());
+        assertFalse(doc.get("ok").asBoolean(true));
+        assertTrue(doc.has("n"));
+        assertTrue(doc.get("user").get("missing").get("id").isMissing());
+        assertEquals(-1, doc.get("user").get("missing").asLong(-1));
+        assertEquals(Arrays.asList("user", "n", "count", "ok"), doc.names());
+        try {
+            doc.get("user").asLong();
+            fail("an object is not an integer");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // the same form as the eagerly parsed data map: exact numbers, and null members dropped
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", new BigInteger("12345678901"));
+        user.put("name", "张\t三");
+        user.put("tags", Arrays.asList("a", null, new BigDecimal("2.5e1"), Collections.singletonList(true)));
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("user", user);
+        expected.put("count", "42");
+        expected.put("ok", false);
+        assertEquals(expected, doc.toMap());
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        for (String invalid : new String[]{"", "{\"a\": 1,}", "[01]", "{\"a\" 1}", "[1] 2"}) {
+            try {
+                JsonDoc.parse(invalid.getBytes(StandardCharsets.UTF_8));
+                fail("accepted " + invalid);
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("invalid JSON"));
+            }
+        }
+    }
+
+    @Test
+    public void testLongs() throws Exception {
+        JsonDoc doc = JsonDoc.parse(("[0, -7, 999999999999999999, -9223372036854775808, 9223372036854775807, "
+                + "\"123\"]").getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, doc.get(0).asLong());
+        assertEquals(-7, doc.get(1).asLong());
+        assertEquals(999999999999999999L, doc.get(2).asLong());
+        assertEquals(Long.MIN_VALUE, doc.get(3).asLong());
+        assertEquals(Long.MAX_VALUE, doc.get(4).asLong());
+        assertEquals(123, doc.get(5).asLong());
+        byte[] b = "x9223372036854775808x".getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            Bytes.parseLong(b, 1, b.length - 1);
+            fail("overflow accepted");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+        assertEquals(-42, Bytes.parseLong(b = "[-42]".getBytes(StandardCharsets.ISO_8859_1), 1, b.length - 1));
+    }
+}
@@ -0,0 +1,63 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LookupCacheTest extends TestCase {
+
+    @Test
+    public void testCaching() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        LookupCache<Integer> cache = new LookupCache<>(16, key -> {
+            loads.incrementAndGet();
+            return key.length();
+        });
+        assertEquals(Integer.valueOf(4), cache.get("gzip"));
+        assertEquals(Integer.valueOf(4), cache.get("gzip"));
+        assertEquals(1, loads.get());
+        String longKey = "x".repeat(LookupCache.MAX_KEY_LENGTH + 1);
+        cache.get(longKey);
+        cache.get(longKey); // too long to be cached
+        assertEquals(3, loads.get());
+        cache.clear();
+        assertEquals(Integer.valueOf(4), cache.get("gzip"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testCollisionReplaces() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        LookupCache<String> cache = new LookupCache<>(1, key -> {
+            loads.incrementAndGet();
+            return key.toUpperCase();
+        });
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b")); // a single slot - replaces "a"
+        assertEquals("A", cache.get("a"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testCompressibleTypeChangesApplyImmediately() throws Exception {
+        HTTPServer.GzipConfig config = new HTTPServer.GzipConfig();
+        assertFalse(config.isCompressible("image/svg"));
+        config.addCompressibleContentType("image/*");
+        assertTrue(config.isCompressible("image/svg"));
+        assertTrue(config.isCompressible("image/svg; charset=utf-8"));
+        assertTrue(config.removeCompressibleContentType("image/*"));
+        assertFalse(config.removeCompressibleContentType("image/*"));
+        assertFalse(config.isCompressible("image/svg"));
+        assertTrue(config.isCompressible("text/plain"));
+        config.setCompressibleContentTypes(Collections.singletonList("*/json"));
+        assertFalse(config.isCompressible("text/plain"));
+        assertTrue(config.isCompressible("application/json"));
+        try {
+            config.getCompressibleContentTypes().add("text/*");
+            fail("modified the types without invalidating the cache");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+public class ParallelGzipOutputStreamTest extends TestCase {
+
+    static final int BLOCK = 32 * 1024;
+
+    static byte[] text(int len) {
+        Random random = new Random(42);
+        String[] words = {"alpha ", "beta ", "gamma ", "delta ", "epsilon\n", "{\"id\":", "12345,"};
+        byte[] data = new byte[len];
+        for (int i = 0; i < len; ) {
+            byte[] w = words[random.nextInt(words.length)].getBytes();
+            int n = Math.min(w.length, len - i);
+            System.arraycopy(w, 0, data, i, n);
+            i += n;
+        }
+        return data;
+    }
+
+    static byte[] gunzip(byte[] gz) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public void testRoundTripAcrossBlocks() throws Exception {
+        byte[] data = text(5 * BLOCK + 1234);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            ParallelGzipOutputStream out = new ParallelGzipOutputStream(sink, executor,
+                    new DeflaterPool(true, 4), 6, Deflater.DEFAULT_STRATEGY, BLOCK, 2);
+            int off = 0;
+            for (int n = 1; off < data.length; n = n * 3 + 7) { // writes straddling the block boundaries
+                int len = Math.min(n % (2 * BLOCK), data.length - off);
+                out.write(data, off, len);
+                off += len;
+                if (off > BLOCK && off < 2 * BLOCK)
+                    out.flush(); // a short block in the middle
+            }
+            out.write('!');
+            out.close();
+            byte[] expected = Arrays.copyOf(data, data.length + 1);
+            expected[data.length] = '!';
+            assertTrue(Arrays.equals(expected, gunzip(sink.toByteArray())));
+            assertTrue(sink.size() < data.length / 2); // dictionaries keep the ratio close to serial
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleBlock() throws Exception {
+        byte[] data = text(1000);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ParallelGzipOutputStream out = new ParallelGzipOutputStream(sink, task -> {
+            throw new AssertionError("a single block is compressed on the writing thread");
+        }, new DeflaterPool(true, 1), 6, Deflater.DEFAULT_STRATEGY, BLOCK, 2);
+        out.write(data);
+        out.close();
+        assertTrue(Arrays.equals(data, gunzip(sink.toByteArray())));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ParallelGzipOutputStream out = new ParallelGzipOutputStream(sink, Runnable::run,
+                new DeflaterPool(true, 1), 6, Deflater.DEFAULT_STRATEGY, BLOCK, 2);
+        out.close();
+        out.close(); // closing again has no effect
+        assertEquals(0, gunzip(sink.toByteArray()).length);
+    }
+}
@@ -0,0 +1,89 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimiterTest extends TestCase {
+
+    static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testClientBurstAndRefill() throws Exception {
+        AtomicLong now = new AtomicLong(1000 * MS);
+        RateLimiter limiter = new RateLimiter(10, 3, 0, 0, 16, now::get); // a token every 100ms
+        InetAddress a = InetAddress.getByName("10.0.0.1");
+        InetAddress b = InetAddress.getByName("10.0.0.2");
+        for (int i = 0; i < 3; i++)
+            assertTrue("burst " + i, limiter.tryAcquire(a));
+        assertFalse(limiter.tryAcquire(a)); // the burst is used up
+        assertTrue(limiter.tryAcquire(b)); // other clients have their own bucket
+        now.addAndGet(99 * MS);
+        assertFalse(limiter.tryAcquire(a));
+        now.addAndGet(MS); // one token refilled
+        assertTrue(limiter.tryAcquire(a));
+        assertFalse(limiter.tryAcquire(a));
+        now.addAndGet(1000 * MS); // idle for long - refills up to the burst only
+        for (int i = 0; i < 3; i++)
+            assertTrue("refilled " + i, limiter.tryAcquire(a));
+        assertFalse(limiter.tryAcquire(a));
+        assertEquals(8, limiter.getAllowed());
+        assertEquals(4, limiter.getRejectedClient());
+        assertEquals(0, limiter.getRejectedRoute());
+    }
+
+    @Test
+    public void testRouteLimit() throws Exception {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(0, 0, 2, 2, 16, now::get); // a token every 500ms
+        assertTrue(limiter.tryAcquire(InetAddress.getByName("10.0.0.1")));
+        assertTrue(limiter.tryAcquire(InetAddress.getByName("10.0.0.2")));
+        assertFalse(limiter.tryAcquire(InetAddress.getByName("10.0.0.3")));
+        now.addAndGet(500 * MS);
+        assertTrue(limiter.tryAcquire(InetAddress.getByName("10.0.0.3")));
+        assertEquals(1, limiter.getRejectedRoute());
+        String reject = new String(limiter.getRejectResponse(), StandardCharsets.ISO_8859_1);
+        assertTrue(reject, reject.startsWith("HTTP/1.1 429"));
+        assertTrue(reject, reject.contains("Retry-After: 1\r\n"));
+        assertTrue(reject, reject.contains("Connection: close\r\n"));
+    }
+
+    @Test
+    public void testRejectBeforeContinue() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        ContextConfig config = new ContextConfig();
+        config.setRateLimiter(RateLimiter.perRoute(0.001, 1));
+        server.addContext("/upload", (req, resp) -> {
+            resp.send(200, "ok");
+            return 0;
+        }, config, "POST");
+        server.start();
+        String post = "POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n"
+                + "Expect: 100-continue\r\n\r\n";
+        try {
+            try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+                InputStream in = sock.getInputStream();
+                sock.getOutputStream().write(post.getBytes(StandardCharsets.ISO_8859_1));
+                assertTrue(AsyncContextHandlerTest.readResponse(in).startsWith("HTTP/1.1 100"));
+                sock.getOutputStream().write("body".getBytes(StandardCharsets.ISO_8859_1));
+                assertTrue(AsyncContextHandlerTest.readResponse(in).startsWith("HTTP/1.1 200"));
+            }
+            try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+                InputStream in = sock.getInputStream();
+                sock.getOutputStream().write(post.getBytes(StandardCharsets.ISO_8859_1));
+                String response = AsyncContextHandlerTest.readResponse(in); // no 100 Continue first
+                assertTrue(response, response.startsWith("HTTP/1.1 429"));
+                assertTrue(response, response.contains("Connection: close"));
+                assertEquals(-1, in.read()); // closed without waiting for the body
+            }
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package me.asu.http;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+public class ResponseTest extends TestCase {
+
+    static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static String string(ByteArrayOutputStream out) {
+        return new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testChunkedCoalescing() throws Exception {
+        BufferPool pool = new BufferPool(8, 1);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Response.ChunkedOutputStream out = new Response.ChunkedOutputStream(sink, pool);
+        byte[] buf = out.buf;
+        out.write(bytes("ab"));
+        out.write('c');
+        out.write(bytes("defgh")); // exactly fills the buffer
+        assertEquals(0, sink.size()); // nothing written until a chunk is complete
+        out.write(bytes("ij"));
+        assertEquals("8\r\nabcdefgh", string(sink));
+        out.write(bytes("0123456789abcdefghij")); // larger than the buffer - written as its own chunk
+        assertEquals("8\r\nabcdefgh\r\n2\r\nij\r\n14\r\n0123456789abcdefghij", string(sink));
+        out.write(bytes("xyz"));
+        out.flush();
+        out.write(bytes("!"));
+        out.close();
+        assertEquals("8\r\nabcdefgh\r\n2\r\nij\r\n14\r\n0123456789abcdefghij\r\n3\r\nxyz\r\n1\r\n!"
+                + "\r\n0\r\n\r\n", string(sink));
+        assertSame(buf, pool.acquire()); // the buffer was returned when the stream ended
+    }
+
+    @Test
+    public void testChunkedFraming() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Response.ChunkedOutputStream out = new Response.ChunkedOutputStream(sink, null); // a chunk per write
+        out.write(bytes("hello"));
+        out.write(new byte[0]); // an empty write must not end the stream
+        out.write(' ');
+        out.write(bytes("world"));
+        Headers trailers = new Headers();
+        trailers.add("X-Checksum", "42");
+        out.writeTrailingChunk(trailers);
+        assertEquals("5\r\nhello\r\n1\r\n \r\n5\r\nworld\r\n0\r\nX-Checksum: 42\r\n\r\n", string(sink));
+        try {
+            out.write(bytes("late"));
+            fail("wrote after the trailing chunk");
+        } catch (IOException expected) {
+        }
+        Headers received = new Headers();
+        Request.ChunkedInputStream in = new Request.ChunkedInputStream(
+                new ByteArrayInputStream(sink.toByteArray()), received);
+        assertEquals("hello world", new String(in.readAllBytes(), StandardCharsets.ISO_8859_1));
+        assertEquals("42", received.get("X-Checksum"));
+    }
+
+    @Test
+    public void testBufferedBodyContentLength() throws Exception {
+        BufferPool pool = new BufferPool(16 + Response.HEADER_ROOM, 1);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Response resp = new Response(sink, pool);
+        resp.sendHeaders(200, -1, -1, null, "text/plain", null); // unknown length
+        OutputStream body = resp.getBody();
+        byte[] buf = ((Response.BufferedBodyOutputStream) body).buf;
+        body.write(bytes("hello "));
+        body.write('w');
+        body.write(bytes("orld"));
+        assertFalse(resp.isCommitted());
+        assertEquals(0, sink.size()); // held back until the length is known
+        resp.close();
+        String response = string(sink);
+        assertTrue(response, response.startsWith("HTTP/1.1 200"));
+        assertTrue(response, response.contains("Content-Length: 11\r\n"));
+        assertFalse(response, response.contains("Transfer-Encoding"));
+        assertTrue(response, response.endsWith("\r\n\r\nhello world"));
+        assertSame(buf, pool.acquire());
+    }
+
+    @Test
+    public void testBufferedBodyReleasedOnError() throws Exception {
+        BufferPool pool = new BufferPool(16 + Response.HEADER_ROOM, 1);
+        Response resp = new Response(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("connection reset");
+            }
+        }, pool);
+        resp.sendHeaders(200, -1, -1, null, "text/plain", null);
+        OutputStream body = resp.getBody();
+        byte[] buf = ((Response.BufferedBodyOutputStream) body).buf;
+        body.write(bytes("hello"));
+        try {
+            resp.close();
+            fail("wrote to a broken connection");
+        } catch (IOException expected) {
+        }
+        assertSame(buf, pool.acquire());
+    }
+
+    @Test
+    public void testBufferedBodyOverflowsToChunked() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        server.setResponseBufferSize(16);
+        server.addContext("/", (req, resp) -> {
+            int n = Integer.parseInt(req.getParameter("n"));
+            resp.sendHeaders(200, -1, -1, null, "text/plain", null);
+            OutputStream body = resp.getBody();
+            for (int i = 0; i < n; i++)
+                body.write(bytes("0123456789"));
+            return 0;
+        });
+        server.start();
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            OutputStream out = sock.getOutputStream();
+            InputStream in = sock.getInputStream();
+            out.write(bytes("GET /?n=1 HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            String response = AsyncContextHandlerTest.readResponse(in);
+            assertTrue(response, response.contains("Content-Length: 10\r\n"));
+            assertTrue(response, response.endsWith("\r\n\r\n0123456789"));
+            out.write(bytes("GET /?n=5 HTTP/1.1\r\nHost: localhost\r\n\r\n")); // larger than the buffer
+            response = AsyncContextHandlerTest.readResponse(in);
+            assertTrue(response, response.startsWith("HTTP/1.1 200"));
+            assertTrue(response, response.contains("Transfer-Encoding: chunked\r\n"));
+            assertFalse(response, response.contains("Content-Length"));
+            byte[] body = new Request.ChunkedInputStream(in, null).readAllBytes();
+            assertEquals("0123456789".repeat(5), new String(body, StandardCharsets.ISO_8859_1));
+            out.write(bytes("GET /?n=1 HTTP/1.1\r\nHost: localhost\r\n\r\n")); // still in sync
+            assertTrue(AsyncContextHandlerTest.readResponse(in).endsWith("\r\n\r\n0123456789"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    static HTTPServer startChunked(int chunkBufferSize) throws IOException {
+        HTTPServer server = new HTTPServer(0);
+        server.setResponseBufferSize(0); // send bodies of unknown length chunked
+        server.setChunkBufferSize(chunkBufferSize);
+        server.addContext("/", (req, resp) -> {
+            resp.sendHeaders(200, -1, -1, null, "text/plain", null);
+            OutputStream body = resp.getBody();
+            for (int i = 0; i < 5; i++)
+                body.write(bytes("0123456789"));
+            return 0;
+        });
+        server.start();
+        return server;
+    }
+
+    /** 发送一个请求，返回响应体的第一个数据块的大小行 */
+    static String firstChunkSize(HTTPServer server) throws IOException {
+        try (Socket sock = AsyncContextHandlerTest.connect(server)) {
+            sock.getOutputStream().write(bytes("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+            InputStream in = sock.getInputStream();
+            String head = AsyncContextHandlerTest.readResponse(in);
+            assertTrue(head, head.contains("Transfer-Encoding: chunked\r\n"));
+            return Streams.readLine(in);
+        }
+    }
+
+    @Test
+    public void testChunkBuffersPerServer() throws Exception {
+        HTTPServer coalescing = startChunked(8192);
+        HTTPServer unbuffered = startChunked(0); // must not affect the other server
+        try {
+            assertEquals("32", firstChunkSize(coalescing)); // all 50 bytes in one chunk
+            assertEquals("a", firstChunkSize(unbuffered)); // a chunk per write
+            assertNull(unbuffered.chunkBuffers);
+            assertEquals(8192, coalescing.chunkBuffers.getBufferSize());
+        } finally {
+            coalescing.stop();
+            unbuffered.stop();
+        }
+    }
+
+    /** 返回响应的响应体（响应头之后的部分） */
+    static String body(ByteArrayOutputStream sink) {
+        String response = string(sink);
+        return response.substring(response.indexOf("\r\n\r\n") + 4);
+    }
+
+    @Test
+    public void testSendBytes() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Response resp = new Response(sink);
+        resp.send(200, bytes("hello"), "text/plain");
+        resp.close();
+        String response = string(sink);
+        assertTrue(response, response.startsWith("HTTP/1.1 200"));
+        assertTrue(response, response.contains("Content-Length: 5\r\n"));
+        assertTrue(response, response.contains("Content-Type: text/plain\r\n"));
+        assertEquals("hello", body(sink));
+    }
+
+    @Test
+    public void testSendByteBuffer() throws Exception {
+        ByteBuffer heap = ByteBuffer.wrap(bytes("xxhello world"), 2, 11).slice(); // an array offset
+        heap.position(6);
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put(bytes("hello direct")).flip();
+        for (ByteBuffer buffer : new ByteBuffer[]{heap, direct}) {
+            for (boolean withChannel : new boolean[]{false, true}) {
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                Response resp = new Response(sink);
+                if (withChannel) // written directly to the channel, after the headers
+                    resp.setChannel(Channels.newChannel(sink));
+                int position = buffer.position();
+                resp.send(200, buffer, "text/plain");
+                resp.close();
+                String expected = buffer == heap ? "world" : "hello direct";
+                assertTrue(string(sink), string(sink).contains("Content-Length: " + expected.length() + "\r\n"));
+                assertEquals(expected, body(sink));
+                assertEquals(position, buffer.position()); // unchanged
+            }
+        }
+    }
+
+    @Test
+    public void testSendFile() throws Exception {
+        Path file = Files.createTempFile("response", ".txt");
+        try {
+            Files.write(file, bytes("0123456789"));
+            for (boolean withChannel : new boolean[]{false, true}) {
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                Response resp = new Response(sink);
+                if (withChannel)
+                    resp.setChannel(Channels.newChannel(sink));
+                resp.sendHeaders(200, 10, -1, null, "text/plain", null);
+                resp.sendFile(file, null);
+                resp.close();
+                assertTrue(string(sink), string(sink).contains("Content-Length: 10\r\n"));
+                assertEquals("0123456789", body(sink));
+
+                sink.reset();
+                resp = new Response(sink);
+                if (withChannel)
+                    resp.setChannel(Channels.newChannel(sink));
+                long[] range = {2, 5};
+                resp.sendHeaders(200, 10, -1, null, "text/plain", range);
+                resp.sendFile(file, range);
+                resp.close();
+                String response = string(sink);
+                assertTrue(response, response.startsWith("HTTP/1.1 206"));
+                assertTrue(response, response.contains("Content-Range: bytes 2-5/10\r\n"));
+                assertTrue(response, response.contains("Content-Length: 4\r\n"));
+                assertEquals("2345", body(sink));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSendFileChangingSize() throws Exception {
+        Path file = Files.createTempFile("response", ".txt");
+        try {
+            Files.write(file, bytes("0123456789"));
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            Response resp = new Response(sink);
+            resp.sendHeaders(200, Files.size(file), -1, null, "text/plain", null);
+            Files.write(file, bytes("abcdef"), StandardOpenOption.APPEND); // grows after the length was sent
+            resp.sendFile(file, null);
+            resp.close();
+            assertTrue(string(sink), string(sink).contains("Content-Length: 10\r\n"));
+            assertEquals("0123456789", body(sink)); // doesn't overrun the Content-Length
+
+            resp = new Response(new ByteArrayOutputStream());
+            resp.sendHeaders(200, Files.size(file), -1, null, "text/plain", null);
+            Files.write(file, bytes("0123")); // truncated after the length was sent
+            try {
+                resp.sendFile(file, null);
+                fail("sent a truncated file");
+            } catch (IOException expected) {
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAbandonReleasesPooledResources() throws Exception {
+        BufferPool buffers = new BufferPool(64 + Response.HEADER_ROOM, 1);
+        DeflaterPool deflaters = new DeflaterPool(true, 1);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Response resp = new Response(sink);
+        resp.pendingStatus = 200; // headers held back while the body is buffered
+        Response.BufferedBodyOutputStream body = resp.new BufferedBodyOutputStream(buffers);
+        byte[] buf = body.buf;
+        resp.encodedOut = new Response.CompressedOutputStream(body, deflaters, 6, Deflater.DEFAULT_STRATEGY);
+        resp.getBody().write("partial".getBytes(StandardCharsets.UTF_8));
+        assertFalse(resp.isCommitted());
+        resp.abandon();
+        assertEquals(0, sink.size()); // nothing was written
+        assertSame(buf, buffers.acquire());
+        deflaters.acquire(6, Deflater.DEFAULT_STRATEGY);
+        assertEquals(1, deflaters.getReused());
+        assertEquals(1, deflaters.getCreated());
+    }
+}
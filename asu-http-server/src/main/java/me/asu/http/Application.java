@@ -12,9 +12,12 @@ import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -47,6 +50,13 @@ public class Application {
         httpServer.addContext(path, handler, methods);
     }
 
+    public void addRoute(String path, ContextHandler handler, ContextConfig config, String... methods) {
+        ensureServerCreated();
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(handler);
+        httpServer.addContext(path, handler, config, methods);
+    }
+
     public void addStaticRout(String path, String dir) throws IOException {
         httpServer.addContext(path + "/{*}", new FileContextHandler(dir));
     }
@@ -64,11 +74,47 @@ public class Application {
                 if (context != null) {
                     m.setAccessible(true); // allow access to private method
                     ContextHandler handler = new MethodContextHandler(m, o);
-                    httpServer.addContext(context.value(), handler, context.methods());
+                    httpServer.addContext(context.value(), handler, toContextConfig(context), context.methods());
                 }
             }
         }
     }
+    /**
+     * 根据 {@link Context} 注解创建上下文设置。
+     *
+     * @param context 注解
+     * @return 上下文设置，如果注解未指定任何设置则返回 null
+     * @throws IllegalArgumentException 如果引用的隔离舱未注册
+     */
+    ContextConfig toContextConfig(Context context) throws IllegalArgumentException {
+        Bulkhead bulkhead = null;
+        if (!context.bulkhead().isEmpty()) {
+            bulkhead = httpServer.getBulkhead(context.bulkhead());
+            if (bulkhead == null)
+                throw new IllegalArgumentException("unknown bulkhead: " + context.bulkhead());
+        } else if (context.maxConcurrent() > 0) {
+            bulkhead = new Bulkhead(context.value(), context.maxConcurrent(), context.maxQueued());
+        }
+        if (bulkhead == null && context.timeout() <= 0 && !context.streamBody() && !context.lazyJson())
+            return null;
+        ContextConfig config = new ContextConfig();
+        config.setBulkhead(bulkhead);
+        config.setTimeout(context.timeout());
+        config.setStreamBody(context.streamBody());
+        config.setLazyJson(context.lazyJson());
+        return config;
+    }
+
+    /**
+     * 注册一个具名的隔离舱，以便路由通过 {@link Context#bulkhead()} 引用它。
+     *
+     * @param bulkhead 隔离舱
+     */
+    public void addBulkhead(Bulkhead bulkhead) {
+        ensureServerCreated();
+        httpServer.addBulkhead(bulkhead);
+    }
+
     void ensureServerCreated() {
         Objects.requireNonNull(httpServer, "httpServer is null");
     }
@@ -86,9 +132,13 @@ public class Application {
         if (config.isVirtualThreads()) {
             executor = Executors.newVirtualThreadPerTaskExecutor();
         } else {
+            // with admission control, connections beyond the workers wait in a queue bounded like the
+            // admission queue; the excess is rejected by the executor and closed by the server
+            BlockingQueue<Runnable> queue = config.getMaxInFlight() <= 0 ? new LinkedBlockingQueue<>()
+                    : config.getMaxQueued() > 0 ? new ArrayBlockingQueue<>(config.getMaxQueued())
+                    : new SynchronousQueue<>();
             executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0L,
-                    TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
-                    new NamedThreadFactory("Http-Worker-"));
+                    TimeUnit.MILLISECONDS, queue, new NamedThreadFactory("Http-Worker-"));
         }
     }
 
@@ -129,6 +179,17 @@ public class Application {
     public int run() throws IOException {
         createExecutor();
         httpServer.setExecutor(executor);
+        httpServer.setAsyncTimeout(config.getAsyncTimeout());
+        httpServer.setRequestTimeout(config.getRequestTimeout());
+        httpServer.setGzipConfig(config.getGzipConfig());
+        if (config.getMaxInFlight() > 0) {
+            httpServer.setAdmissionController(new AdmissionController(config.getMaxInFlight(),
+                    config.getMaxQueued(), config.getMaxQueueTime(), config.getRetryAfter()));
+        }
+        if (config.getMaxConnections() > 0 || config.getMaxConnectionsPerAddress() > 0) {
+            httpServer.setConnectionLimiter(new ConnectionLimiter(config.getMaxConnections(),
+                    config.getMaxConnectionsPerAddress()));
+        }
         httpServer.start();
         Log.info("Server is start at: " + config.getPort());
         return config.getPort();
@@ -167,6 +228,14 @@ public class Application {
         String                host         = DEFAULT_HOST;
         int                   threads      = DEFAULT_THREADS;
         boolean               virtualThreads = true;
+        long                  asyncTimeout = 30000;
+        long                  requestTimeout = 0;   // ms, 0 means no deadline
+        int                   maxInFlight  = 0;     // 0 disables admission control
+        int                   maxQueued    = 0;     // also bounds the platform worker queue
+        long                  maxQueueTime = 0;     // ms, 0 means no limit
+        int                   retryAfter   = 1;     // seconds
+        int                   maxConnections = 0;   // 0 means no limit
+        int                   maxConnectionsPerAddress = 0;
         Charset               bodyEncoding = StandardCharsets.UTF_8;
         Charset               uriEncoding  = StandardCharsets.UTF_8;
         boolean               enableGzip   = false;
@@ -211,5 +280,69 @@ public class Application {
         public void setVirtualThreads(boolean virtualThreads) {
             this.virtualThreads = virtualThreads;
         }
+
+        public long getAsyncTimeout() {
+            return asyncTimeout;
+        }
+
+        public void setAsyncTimeout(long asyncTimeout) {
+            this.asyncTimeout = asyncTimeout;
+        }
+
+        public long getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(long requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public long getMaxQueueTime() {
+            return maxQueueTime;
+        }
+
+        public void setMaxQueueTime(long maxQueueTime) {
+            this.maxQueueTime = maxQueueTime;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerAddress() {
+            return maxConnectionsPerAddress;
+        }
+
+        public void setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+            this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+        }
+
+        public int getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(int retryAfter) {
+            this.retryAfter = retryAfter;
+        }
     }
 }
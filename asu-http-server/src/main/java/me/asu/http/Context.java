@@ -29,4 +29,49 @@ public @interface Context {
      * @return 此上下文处理器所支持的HTTP方法
      */
     String[] methods() default "GET";
+
+    /**
+     * 处理此上下文的具名隔离舱（必须已通过 {@link HTTPServer#addBulkhead} 注册），默认不使用隔离舱。
+     *
+     * @return 隔离舱名称
+     */
+    String bulkhead() default "";
+
+    /**
+     * 此上下文同时处理的最大请求数，大于0时为此上下文创建一个专用的隔离舱（默认不限制）。
+     * 指定了 {@link #bulkhead()} 时忽略此值。
+     *
+     * @return 同时处理的最大请求数
+     */
+    int maxConcurrent() default 0;
+
+    /**
+     * 专用隔离舱的等待队列长度（仅在 {@link #maxConcurrent()} 大于0时有效）。
+     *
+     * @return 等待队列的最大长度
+     */
+    int maxQueued() default 0;
+
+    /**
+     * 此上下文的请求截止时间（毫秒），0 表示使用服务器的默认值。
+     *
+     * @return 请求截止时间
+     */
+    long timeout() default 0;
+
+    /**
+     * 服务器是否跳过对此上下文请求体的解析，由处理器自行从 {@link Request#getBody()} 流式读取（默认为否）。
+     *
+     * @return 是否由处理器自行读取请求体
+     * @see ContextConfig#setStreamBody(boolean)
+     */
+    boolean streamBody() default false;
+
+    /**
+     * 是否将此上下文的 JSON 请求体解析为 {@link JsonDoc}，由处理器按需读取字段（默认为否）。
+     *
+     * @return 是否惰性解析 JSON 请求体
+     * @see ContextConfig#setLazyJson(boolean)
+     */
+    boolean lazyJson() default false;
 }
@@ -1,9 +1,7 @@
 package me.asu.http;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
@@ -88,12 +86,7 @@ public class FileContextHandler implements ContextHandler {
                 resp.sendHeaders(200, len, lastModified, etag,
                         detect(file.getName()), range);
                 // send body
-                InputStream in = new FileInputStream(file);
-                try {
-                    resp.sendBody(in, len, range);
-                } finally {
-                    in.close();
-                }
+                resp.sendFile(file.toPath(), range);
                 break;
             default:
                 resp.sendError(500); // should never happen
@@ -1,12 +1,26 @@
 package me.asu.http;
 
+import java.io.IOException;
 import java.util.Map;
 
-public class JsonParser implements RequestParser {
+public class JsonParser implements RequestParser, JsonBinder {
+    @Override
+    public <T> T bind(byte[] json, int offset, int length, Class<T> type) throws IOException {
+        T value = OKJSON.toJson(json, offset, length, type, OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE);
+        if (value == null)
+            throw new IOException("invalid JSON: " + OKJSON.getErrorDesc());
+        return value;
+    }
+
     @Override
     public void parseRequest(Request request) {
-        Map<String, Object> m = OKJSON.toJson(request.getString(), Map.class,
-                OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE);
-        request.getDataMap().putAll(m);
+        try {
+            byte[] body = request.readJsonBody(); // kept for Request#getBodyAs
+            @SuppressWarnings("unchecked")
+            Map<String, Object> m = bind(body, 0, body.length, Map.class);
+            request.getDataMap().putAll(m);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
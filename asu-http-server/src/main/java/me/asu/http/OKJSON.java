@@ -13,24 +13,40 @@ import lombok.Getter;
 import lombok.Setter;
 import me.asu.log.Log;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 public class OKJSON {
     public static final int OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE = 1;
     public static final int OPTIONS_PRETTY_FORMAT_ENABLE = 2;
     public static final int OPTIONS_STRICT_POLICY = 4;
     public static final int OPTIONS_NULLABLE = 8;
+    /** 为对象类生成专用的编解码器（见 {@link OkJsonCodec}），不能生成的部分仍使用反射 */
+    public static final int OPTIONS_CODEC_ENABLE = 16;
 
     public static final int OKJSON_ERROR_END_OF_BUFFER = OkJsonParser.OKJSON_ERROR_END_OF_BUFFER;
     public static final int OKJSON_ERROR_UNEXPECT = OkJsonParser.OKJSON_ERROR_UNEXPECT;
@@ -46,9 +62,8 @@ public class OKJSON {
     public static final int OKJSON_ERROR_NAME_NOT_FOUND_IN_OBJECT = OkJsonParser.OKJSON_ERROR_NAME_NOT_FOUND_IN_OBJECT;
     public static final int OKJSON_ERROR_NEW_OBJECT = OkJsonParser.OKJSON_ERROR_NEW_OBJECT;
 
-    private static ThreadLocal<OkJsonGenerator> okjsonGeneratorCache = new ThreadLocal<>();
-    private static ThreadLocal<OkJsonParser> okjsonParserCache = new ThreadLocal<>();
-    ;
+    private static final OkJsonPool<OkJsonGenerator> okjsonGeneratorPool = new OkJsonPool<>(OkJsonGenerator::new);
+    private static final OkJsonPool<OkJsonParser> okjsonParserPool = new OkJsonPool<>(OkJsonParser::new);
 
     private static ThreadLocal<Integer> errorCode = new ThreadLocal<Integer>();
     private static ThreadLocal<String> errorDesc = new ThreadLocal<String>();
@@ -61,25 +76,89 @@ public class OKJSON {
         return errorDesc.get();
     }
 
+    /**
+     * 将对象转换为 JSON，并以 UTF-8 编码写入文件。
+     * <p>
+     * JSON 先写入同一目录下的临时文件，成功后再原子地替换目标文件，
+     * 因此转换或写入失败时原有的文件保持不变，读者也不会看到写了一半的文件。
+     *
+     * @param object   对象（对象、List、Map 或数组）
+     * @param filePath 文件路径
+     * @param options  选项
+     * @return 0 表示成功，-1 表示失败
+     */
     public static int stringify(Object object, String filePath, int options) {
+        Path target = Paths.get(filePath).toAbsolutePath();
+        Path temp = target.resolveSibling("." + target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            int result;
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                result = stringify(object, out, options);
+            }
+            if (result == 0)
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } catch (Exception e) {
+            return -1;
+        } finally {
+            try {
+                Files.deleteIfExists(temp); // left over unless it was moved
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 将对象转换为 JSON，并以 UTF-8 编码通过一个小的可复用缓冲区直接写入输出流，
+     * 不在内存中构建完整的 JSON 字符串。输出流不会被关闭。
+     *
+     * @param object  对象（对象、List、Map 或数组）
+     * @param out     输出流
+     * @param options 选项
+     * @return 0 表示成功，-1 表示转换失败（错误见 {@link #getErrorCode()}，此时可能已写出部分数据）
+     * @throws IOException 如果写入时发生错误
+     */
+    public static int stringify(Object object, OutputStream out, int options) throws IOException {
+        OkJsonGenerator okjsonGenerator = okjsonGeneratorPool.acquire();
+
+        Options opt = Options.fromMask(options);
+        applyOptions(okjsonGenerator, opt);
         try {
-            String jsonString = stringify(object, options);
-            Files.write(Paths.get(filePath), jsonString.getBytes(),
-                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            okjsonGenerator.stringify(object, out);
             return 0;
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
+            errorCode.set(OKJSON_ERROR_UNEXPECT);
+            errorDesc.set(e.getMessage());
             return -1;
+        } finally {
+            okjsonGenerator.recycle();
+            okjsonGeneratorPool.release(okjsonGenerator);
         }
     }
 
+    /**
+     * 以 JSON 响应体发送带有指定状态的完整响应。JSON 直接写入响应体，
+     * 较小的响应体由响应缓冲后带上 Content-Length 发送。
+     *
+     * @param resp    响应
+     * @param status  响应状态
+     * @param object  对象
+     * @param options 选项
+     * @throws IOException 如果发生错误，或对象无法转换为 JSON
+     */
+    public static void send(Response resp, int status, Object object, int options) throws IOException {
+        resp.sendHeaders(status, -1, -1, null, CommonContentType.JSON.type() + "; charset=utf-8", null);
+        OutputStream out = resp.getBody();
+        if (out != null && stringify(object, out, options) != 0)
+            throw new IOException("failed to stringify " + object.getClass().getName() + ": " + getErrorDesc());
+    }
+
     public static String stringify(Object object, int options) {
-        OkJsonGenerator okjsonGenerator;
-        if (okjsonGeneratorCache.get() == null) {
-            okjsonGenerator = new OkJsonGenerator();
-            okjsonGeneratorCache.set(okjsonGenerator);
-        } else {
-            okjsonGenerator = okjsonGeneratorCache.get();
-        }
+        OkJsonGenerator okjsonGenerator = okjsonGeneratorPool.acquire();
 
         Options opt = Options.fromMask(options);
         applyOptions(okjsonGenerator, opt);
@@ -90,25 +169,21 @@ public class OKJSON {
             errorDesc.set(e.getMessage());
             return null;
         } finally {
-            okjsonGeneratorCache.set(null);
+            okjsonGenerator.recycle();
+            okjsonGeneratorPool.release(okjsonGenerator);
         }
     }
 
     public static <T> T fileToJson(String filePath, Class<T> clazz, int options) {
-        String jsonString = null;
+        byte[] jsonBytes;
 
         try {
-            jsonString = new String(Files.readAllBytes(Paths.get(filePath)));
+            jsonBytes = Files.readAllBytes(Paths.get(filePath));
         } catch (IOException e) {
             return null;
         }
 
-        return toJson(jsonString, clazz, options);
-    }
-    private static OkJsonParser getOkJsonParserApplied(Options opt) {
-        OkJsonParser p = getOkJsonParser();
-        applyOptions(p, opt);
-        return p;
+        return toJson(jsonBytes, 0, jsonBytes.length, clazz, options);
     }
 
     @SuppressWarnings({"rawtypes","unchecked"})
@@ -124,19 +199,68 @@ public class OKJSON {
         return (T) l;
     }
     public static <T> T toJson(String jsonString, Class<T> clazz, int options) {
+        byte[] jsonBytes = jsonString.getBytes(StandardCharsets.UTF_8);
+        return toJson(jsonBytes, 0, jsonBytes.length, clazz, options);
+    }
+
+    /**
+     * 直接从 UTF-8 编码的字节解析 JSON，不先将其解码为字符串。
+     *
+     * @param jsonBytes JSON 字节
+     * @param offset    起始偏移
+     * @param length    字节数
+     * @param clazz     结果类型（对象、Map 或 List）
+     * @param options   选项
+     * @return 解析结果，解析失败时返回 null（错误见 {@link #getErrorCode()}）
+     */
+    public static <T> T toJson(byte[] jsonBytes, int offset, int length, Class<T> clazz, int options) {
+        OkJsonParser p = getOkJsonParser();
+        try {
+            return toJson(p, jsonBytes, offset, length, clazz, options);
+        } finally {
+            releaseOkJsonParser(p);
+        }
+    }
+
+    /**
+     * 读取输入流的全部内容并解析其中 UTF-8 编码的 JSON。已知长度时（例如请求的 Content-Length）
+     * 按长度预先分配缓冲区，较小的缓冲区随解析器一起被复用。输入流不会被关闭。
+     *
+     * @param in        输入流
+     * @param length    输入的字节数，负数表示未知
+     * @param maxLength 允许的最大字节数
+     * @param clazz     结果类型（对象、Map 或 List）
+     * @param options   选项
+     * @return 解析结果，解析失败时返回 null（错误见 {@link #getErrorCode()}）
+     * @throws IOException 如果读取时发生错误，或输入超过最大字节数
+     */
+    public static <T> T toJson(InputStream in, long length, int maxLength, Class<T> clazz, int options)
+            throws IOException {
+        OkJsonParser p = getOkJsonParser();
+        try {
+            int count = p.readInput(in, length, maxLength);
+            return toJson(p, p.getInputBuffer(), 0, count, clazz, options);
+        } finally {
+            releaseOkJsonParser(p);
+        }
+    }
+
+    private static <T> T toJson(OkJsonParser p, byte[] jsonBytes, int offset, int length, Class<T> clazz,
+                                int options) {
         Options opt = Options.fromMask(options);
         try {
+            applyOptions(p, opt);
+            T obj;
             if (clazz == Map.class || Map.class.isAssignableFrom(clazz)) {
-                Map<String, Object> m = getOkJsonParserApplied(opt).toMap(jsonString);
-                return Map.class.equals(clazz) ? (T) m : fillToSubclassMap(clazz, m);
-            }
-            if (clazz == List.class || List.class.isAssignableFrom(clazz)) {
-                List<Object> src = getOkJsonParserApplied(opt).toList(jsonString);
-                return List.class.equals(clazz) ? (T) src : fillToSubclassList(clazz, src);
+                Map<String, Object> m = p.toMap(jsonBytes, offset, length);
+                obj = Map.class.equals(clazz) || m == null ? (T) m : fillToSubclassMap(clazz, m);
+            } else if (clazz == List.class || List.class.isAssignableFrom(clazz)) {
+                List<Object> src = p.toList(jsonBytes, offset, length);
+                obj = List.class.equals(clazz) || src == null ? (T) src : fillToSubclassList(clazz, src);
+            } else {
+                Object target = p.toJson(jsonBytes, offset, length, OkJsonClassMeta.newTarget(clazz));
+                obj = target == null ? null : clazz.cast(OkJsonClassMeta.complete(target));
             }
-            OkJsonParser p = getOkJsonParserApplied(opt);
-            T obj = newInstance(clazz);
-            obj = p.toJson(jsonString, obj);
             errorCode.set(p.getErrorCode());
             errorDesc.set(p.getErrorDesc());
             return obj;
@@ -145,29 +269,28 @@ public class OKJSON {
             errorCode.set(OKJSON_ERROR_EXCEPTION);
             errorDesc.set(e.getMessage());
             return null;
-        }finally {
-            okjsonParserCache.set(null);
         }
     }
 
     public static <T> T toList(String jsonString, int options) {
         final OkJsonParser okjsonParser = getOkJsonParser();
-        if (okjsonParser == null) return null;
-
-        // 绑定选项
-        okjsonParser.setDirectAccessPropertyEnable((options & OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE) != 0);
-        okjsonParser.setStrictPolicyEnable((options & OPTIONS_STRICT_POLICY) != 0);
+        try {
+            // 绑定选项
+            okjsonParser.setDirectAccessPropertyEnable((options & OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE) != 0);
+            okjsonParser.setStrictPolicyEnable((options & OPTIONS_STRICT_POLICY) != 0);
 
-        List<Object> list = okjsonParser.toList(jsonString);
-        errorCode.set(okjsonParser.getErrorCode());
-        errorDesc.set(okjsonParser.getErrorDesc());
-        return (T) list;
+            List<Object> list = okjsonParser.toList(jsonString);
+            errorCode.set(okjsonParser.getErrorCode());
+            errorDesc.set(okjsonParser.getErrorDesc());
+            return (T) list;
+        } finally {
+            releaseOkJsonParser(okjsonParser);
+        }
     }
 
     public static Map<String, Object> toMap(String jsonString, int options) {
+        final OkJsonParser okjsonParser = getOkJsonParser();
         try {
-            final OkJsonParser okjsonParser = getOkJsonParser();
-            if (okjsonParser == null) return null;
 
             if ((options & OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE) != 0) {
                 okjsonParser.setDirectAccessPropertyEnable(true);
@@ -188,33 +311,41 @@ public class OKJSON {
 
             return object;
         } finally {
-            okjsonParserCache.set(null);
+            releaseOkJsonParser(okjsonParser);
         }
     }
 
     /**
      * Get OKJsonParser
+     * <p>
+     * 解析器从无锁的对象池中取出，不绑定到线程，用完后须以 {@link #releaseOkJsonParser(OkJsonParser)} 归还。
      *
      * @return {@link OkJsonParser}
      */
-    static synchronized OkJsonParser getOkJsonParser() {
-        OkJsonParser okjsonParser = okjsonParserCache.get();
-        if (okjsonParser == null) {
-            okjsonParser = new OkJsonParser();
-            okjsonParserCache.set(okjsonParser);
-        }
+    static OkJsonParser getOkJsonParser() {
+        return okjsonParserPool.acquire();
+    }
 
-        return okjsonParser;
+    /**
+     * 重置解析器并将其归还对象池。
+     *
+     * @param okjsonParser 由 {@link #getOkJsonParser()} 取得的解析器
+     */
+    static void releaseOkJsonParser(OkJsonParser okjsonParser) {
+        okjsonParser.recycle();
+        okjsonParserPool.release(okjsonParser);
     }
     // ====== 封装统一应用 ======
     static void applyOptions(OkJsonParser p, Options o) {
         p.setDirectAccessPropertyEnable(o.direct);
         p.setStrictPolicyEnable(o.strict);
+        p.setCodecEnable(o.codec);
     }
     static void applyOptions(OkJsonGenerator g, Options o) {
         g.setDirectAccessPropertyEnable(o.direct);
         g.setPrettyFormatEnable(o.pretty);
         g.setNullEnable(o.nullable);
+        g.setCodecEnable(o.codec);
     }
     // 统一构造
     static <T> T newInstance(Class<T> clazz) throws Exception {
@@ -222,25 +353,964 @@ public class OKJSON {
         c.setAccessible(true);
         return c.newInstance();
     }
-}
+}
+
+// ====== 对象池 ======
+/**
+ * 有界的无锁对象池，用于复用解析器、生成器及其缓冲区。
+ * <p>
+ * 与 ThreadLocal 不同，池中的对象不绑定到线程，因此在每个请求一个虚拟线程时同样能够被复用。
+ * 池空时创建新对象，池满时直接丢弃归还的对象，因此取出和归还都不会阻塞。
+ * 对象在归还前由调用者重置，超过 {@link #MAX_RETAINED_CHARS} 的缓冲区不会被保留。
+ */
+final class OkJsonPool<T> {
+    /** 池中对象保留的缓冲区的最大字符数，更大的缓冲区在归还时被替换 */
+    static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+    private final int mask;
+
+    OkJsonPool(Supplier<T> factory) {
+        this(Math.max(16, Runtime.getRuntime().availableProcessors() * 2), factory);
+    }
+
+    OkJsonPool(int size, Supplier<T> factory) {
+        int n = Integer.highestOneBit(size);
+        n = n < size ? n << 1 : n;
+        this.slots = new AtomicReferenceArray<>(n);
+        this.mask = n - 1;
+        this.factory = factory;
+    }
+
+    T acquire() {
+        int start = start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            T t = slots.get(slot);
+            if (t != null && slots.compareAndSet(slot, t, null))
+                return t;
+        }
+        return factory.get();
+    }
+
+    void release(T t) {
+        int start = start();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, t))
+                return;
+        }
+        // pool is full - let it go
+    }
+
+    private static int start() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9; // spread sequential thread ids
+    }
+}
+
+// ====== 集中管理选项 ======
+final class Options {
+    final boolean direct;
+    final boolean pretty;
+    final boolean strict;
+    final boolean nullable;
+    final boolean codec;
+
+    private Options(boolean direct, boolean pretty, boolean strict, boolean nullable, boolean codec) {
+        this.direct = direct; this.pretty = pretty; this.strict = strict; this.nullable = nullable;
+        this.codec = codec;
+    }
+    static Options fromMask(int mask) {
+        return new Options(
+                (mask & OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE) != 0,
+                (mask & OKJSON.OPTIONS_PRETTY_FORMAT_ENABLE) != 0,
+                (mask & OKJSON.OPTIONS_STRICT_POLICY) != 0,
+                (mask & OKJSON.OPTIONS_NULLABLE) != 0,
+                (mask & OKJSON.OPTIONS_CODEC_ENABLE) != 0
+        );
+    }
+}
+
+// ====== 全局的类元数据 ======
+/**
+ * 按类缓存的 Bean 元数据：生成器输出的字段、解析器写入的属性、它们的 {@link MethodHandle} 访问器，
+ * 以及预编译的 {@link DateTimeFormatter}。
+ * <p>
+ * 元数据保存在 {@link ClassValue} 中，由所有线程共享，每个类只反射一次，类被卸载时随之回收。
+ * 元数据创建后不再修改，因此读取时不需要同步。
+ */
+final class OkJsonClassMeta {
+    private static final ClassValue<OkJsonClassMeta> CACHE = new ClassValue<OkJsonClassMeta>() {
+        @Override
+        protected OkJsonClassMeta computeValue(Class<?> type) {
+            return new OkJsonClassMeta(type);
+        }
+    };
+    // 模式只来自注解和默认值，数量有限
+    private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /** 生成器输出的字段，按声明顺序 */
+    final List<OkJsonGenerator.OkJsonClassField> fields;
+    /** 解析器写入的属性，按字段名 */
+    final Map<String, Property> properties;
+    // the properties by index, their UTF-8 names and name hashes, and an open-addressing
+    // table (at most half full) of index + 1 by name hash, so that names are matched without a String
+    private final Property[] propertyArray;
+    private final byte[][] propertyNames;
+    private final int[] propertyHashes;
+    private final int[] propertySlots;
+    private volatile OkJsonCodec codec; // created on first use
+    /** record 的规范构造器，类型为 {@code (Object[])Object}；不是 record 时为 null */
+    final MethodHandle recordConstructor;
+    private final Object[] recordDefaults; // the value of each component when it is absent
+
+    static OkJsonClassMeta of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    /**
+     * 返回此类的编解码器，首次调用时生成。编解码器不可变，并发时可能重复生成，但只有一个会被保留。
+     */
+    OkJsonCodec codec() {
+        OkJsonCodec c = codec;
+        if (c == null)
+            codec = c = new OkJsonCodec(this);
+        return c;
+    }
+
+    /**
+     * 返回给定模式的 DateTimeFormatter，每个模式只编译一次。
+     *
+     * @param pattern 模式
+     * @return DateTimeFormatter
+     */
+    static DateTimeFormatter formatter(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        return formatter != null ? formatter : FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    /**
+     * 返回字段的 DateTimeFormatter：字段有 {@link OkJsonDateTimeFormatter} 注解时使用注解的模式，否则使用默认模式。
+     */
+    static DateTimeFormatter formatter(Field field, String defaultPattern) {
+        OkJsonDateTimeFormatter annotation = field.getAnnotation(OkJsonDateTimeFormatter.class);
+        return formatter(annotation != null ? annotation.format() : defaultPattern);
+    }
+
+    private OkJsonClassMeta(Class<?> clazz) {
+        List<OkJsonGenerator.OkJsonClassField> fields = new ArrayList<>();
+        Map<String, Property> properties = new HashMap<>();
+        for (Field f : clazz.getDeclaredFields()) {
+            if (!f.trySetAccessible() && !Modifier.isPublic(f.getModifiers()))
+                continue; // e.g. a field of a class in a module that is not open to us
+            OkJsonGenerator.createOkJsonClassFieldWithBeanField(fields, clazz, f);
+            Property property = clazz.isRecord() ? null : Property.of(clazz, f, properties.size());
+            if (property != null)
+                properties.put(f.getName(), property);
+        }
+        if (clazz.isRecord()) {
+            // the components are collected by index and passed to the canonical constructor
+            RecordComponent[] components = clazz.getRecordComponents();
+            Class<?>[] types = new Class<?>[components.length];
+            this.recordDefaults = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                if (types[i].isPrimitive())
+                    recordDefaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                try {
+                    Field f = clazz.getDeclaredField(components[i].getName());
+                    properties.put(f.getName(), Property.component(f, i));
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            this.recordConstructor = recordConstructor(clazz, types);
+        } else {
+            this.recordConstructor = null;
+            this.recordDefaults = null;
+        }
+        this.fields = Collections.unmodifiableList(fields);
+        this.properties = Collections.unmodifiableMap(properties);
+
+        int count = properties.size();
+        int size = 2;
+        while (size < count * 2)
+            size <<= 1;
+        this.propertyArray = new Property[count];
+        this.propertyNames = new byte[count][];
+        this.propertyHashes = new int[count];
+        this.propertySlots = new int[size];
+        for (Property property : properties.values()) {
+            int i = property.index;
+            byte[] name = property.field.getName().getBytes(StandardCharsets.UTF_8);
+            int hash = hash(name, 0, name.length);
+            propertyArray[i] = property;
+            propertyNames[i] = name;
+            propertyHashes[i] = hash;
+            int slot = hash & (size - 1);
+            while (propertySlots[slot] != 0)
+                slot = (slot + 1) & (size - 1);
+            propertySlots[slot] = i + 1;
+        }
+    }
+
+    private static MethodHandle recordConstructor(Class<?> clazz, Class<?>[] types) {
+        try {
+            Constructor<?> c = clazz.getDeclaredConstructor(types);
+            c.trySetAccessible(); // the record itself may not be public
+            MethodHandle mh = MethodHandles.lookup().unreflectConstructor(c);
+            return mh.asType(mh.type().generic()).asSpreader(Object[].class, types.length);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null; // reported when an instance is needed
+        }
+    }
+
+    /**
+     * 返回解析器填充的对象。普通类创建一个新实例；record 在各分量都读到之前无法创建，
+     * 因此返回一个收集分量的 {@link RecordValues}，填充完毕后由 {@link #complete(Object)} 创建 record。
+     *
+     * @param clazz 对象类
+     * @return 新实例或 {@link RecordValues}
+     * @throws Exception 如果无法创建，例如普通类没有无参构造器
+     */
+    static Object newTarget(Class<?> clazz) throws Exception {
+        clazz = collectionType(clazz);
+        if (!clazz.isRecord())
+            return OkJsonParser.newInstance(clazz);
+        OkJsonClassMeta meta = of(clazz);
+        if (meta.recordConstructor == null)
+            throw new IllegalAccessException("canonical constructor is not accessible: " + clazz.getName());
+        return new RecordValues(meta, meta.recordDefaults.clone());
+    }
+
+    /**
+     * 返回集合属性实际创建的类型：List、Collection 和 Iterable 创建 ArrayList，Set 创建 LinkedHashSet，其他类型原样返回。
+     */
+    static Class<?> collectionType(Class<?> clazz) {
+        if (clazz == List.class || clazz == Collection.class || clazz == Iterable.class)
+            return ArrayList.class;
+        if (clazz == Set.class)
+            return LinkedHashSet.class;
+        return clazz;
+    }
+
+    /**
+     * 返回该类型的属性是否按集合填充 JSON 数组的元素。
+     */
+    static boolean isCollection(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(collectionType(clazz));
+    }
+
+    /**
+     * 完成 {@link #newTarget(Class)} 返回的对象：为 {@link RecordValues} 调用规范构造器，其他对象原样返回。
+     */
+    static Object complete(Object target) throws Exception {
+        if (!(target instanceof RecordValues))
+            return target;
+        RecordValues values = (RecordValues) target;
+        try {
+            return (Object) values.meta.recordConstructor.invokeExact(values.values);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * 正在解析的 record 的分量值，按分量的顺序排列。
+     */
+    static final class RecordValues {
+        final OkJsonClassMeta meta;
+        final Object[] values;
+
+        RecordValues(OkJsonClassMeta meta, Object[] values) {
+            this.meta = meta;
+            this.values = values;
+        }
+    }
+
+    /**
+     * 按 UTF-8 编码的字段名查找解析器写入的属性，不创建字符串。
+     * <p>
+     * JSON 中的字段通常按声明顺序出现，因此先与预期的属性（一般是上一个属性的下一个）比较，
+     * 不符时再查哈希表，两者都只比较字节。
+     *
+     * @param jsonBytes 输入
+     * @param offset    字段名第一个字节的位置
+     * @param length    字段名的字节数
+     * @param expected  预期的属性序号（{@link Property#index}）
+     * @return 属性，没有时返回 null
+     */
+    Property property(byte[] jsonBytes, int offset, int length, int expected) {
+        if (expected < propertyArray.length && matches(propertyNames[expected], jsonBytes, offset, length))
+            return propertyArray[expected];
+        int hash = hash(jsonBytes, offset, length);
+        int mask = propertySlots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int i = propertySlots[slot] - 1;
+            if (i < 0)
+                return null;
+            if (propertyHashes[i] == hash && matches(propertyNames[i], jsonBytes, offset, length))
+                return propertyArray[i];
+        }
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+            h = 31 * h + bytes[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(byte[] name, byte[] bytes, int offset, int length) {
+        return name.length == length && Arrays.equals(name, 0, length, bytes, offset, offset + length);
+    }
+
+    /**
+     * 返回读取字段的访问器，类型为 {@code (Object)Object}，不可访问时返回 null。
+     */
+    static MethodHandle getter(Field f) {
+        MethodHandle mh = exactGetter(f);
+        return mh != null ? mh.asType(GETTER_TYPE) : null;
+    }
+
+    /**
+     * 返回调用 getter 方法的访问器，类型为 {@code (Object)Object}，不可访问时返回 null。
+     */
+    static MethodHandle getter(Method m) {
+        MethodHandle mh = exactGetter(m);
+        return mh != null ? mh.asType(GETTER_TYPE) : null;
+    }
+
+    /**
+     * 返回写入字段的访问器，类型为 {@code (Object, Object)void}，字段不可写（例如 static final 字段）时返回 null。
+     */
+    static MethodHandle setter(Field f) {
+        MethodHandle mh = exactSetter(f);
+        return mh != null ? mh.asType(SETTER_TYPE) : null;
+    }
+
+    /**
+     * 返回读取字段的访问器，类型为 {@code (Object)T}，T 为字段的类型，不可访问时返回 null。
+     */
+    static MethodHandle exactGetter(Field f) {
+        try {
+            return receiverAsObject(MethodHandles.lookup().unreflectGetter(f), f.getModifiers());
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 返回调用 getter 方法的访问器，类型为 {@code (Object)T}，T 为方法的返回类型，不可访问时返回 null。
+     */
+    static MethodHandle exactGetter(Method m) {
+        try {
+            m.trySetAccessible(); // the class itself may not be public
+            return receiverAsObject(MethodHandles.lookup().unreflect(m), m.getModifiers());
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 返回写入字段的访问器，类型为 {@code (Object, T)void}，T 为字段的类型，字段不可写时返回 null。
+     */
+    static MethodHandle exactSetter(Field f) {
+        try {
+            return receiverAsObject(MethodHandles.lookup().unreflectSetter(f), f.getModifiers());
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 返回调用 setter 方法的访问器，类型为 {@code (Object, T)void}，T 为方法的参数类型，不可访问时返回 null。
+     */
+    static MethodHandle exactSetter(Method m) {
+        try {
+            m.trySetAccessible(); // the class itself may not be public
+            return receiverAsObject(MethodHandles.lookup().unreflect(m), m.getModifiers());
+        } catch (IllegalAccessException e) {
+            // e.g. a public method of a class that is not exported to us
+            return null;
+        }
+    }
+
+    private static MethodHandle receiverAsObject(MethodHandle mh, int modifiers) {
+        if (Modifier.isStatic(modifiers))
+            return MethodHandles.dropArguments(mh, 0, Object.class);
+        return mh.asType(mh.type().changeParameterType(0, Object.class));
+    }
+
+    /**
+     * 解析器写入的属性：字段，以及可能存在的公有 setter 方法。
+     */
+    static final class Property {
+        final Field field;
+        final Class<?> type;
+        /** List&lt;T&gt; 字段的元素类型 T，其他字段为 null */
+        final Class<?> elementType;
+        /** 日期时间字段（或日期时间 List 字段的元素）的格式，其他字段为 null */
+        final DateTimeFormatter formatter;
+        final Method setterMethod;      // the public setter method, or null
+        final MethodHandle setter;      // invokes setterMethod, or null
+        final MethodHandle fieldSetter; // writes the field directly, null if it is not writable
+        /** 在 {@link OkJsonClassMeta#properties} 中的序号；record 的分量按分量的顺序编号 */
+        final int index;
+        /** 是否为 record 的分量，此时值被写入 {@link RecordValues} */
+        final boolean component;
+
+        private Property(Field field, Method setterMethod, MethodHandle setter, int index, boolean component) {
+            this.field = field;
+            this.index = index;
+            this.component = component;
+            this.type = field.getType();
+            Type g = field.getGenericType();
+            Type[] args = g instanceof ParameterizedType ? ((ParameterizedType) g).getActualTypeArguments() : null;
+            this.elementType = args != null && args.length == 1 && args[0] instanceof Class ? (Class<?>) args[0] : null;
+            Class<?> dateType = elementType != null ? elementType : type;
+            if (dateType == LocalDate.class)
+                this.formatter = formatter(field, "yyyy-MM-dd");
+            else if (dateType == LocalTime.class)
+                this.formatter = formatter(field, "HH:mm:ss");
+            else if (dateType == LocalDateTime.class)
+                this.formatter = formatter(field, "yyyy-MM-dd HH:mm:ss");
+            else
+                this.formatter = null;
+            this.setterMethod = setterMethod;
+            this.setter = setter;
+            this.fieldSetter = setter(field);
+        }
+
+        static Property of(Class<?> clazz, Field f, int index) {
+            String fieldName = f.getName();
+            Method method = null;
+            try {
+                method = clazz.getMethod("set" + fieldName.substring(0, 1).toUpperCase(Locale.getDefault()) +
+                        fieldName.substring(1), f.getType());
+            } catch (NoSuchMethodException | SecurityException e) {
+                // no setter
+            }
+            MethodHandle setter = null;
+            if (method != null && Modifier.isPublic(method.getModifiers())) {
+                setter = exactSetter(method);
+                if (setter != null)
+                    setter = setter.asType(SETTER_TYPE);
+            }
+            if (setter != null || Modifier.isPublic(f.getModifiers()))
+                return new Property(f, setter != null ? method : null, setter, index, false);
+            return null;
+        }
+
+        /**
+         * 返回 record 分量的属性。
+         *
+         * @param f     分量对应的字段
+         * @param index 分量的序号
+         */
+        static Property component(Field f, int index) {
+            return new Property(f, null, null, index, true);
+        }
+
+        /**
+         * 写入属性：有 setter 时调用 setter，否则在允许直接访问时直接写入字段。
+         * record 的分量总是写入，null 不会覆盖基本类型分量的默认值。
+         */
+        void set(Object object, Object value, boolean directAccess) throws Exception {
+            if (component)
+                setComponent(object, value);
+            else if (setter != null)
+                invoke(setter, object, value);
+            else if (directAccess)
+                setField(object, value);
+        }
+
+        /**
+         * 直接写入字段。
+         */
+        void setField(Object object, Object value) throws Exception {
+            if (component) {
+                setComponent(object, value);
+                return;
+            }
+            if (fieldSetter == null)
+                throw new IllegalAccessException("field is not writable: " + field);
+            invoke(fieldSetter, object, value);
+        }
+
+        private void setComponent(Object object, Object value) {
+            if (value != null || !type.isPrimitive())
+                ((RecordValues) object).values[index] = value;
+        }
+
+        private static void invoke(MethodHandle mh, Object object, Object value) throws Exception {
+            try {
+                mh.invokeExact(object, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        }
+    }
+}
+
+// ====== 按类生成的编解码器 ======
+/**
+ * 为一个对象类生成的专用编解码器，在 {@link OKJSON#OPTIONS_CODEC_ENABLE} 打开时代替按字段类型逐个分派的反射路径。
+ * <p>
+ * 编解码器在首次使用时由类的元数据生成，每个字段对应一个专用的写入器或读取器：
+ * 字段名连同引号、冒号和前导逗号预先拼好，整个追加；基本类型的字段通过精确类型的 {@link MethodHandle}
+ * 读写，不装箱，整数直接从输入的字节中累加得到，不创建中间字符串。
+ * 其余字段（日期、集合、数组、Map 和嵌套对象）以及带缩进的输出仍交给生成器和解析器的反射路径，
+ * 因此结果与不使用编解码器时相同。
+ */
+final class OkJsonCodec {
+    private final Writer[] writers;
+    private final Reader[] readers; // by Property.index, null where the parser's own path is used
+
+    OkJsonCodec(OkJsonClassMeta meta) {
+        List<OkJsonGenerator.OkJsonClassField> fields = meta.fields;
+        this.writers = new Writer[fields.size()];
+        for (int i = 0; i < writers.length; i++)
+            writers[i] = writer(fields.get(i));
+        this.readers = new Reader[meta.properties.size()];
+        for (OkJsonClassMeta.Property property : meta.properties.values())
+            readers[property.index] = reader(property);
+    }
+
+    /**
+     * 以紧凑格式写出对象的各个字段（不含外层的大括号）。
+     */
+    void write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder, int depth)
+            throws Exception {
+        boolean first = true;
+        try {
+            for (Writer writer : writers) {
+                if (writer.write(generator, object, jsonCharArrayBuilder, depth, first))
+                    first = false;
+            }
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * 将一个标量值写入对象的属性。
+     *
+     * @return 已写入时返回 true；属性或值的类型不由编解码器处理时返回 false，由调用者按反射路径处理
+     */
+    boolean read(OkJsonClassMeta.Property property, Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType,
+                 int beginOffset, int endOffset, boolean booleanValue, boolean directAccess) throws Exception {
+        Reader reader = readers[property.index];
+        if (reader == null)
+            return false;
+        try {
+            return reader.read(object, jsonBytes, tokenType, beginOffset, endOffset, booleanValue, directAccess);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    // ------ 写入器 ------
+
+    private static Writer writer(OkJsonGenerator.OkJsonClassField classField) {
+        Class<?> type = classField.field.getType();
+        if (type.isPrimitive()) {
+            MethodHandle getter = classField.getter != null
+                    ? OkJsonClassMeta.exactGetter(classField.getter) : OkJsonClassMeta.exactGetter(classField.field);
+            if (getter != null && getter.type().returnType() == type) {
+                if (type == int.class || type == short.class || type == byte.class)
+                    return new IntWriter(classField, getter.asType(MethodType.methodType(int.class, Object.class)));
+                if (type == long.class)
+                    return new LongWriter(classField, getter);
+                if (type == boolean.class)
+                    return new BooleanWriter(classField, getter);
+                if (type == double.class)
+                    return new DoubleWriter(classField, getter);
+                if (type == float.class)
+                    return new FloatWriter(classField, getter);
+            }
+        } else if (classField.type == OkJsonGenerator.ClassFieldType.STRING) {
+            return new StringWriter(classField);
+        } else if (classField.type == OkJsonGenerator.ClassFieldType.ENUM) {
+            return new EnumWriter(classField);
+        }
+        return new ObjectWriter(classField);
+    }
+
+    abstract static class Writer {
+        final OkJsonGenerator.OkJsonClassField classField;
+        private final char[] name;      // "name":
+        private final char[] commaName; // ,"name":
+
+        Writer(OkJsonGenerator.OkJsonClassField classField) {
+            this.classField = classField;
+            char[] fieldName = classField.fieldName;
+            this.commaName = new char[fieldName.length + 4];
+            commaName[0] = ',';
+            commaName[1] = '"';
+            System.arraycopy(fieldName, 0, commaName, 2, fieldName.length);
+            commaName[fieldName.length + 2] = '"';
+            commaName[fieldName.length + 3] = ':';
+            this.name = Arrays.copyOfRange(commaName, 1, commaName.length);
+        }
+
+        /**
+         * 写出字段。
+         *
+         * @param first 是否是写出的第一个字段（不写前导逗号）
+         * @return 是否写出了字段（值为 null 且不输出 null 时不写出）
+         */
+        abstract boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                               int depth, boolean first) throws Throwable;
+
+        final void appendName(OkJsonCharArrayBuilder jsonCharArrayBuilder, boolean first) {
+            jsonCharArrayBuilder.appendCharArray(first ? name : commaName);
+        }
+
+        final boolean writeNull(OkJsonGenerator generator, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                                boolean first) {
+            if (!generator.isNullEnable())
+                return false;
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendString(OkJsonGenerator.NULL_STRING);
+            return true;
+        }
+    }
+
+    static final class IntWriter extends Writer {
+        private final MethodHandle getter; // (Object)int
+
+        IntWriter(OkJsonGenerator.OkJsonClassField classField, MethodHandle getter) {
+            super(classField);
+            this.getter = getter;
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            int value = (int) getter.invokeExact(object);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendLong(value);
+            return true;
+        }
+    }
+
+    static final class LongWriter extends Writer {
+        private final MethodHandle getter; // (Object)long
+
+        LongWriter(OkJsonGenerator.OkJsonClassField classField, MethodHandle getter) {
+            super(classField);
+            this.getter = getter;
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            long value = (long) getter.invokeExact(object);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendLong(value);
+            return true;
+        }
+    }
+
+    static final class BooleanWriter extends Writer {
+        private static final char[] TRUE = "true".toCharArray();
+        private static final char[] FALSE = "false".toCharArray();
+        private final MethodHandle getter; // (Object)boolean
+
+        BooleanWriter(OkJsonGenerator.OkJsonClassField classField, MethodHandle getter) {
+            super(classField);
+            this.getter = getter;
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            boolean value = (boolean) getter.invokeExact(object);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendCharArray(value ? TRUE : FALSE);
+            return true;
+        }
+    }
+
+    static final class DoubleWriter extends Writer {
+        private final MethodHandle getter; // (Object)double
+
+        DoubleWriter(OkJsonGenerator.OkJsonClassField classField, MethodHandle getter) {
+            super(classField);
+            this.getter = getter;
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            double value = (double) getter.invokeExact(object);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendDouble(value);
+            return true;
+        }
+    }
+
+    static final class FloatWriter extends Writer {
+        private final MethodHandle getter; // (Object)float
+
+        FloatWriter(OkJsonGenerator.OkJsonClassField classField, MethodHandle getter) {
+            super(classField);
+            this.getter = getter;
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            float value = (float) getter.invokeExact(object);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendString(Float.toString(value));
+            return true;
+        }
+    }
+
+    static final class StringWriter extends Writer {
+        StringWriter(OkJsonGenerator.OkJsonClassField classField) {
+            super(classField);
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            String value = (String) (Object) classField.accessor.invokeExact(object);
+            if (value == null)
+                return writeNull(generator, jsonCharArrayBuilder, first);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendJsonStringEscapedWithQuote(value);
+            return true;
+        }
+    }
+
+    static final class EnumWriter extends Writer {
+        EnumWriter(OkJsonGenerator.OkJsonClassField classField) {
+            super(classField);
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            Enum<?> value = (Enum<?>) (Object) classField.accessor.invokeExact(object);
+            if (value == null)
+                return writeNull(generator, jsonCharArrayBuilder, first);
+            appendName(jsonCharArrayBuilder, first);
+            jsonCharArrayBuilder.appendJsonStringWithQuote(value.name());
+            return true;
+        }
+    }
+
+    /**
+     * 其余字段：读出值后交给生成器的 {@link OkJsonGenerator.FieldWriter}。
+     */
+    static final class ObjectWriter extends Writer {
+        ObjectWriter(OkJsonGenerator.OkJsonClassField classField) {
+            super(classField);
+        }
+
+        @Override
+        boolean write(OkJsonGenerator generator, Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder,
+                      int depth, boolean first) throws Throwable {
+            Object value = classField.accessor.invokeExact(object);
+            if (value == null)
+                return writeNull(generator, jsonCharArrayBuilder, first);
+            generator.new FieldWriter(jsonCharArrayBuilder, depth, classField, first ? 1 : 2, value).write();
+            return true;
+        }
+    }
+
+    // ------ 读取器 ------
+
+    private static Reader reader(OkJsonClassMeta.Property property) {
+        Class<?> type = property.type;
+        if (!type.isPrimitive())
+            return null;
+        MethodHandle setter = null;
+        if (property.setterMethod != null) {
+            setter = OkJsonClassMeta.exactSetter(property.setterMethod);
+            if (setter == null)
+                return null;
+        }
+        MethodHandle fieldSetter = OkJsonClassMeta.exactSetter(property.field);
+        if (setter == null && fieldSetter == null)
+            return null; // let the parser report it
+        if (type == int.class)
+            return new IntReader(setter, fieldSetter);
+        if (type == long.class)
+            return new LongReader(setter, fieldSetter);
+        if (type == short.class)
+            return new ShortReader(setter, fieldSetter);
+        if (type == byte.class)
+            return new ByteReader(setter, fieldSetter);
+        if (type == boolean.class)
+            return new BooleanReader(setter, fieldSetter);
+        if (type == double.class)
+            return new DoubleReader(setter, fieldSetter);
+        if (type == float.class)
+            return new FloatReader(setter, fieldSetter);
+        return null;
+    }
+
+    abstract static class Reader {
+        final MethodHandle setter;      // (Object, T)void, the setter method or null
+        final MethodHandle fieldSetter; // (Object, T)void, writes the field or null
+
+        Reader(MethodHandle setter, MethodHandle fieldSetter) {
+            this.setter = setter;
+            this.fieldSetter = fieldSetter;
+        }
+
+        /**
+         * 同 {@link OkJsonClassMeta.Property#set}：有 setter 时调用 setter，否则在允许直接访问时直接写入字段。
+         *
+         * @return 写入所用的访问器，不写入时返回 null
+         */
+        final MethodHandle target(boolean directAccess) {
+            return setter != null ? setter : directAccess ? fieldSetter : null;
+        }
+
+        abstract boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                              int endOffset, boolean booleanValue, boolean directAccess) throws Throwable;
+    }
+
+    static final class IntReader extends Reader {
+        IntReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_INTEGER)
+                return false;
+            int value = OkJsonNumbers.parseInt(jsonBytes, beginOffset, endOffset);
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
+    }
+
+    static final class LongReader extends Reader {
+        LongReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_INTEGER)
+                return false;
+            long value = OkJsonNumbers.parseLong(jsonBytes, beginOffset, endOffset);
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
+    }
+
+    static final class ShortReader extends Reader {
+        ShortReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_INTEGER)
+                return false;
+            short value = (short) OkJsonNumbers.parseInt(jsonBytes, beginOffset, endOffset); // truncates, as the parser does
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
+    }
+
+    static final class ByteReader extends Reader {
+        ByteReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_INTEGER)
+                return false;
+            byte value = (byte) OkJsonNumbers.parseInt(jsonBytes, beginOffset, endOffset); // truncates, as the parser does
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
+    }
 
-// ====== 集中管理选项 ======
-final class Options {
-    final boolean direct;
-    final boolean pretty;
-    final boolean strict;
-    final boolean nullable;
+    static final class BooleanReader extends Reader {
+        BooleanReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
 
-    private Options(boolean direct, boolean pretty, boolean strict, boolean nullable) {
-        this.direct = direct; this.pretty = pretty; this.strict = strict; this.nullable = nullable;
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_BOOL)
+                return false;
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, booleanValue);
+            return true;
+        }
     }
-    static Options fromMask(int mask) {
-        return new Options(
-                (mask & OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE) != 0,
-                (mask & OKJSON.OPTIONS_PRETTY_FORMAT_ENABLE) != 0,
-                (mask & OKJSON.OPTIONS_STRICT_POLICY) != 0,
-                (mask & OKJSON.OPTIONS_NULLABLE) != 0
-        );
+
+    static final class DoubleReader extends Reader {
+        DoubleReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_DECIMAL)
+                return false;
+            double value = OkJsonNumbers.parseDouble(jsonBytes, beginOffset, endOffset);
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
+    }
+
+    static final class FloatReader extends Reader {
+        FloatReader(MethodHandle setter, MethodHandle fieldSetter) {
+            super(setter, fieldSetter);
+        }
+
+        @Override
+        boolean read(Object object, byte[] jsonBytes, OkJsonParser.TokenType tokenType, int beginOffset,
+                     int endOffset, boolean booleanValue, boolean directAccess) throws Throwable {
+            if (tokenType != OkJsonParser.TokenType.TOKEN_TYPE_DECIMAL)
+                return false;
+            float value = OkJsonNumbers.parseFloat(jsonBytes, beginOffset, endOffset);
+            MethodHandle target = target(directAccess);
+            if (target != null)
+                target.invokeExact(object, value);
+            return true;
+        }
     }
 }
 
@@ -250,6 +1320,7 @@ class OkJsonParser {
     private boolean strictPolicyEnable;
     private boolean directAccessPropertyEnable;
     private boolean prettyFormatEnable;
+    private boolean codecEnable;
 
     private Integer errorCode;
     private String errorDesc;
@@ -268,12 +1339,9 @@ class OkJsonParser {
         TOKEN_TYPE_NULL // null
     }
 
-    private static final ThreadLocal<LinkedHashMap<String, LinkedHashMap<String, Field>>> stringMapFieldsCache =
-            ThreadLocal.withInitial(LinkedHashMap::new);
-    private static final ThreadLocal<LinkedHashMap<String, LinkedHashMap<String, Method>>> stringMapMethodsCache =
-            ThreadLocal.withInitial(LinkedHashMap::new);
-    private static final ThreadLocal<StringBuilder> fieldStringBuilderCache =
-            ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    // 随解析器一起被对象池复用
+    private StringBuilder fieldStringBuilderCache = new StringBuilder(1024);
+    private byte[] inputBufferCache = new byte[0];
 
     private int jsonOffset;
     private int jsonLength;
@@ -308,21 +1376,25 @@ class OkJsonParser {
         return code;
     }
 
-    private int tokenJsonString(char[] jsonCharArray) {
+    private int tokenJsonString(byte[] jsonBytes) {
         StringBuilder fieldStringBuilder;
         char ch;
 
-        fieldStringBuilder = fieldStringBuilderCache.get();
+        fieldStringBuilder = fieldStringBuilderCache;
         fieldStringBuilder.setLength(0);
 
         jsonOffset++;
         beginOffset = jsonOffset;
         while (jsonOffset < jsonLength) {
-            ch = jsonCharArray[jsonOffset];
+            // skip the plain bytes eight at a time
+            jsonOffset = OkJsonStrings.indexOfQuoteOrBackslash(jsonBytes, jsonOffset, jsonLength);
+            if (jsonOffset == jsonLength)
+                break;
+            ch = (char) (jsonBytes[jsonOffset] & 0xFF);
             if (ch == '"') {
                 tokenType = TokenType.TOKEN_TYPE_STRING;
                 if (jsonOffset > beginOffset) {
-                    fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset);
+                    appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset);
                 }
                 endOffset = jsonOffset - 1;
                 jsonOffset++;
@@ -332,66 +1404,65 @@ class OkJsonParser {
                 if (jsonOffset >= jsonLength) {
                     return OKJSON_ERROR_END_OF_BUFFER;
                 }
-                ch = jsonCharArray[jsonOffset];
+                ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                 if (ch == '"') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('"');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == '\\') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append("\\");
                     beginOffset = jsonOffset + 1;
                 } else if (ch == '/') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('/');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 'b') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('\b');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 'f') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('\f');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 'n') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('\n');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 'r') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('\r');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 't') {
                     if (jsonOffset > beginOffset + 1)
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append('\t');
                     beginOffset = jsonOffset + 1;
                 } else if (ch == 'u') {
                     if (jsonOffset + 4 >= jsonLength) return OKJSON_ERROR_END_OF_BUFFER;
-                    char h1 = jsonCharArray[++jsonOffset];
-                    char h2 = jsonCharArray[++jsonOffset];
-                    char h3 = jsonCharArray[++jsonOffset];
-                    char h4 = jsonCharArray[++jsonOffset];
+                    char h1 = (char) (jsonBytes[++jsonOffset] & 0xFF);
+                    char h2 = (char) (jsonBytes[++jsonOffset] & 0xFF);
+                    char h3 = (char) (jsonBytes[++jsonOffset] & 0xFF);
+                    char h4 = (char) (jsonBytes[++jsonOffset] & 0xFF);
                     if (!(isHex(h1) && isHex(h2) && isHex(h3) && isHex(h4))) {
                         errorDesc = "Invalid unicode escape";
                         return OKJSON_ERROR_INVALID_BYTE;
                     }
                     int codePoint = Integer.parseInt(
                             new String(new char[]{h1, h2, h3, h4}), 16);
-                    if (fieldStringBuilder.length() == 0) {
-                        fieldStringBuilder.append(jsonCharArray, beginOffset, (jsonOffset - 4) - beginOffset - 1);
-                    }
+                    if (jsonOffset - 4 > beginOffset + 1)
+                        appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, (jsonOffset - 4) - beginOffset - 1);
                     fieldStringBuilder.append((char) codePoint);
                     beginOffset = jsonOffset + 1;
                 } else {
-                    fieldStringBuilder.append(jsonCharArray, beginOffset, jsonOffset - beginOffset - 1);
+                    appendUtf8(fieldStringBuilder, jsonBytes, beginOffset, jsonOffset - beginOffset - 1);
                     fieldStringBuilder.append(ch);
                 }
             }
@@ -405,20 +1476,20 @@ class OkJsonParser {
         return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
     }
 
-    private int tokenJsonNumber(char[] jsonCharArray) {
+    private int tokenJsonNumber(byte[] jsonBytes) {
         char ch;
         boolean decimalPointFlag;
 
         beginOffset = jsonOffset;
 
-        ch = jsonCharArray[jsonOffset];
+        ch = (char) (jsonBytes[jsonOffset] & 0xFF);
         if (ch == '-') {
             jsonOffset++;
         }
 
         decimalPointFlag = false;
         while (jsonOffset < jsonLength) {
-            ch = jsonCharArray[jsonOffset];
+            ch = (char) (jsonBytes[jsonOffset] & 0xFF);
             if ('0' <= ch && ch <= '9') {
                 jsonOffset++;
             } else if (ch == '.') {
@@ -427,7 +1498,7 @@ class OkJsonParser {
             } else if (ch == 'e' || ch == 'E') {
                 jsonOffset++;
                 if (jsonOffset >= jsonLength) return fail(OKJSON_ERROR_END_OF_BUFFER,"");
-                ch = jsonCharArray[jsonOffset];
+                ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                 if (ch == '-' || ch == '+') {
                     jsonOffset++;
                 } else if ('0' <= ch && ch <= '9') {
@@ -446,11 +1517,11 @@ class OkJsonParser {
         return fail(OKJSON_ERROR_END_OF_BUFFER, "");
     }
 
-    private int tokenJsonWord(char[] jsonCharArray) {
+    private int tokenJsonWord(byte[] jsonBytes) {
         char ch;
 
         while (jsonOffset < jsonLength) {
-            ch = jsonCharArray[jsonOffset];
+            ch = (char) (jsonBytes[jsonOffset] & 0xFF);
             if (ch == ' ' || ch == '\b' || ch == '\t' || ch == '\f' || ch == '\r' || ch == '\n') {
                 jsonOffset++;
             } else if (ch == '{') {
@@ -478,7 +1549,7 @@ class OkJsonParser {
                 jsonOffset++;
                 return 0;
             } else if (ch == '"') {
-                return tokenJsonString(jsonCharArray);
+                return tokenJsonString(jsonBytes);
             } else if (ch == ':') {
                 tokenType = TokenType.TOKEN_TYPE_COLON;
                 beginOffset = jsonOffset;
@@ -492,26 +1563,26 @@ class OkJsonParser {
                 jsonOffset++;
                 return 0;
             } else if (ch == '-' || ('0' <= ch && ch <= '9')) {
-                return tokenJsonNumber(jsonCharArray);
+                return tokenJsonNumber(jsonBytes);
             } else if (ch == 't') {
                 beginOffset = jsonOffset;
                 jsonOffset++;
                 if (jsonOffset >= jsonLength) {
                     return OKJSON_ERROR_END_OF_BUFFER;
                 }
-                ch = jsonCharArray[jsonOffset];
+                ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                 if (ch == 'r') {
                     jsonOffset++;
                     if (jsonOffset >= jsonLength) {
                         return OKJSON_ERROR_END_OF_BUFFER;
                     }
-                    ch = jsonCharArray[jsonOffset];
+                    ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                     if (ch == 'u') {
                         jsonOffset++;
                         if (jsonOffset >= jsonLength) {
                             return OKJSON_ERROR_END_OF_BUFFER;
                         }
-                        ch = jsonCharArray[jsonOffset];
+                        ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                         if (ch == 'e') {
                             tokenType = TokenType.TOKEN_TYPE_BOOL;
                             booleanValue = true;
@@ -527,25 +1598,25 @@ class OkJsonParser {
                 if (jsonOffset >= jsonLength) {
                     return OKJSON_ERROR_END_OF_BUFFER;
                 }
-                ch = jsonCharArray[jsonOffset];
+                ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                 if (ch == 'a') {
                     jsonOffset++;
                     if (jsonOffset >= jsonLength) {
                         return OKJSON_ERROR_END_OF_BUFFER;
                     }
-                    ch = jsonCharArray[jsonOffset];
+                    ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                     if (ch == 'l') {
                         jsonOffset++;
                         if (jsonOffset >= jsonLength) {
                             return OKJSON_ERROR_END_OF_BUFFER;
                         }
-                        ch = jsonCharArray[jsonOffset];
+                        ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                         if (ch == 's') {
                             jsonOffset++;
                             if (jsonOffset >= jsonLength) {
                                 return OKJSON_ERROR_END_OF_BUFFER;
                             }
-                            ch = jsonCharArray[jsonOffset];
+                            ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                             if (ch == 'e') {
                                 tokenType = TokenType.TOKEN_TYPE_BOOL;
                                 booleanValue = false;
@@ -562,19 +1633,19 @@ class OkJsonParser {
                 if (jsonOffset >= jsonLength) {
                     return OKJSON_ERROR_END_OF_BUFFER;
                 }
-                ch = jsonCharArray[jsonOffset];
+                ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                 if (ch == 'u') {
                     jsonOffset++;
                     if (jsonOffset >= jsonLength) {
                         return OKJSON_ERROR_END_OF_BUFFER;
                     }
-                    ch = jsonCharArray[jsonOffset];
+                    ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                     if (ch == 'l') {
                         jsonOffset++;
                         if (jsonOffset >= jsonLength) {
                             return OKJSON_ERROR_END_OF_BUFFER;
                         }
-                        ch = jsonCharArray[jsonOffset];
+                        ch = (char) (jsonBytes[jsonOffset] & 0xFF);
                         if (ch == 'l') {
                             tokenType = TokenType.TOKEN_TYPE_NULL;
                             booleanValue = true;
@@ -593,14 +1664,22 @@ class OkJsonParser {
     }
 
     Object convertTokenTo(
-            char[] json, TokenType t, int begin, int end, boolean boolValue,
-            @SuppressWarnings("rawtypes") Class target,  Field field) throws Exception {
+            byte[] json, TokenType t, int begin, int end, boolean boolValue,
+            @SuppressWarnings("rawtypes") Class target, OkJsonClassMeta.Property property) throws Exception {
 
         if (t == TokenType.TOKEN_TYPE_NULL) return null;
 
-        String s = new String(json, begin, end - begin + 1);
+        if (t == TokenType.TOKEN_TYPE_INTEGER || t == TokenType.TOKEN_TYPE_DECIMAL) {
+            // the common number types are parsed straight from the bytes
+            if (target == Integer.class || target == int.class)  return OkJsonNumbers.parseInt(json, begin, end);
+            if (target == Long.class || target == long.class)    return OkJsonNumbers.parseLong(json, begin, end);
+            if (target == Float.class || target == float.class)  return OkJsonNumbers.parseFloat(json, begin, end);
+            if (target == Double.class || target == double.class)return OkJsonNumbers.parseDouble(json, begin, end);
+        }
+
+        String s = utf8(json, begin, end - begin + 1);
         if (target == String.class) {
-            StringBuilder sb = fieldStringBuilderCache.get();
+            StringBuilder sb = fieldStringBuilderCache;
             return (sb.length() > 0) ? sb.toString() : s;
         }
         if (target == Boolean.class || target == boolean.class) {
@@ -621,46 +1700,35 @@ class OkJsonParser {
             return null;
         }
         if (target == LocalDate.class) {
-            String pattern = resolvePattern(field, "yyyy-MM-dd");
-            return LocalDate.parse(s, DateTimeFormatter.ofPattern(pattern));
+            return LocalDate.parse(s, property.formatter);
         }
         if (target == LocalTime.class) {
-            String pattern = resolvePattern(field, "HH:mm:ss");
-            return LocalTime.parse(s, DateTimeFormatter.ofPattern(pattern));
+            return LocalTime.parse(s, property.formatter);
         }
         if (target == LocalDateTime.class) {
-            String pattern = resolvePattern(field, "yyyy-MM-dd HH:mm:ss");
-            return LocalDateTime.parse(s, DateTimeFormatter.ofPattern(pattern));
+            return LocalDateTime.parse(s, property.formatter);
         }
         return null; // 其余类型这里不处理
     }
 
-    String resolvePattern(Field field, String def) {
-        if (field != null && field.isAnnotationPresent(OkJsonDateTimeFormatter.class)) {
-            return field.getAnnotation(OkJsonDateTimeFormatter.class).format();
-        }
-        return def;
-    }
-
-    int addArrayObject(char[] json, TokenType vt, int vb, int ve,
-                               Object object, Field field) {
+    int addArrayObject(byte[] json, TokenType vt, int vb, int ve,
+                               Object object, OkJsonClassMeta.Property property) {
 
         try {
-            Class<?> listType  = field.getType();
-            if (!List.class.isAssignableFrom(listType)) {
+            Class<?> listType  = property.type;
+            if (!OkJsonClassMeta.isCollection(listType)) {
                 return strictPolicyEnable ? fail(OKJSON_ERROR_PORPERTY_TYPE_NOT_MATCH_IN_OBJECT,"") : 0;
             }
 
             // 取 List<T> 的 T
-            Type g = field.getGenericType();
-            if (!(g instanceof ParameterizedType)) return 0;
-            Class<?> elemType = (Class<?>) ((ParameterizedType) g).getActualTypeArguments()[0];
+            Class<?> elemType = property.elementType;
+            if (elemType == null) return 0;
 
-            Object converted = convertTokenTo(json, vt, vb, ve, booleanValue, elemType, field);
+            Object converted = convertTokenTo(json, vt, vb, ve, booleanValue, elemType, property);
             if (converted == null && vt != TokenType.TOKEN_TYPE_NULL) {
                 return strictPolicyEnable ? fail(OKJSON_ERROR_PORPERTY_TYPE_NOT_MATCH_IN_OBJECT,"") : 0;
             }
-            ((List<Object>) object).add(converted);
+            ((Collection<Object>) object).add(converted);
             return 0;
 
         } catch (Exception e) {
@@ -670,7 +1738,7 @@ class OkJsonParser {
 
     }
 
-    int stringToArrayObject(char[] jsonCharArray, Object object, Field field) {
+    int stringToArrayObject(byte[] jsonBytes, Object object, OkJsonClassMeta.Property property) {
 
         TokenType valueTokenType;
         int valueBeginOffset;
@@ -680,7 +1748,7 @@ class OkJsonParser {
 
         while (true) {
             // token "value" or '{'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) {
                 break;
             }
@@ -690,21 +1758,18 @@ class OkJsonParser {
 
             if (tokenType == TokenType.TOKEN_TYPE_LEFT_BRACE) {
                 try {
-                    if (field != null) {
-                        Class<?> clazz = field.getType();
-                        if (clazz == ArrayList.class || clazz == LinkedList.class) {
-                            Type type = field.getGenericType();
-                            ParameterizedType pt = (ParameterizedType) type;
-                            Class<?> typeClazz = (Class<?>) pt.getActualTypeArguments()[0];
-                            Object childObject = newInstance(typeClazz);
-                            nret = stringToObjectProperties(jsonCharArray, childObject);
+                    if (property != null) {
+                        Class<?> clazz = property.type;
+                        if (OkJsonClassMeta.isCollection(clazz)) {
+                            Object childObject = OkJsonClassMeta.newTarget(property.elementType);
+                            nret = stringToObjectProperties(jsonBytes, childObject);
                             if (nret != 0)
                                 return nret;
 
-                            ((List<Object>) object).add(childObject);
+                            ((Collection<Object>) object).add(OkJsonClassMeta.complete(childObject));
                         }
                     } else {
-                        nret = stringToObjectProperties(jsonCharArray, null);
+                        nret = stringToObjectProperties(jsonBytes, null);
                         if (nret != 0)
                             return nret;
                     }
@@ -719,7 +1784,7 @@ class OkJsonParser {
                 if (beginPos < 0)
                     beginPos = 0;
                 return fail(OKJSON_ERROR_UNEXPECT_TOKEN_AFTER_LEFT_BRACE,
-                        "unexpect \"" + String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1) + "\"");
+                        "unexpect \"" + utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1) + "\"");
             }
 
             valueTokenType = tokenType;
@@ -727,7 +1792,7 @@ class OkJsonParser {
             valueEndOffset = endOffset;
 
             // token ',' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) {
                 break;
             }
@@ -736,9 +1801,9 @@ class OkJsonParser {
             }
 
             if (tokenType == TokenType.TOKEN_TYPE_COMMA || tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) {
-                if (object != null && field != null) {
-                    errorCode = addArrayObject(jsonCharArray, valueTokenType, valueBeginOffset, valueEndOffset,
-                            object, field);
+                if (object != null && property != null) {
+                    errorCode = addArrayObject(jsonBytes, valueTokenType, valueBeginOffset, valueEndOffset,
+                            object, property);
                     if (errorCode != 0)
                         return errorCode;
                 }
@@ -747,24 +1812,25 @@ class OkJsonParser {
                     break;
             } else {
                 return fail(OKJSON_ERROR_UNEXPECT_TOKEN_AFTER_LEFT_BRACE,
-                        "unexpect \"" + String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1) + "\"");
+                        "unexpect \"" + utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1) + "\"");
             }
         }
 
         return 0;
     }
 
-    private int setObjectProperty(char[] jsonCharArray, TokenType valueTokenType, int valueBeginOffset,
-                                  int valueEndOffset, Object object, Field field, Method method) {
+    private int setObjectProperty(byte[] jsonBytes, TokenType valueTokenType, int valueBeginOffset,
+                                  int valueEndOffset, Object object, OkJsonClassMeta.Property property) {
 
         StringBuilder fieldStringBuilder;
+        Field field = property.field;
 
-        fieldStringBuilder = fieldStringBuilderCache.get();
+        fieldStringBuilder = fieldStringBuilderCache;
 
         if (field.getType() == String.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
                 try {
-                    setString(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method,
+                    setString(jsonBytes, valueBeginOffset, valueEndOffset, object, property,
                             fieldStringBuilder);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
@@ -774,7 +1840,7 @@ class OkJsonParser {
         } else if (field.getType() == Byte.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
                 try {
-                    setByte(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setByte(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -783,7 +1849,7 @@ class OkJsonParser {
         } else if (field.getType() == Short.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
                 try {
-                    setShort(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setShort(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -792,7 +1858,7 @@ class OkJsonParser {
         } else if (field.getType() == Integer.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
                 try {
-                    setInteger(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setInteger(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -801,7 +1867,7 @@ class OkJsonParser {
         } else if (field.getType() == Long.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
                 try {
-                    setLong(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setLong(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -810,7 +1876,7 @@ class OkJsonParser {
         } else if (field.getType() == Float.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
                 try {
-                    setFloat(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setFloat(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -819,7 +1885,7 @@ class OkJsonParser {
         } else if (field.getType() == Double.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
                 try {
-                    setDouble(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setDouble(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -828,7 +1894,7 @@ class OkJsonParser {
         } else if (field.getType() == Boolean.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_BOOL) {
                 try {
-                    setBoolean(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                    setBoolean(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
                     return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -836,49 +1902,49 @@ class OkJsonParser {
             }
         } else if (field.getType().getName().equals("byte") && valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
             try {
-                setByte2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setByte2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("short") && valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
             try {
-                setShort2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setShort2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("int") && valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
             try {
-                setInteger2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setInteger2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("long") && valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
             try {
-                setLong2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setLong2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("float") && valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
             try {
-                setFloat2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setFloat2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("double") && valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
             try {
-                setDouble2(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method);
+                setDouble2(jsonBytes, valueBeginOffset, valueEndOffset, object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (field.getType().getName().equals("boolean") && valueTokenType == TokenType.TOKEN_TYPE_BOOL) {
             try {
-                setBoolean2(object, field, method);
+                setBoolean2(object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -886,7 +1952,7 @@ class OkJsonParser {
         } else if (field.getType() == LocalDate.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
                 try {
-                    setLocalDate(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method,
+                    setLocalDate(jsonBytes, valueBeginOffset, valueEndOffset, object, property,
                             fieldStringBuilder);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
@@ -896,7 +1962,7 @@ class OkJsonParser {
         } else if (field.getType() == LocalTime.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
                 try {
-                    setLoadTime(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method,
+                    setLoadTime(jsonBytes, valueBeginOffset, valueEndOffset, object, property,
                             fieldStringBuilder);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
@@ -906,7 +1972,7 @@ class OkJsonParser {
         } else if (field.getType() == LocalDateTime.class) {
             if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
                 try {
-                    setLocalDateTime(jsonCharArray, valueBeginOffset, valueEndOffset, object, field, method,
+                    setLocalDateTime(jsonBytes, valueBeginOffset, valueEndOffset, object, property,
                             fieldStringBuilder);
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
@@ -915,14 +1981,14 @@ class OkJsonParser {
             }
         } else if (Enum.class.isAssignableFrom(field.getType()) && valueTokenType == TokenType.TOKEN_TYPE_STRING) {
             try {
-                setEnum(object, field, method, fieldStringBuilder);
+                setEnum(object, property, fieldStringBuilder);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
             }
         } else if (valueTokenType == TokenType.TOKEN_TYPE_NULL) {
             try {
-                setNull(object, field, method);
+                setNull(object, property);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
@@ -934,340 +2000,179 @@ class OkJsonParser {
         return 0;
     }
 
-    private void setNull(Object object, Field field, Method method) throws IllegalAccessException,
-            InvocationTargetException {
-        if (method != null) {
-            method.invoke(object, (Object) null);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, null);
-        }
+    private void setNull(Object object, OkJsonClassMeta.Property property) throws Exception {
+        property.set(object, null, directAccessPropertyEnable);
     }
 
     @SuppressWarnings("unchecked")
-    private void setEnum(Object object, Field field, Method method, StringBuilder fieldStringBuilder)
-            throws IllegalAccessException, InvocationTargetException {
-        Object o = Enum.valueOf(((Class<Enum>) field.getType()), fieldStringBuilder.toString());
-        if (method != null) {
-            method.invoke(object, o);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, o);
-        }
+    private void setEnum(Object object, OkJsonClassMeta.Property property, StringBuilder fieldStringBuilder)
+            throws Exception {
+        Object o = Enum.valueOf(((Class<Enum>) property.type), fieldStringBuilder.toString());
+        property.set(object, o, directAccessPropertyEnable);
     }
 
-    private void setLocalDateTime(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                                  Field field, Method method, StringBuilder fieldStringBuilder)
-            throws IllegalAccessException, InvocationTargetException {
-        OkJsonDateTimeFormatter okjsonDateTimeFormatter;
-        String defaultDateTimeFormatter;
+    private void setLocalDateTime(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                                  OkJsonClassMeta.Property property, StringBuilder fieldStringBuilder)
+            throws Exception {
         LocalDateTime localDateTime;
-        if (field.isAnnotationPresent(OkJsonDateTimeFormatter.class)) {
-            okjsonDateTimeFormatter = field.getAnnotation(OkJsonDateTimeFormatter.class);
-            defaultDateTimeFormatter = okjsonDateTimeFormatter.format();
-        } else {
-            defaultDateTimeFormatter = "yyyy-MM-dd HH:mm:ss";
-        }
         if (fieldStringBuilder.length() > 0) {
-            localDateTime = LocalDateTime.parse(fieldStringBuilder.toString(),
-                    DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
+            localDateTime = LocalDateTime.parse(fieldStringBuilder.toString(), property.formatter);
         } else {
-            localDateTime = LocalDateTime.parse(new String(jsonCharArray, valueBeginOffset,
-                    valueEndOffset - valueBeginOffset +
-                            1), DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
-        }
-        if (method != null) {
-            method.invoke(object, localDateTime);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, localDateTime);
+            localDateTime = LocalDateTime.parse(utf8(jsonBytes, valueBeginOffset,
+                    valueEndOffset - valueBeginOffset + 1), property.formatter);
         }
+        property.set(object, localDateTime, directAccessPropertyEnable);
     }
 
-    private void setLoadTime(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                             Field field, Method method, StringBuilder fieldStringBuilder) throws IllegalAccessException,
-            InvocationTargetException {
-        OkJsonDateTimeFormatter okjsonDateTimeFormatter;
-        String defaultDateTimeFormatter;
+    private void setLoadTime(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                             OkJsonClassMeta.Property property, StringBuilder fieldStringBuilder) throws Exception {
         LocalTime localTime;
-        if (field.isAnnotationPresent(OkJsonDateTimeFormatter.class)) {
-            okjsonDateTimeFormatter = field.getAnnotation(OkJsonDateTimeFormatter.class);
-            defaultDateTimeFormatter = okjsonDateTimeFormatter.format();
-        } else {
-            defaultDateTimeFormatter = "HH:mm:ss";
-        }
         if (fieldStringBuilder.length() > 0) {
-            localTime = LocalTime.parse(fieldStringBuilder.toString(),
-                    DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
+            localTime = LocalTime.parse(fieldStringBuilder.toString(), property.formatter);
         } else {
-            localTime = LocalTime.parse(new String(jsonCharArray, valueBeginOffset,
-                    valueEndOffset - valueBeginOffset +
-                            1), DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
-        }
-        if (method != null) {
-            method.invoke(object, localTime);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, localTime);
+            localTime = LocalTime.parse(utf8(jsonBytes, valueBeginOffset,
+                    valueEndOffset - valueBeginOffset + 1), property.formatter);
         }
+        property.set(object, localTime, directAccessPropertyEnable);
     }
 
-    private void setLocalDate(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                              Field field, Method method, StringBuilder fieldStringBuilder) throws IllegalAccessException,
-            InvocationTargetException {
-        OkJsonDateTimeFormatter okjsonDateTimeFormatter;
-        String defaultDateTimeFormatter;
+    private void setLocalDate(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                              OkJsonClassMeta.Property property, StringBuilder fieldStringBuilder) throws Exception {
         LocalDate localDate;
-        if (field.isAnnotationPresent(OkJsonDateTimeFormatter.class)) {
-            okjsonDateTimeFormatter = field.getAnnotation(OkJsonDateTimeFormatter.class);
-            defaultDateTimeFormatter = okjsonDateTimeFormatter.format();
-        } else {
-            defaultDateTimeFormatter = "yyyy-MM-dd";
-        }
         if (fieldStringBuilder.length() > 0) {
-            localDate = LocalDate.parse(fieldStringBuilder.toString(),
-                    DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
+            localDate = LocalDate.parse(fieldStringBuilder.toString(), property.formatter);
         } else {
-            localDate = LocalDate.parse(new String(jsonCharArray, valueBeginOffset,
-                    valueEndOffset - valueBeginOffset +
-                            1), DateTimeFormatter.ofPattern(defaultDateTimeFormatter));
-        }
-        if (method != null) {
-            method.invoke(object, localDate);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, localDate);
+            localDate = LocalDate.parse(utf8(jsonBytes, valueBeginOffset,
+                    valueEndOffset - valueBeginOffset + 1), property.formatter);
         }
+        property.set(object, localDate, directAccessPropertyEnable);
     }
 
-    private void setBoolean2(Object object, Field field, Method method) throws IllegalAccessException,
-            InvocationTargetException {
-        if (method != null) {
-            method.invoke(object, booleanValue);
-        } else if (directAccessPropertyEnable) {
-            field.setBoolean(object, booleanValue);
-        }
+    private void setBoolean2(Object object, OkJsonClassMeta.Property property) throws Exception {
+        property.set(object, booleanValue, directAccessPropertyEnable);
     }
 
-    private void setDouble2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                            Field field, Method method) throws IllegalAccessException, InvocationTargetException {
-        double value = Double.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setDouble(object, value);
-        }
+    private void setDouble2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                            OkJsonClassMeta.Property property) throws Exception {
+        double value = OkJsonNumbers.parseDouble(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setFloat2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field
-            , Method method) throws IllegalAccessException, InvocationTargetException {
-        float value = Float.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setFloat(object, value);
-        }
+    private void setFloat2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                           OkJsonClassMeta.Property property) throws Exception {
+        float value = OkJsonNumbers.parseFloat(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setLong2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                          Method method) throws IllegalAccessException, InvocationTargetException {
-        long value =
-                Long.valueOf(new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setLong(object, value);
-        }
+    private void setLong2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                          OkJsonClassMeta.Property property) throws Exception {
+        long value = OkJsonNumbers.parseLong(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setInteger2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                             Field field, Method method) throws IllegalAccessException, InvocationTargetException {
-        int value = Integer.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setInt(object, value);
-        }
+    private void setInteger2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                             OkJsonClassMeta.Property property) throws Exception {
+        int value = OkJsonNumbers.parseInt(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setShort2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field
-            , Method method) throws IllegalAccessException, InvocationTargetException {
-        short value = Integer.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1)).shortValue();
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setShort(object, value);
-        }
+    private void setShort2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                           OkJsonClassMeta.Property property) throws Exception {
+        short value = (short) OkJsonNumbers.parseInt(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setByte2(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                          Method method) throws IllegalAccessException, InvocationTargetException {
-        byte value = Integer.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1)).byteValue();
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.setByte(object, value);
-        }
+    private void setByte2(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                          OkJsonClassMeta.Property property) throws Exception {
+        byte value = (byte) OkJsonNumbers.parseInt(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setBoolean(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                            Field field, Method method) throws IllegalAccessException, InvocationTargetException {
-        Boolean value = Boolean.valueOf(new String(jsonCharArray, valueBeginOffset,
+    private void setBoolean(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                            OkJsonClassMeta.Property property) throws Exception {
+        Boolean value = Boolean.valueOf(utf8(jsonBytes, valueBeginOffset,
                 valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setDouble(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field
-            , Method method) throws IllegalAccessException, InvocationTargetException {
-        Double value = Double.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setDouble(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                           OkJsonClassMeta.Property property) throws Exception {
+        Double value = OkJsonNumbers.parseDouble(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setFloat(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                          Method method) throws IllegalAccessException, InvocationTargetException {
-        Float value = Float.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setFloat(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                          OkJsonClassMeta.Property property) throws Exception {
+        Float value = OkJsonNumbers.parseFloat(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setLong(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                         Method method) throws IllegalAccessException, InvocationTargetException {
-        Long value = Long.valueOf(new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setLong(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                         OkJsonClassMeta.Property property) throws Exception {
+        Long value = OkJsonNumbers.parseLong(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setInteger(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object,
-                            Field field, Method method) throws IllegalAccessException, InvocationTargetException {
-        Integer value = Integer.valueOf(new String(jsonCharArray, valueBeginOffset,
-                valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setInteger(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                            OkJsonClassMeta.Property property) throws Exception {
+        Integer value = OkJsonNumbers.parseInt(jsonBytes, valueBeginOffset, valueEndOffset);
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setShort(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                          Method method) throws IllegalAccessException, InvocationTargetException {
-        Short value = Short.valueOf(new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setShort(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                          OkJsonClassMeta.Property property) throws Exception {
+        Short value = Short.valueOf(utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setByte(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field,
-                         Method method) throws IllegalAccessException, InvocationTargetException {
-        Byte value = Byte.valueOf(new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
-        }
+    private void setByte(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                         OkJsonClassMeta.Property property) throws Exception {
+        Byte value = Byte.valueOf(utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private void setString(char[] jsonCharArray, int valueBeginOffset, int valueEndOffset, Object object, Field field
-            , Method method, StringBuilder fieldStringBuilder) throws IllegalAccessException,
-            InvocationTargetException {
+    private void setString(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, Object object,
+                           OkJsonClassMeta.Property property, StringBuilder fieldStringBuilder) throws Exception {
         String value;
         if (fieldStringBuilder.length() > 0) {
             value = fieldStringBuilder.toString();
         } else {
-            value = new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1);
-        }
-        if (method != null) {
-            method.invoke(object, value);
-        } else if (directAccessPropertyEnable) {
-            field.set(object, value);
+            value = utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1);
         }
+        property.set(object, value, directAccessPropertyEnable);
     }
 
-    private int stringToObjectProperties(char[] jsonCharArray, Object object) {
+    private int stringToObjectProperties(byte[] jsonBytes, Object object) {
 
         Class clazz;
-        LinkedHashMap<String, Field> stringMapFields;
-        LinkedHashMap<String, Method> stringMapMethods;
-        Field[] fields;
+        OkJsonClassMeta meta;
+        OkJsonCodec codec;
+        OkJsonClassMeta.Property property;
+        int expected = 0; // the index of the property expected next
         Field field;
-        Method method = null;
         TokenType fieldNameTokenType;
         int fieldNameBeginOffset;
         int fieldNameEndOffset;
-        String fieldName;
         TokenType valueTokenType;
         int valueBeginOffset;
         int valueEndOffset;
 
         int nret;
 
-        if (object != null) {
-            clazz = object.getClass();
-
-            stringMapFields = stringMapFieldsCache.get().get(clazz.getName());
-            if (stringMapFields == null) {
-                stringMapFields = new LinkedHashMap<String, Field>();
-                stringMapFieldsCache.get().put(clazz.getName(), stringMapFields);
-            }
-
-            stringMapMethods = stringMapMethodsCache.get().get(clazz.getName());
-            if (stringMapMethods == null) {
-                stringMapMethods = new LinkedHashMap<String, Method>();
-                stringMapMethodsCache.get().put(clazz.getName(), stringMapMethods);
-            }
-
-            if (stringMapFields.isEmpty()) {
-                fields = clazz.getDeclaredFields();
-                for (Field f : fields) {
-                    f.setAccessible(true);
-
-                    fieldName = f.getName();
-
-                    method = null;
-                    try {
-                        method = clazz.getMethod("set" + fieldName.substring(0, 1).toUpperCase(Locale.getDefault()) +
-                                fieldName.substring(1), f.getType());
-                        method.setAccessible(true);
-                    } catch (NoSuchMethodException e2) {
-                        ;
-                    } catch (SecurityException e2) {
-                        ;
-                    }
-
-
-                    if (method != null && Modifier.isPublic(method.getModifiers())) {
-                        stringMapMethods.put(fieldName, method);
-                        stringMapFields.put(fieldName, f);
-                    } else if (Modifier.isPublic(f.getModifiers())) {
-                        stringMapFields.put(fieldName, f);
-                    }
-                }
-            }
+        if (object instanceof OkJsonClassMeta.RecordValues) {
+            meta = ((OkJsonClassMeta.RecordValues) object).meta;
+            codec = null;
+        } else if (object != null) {
+            meta = OkJsonClassMeta.of(object.getClass());
+            codec = codecEnable ? meta.codec() : null;
         } else {
-            stringMapFields = null;
-            stringMapMethods = null;
+            meta = null;
+            codec = null;
         }
 
         while (true) {
             // token "name"
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) {
                 break;
             }
@@ -1278,29 +2183,29 @@ class OkJsonParser {
             fieldNameTokenType = tokenType;
             fieldNameBeginOffset = beginOffset;
             fieldNameEndOffset = endOffset;
-            fieldName = new String(jsonCharArray, fieldNameBeginOffset, fieldNameEndOffset - fieldNameBeginOffset + 1);
 
             if (object != null) {
-                field = stringMapFields.get(fieldName);
-                if (field == null) {
+                property = meta.property(jsonBytes, fieldNameBeginOffset,
+                        fieldNameEndOffset - fieldNameBeginOffset + 1, expected);
+                if (property == null) {
                     if (strictPolicyEnable == true)
                         return OKJSON_ERROR_NAME_NOT_FOUND_IN_OBJECT;
+                } else {
+                    expected = property.index + 1;
                 }
-
-                method = stringMapMethods.get(fieldName);
             } else {
-                field = null;
-                method = null;
+                property = null;
             }
+            field = property != null ? property.field : null;
 
             if (tokenType != TokenType.TOKEN_TYPE_STRING) {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect a name but \"" + found + "\"";
                 return OKJSON_ERROR_NAME_INVALID;
             }
 
             // token ':' or ',' or '}' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1308,9 +2213,9 @@ class OkJsonParser {
                 ;
             } else if (tokenType == TokenType.TOKEN_TYPE_COMMA || tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACE) {
                 clazz = field.getType();
-                if (clazz == ArrayList.class || clazz == LinkedList.class) {
-                    nret = addArrayObject(jsonCharArray, fieldNameTokenType, fieldNameBeginOffset, fieldNameEndOffset
-                            , object, field);
+                if (OkJsonClassMeta.isCollection(clazz)) {
+                    nret = addArrayObject(jsonBytes, fieldNameTokenType, fieldNameBeginOffset, fieldNameEndOffset
+                            , object, property);
 
                     if (nret != 0) return nret;
 
@@ -1319,13 +2224,13 @@ class OkJsonParser {
             } else if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) {
                 break;
             } else {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect ':' but \"" + found + "\"";
                 return OKJSON_ERROR_EXPECT_COLON_AFTER_NAME;
             }
 
             // token '{' or '[' or "value"
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1338,7 +2243,7 @@ class OkJsonParser {
                     Object childObject;
 
                     if (field != null) {
-                        childObject = newInstance(field.getType());
+                        childObject = OkJsonClassMeta.newTarget(field.getType());
                         if (childObject == null)
                             return OKJSON_ERROR_UNEXPECT;
                     } else {
@@ -1346,15 +2251,15 @@ class OkJsonParser {
                     }
 
                     if (tokenType == TokenType.TOKEN_TYPE_LEFT_BRACE) {
-                        nret = stringToObjectProperties(jsonCharArray, childObject);
+                        nret = stringToObjectProperties(jsonBytes, childObject);
                     } else {
-                        nret = stringToArrayObject(jsonCharArray, childObject, field);
+                        nret = stringToArrayObject(jsonBytes, childObject, property);
                     }
                     if (nret != 0)
                         return nret;
 
                     if (field != null) {
-                        field.set(object, childObject);
+                        property.setField(object, OkJsonClassMeta.complete(childObject));
                     }
                 } catch (Exception e) {
                     Log.error(e.getMessage(), e);
@@ -1362,15 +2267,25 @@ class OkJsonParser {
                 }
             } else {
                 if (object != null && field != null) {
-                    nret = setObjectProperty(jsonCharArray, valueTokenType, valueBeginOffset, valueEndOffset, object,
-                            field, method);
-                    if (nret != 0)
-                        return nret;
+                    boolean done;
+                    try {
+                        done = codec != null && codec.read(property, object, jsonBytes, valueTokenType,
+                                valueBeginOffset, valueEndOffset, booleanValue, directAccessPropertyEnable);
+                    } catch (Exception e) {
+                        Log.error(e.getMessage(), e);
+                        return fail(OKJSON_ERROR_EXCEPTION, e.getMessage());
+                    }
+                    if (!done) {
+                        nret = setObjectProperty(jsonBytes, valueTokenType, valueBeginOffset, valueEndOffset,
+                                object, property);
+                        if (nret != 0)
+                            return nret;
+                    }
                 }
             }
 
             // token ',' or '}' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1381,7 +2296,7 @@ class OkJsonParser {
             } else if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) {
                 break;
             } else {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect ',' or '}' or ']' but \"" + found + "\"";
                 return OKJSON_ERROR_EXPECT_COLON_AFTER_NAME;
             }
@@ -1390,19 +2305,21 @@ class OkJsonParser {
         return 0;
     }
 
-    private int addArrayMap(String value, TokenType valueTokenType, List<Object> list) {
+    private int addArrayMap(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, TokenType valueTokenType,
+                            List<Object> list) {
         try {
             if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
-                StringBuilder sb = fieldStringBuilderCache.get();
-                list.add((sb != null && sb.length() > 0) ? sb.toString() : value);
+                StringBuilder sb = fieldStringBuilderCache;
+                list.add((sb != null && sb.length() > 0) ? sb.toString()
+                        : utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
                 sb.setLength(0); // 清空，避免后续误用旧内容
             } else if (valueTokenType == TokenType.TOKEN_TYPE_NULL) {
                 list.add(null);
             } else if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
-                BigInteger v = new BigInteger(value);
+                BigInteger v = OkJsonNumbers.parseBigInteger(jsonBytes, valueBeginOffset, valueEndOffset);
                 list.add(v);
             } else if (valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
-                BigDecimal v = new BigDecimal(value);
+                BigDecimal v = OkJsonNumbers.parseBigDecimal(jsonBytes, valueBeginOffset, valueEndOffset);
                 list.add(v);
             } else if (valueTokenType == TokenType.TOKEN_TYPE_BOOL) {
                 list.add(booleanValue);
@@ -1415,7 +2332,7 @@ class OkJsonParser {
         return 0;
     }
 
-    private int stringToArrayMap(char[] jsonCharArray, List<Object> list) {
+    private int stringToArrayMap(byte[] jsonBytes, List<Object> list) {
 
         TokenType valueTokenType;
         int valueBeginOffset;
@@ -1425,7 +2342,7 @@ class OkJsonParser {
 
         while (true) {
             // 读到一个元素：值 / 对象 / 或者子数组
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1433,7 +2350,7 @@ class OkJsonParser {
                 // 子对象
                 try {
                     Map<String, Object> childObject = new LinkedHashMap<>();
-                    nret = toMapItems(jsonCharArray, childObject);
+                    nret = toMapItems(jsonBytes, childObject);
                     if (nret != 0) return nret;
 
                     list.add(childObject);
@@ -1445,7 +2362,7 @@ class OkJsonParser {
                 // 子数组（递归）
                 try {
                     List<Object> childList = new LinkedList<>();
-                    nret = stringToArrayMap(jsonCharArray, childList);
+                    nret = stringToArrayMap(jsonBytes, childList);
                     if (nret != 0) return nret;
                     list.add(childList);
                 } catch (Exception e) {
@@ -1458,7 +2375,7 @@ class OkJsonParser {
             } else {
                 int beginPos = endOffset - 16; // ? 看不懂
                 if (beginPos < 0) beginPos = 0;
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "unexpect \"" + found + "\"";
                 return OKJSON_ERROR_UNEXPECT_TOKEN_AFTER_LEFT_BRACE;
             }
@@ -1468,7 +2385,7 @@ class OkJsonParser {
             valueEndOffset = endOffset;
 
             // token ',' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1477,16 +2394,14 @@ class OkJsonParser {
                 // 只有当本元素是“值类型”时，才在这里补充 list.add(...)
                 // （对象/子数组已经在上面提前 add 过了）
                 if (list != null && isTokenValueType(valueTokenType)) {
-                    String value = new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1);
-
-                    errorCode = addArrayMap(value, valueTokenType, list);
+                    errorCode = addArrayMap(jsonBytes, valueBeginOffset, valueEndOffset, valueTokenType, list);
 
                     if (errorCode != 0) return errorCode;
                 }
 
                 if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) break;
             } else {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "unexpect \"" + found + "\"";
                 return OKJSON_ERROR_UNEXPECT_TOKEN_AFTER_LEFT_BRACE;
             }
@@ -1504,15 +2419,17 @@ class OkJsonParser {
                 ;
     }
 
-    private int setMapItem(String value, TokenType valueTokenType, Map<String, Object> object, String field) {
+    private int setMapItem(byte[] jsonBytes, int valueBeginOffset, int valueEndOffset, TokenType valueTokenType,
+                           Map<String, Object> object, String field) {
 
         StringBuilder fieldStringBuilder;
 
-        fieldStringBuilder = fieldStringBuilderCache.get();
+        fieldStringBuilder = fieldStringBuilderCache;
 
         if (valueTokenType == TokenType.TOKEN_TYPE_STRING) {
             try {
-                object.put(field, fieldStringBuilder.length() > 0 ? fieldStringBuilder.toString() : value);
+                object.put(field, fieldStringBuilder.length() > 0 ? fieldStringBuilder.toString()
+                        : utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
                 return OKJSON_ERROR_EXCEPTION;
@@ -1520,7 +2437,7 @@ class OkJsonParser {
         } else if (valueTokenType == TokenType.TOKEN_TYPE_INTEGER) {
             try {
                 // json 应该不会有很大的整数，用Long也足够了。
-                BigInteger v = new BigInteger(value);
+                BigInteger v = OkJsonNumbers.parseBigInteger(jsonBytes, valueBeginOffset, valueEndOffset);
                 object.put(field, v);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
@@ -1528,7 +2445,7 @@ class OkJsonParser {
             }
         } else if (valueTokenType == TokenType.TOKEN_TYPE_DECIMAL) {
             try {
-                BigDecimal v = new BigDecimal(value);
+                BigDecimal v = OkJsonNumbers.parseBigDecimal(jsonBytes, valueBeginOffset, valueEndOffset);
                 object.put(field, v);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
@@ -1536,7 +2453,7 @@ class OkJsonParser {
             }
         } else if (valueTokenType == TokenType.TOKEN_TYPE_BOOL) {
             try {
-                Boolean v = Boolean.valueOf(value);
+                Boolean v = Boolean.valueOf(utf8(jsonBytes, valueBeginOffset, valueEndOffset - valueBeginOffset + 1));
                 object.put(field, v);
             } catch (Exception e) {
                 Log.error(e.getMessage(), e);
@@ -1550,7 +2467,7 @@ class OkJsonParser {
         return 0;
     }
 
-    int toMapItems(char[] jsonCharArray, Map<String, Object> map) {
+    int toMapItems(byte[] jsonBytes, Map<String, Object> map) {
 
         TokenType fieldNameTokenType;
         int fieldNameBeginOffset;
@@ -1565,46 +2482,45 @@ class OkJsonParser {
 
         while (true) {
             // token "name"
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
             fieldNameTokenType = tokenType;
             fieldNameBeginOffset = beginOffset;
             fieldNameEndOffset = endOffset;
-            fieldName = new String(jsonCharArray, fieldNameBeginOffset, fieldNameEndOffset - fieldNameBeginOffset + 1);
+            fieldName = utf8(jsonBytes, fieldNameBeginOffset, fieldNameEndOffset - fieldNameBeginOffset + 1);
 
 
             if (tokenType != TokenType.TOKEN_TYPE_STRING) {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect a name but \"" + found + "\"";
                 return OKJSON_ERROR_NAME_INVALID;
             }
 
             // token ':' or ',' or '}' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
             if (tokenType == TokenType.TOKEN_TYPE_COLON) {
                 ;
             } else if (tokenType == TokenType.TOKEN_TYPE_COMMA || tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACE) {
-                String value = new String(jsonCharArray, fieldNameBeginOffset,
-                        fieldNameEndOffset - fieldNameBeginOffset + 1);
-                nret = setMapItem(value, fieldNameTokenType, map, fieldName);
+                nret = setMapItem(jsonBytes, fieldNameBeginOffset, fieldNameEndOffset, fieldNameTokenType, map,
+                        fieldName);
                 if (nret != 0) return nret;
 
                 if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACE) break;
             } else if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) {
                 break;
             } else {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect ':' but \"" + found + "\"";
                 return OKJSON_ERROR_EXPECT_COLON_AFTER_NAME;
             }
 
             // token '{' or '[' or "value"
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1617,7 +2533,7 @@ class OkJsonParser {
                     // sub map
                     Map<String, Object> childObject = new LinkedHashMap<>();
                     ;
-                    nret = toMapItems(jsonCharArray, (Map<String, Object>) childObject);
+                    nret = toMapItems(jsonBytes, (Map<String, Object>) childObject);
                     if (nret != 0) return nret;
                     map.put(fieldName, childObject);
                 } catch (Exception e) {
@@ -1628,7 +2544,7 @@ class OkJsonParser {
                 try {
                     //  sub List
                     List<Object> childObject = new LinkedList<>();
-                    nret = stringToArrayMap(jsonCharArray, childObject);
+                    nret = stringToArrayMap(jsonBytes, childObject);
                     if (nret != 0) return nret;
                     map.put(fieldName, childObject);
                 } catch (Exception e) {
@@ -1636,13 +2552,12 @@ class OkJsonParser {
                     return OKJSON_ERROR_EXCEPTION;
                 }
             } else {
-                String value = new String(jsonCharArray, valueBeginOffset, valueEndOffset - valueBeginOffset + 1);
-                nret = setMapItem(value, valueTokenType, map, fieldName);
+                nret = setMapItem(jsonBytes, valueBeginOffset, valueEndOffset, valueTokenType, map, fieldName);
                 if (nret != 0) return nret;
             }
 
             // token ',' or '}' or ']'
-            nret = tokenJsonWord(jsonCharArray);
+            nret = tokenJsonWord(jsonBytes);
             if (nret == OKJSON_ERROR_END_OF_BUFFER) break;
             if (nret != 0) return nret;
 
@@ -1653,7 +2568,7 @@ class OkJsonParser {
             } else if (tokenType == TokenType.TOKEN_TYPE_RIGHT_BRACKET) {
                 break;
             } else {
-                String found = String.copyValueOf(jsonCharArray, beginOffset, endOffset - beginOffset + 1);
+                String found = utf8(jsonBytes, beginOffset, endOffset - beginOffset + 1);
                 errorDesc = "expect ',' or '}' or ']' but \"" + found + "\"";
                 return OKJSON_ERROR_EXPECT_COLON_AFTER_NAME;
             }
@@ -1663,25 +2578,36 @@ class OkJsonParser {
     }
 
     public <T> T fileToObject(String filePath, T object) {
-        String jsonString = null;
+        byte[] jsonBytes;
 
         try {
-            jsonString = new String(Files.readAllBytes(Paths.get(filePath)));
+            jsonBytes = Files.readAllBytes(Paths.get(filePath));
         } catch (IOException e) {
             return null;
         }
 
-        return toJson(jsonString, object);
+        return toJson(jsonBytes, 0, jsonBytes.length, object);
     }
 
     public <T> T toJson(String jsonString, T object) {
-        char[] jsonCharArray;
+        byte[] jsonBytes = jsonString.getBytes(StandardCharsets.UTF_8);
+        return toJson(jsonBytes, 0, jsonBytes.length, object);
+    }
 
-        jsonCharArray = jsonString.toCharArray();
-        jsonOffset = 0;
-        jsonLength = jsonCharArray.length;
+    /**
+     * 直接从 UTF-8 编码的字节解析 JSON 对象，不先将其解码为字符。
+     *
+     * @param jsonBytes JSON 字节
+     * @param offset    起始偏移
+     * @param length    字节数
+     * @param object    要填充的对象
+     * @return 填充后的对象，解析失败时返回 null
+     */
+    public <T> T toJson(byte[] jsonBytes, int offset, int length, T object) {
+        jsonOffset = offset;
+        jsonLength = offset + length;
 
-        errorCode = tokenJsonWord(jsonCharArray);
+        errorCode = tokenJsonWord(jsonBytes);
         if (errorCode != 0) {
             return null;
         }
@@ -1691,7 +2617,7 @@ class OkJsonParser {
             return null;
         }
 
-        errorCode = stringToObjectProperties(jsonCharArray, object);
+        errorCode = stringToObjectProperties(jsonBytes, object);
         if (errorCode != 0)
             return null;
 
@@ -1699,13 +2625,23 @@ class OkJsonParser {
     }
 
     public Map<String, Object> toMap(String jsonString) {
-        char[] jsonCharArray;
+        byte[] jsonBytes = jsonString.getBytes(StandardCharsets.UTF_8);
+        return toMap(jsonBytes, 0, jsonBytes.length);
+    }
 
-        jsonCharArray = jsonString.toCharArray();
-        jsonOffset = 0;
-        jsonLength = jsonCharArray.length;
+    /**
+     * 直接从 UTF-8 编码的字节将 JSON 对象解析为 Map，不先将其解码为字符。
+     *
+     * @param jsonBytes JSON 字节
+     * @param offset    起始偏移
+     * @param length    字节数
+     * @return 解析结果，解析失败时返回 null
+     */
+    public Map<String, Object> toMap(byte[] jsonBytes, int offset, int length) {
+        jsonOffset = offset;
+        jsonLength = offset + length;
 
-        errorCode = tokenJsonWord(jsonCharArray);
+        errorCode = tokenJsonWord(jsonBytes);
         if (errorCode != 0) {
             return null;
         }
@@ -1716,7 +2652,7 @@ class OkJsonParser {
         }
 
         Map<String, Object> object = new LinkedHashMap<>();
-        errorCode = toMapItems(jsonCharArray, object);
+        errorCode = toMapItems(jsonBytes, object);
 
         if (errorCode != 0) return null;
 
@@ -1724,22 +2660,35 @@ class OkJsonParser {
     }
 
     public Map<String, Object> fileToMap(String filePath) {
-        String jsonString = null;
+        byte[] jsonBytes;
 
         try {
-            jsonString = new String(Files.readAllBytes(Paths.get(filePath)));
+            jsonBytes = Files.readAllBytes(Paths.get(filePath));
         } catch (IOException e) {
             return null;
         }
 
-        return toMap(jsonString);
+        return toMap(jsonBytes, 0, jsonBytes.length);
     }
+
     public List<Object> toList(String jsonString) {
-        char[] jsonCharArray = jsonString.toCharArray();
-        jsonOffset = 0;
-        jsonLength = jsonCharArray.length;
+        byte[] jsonBytes = jsonString.getBytes(StandardCharsets.UTF_8);
+        return toList(jsonBytes, 0, jsonBytes.length);
+    }
+
+    /**
+     * 直接从 UTF-8 编码的字节将 JSON 数组解析为 List，不先将其解码为字符。
+     *
+     * @param jsonBytes JSON 字节
+     * @param offset    起始偏移
+     * @param length    字节数
+     * @return 解析结果，解析失败时返回 null
+     */
+    public List<Object> toList(byte[] jsonBytes, int offset, int length) {
+        jsonOffset = offset;
+        jsonLength = offset + length;
 
-        errorCode = tokenJsonWord(jsonCharArray);
+        errorCode = tokenJsonWord(jsonBytes);
         if (errorCode != 0) return null;
 
         if (tokenType != TokenType.TOKEN_TYPE_LEFT_BRACKET) {
@@ -1749,12 +2698,55 @@ class OkJsonParser {
         }
 
         List<Object> list = new LinkedList<>();
-        errorCode = stringToArrayMap(jsonCharArray, list);
+        errorCode = stringToArrayMap(jsonBytes, list);
         if (errorCode != 0) return null;
 
         return list;
     }
 
+    /**
+     * 将输入流的全部内容读入解析器的输入缓冲区，之后以 {@link #getInputBuffer()} 和返回的长度解析。
+     * 已知长度且不超过现有缓冲区时直接读入该缓冲区，否则由 {@link Streams#readBytes(InputStream, long, int)} 读取。
+     * 不超过 {@link OkJsonPool#MAX_RETAINED_CHARS} 的缓冲区随解析器一起被复用。
+     *
+     * @param in        输入流（UTF-8 编码）
+     * @param length    输入的字节数，负数表示未知
+     * @param maxLength 允许的最大字节数
+     * @return 读取的字节数
+     * @throws IOException 如果发生错误，或输入超过最大字节数
+     */
+    int readInput(InputStream in, long length, int maxLength) throws IOException {
+        byte[] buf = inputBufferCache;
+        if (length < 0 || length > Math.min(buf.length, maxLength)) { // doesn't fit the reused buffer
+            buf = inputBufferCache = Streams.readBytes(in, length, maxLength);
+            return buf.length;
+        }
+        int count = in.readNBytes(buf, 0, (int) length);
+        if (count < length)
+            throw new EOFException("unexpected end of stream");
+        return count;
+    }
+
+    byte[] getInputBuffer() {
+        return inputBufferCache;
+    }
+
+    private static String utf8(byte[] jsonBytes, int offset, int length) {
+        return new String(jsonBytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private static void appendUtf8(StringBuilder sb, byte[] jsonBytes, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = jsonBytes[i];
+            if (b < 0) { // non-ASCII, decode the rest in one go
+                sb.append(utf8(jsonBytes, i, end - i));
+                return;
+            }
+            sb.append((char) b);
+        }
+    }
+
     public OkJsonParser() {
         this.strictPolicyEnable = false;
         this.directAccessPropertyEnable = false;
@@ -1787,6 +2779,14 @@ class OkJsonParser {
         this.prettyFormatEnable = prettyFormatEnable;
     }
 
+    public boolean isCodecEnable() {
+        return codecEnable;
+    }
+
+    public void setCodecEnable(boolean codecEnable) {
+        this.codecEnable = codecEnable;
+    }
+
     public Integer getErrorCode() {
         return errorCode;
     }
@@ -1794,6 +2794,20 @@ class OkJsonParser {
     public String getErrorDesc() {
         return errorDesc;
     }
+
+    /**
+     * 重置解析状态以便复用，并丢弃过大的缓冲区。
+     */
+    void recycle() {
+        this.errorCode = 0;
+        this.errorDesc = null;
+        if (fieldStringBuilderCache.capacity() > OkJsonPool.MAX_RETAINED_CHARS)
+            fieldStringBuilderCache = new StringBuilder(1024);
+        else
+            fieldStringBuilderCache.setLength(0);
+        if (inputBufferCache.length > OkJsonPool.MAX_RETAINED_CHARS)
+            inputBufferCache = new byte[0];
+    }
 }
 
 @Getter
@@ -1805,18 +2819,20 @@ class OkJsonGenerator {
         ClassFieldType type;
         Field field;
         Method getter;
+        MethodHandle accessor; // invokes the getter, or reads the field directly
         OkJsonDateTimeFormatter okjsonDateTimeFormatter;
+        DateTimeFormatter formatter; // precompiled for date/time fields
 
         @SuppressWarnings("unchecked")
         <T> T getFieldValue(Object object)
                 throws Exception {
-            T value = null;
-            if (getter != null) {
-                value = (T) (getter.invoke(object));
-            } else {
-                value = (T) (field.get(object));
+            try {
+                return (T) accessor.invokeExact(object);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
             }
-            return value;
         }
     }
 
@@ -1833,14 +2849,12 @@ class OkJsonGenerator {
         ENUM,
     }
 
-    private static final ThreadLocal<LinkedHashMap<String, LinkedList<OkJsonClassField>>>
-            classMapFieldListCache = ThreadLocal.withInitial(LinkedHashMap::new);
-    private static final ThreadLocal<OkJsonCharArrayBuilder>
-            jsonByteArrayBuilderCache = ThreadLocal.withInitial(() -> new OkJsonCharArrayBuilder(1024));
-    private static final ThreadLocal<OkJsonCharArrayBuilder>
-            fieldByteArrayBuilderCache = ThreadLocal.withInitial(() -> new OkJsonCharArrayBuilder(1024));
-    private static final ThreadLocal<LinkedHashMap<Class<?>, Boolean>>
-            basicTypeClassMapBooleanCache = ThreadLocal.withInitial(OkJsonGenerator::createBasicTypes);
+    // 随生成器一起被对象池复用
+    private OkJsonCharArrayBuilder jsonByteArrayBuilderCache = new OkJsonCharArrayBuilder(1024);
+    private byte[] utf8BufferCache; // created on first streaming use
+    // 只读，所有线程共享
+    private static final Map<Class<?>, Boolean> basicTypeClassMapBooleanCache =
+            Collections.unmodifiableMap(createBasicTypes());
 
     static final char SEP_FIELD_CHAR = ',';
     static final char[] SEP_FIELD_CHAR_PRETTY = ",\n".toCharArray();
@@ -1867,13 +2881,20 @@ class OkJsonGenerator {
     static void setClassType(Class<?> type, OkJsonClassField classField) {
         if (type == null) return;
 
-        LinkedHashMap<Class<?>, Boolean> basicTypeClassMapBoolean = basicTypeClassMapBooleanCache.get();
+        Map<Class<?>, Boolean> basicTypeClassMapBoolean = basicTypeClassMapBooleanCache;
 
         if (type == String.class) classField.type = ClassFieldType.STRING;
         else if (type.isArray()) classField.type = ClassFieldType.ARRAY;
-        else if (type == LocalDate.class) classField.type = ClassFieldType.LOCAL_DATE;
-        else if (type == LocalTime.class) classField.type = ClassFieldType.LOCAL_TIME;
-        else if (type == LocalDateTime.class) classField.type = ClassFieldType.LOCAL_DATE_TIME;
+        else if (type == LocalDate.class) {
+            classField.type = ClassFieldType.LOCAL_DATE;
+            classField.formatter = OkJsonClassMeta.formatter("yyyy-MM-dd");
+        } else if (type == LocalTime.class) {
+            classField.type = ClassFieldType.LOCAL_TIME;
+            classField.formatter = OkJsonClassMeta.formatter("HH:mm:ss");
+        } else if (type == LocalDateTime.class) {
+            classField.type = ClassFieldType.LOCAL_DATE_TIME;
+            classField.formatter = OkJsonClassMeta.formatter("yyyy-MM-dd HH:mm:ss");
+        }
         else if (List.class.isAssignableFrom(type)) classField.type = ClassFieldType.LIST;
         else if (Map.class.isAssignableFrom(type)) classField.type = ClassFieldType.MAP;
         else if (basicTypeClassMapBoolean.get(type) != null
@@ -1884,23 +2905,13 @@ class OkJsonGenerator {
         else classField.type = ClassFieldType.SUBCLASS;
     }
 
-    static LinkedList<OkJsonClassField> ensureClassFieldListFilled(
+    List<OkJsonClassField> ensureClassFieldListFilled(
             Class<?> clazz) {
-        LinkedList<OkJsonClassField> classFieldList = classMapFieldListCache.get()
-                .computeIfAbsent(clazz.getName(), k -> new LinkedList<>());
-        if (classFieldList.isEmpty()) {
-            Field[] fields = clazz.getDeclaredFields();
-            for (Field f : fields) {
-                createOkJsonClassFieldWithBeanField(classFieldList, clazz, f);
-            }
-        }
-
-        return classFieldList;
+        return OkJsonClassMeta.of(clazz).fields;
     }
 
     static void createOkJsonClassFieldWithBeanField(
-            LinkedList<OkJsonClassField> classFieldList, Class<?> clazz, Field f) {
-        f.setAccessible(true);
+            List<OkJsonClassField> classFieldList, Class<?> clazz, Field f) {
         OkJsonClassField classField = new OkJsonClassField();
 
         if (f.isAnnotationPresent(OkJsonField.class)) {
@@ -1921,7 +2932,6 @@ class OkJsonGenerator {
                 Method method = clazz.getMethod(methodName);
                 if (method != null) {
                     classField.getter = method;
-                    classField.getter.setAccessible(true);
                     if (method.isAnnotationPresent(OkJsonField.class)) {
                         classField.fieldName =
                                 method.getAnnotation(OkJsonField.class).value().toCharArray();
@@ -1934,7 +2944,6 @@ class OkJsonGenerator {
                 Method method = clazz.getMethod(methodName);
                 if (method != null) {
                     classField.getter = method;
-                    classField.getter.setAccessible(true);
                     if (method.isAnnotationPresent(OkJsonField.class)) {
                         classField.fieldName =
                                 method.getAnnotation(OkJsonField.class).value().toCharArray();
@@ -1951,7 +2960,15 @@ class OkJsonGenerator {
         } else {
             classField.okjsonDateTimeFormatter = null;
         }
+        if (classField.formatter != null && classField.okjsonDateTimeFormatter != null) {
+            classField.formatter = OkJsonClassMeta.formatter(classField.okjsonDateTimeFormatter.format());
+        }
 
+        classField.accessor = classField.getter != null
+                ? OkJsonClassMeta.getter(classField.getter) : OkJsonClassMeta.getter(f);
+        if (classField.accessor == null) {
+            return;
+        }
         if (Modifier.isPublic(f.getModifiers())) {
             classFieldList.add(classField);
         } else if (classField.getter != null
@@ -1969,6 +2986,7 @@ class OkJsonGenerator {
     private boolean directAccessPropertyEnable;
     private boolean prettyFormatEnable;
     private boolean nullEnable;
+    private boolean codecEnable;
 
     private Integer errorCode;
     private String errorDesc;
@@ -2015,6 +3033,14 @@ class OkJsonGenerator {
         this.nullEnable = nullEnable;
     }
 
+    public boolean isCodecEnable() {
+        return codecEnable;
+    }
+
+    public void setCodecEnable(boolean codecEnable) {
+        this.codecEnable = codecEnable;
+    }
+
     public Integer getErrorCode() {
         return errorCode;
     }
@@ -2023,6 +3049,16 @@ class OkJsonGenerator {
         return errorDesc;
     }
 
+    /**
+     * 重置生成状态以便复用，并丢弃过大的缓冲区。
+     */
+    void recycle() {
+        this.errorCode = 0;
+        this.errorDesc = null;
+        if (jsonByteArrayBuilderCache.bufSize > OkJsonPool.MAX_RETAINED_CHARS)
+            jsonByteArrayBuilderCache = new OkJsonCharArrayBuilder(1024);
+    }
+
     public void stringifyToFile(Object object, String filePath) {
 
         try {
@@ -2044,25 +3080,66 @@ class OkJsonGenerator {
         if (object == null) return "null";
         if (object instanceof String) {
             return object.toString();
-        } else if (object instanceof List) {
-            return stringifyList((List) object);
-        } else if (object.getClass().isArray()) {
-            return stringifyArray(object);
-        } else if (object instanceof Map) {
-            return stringifyMap((Map<String, Object>) object);
         }
 
-
         OkJsonCharArrayBuilder jsonCharArrayBuilder;
-        jsonCharArrayBuilder = jsonByteArrayBuilderCache.get();
+        jsonCharArrayBuilder = jsonByteArrayBuilderCache;
         jsonCharArrayBuilder.setLength(0);
-
-        beginObject(jsonCharArrayBuilder);
-        stringifyObject(object, jsonCharArrayBuilder, 0);
-        endObject(jsonCharArrayBuilder, 0);
+        appendJson(object, jsonCharArrayBuilder);
         return jsonCharArrayBuilder.toString();
+    }
 
+    /**
+     * 转换对象成JSON，并以 UTF-8 编码直接写入输出流。
+     * <p>
+     * JSON 不会被完整地构建在内存中：字符缓冲区写满时即被编码并写出，因此内存占用与 JSON 的大小无关。
+     * 输出流不会被刷新或关闭。
+     *
+     * @param object 对象
+     * @param out    输出流
+     * @throws IOException              如果写入时发生错误
+     * @throws IllegalArgumentException 如果对象无法转换（例如读取属性时出错）
+     */
+    public void stringify(Object object, OutputStream out) throws IOException {
+        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache;
+        if (utf8BufferCache == null)
+            utf8BufferCache = new byte[8192];
+        if (jsonCharArrayBuilder.bufSize < 8192)
+            jsonCharArrayBuilder = jsonByteArrayBuilderCache = new OkJsonCharArrayBuilder(8192);
+        jsonCharArrayBuilder.setLength(0);
+        jsonCharArrayBuilder.setSink(out, utf8BufferCache);
+        try {
+            if (object == null || object instanceof String)
+                jsonCharArrayBuilder.appendString(String.valueOf(object));
+            else
+                appendJson(object, jsonCharArrayBuilder);
+            jsonCharArrayBuilder.flush(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        } finally {
+            jsonCharArrayBuilder.setSink(null, null);
+            jsonCharArrayBuilder.setLength(0);
+        }
+    }
 
+    @SuppressWarnings("unchecked")
+    void appendJson(Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder) throws Exception {
+        if (object instanceof List) {
+            appendList((List<Object>) object, jsonCharArrayBuilder);
+        } else if (object.getClass().isArray()) {
+            appendArray(object, jsonCharArrayBuilder);
+        } else {
+            beginObject(jsonCharArrayBuilder);
+            if (object instanceof Map)
+                stringifyMap((Map<String, Object>) object, jsonCharArrayBuilder, 0);
+            else
+                stringifyObject(object, jsonCharArrayBuilder, 0);
+            endObject(jsonCharArrayBuilder, 0);
+        }
     }
 
     void stringifyObject(Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder, int depth)
@@ -2073,7 +3150,11 @@ class OkJsonGenerator {
             stringifyMap((Map<String, Object>) object, jsonCharArrayBuilder, depth + 1);
         } else {
             clazz = object.getClass();
-            LinkedList<OkJsonClassField> classFieldList;
+            if (codecEnable && !prettyFormatEnable) {
+                OkJsonClassMeta.of(clazz).codec().write(this, object, jsonCharArrayBuilder, depth);
+                return;
+            }
+            List<OkJsonClassField> classFieldList;
             classFieldList = ensureClassFieldListFilled(clazz);
             int fieldIndex = 0;
             for (OkJsonClassField classField : classFieldList) {
@@ -2098,12 +3179,9 @@ class OkJsonGenerator {
 
     String stringifyMap(Map<String, Object> object) throws Exception {
         if (object == null) return "null";
-        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache.get();
+        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache;
         jsonCharArrayBuilder.setLength(0);
-
-        beginObject(jsonCharArrayBuilder);
-        stringifyMap(object, jsonCharArrayBuilder, 0);
-        endObject(jsonCharArrayBuilder, 0);
+        appendJson(object, jsonCharArrayBuilder);
         return jsonCharArrayBuilder.toString();
     }
 
@@ -2141,8 +3219,14 @@ class OkJsonGenerator {
     String stringifyList(List list) throws Exception {
         if (list == null) return "null";
 
-        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache.get();
+        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache;
         jsonCharArrayBuilder.setLength(0);
+        appendList(list, jsonCharArrayBuilder);
+        return jsonCharArrayBuilder.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    void appendList(List list, OkJsonCharArrayBuilder jsonCharArrayBuilder) throws Exception {
         beginArray(jsonCharArrayBuilder);
 
         // handle Array
@@ -2165,7 +3249,6 @@ class OkJsonGenerator {
         }
         jsonCharArrayBuilder.appendEnter(prettyFormatEnable);
         jsonCharArrayBuilder.appendChar(']');
-        return jsonCharArrayBuilder.toString();
     }
 
     String stringifyArray(Object object) throws Exception {
@@ -2174,18 +3257,13 @@ class OkJsonGenerator {
             throw new IllegalArgumentException("Object is not an array");
         }
 
-        if (classMapFieldListCache.get() == null) classMapFieldListCache.set(new LinkedHashMap<>());
-        OkJsonCharArrayBuilder jsonCharArrayBuilder;
-        if (jsonByteArrayBuilderCache.get() == null) {
-            jsonCharArrayBuilder = new OkJsonCharArrayBuilder(1024);
-            jsonByteArrayBuilderCache.set(jsonCharArrayBuilder);
-        } else {
-            jsonCharArrayBuilder = jsonByteArrayBuilderCache.get();
-        }
+        OkJsonCharArrayBuilder jsonCharArrayBuilder = jsonByteArrayBuilderCache;
         jsonCharArrayBuilder.setLength(0);
-        if (fieldByteArrayBuilderCache.get() == null) fieldByteArrayBuilderCache.set(new OkJsonCharArrayBuilder(1024));
-        if (basicTypeClassMapBooleanCache.get() == null) basicTypeClassMapBooleanCache.set(createBasicTypes());
+        appendArray(object, jsonCharArrayBuilder);
+        return jsonCharArrayBuilder.toString();
+    }
 
+    void appendArray(Object object, OkJsonCharArrayBuilder jsonCharArrayBuilder) throws Exception {
         beginArray(jsonCharArrayBuilder);
         // handle Array
         int length = Array.getLength(object);
@@ -2207,98 +3285,18 @@ class OkJsonGenerator {
         }
         jsonCharArrayBuilder.appendEnter(prettyFormatEnable);
         jsonCharArrayBuilder.appendChar(']');
-        return jsonCharArrayBuilder.toString();
     }
 
-    String unfoldEscape(String value) {
-
-        OkJsonCharArrayBuilder fieldCharArrayBuilder = fieldByteArrayBuilderCache.get();
-        char[] jsonCharArrayBuilder;
-        int jsonCharArrayLength;
-        int jsonCharArrayIndex;
-        int segmentBeginOffset;
-        int segmentLen;
-        char c;
-
-        if (value == null) return null;
-
-        jsonCharArrayBuilder = value.toCharArray();
-        jsonCharArrayLength = value.length();
-
-        fieldCharArrayBuilder.setLength(0);
-
-        segmentBeginOffset = 0;
-        for (jsonCharArrayIndex = 0; jsonCharArrayIndex < jsonCharArrayLength; jsonCharArrayIndex++) {
-            c = jsonCharArrayBuilder[jsonCharArrayIndex];
-            if (c == '\"') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\\"".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\\') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\\\".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '/') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\/".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\t') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\t".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\f') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\f".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\b') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\b".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\n') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\n".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            } else if (c == '\r') {
-                segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-                if (segmentLen > 0)
-                    fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                            segmentLen);
-                fieldCharArrayBuilder.appendCharArray("\\r".toCharArray());
-                segmentBeginOffset = jsonCharArrayIndex + 1;
-            }
-        }
-        if (fieldCharArrayBuilder.getLength() > 0 && segmentBeginOffset < jsonCharArrayIndex) {
-            segmentLen = jsonCharArrayIndex - segmentBeginOffset;
-            if (segmentLen > 0)
-                fieldCharArrayBuilder.appendBytesFromOffsetWithLength(jsonCharArrayBuilder, segmentBeginOffset,
-                        segmentLen);
-        }
-
-        if (fieldCharArrayBuilder.getLength() == 0)
-            return value;
+    /**
+     * 追加一个标量值；整数和 double 直接追加，不创建中间字符串。
+     */
+    static void appendScalar(OkJsonCharArrayBuilder jsonCharArrayBuilder, Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            jsonCharArrayBuilder.appendLong(((Number) value).longValue());
+        else if (value instanceof Double)
+            jsonCharArrayBuilder.appendDouble((Double) value);
         else
-            return fieldCharArrayBuilder.toString();
+            jsonCharArrayBuilder.appendString(value == null ? NULL_STRING : value.toString());
     }
 
     void writeComma1(OkJsonCharArrayBuilder jsonCharArrayBuilder, int fieldIndex) {
@@ -2337,6 +3335,10 @@ class OkJsonGenerator {
                 jsonCharArrayBuilder.appendString("null");
                 continue;
             }
+            if (object instanceof Double || object instanceof Long || object instanceof Integer) {
+                appendScalar(jsonCharArrayBuilder, object); // the common numbers need no class metadata
+                continue;
+            }
             OkJsonClassField cf = new OkJsonClassField();
             setClassType(object.getClass(), cf);
             new ElementWriter(object, cf, jsonCharArrayBuilder, depth).write();
@@ -2467,12 +3469,11 @@ class OkJsonGenerator {
         }
 
         private void writeScalarField() {
-            jsonCharArrayBuilder.appendString(value.toString());
+            appendScalar(jsonCharArrayBuilder, value);
         }
 
         private void writeStringField() {
-            String string = unfoldEscape(value.toString());
-            jsonCharArrayBuilder.appendJsonStringWithQuote(string);
+            jsonCharArrayBuilder.appendJsonStringEscapedWithQuote(value.toString());
         }
 
 
@@ -2484,7 +3485,7 @@ class OkJsonGenerator {
             } else {
                 dateTimeFormatter = "yyyy-MM-dd'T'HH:mm:ss.SSS";
             }
-            String localDateTimeString = DateTimeFormatter.ofPattern(dateTimeFormatter).format(localDateTime);
+            String localDateTimeString = OkJsonClassMeta.formatter(dateTimeFormatter).format(localDateTime);
             if (prettyFormatEnable) jsonCharArrayBuilder.appendTabs(depth + 1);
             jsonCharArrayBuilder.appendJsonStringWithQuote(localDateTimeString);
         }
@@ -2497,7 +3498,7 @@ class OkJsonGenerator {
             } else {
                 timeFormatter = "HH:mm:ss.SSS";
             }
-            String localTimeString = DateTimeFormatter.ofPattern(timeFormatter).format(localTime);
+            String localTimeString = OkJsonClassMeta.formatter(timeFormatter).format(localTime);
             if (prettyFormatEnable) jsonCharArrayBuilder.appendTabs(depth + 1);
             jsonCharArrayBuilder.appendJsonStringWithQuote(localTimeString);
         }
@@ -2508,7 +3509,7 @@ class OkJsonGenerator {
             if (classField.okjsonDateTimeFormatter != null) {
                 dateFormatter = classField.okjsonDateTimeFormatter.format();
             }
-            String localDateString = DateTimeFormatter.ofPattern(dateFormatter).format(localDate);
+            String localDateString = OkJsonClassMeta.formatter(dateFormatter).format(localDate);
             jsonCharArrayBuilder.appendJsonStringWithQuote(localDateString);
         }
     }
@@ -2593,10 +3594,7 @@ class OkJsonGenerator {
 
         void writeLocalDateTimeField() {
             LocalDateTime localDateTime = (LocalDateTime) value;
-            String defaultDateTimeFormatter = "yyyy-MM-dd HH:mm:ss";
-            if (classField.okjsonDateTimeFormatter != null)
-                defaultDateTimeFormatter = classField.okjsonDateTimeFormatter.format();
-            String localDateTimeString = DateTimeFormatter.ofPattern(defaultDateTimeFormatter).format(localDateTime);
+            String localDateTimeString = classField.formatter.format(localDateTime);
             if (prettyFormatEnable) {
                 jsonCharArrayBuilder.appendTabs(depth + 1);
                 jsonCharArrayBuilder.appendPairWithQuotePretty(classField.fieldName, localDateTimeString);
@@ -2607,10 +3605,7 @@ class OkJsonGenerator {
 
         void writeLocalTimeField() {
             LocalTime localTime = (LocalTime) value;
-            String defaultDateTimeFormatter = "HH:mm:ss";
-            if (classField.okjsonDateTimeFormatter != null)
-                defaultDateTimeFormatter = classField.okjsonDateTimeFormatter.format();
-            String localTimeString = DateTimeFormatter.ofPattern(defaultDateTimeFormatter).format(localTime);
+            String localTimeString = classField.formatter.format(localTime);
             if (prettyFormatEnable) {
                 jsonCharArrayBuilder.appendTabs(depth + 1);
                 jsonCharArrayBuilder.appendPairWithQuotePretty(classField.fieldName, localTimeString);
@@ -2621,10 +3616,7 @@ class OkJsonGenerator {
 
         void writeLocalDateField() {
             LocalDate localDate = (LocalDate) value;
-            String defaultDateTimeFormatter = "yyyy-MM-dd";
-            if (classField.okjsonDateTimeFormatter != null)
-                defaultDateTimeFormatter = classField.okjsonDateTimeFormatter.format();
-            String localDateString = DateTimeFormatter.ofPattern(defaultDateTimeFormatter).format(localDate);
+            String localDateString = classField.formatter.format(localDate);
             if (prettyFormatEnable) {
                 jsonCharArrayBuilder.appendTabs(depth + 1);
                 jsonCharArrayBuilder.appendPairWithQuotePretty(classField.fieldName, localDateString);
@@ -2636,19 +3628,20 @@ class OkJsonGenerator {
         void writeScalarField() {
             if (prettyFormatEnable) {
                 jsonCharArrayBuilder.appendTabs(depth + 1);
-                jsonCharArrayBuilder.appendPairPretty(classField.fieldName, value ==null ? "null" :value.toString());
+                jsonCharArrayBuilder.appendFieldNamePretty(classField.fieldName);
             } else {
-                jsonCharArrayBuilder.appendPair(classField.fieldName, value ==null ? "null": value.toString());
+                jsonCharArrayBuilder.appendFieldName(classField.fieldName);
             }
+            appendScalar(jsonCharArrayBuilder, value);
         }
 
         void writeStringField() {
-            String string = unfoldEscape((String)value);
             if (prettyFormatEnable) jsonCharArrayBuilder.appendTabs(depth + 1);
             if (prettyFormatEnable)
-                jsonCharArrayBuilder.appendPairWithQuotePretty(classField.fieldName, string);
+                jsonCharArrayBuilder.appendFieldNamePretty(classField.fieldName);
             else
-                jsonCharArrayBuilder.appendPairWithQuote(classField.fieldName, string);
+                jsonCharArrayBuilder.appendFieldName(classField.fieldName);
+            jsonCharArrayBuilder.appendJsonStringEscapedWithQuote((String) value);
         }
 
         void writeListField(OkJsonCharArrayBuilder jsonCharArrayBuilder,
@@ -2688,6 +3681,10 @@ class OkJsonCharArrayBuilder {
     public int bufSize;
     public int bufLength;
 
+    // 设置后，缓冲区写满时将内容以 UTF-8 编码写出，而不是扩容
+    private OutputStream sink;
+    private byte[] sinkBuf;
+
     final private static String TABS = "\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t";
 
     public OkJsonCharArrayBuilder() {
@@ -2700,10 +3697,89 @@ class OkJsonCharArrayBuilder {
         this.bufLength = 0;
     }
 
+    /**
+     * 设置输出流。此后缓冲区写满时，已追加的字符被编码为 UTF-8 写入该流，缓冲区被清空后继续使用；
+     * 追加结束后须调用 {@link #flush(boolean) flush(true)} 写出剩余的字符。
+     *
+     * @param out     输出流，为 null 时恢复为只在内存中追加
+     * @param byteBuf 编码用的字节缓冲区（至少 16 字节）
+     */
+    void setSink(OutputStream out, byte[] byteBuf) {
+        this.sink = out;
+        this.sinkBuf = byteBuf;
+    }
+
+    /**
+     * 将已追加的字符以 UTF-8 编码写入输出流并清空缓冲区。
+     * 除最后一次外，末尾不成对的高代理字符被保留，以便与随后追加的低代理字符一起编码；
+     * 最后一次写出时它与其他不成对的代理字符一样被编码为 '?'。
+     *
+     * @param last 是否为最后一次写出（此后不再追加字符）
+     * @throws IOException 如果写入时发生错误
+     */
+    void flush(boolean last) throws IOException {
+        int n = bufLength;
+        if (!last && n > 0 && Character.isHighSurrogate(buf[n - 1]))
+            n--;
+        byte[] bytes = sinkBuf;
+        int limit = bytes.length - 4; // room for the longest encoding
+        int pos = 0;
+        int i = 0;
+        while (i < n) {
+            if (pos > limit) {
+                sink.write(bytes, 0, pos);
+                pos = 0;
+            }
+            int end = Math.min(n, i + limit - pos + 1);
+            char c;
+            while (i < end && (c = buf[i]) < 0x80) { // ASCII
+                bytes[pos++] = (byte) c;
+                i++;
+            }
+            if (i == end)
+                continue;
+            c = buf[i++];
+            if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | c >> 6);
+                bytes[pos++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i < n && Character.isLowSurrogate(buf[i])) {
+                    int cp = Character.toCodePoint(c, buf[i++]);
+                    bytes[pos++] = (byte) (0xF0 | cp >> 18);
+                    bytes[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp & 0x3F);
+                } else {
+                    bytes[pos++] = '?'; // unpaired surrogate, as String.getBytes does
+                }
+            } else {
+                bytes[pos++] = (byte) (0xE0 | c >> 12);
+                bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[pos++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        if (pos > 0)
+            sink.write(bytes, 0, pos);
+        System.arraycopy(buf, n, buf, 0, bufLength - n);
+        bufLength -= n;
+    }
+
     private void resize(int newSize) {
         char[] newBuf;
         int newBufSize;
 
+        if (sink != null) {
+            int needed = newSize - bufLength;
+            try {
+                flush(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (bufLength + needed <= bufSize)
+                return;
+            newSize = bufLength + needed;
+        }
+
         if (bufSize < 10240240) {
             newBufSize = bufSize * 2;
         } else {
@@ -2734,7 +3810,7 @@ class OkJsonCharArrayBuilder {
         if (newBufLength > bufSize) resize(newBufLength);
 
         System.arraycopy(charArray, 0, buf, bufLength, charArray.length);
-        bufLength = newBufLength;
+        bufLength += charArray.length;
 
         return this;
     }
@@ -2778,7 +3854,7 @@ class OkJsonCharArrayBuilder {
         if (newBufLength > bufSize) resize(newBufLength);
 
         str.getChars(0, strLength, buf, bufLength);
-        bufLength = newBufLength;
+        bufLength += strLength;
 
         return this;
     }
@@ -2790,11 +3866,49 @@ class OkJsonCharArrayBuilder {
             resize(newBufLength);
 
         System.arraycopy(charArray, offset, buf, bufLength, len);
-        bufLength = newBufLength;
+        bufLength += len;
 
         return this;
     }
 
+    /**
+     * 追加一个整数的十进制表示，不创建中间字符串。
+     *
+     * @param value 整数
+     * @return 此构建器
+     */
+    public OkJsonCharArrayBuilder appendLong(long value) {
+        if (value == Long.MIN_VALUE)
+            return appendString("-9223372036854775808");
+        long v = Math.abs(value);
+        int digits = 1;
+        for (long p = 10; digits < 19 && v >= p; p *= 10)
+            digits++;
+        int len = value < 0 ? digits + 1 : digits;
+        if (bufLength + len > bufSize) resize(bufLength + len);
+        int pos = bufLength + len;
+        do {
+            buf[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (value < 0)
+            buf[--pos] = '-';
+        bufLength += len;
+        return this;
+    }
+
+    /**
+     * 追加一个 double 的最短十进制表示，格式同 {@link Double#toString(double)}，不创建中间字符串。
+     *
+     * @param value 值
+     * @return 此构建器
+     */
+    public OkJsonCharArrayBuilder appendDouble(double value) {
+        if (bufLength + OkJsonNumbers.MAX_DOUBLE_LENGTH > bufSize) resize(bufLength + OkJsonNumbers.MAX_DOUBLE_LENGTH);
+        bufLength = OkJsonNumbers.appendDouble(buf, bufLength, value);
+        return this;
+    }
+
     public OkJsonCharArrayBuilder appendTabs(int tabCount) {
         int newBufLength = bufLength + tabCount;
 
@@ -3021,6 +4135,45 @@ class OkJsonCharArrayBuilder {
         return this;
     }
 
+    /**
+     * 追加带引号的字符串，并转义其中的引号、反斜杠、斜杠以及 \t \f \b \n \r。
+     * <p>
+     * 先整体复制再检查，不需要转义时没有额外的复制；需要时从第一个转义字符起，逐段复制不需要转义的部分。
+     */
+    public OkJsonCharArrayBuilder appendJsonStringEscapedWithQuote(String str) {
+        int strLength = str.length();
+        int newBufLength = bufLength + strLength + 2;
+
+        if (newBufLength > bufSize)
+            resize(newBufLength);
+
+        buf[bufLength] = '"';
+        bufLength++;
+        str.getChars(0, strLength, buf, bufLength);
+        int i = OkJsonStrings.indexOfEscape(buf, bufLength, bufLength + strLength) - bufLength;
+        if (i < strLength) {
+            bufLength += i;
+            // every escaped char takes two, plus the closing quote
+            newBufLength = bufLength + (strLength - i) * 2 + 1;
+            if (newBufLength > bufSize)
+                resize(newBufLength);
+            while (i < strLength) {
+                buf[bufLength++] = '\\';
+                buf[bufLength++] = OkJsonStrings.escapeOf(str.charAt(i));
+                int next = OkJsonStrings.indexOfEscape(str, ++i, strLength);
+                str.getChars(i, next, buf, bufLength);
+                bufLength += next - i;
+                i = next;
+            }
+        } else {
+            bufLength += strLength;
+        }
+        buf[bufLength] = '"';
+        bufLength++;
+
+        return this;
+    }
+
     public OkJsonCharArrayBuilder appendFieldName(char[] name) {
         int newBufLength = bufLength + name.length + 3;
         if (newBufLength > bufSize) resize(newBufLength);
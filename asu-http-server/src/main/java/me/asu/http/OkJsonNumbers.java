@@ -0,0 +1,536 @@
+package me.asu.http;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OKJSON 的数字解析和格式化，直接在输入的字节或输出的字符数组上进行，不创建中间字符串。
+ * <p>
+ * 浮点数的解析先尝试精确的快速路径（有效数字不超过 2<sup>53</sup> 且 10 的幂可以精确表示时，一次乘除即可正确舍入），
+ * 再使用 Eisel–Lemire 算法（以 128 位截断的 5 的幂近似乘积，在能确定舍入方向时直接得出结果）；
+ * 无法确定时，以及超过 19 位有效数字、次正规数或不符合 JSON 语法的输入，交给 JDK 解析，因此结果总是与 JDK 相同。
+ * <p>
+ * double 的格式化使用 Schubfach 算法，输出能够精确还原该值的最短十进制表示，格式与 {@link Double#toString(double)} 完全相同。
+ */
+final class OkJsonNumbers {
+
+    /** 格式化一个 double 所需的最大字符数，例如 {@code -1.2345678901234567E-308} */
+    static final int MAX_DOUBLE_LENGTH = 24;
+
+    private OkJsonNumbers() {
+    }
+
+    // ------ 整数 ------
+
+    /**
+     * 解析 JSON 整数，见 {@link Bytes#parseLong(byte[], int, int)}。
+     *
+     * @param jsonBytes   输入
+     * @param beginOffset 第一个字节的位置
+     * @param endOffset   最后一个字节的位置
+     * @throws NumberFormatException 如果不是合法的 long
+     */
+    static long parseLong(byte[] jsonBytes, int beginOffset, int endOffset) {
+        return Bytes.parseLong(jsonBytes, beginOffset, endOffset + 1);
+    }
+
+    /**
+     * 解析 JSON 整数，同 {@link #parseLong(byte[], int, int)}。
+     *
+     * @throws NumberFormatException 如果不是合法的 int
+     */
+    static int parseInt(byte[] jsonBytes, int beginOffset, int endOffset) {
+        if (endOffset - beginOffset < 9) // at most 9 digits always fit
+            return (int) parseLong(jsonBytes, beginOffset, endOffset);
+        return Integer.parseInt(ascii(jsonBytes, beginOffset, endOffset));
+    }
+
+    /**
+     * 将 JSON 整数解析为 BigInteger，结果同 {@link BigInteger#BigInteger(String)}。
+     *
+     * @throws NumberFormatException 如果不是合法的整数
+     */
+    static BigInteger parseBigInteger(byte[] jsonBytes, int beginOffset, int endOffset) {
+        int i = jsonBytes[beginOffset] == '-' ? beginOffset + 1 : beginOffset;
+        if (i <= endOffset && endOffset - i < 18 && digits(jsonBytes, i, endOffset) == endOffset + 1)
+            return BigInteger.valueOf(parseLong(jsonBytes, beginOffset, endOffset));
+        return new BigInteger(ascii(jsonBytes, beginOffset, endOffset));
+    }
+
+    /**
+     * 将 JSON 数字解析为 BigDecimal，结果（包括标度）同 {@link BigDecimal#BigDecimal(String)}。
+     *
+     * @throws NumberFormatException 如果不是合法的数字
+     */
+    static BigDecimal parseBigDecimal(byte[] jsonBytes, int beginOffset, int endOffset) {
+        boolean negative = jsonBytes[beginOffset] == '-';
+        int i = negative ? beginOffset + 1 : beginOffset;
+        int integerEnd = digits(jsonBytes, i, endOffset);
+        if (integerEnd > i && integerEnd < endOffset && jsonBytes[integerEnd] == '.') {
+            int fractionEnd = digits(jsonBytes, integerEnd + 1, endOffset);
+            int n = (integerEnd - i) + (fractionEnd - integerEnd - 1);
+            if (fractionEnd == endOffset + 1 && fractionEnd > integerEnd + 1 && n <= 18) {
+                long unscaled = 0;
+                for (; i <= endOffset; i++) {
+                    if (i != integerEnd)
+                        unscaled = unscaled * 10 + (jsonBytes[i] - '0');
+                }
+                return BigDecimal.valueOf(negative ? -unscaled : unscaled, fractionEnd - integerEnd - 1);
+            }
+        }
+        return new BigDecimal(ascii(jsonBytes, beginOffset, endOffset));
+    }
+
+    private static int digits(byte[] jsonBytes, int i, int endOffset) {
+        while (i <= endOffset && jsonBytes[i] >= '0' && jsonBytes[i] <= '9')
+            i++;
+        return i;
+    }
+
+    // ------ 浮点数解析 ------
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    // the range of q in w * 10^q covered by POWERS_OF_FIVE; outside it doubles are 0 or infinite
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+
+    /**
+     * 5<sup>q</sup>（q 从 -342 到 308）左移或右移到最高位为第 128 位后截断的 128 位近似值，每个占两个 long（高位在前）。
+     * 负的幂取 2<sup>b</sup>/5<sup>-q</sup> 的商加一，与 Eisel–Lemire 算法的原始表相同。
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                c = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - c.bitLength();
+                c = shift >= 0 ? c.shiftLeft(shift) : c.shiftRight(-shift);
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0)
+                    c = c.shiftRight(1);
+            }
+            int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+            table[index] = c.shiftRight(64).longValue();
+            table[index + 1] = c.longValue();
+        }
+        return table;
+    }
+
+    /**
+     * 解析 JSON 数字为 double，结果同 {@link Double#parseDouble(String)}。
+     *
+     * @param jsonBytes   输入
+     * @param beginOffset 第一个字节的位置
+     * @param endOffset   最后一个字节的位置
+     * @throws NumberFormatException 如果不是合法的数字
+     */
+    static double parseDouble(byte[] jsonBytes, int beginOffset, int endOffset) {
+        long bits = parseBits(jsonBytes, beginOffset, endOffset, false);
+        if (bits < 0)
+            return Double.parseDouble(ascii(jsonBytes, beginOffset, endOffset));
+        double value = Double.longBitsToDouble(bits);
+        return jsonBytes[beginOffset] == '-' ? -value : value;
+    }
+
+    /**
+     * 解析 JSON 数字为 float，结果同 {@link Float#parseFloat(String)}。
+     *
+     * @param jsonBytes   输入
+     * @param beginOffset 第一个字节的位置
+     * @param endOffset   最后一个字节的位置
+     * @throws NumberFormatException 如果不是合法的数字
+     */
+    static float parseFloat(byte[] jsonBytes, int beginOffset, int endOffset) {
+        long bits = parseBits(jsonBytes, beginOffset, endOffset, true);
+        if (bits < 0)
+            return Float.parseFloat(ascii(jsonBytes, beginOffset, endOffset));
+        float value = Float.intBitsToFloat((int) bits);
+        return jsonBytes[beginOffset] == '-' ? -value : value;
+    }
+
+    /**
+     * 按 JSON 的数字语法将输入解析为 w * 10<sup>q</sup>（w 最多 19 位），再转换为绝对值的二进制位。
+     *
+     * @return double 或 float 的二进制位（不含符号），不合语法、有效数字超过 19 位或无法快速确定结果时返回 -1
+     */
+    private static long parseBits(byte[] b, int i, int end, boolean isFloat) {
+        if (b[i] == '-')
+            i++;
+        long w = 0;
+        int n = 0; // significant digits in w
+        int q = 0;
+        int start = i;
+        for (; i <= end && b[i] >= '0' && b[i] <= '9'; i++) {
+            if (w != 0 || b[i] != '0')
+                n++;
+            w = w * 10 + (b[i] - '0');
+        }
+        if (i == start || b[start] == '0' && i - start > 1)
+            return -1;
+        if (i <= end && b[i] == '.') {
+            start = ++i;
+            for (; i <= end && b[i] >= '0' && b[i] <= '9'; i++) {
+                if (w != 0 || b[i] != '0')
+                    n++;
+                w = w * 10 + (b[i] - '0');
+            }
+            if (i == start)
+                return -1;
+            q = start - i;
+        }
+        if (n > 19)
+            return -1;
+        if (i <= end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negative = false;
+            if (i <= end && (b[i] == '+' || b[i] == '-'))
+                negative = b[i++] == '-';
+            start = i;
+            int e = 0;
+            for (; i <= end && b[i] >= '0' && b[i] <= '9'; i++) {
+                if (e < 100000) // large enough to give 0 or infinity
+                    e = e * 10 + (b[i] - '0');
+            }
+            if (i == start)
+                return -1;
+            q += negative ? -e : e;
+        }
+        if (i <= end)
+            return -1;
+        if (w == 0)
+            return 0;
+        if (isFloat) {
+            if (q >= -10 && q <= 10 && w <= 1L << 24) // w >= 0 here
+                return Float.floatToRawIntBits(q < 0 ? w / FLOAT_POWERS_OF_TEN[-q] : w * FLOAT_POWERS_OF_TEN[q]);
+            return eiselLemire(w, q, 23, -127, 0xFF, -17, 10);
+        }
+        if (q >= -22 && q <= 22 && w >= 0 && w <= 1L << 53) {
+            // both w and 10^|q| are exact, so one correctly rounded operation gives the answer
+            return Double.doubleToRawLongBits(q < 0 ? w / DOUBLE_POWERS_OF_TEN[-q] : w * DOUBLE_POWERS_OF_TEN[q]);
+        }
+        return eiselLemire(w, q, 52, -1023, 0x7FF, -4, 23);
+    }
+
+    /**
+     * 计算 w * 10<sup>q</sup> 正确舍入后的二进制位（不含符号）。
+     *
+     * @param w                   非零的有效数字（无符号）
+     * @param q                   十进制指数
+     * @param mantissaBits        尾数的位数（不含隐含位）
+     * @param minExponent         最小指数（偏置的相反数）
+     * @param infinitePower       无穷大的指数
+     * @param minRoundToEvenPower 可能恰好落在两个值正中间的最小 q
+     * @param maxRoundToEvenPower 可能恰好落在两个值正中间的最大 q
+     * @return 二进制位，无法确定舍入方向或结果是次正规数时返回 -1
+     */
+    static long eiselLemire(long w, int q, int mantissaBits, int minExponent, int infinitePower,
+                            int minRoundToEvenPower, int maxRoundToEvenPower) {
+        if (q < SMALLEST_POWER_OF_TEN)
+            return 0;
+        if (q > LARGEST_POWER_OF_TEN)
+            return (long) infinitePower << mantissaBits;
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+        long hi = Math.unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long lo = w * POWERS_OF_FIVE[index];
+        long precisionMask = -1L >>> (mantissaBits + 3);
+        if ((hi & precisionMask) == precisionMask) {
+            // the truncated power may be too small to decide; add the next 64 bits of the product
+            long lo2 = lo + Math.unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            if (Long.compareUnsigned(lo2, lo) < 0)
+                hi++;
+            lo = lo2;
+        }
+        if (lo == -1L && (q < -27 || q > 55))
+            return -1; // the approximation is still ambiguous
+        int upperBit = (int) (hi >>> 63);
+        int shift = upperBit + 64 - mantissaBits - 3;
+        long mantissa = hi >>> shift;
+        int power2 = (int) ((((152170 + 65536) * (long) q) >> 16) + 63) + upperBit - lz - minExponent;
+        if (power2 <= 0)
+            return -1; // subnormal
+        if (Long.compareUnsigned(lo, 1) <= 0 && q >= minRoundToEvenPower && q <= maxRoundToEvenPower
+                && (mantissa & 3) == 1 && (mantissa << shift) == hi)
+            mantissa &= ~1L; // exactly halfway: round to even
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 2L << mantissaBits) {
+            mantissa = 1L << mantissaBits;
+            power2++;
+        }
+        mantissa &= ~(1L << mantissaBits);
+        if (power2 >= infinitePower)
+            return (long) infinitePower << mantissaBits;
+        return mantissa | (long) power2 << mantissaBits;
+    }
+
+    // ------ double 格式化 ------
+
+    // see R. Giulietti, "The Schubfach way to render doubles", and java.lang.DoubleToDecimal
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;
+    private static final long MASK_63 = 0x7fff_ffff_ffff_ffffL;
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+    };
+
+    /**
+     * g = floor(10<sup>-k</sup> 2<sup>-r</sup>) + 1，其中 2<sup>125</sup> &le; 10<sup>-k</sup> 2<sup>-r</sup> &lt; 2<sup>126</sup>，
+     * k 从 {@link #K_MIN} 到 {@link #K_MAX}；每个 g 拆分为高 63 位和低 63 位两个 long。
+     */
+    private static final long[] G = schubfachTable();
+
+    private static long[] schubfachTable() {
+        long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger p = BigInteger.TEN.pow(-k);
+                int r = p.bitLength() - 126;
+                g = r >= 0 ? p.shiftRight(r) : p.shiftLeft(-r);
+            } else {
+                BigInteger p = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(125 + p.bitLength()).divide(p);
+            }
+            g = g.add(BigInteger.ONE);
+            int index = 2 * (k - K_MIN);
+            table[index] = g.shiftRight(63).longValue();
+            table[index + 1] = g.and(mask63).longValue();
+        }
+        return table;
+    }
+
+    /**
+     * 将 double 的最短十进制表示写入字符数组，格式同 {@link Double#toString(double)}。
+     *
+     * @param buf   字符数组，从 pos 起至少有 {@link #MAX_DOUBLE_LENGTH} 个字符的空间
+     * @param pos   写入位置
+     * @param value 值
+     * @return 写入之后的位置
+     */
+    static int appendDouble(char[] buf, int pos, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & ((1L << (P - 1)) - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7ff;
+        if (bq == 0x7ff)
+            return appendString(buf, pos, t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity");
+        if (bits < 0)
+            buf[pos++] = '-';
+        if (bq != 0) {
+            // normal value: v = c 2^q with 2^52 <= c < 2^53
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) // an integer
+                    return toChars(buf, pos, f, 0);
+            }
+            return toDecimal(buf, pos, -mq, c, 0);
+        }
+        if (t != 0) // subnormal value
+            return t < C_TINY ? toDecimal(buf, pos, Q_MIN, 10 * t, -1) : toDecimal(buf, pos, Q_MIN, t, 0);
+        return appendString(buf, pos, "0.0");
+    }
+
+    private static int toDecimal(char[] buf, int pos, int q, long c, int dk) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the predecessor is closer: the rounding interval is asymmetric
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try the shorter decimal sp10 = 10 floor(s / 10), or its successor
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return toChars(buf, pos, upin ? sp10 : tp10, k);
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return toChars(buf, pos, uin ? s : t, k + dk);
+        // both s and t are in the rounding interval: pick the closer one, or the even one
+        long cmp = vb - (s + t << 1);
+        return toChars(buf, pos, cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * 写入 f 10<sup>e</sup>。
+     */
+    private static int toChars(char[] buf, int pos, long f, int e) {
+        // normalize to 10^(H-1) <= f < 10^H, so that f 10^(e-H) = 0.f 10^e
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[len])
+            len++;
+        f *= POWERS_OF_TEN[H - len];
+        e += len;
+
+        // split the 17 digits into h (1 digit), m (8 digits) and l (8 digits)
+        long hm = Math.multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int hd = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * hd);
+
+        if (0 < e && e <= 7) {
+            // plain format without leading zeroes
+            buf[pos++] = (char) ('0' + hd);
+            int y = y(m);
+            int i = 1;
+            for (; i < e; i++) {
+                int t = 10 * y;
+                buf[pos++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            buf[pos++] = '.';
+            for (; i <= 8; i++) {
+                int t = 10 * y;
+                buf[pos++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            return lowDigits(buf, pos, l);
+        }
+        if (-3 < e && e <= 0) {
+            // plain format with leading zeroes
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            for (; e < 0; e++)
+                buf[pos++] = '0';
+            buf[pos++] = (char) ('0' + hd);
+            pos = append8Digits(buf, pos, m);
+            return lowDigits(buf, pos, l);
+        }
+        // computerized scientific notation
+        buf[pos++] = (char) ('0' + hd);
+        buf[pos++] = '.';
+        pos = append8Digits(buf, pos, m);
+        pos = lowDigits(buf, pos, l);
+        return exponent(buf, pos, e - 1);
+    }
+
+    private static int append8Digits(char[] buf, int pos, int m) {
+        // left-to-right digit extraction with fixed point arithmetic
+        int y = y(m);
+        for (int i = 0; i < 8; i++) {
+            int t = 10 * y;
+            buf[pos++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return pos;
+    }
+
+    private static int lowDigits(char[] buf, int pos, int l) {
+        if (l != 0)
+            pos = append8Digits(buf, pos, l);
+        // remove trailing zeroes, but keep one digit after the point
+        while (buf[pos - 1] == '0')
+            pos--;
+        if (buf[pos - 1] == '.')
+            buf[pos++] = '0';
+        return pos;
+    }
+
+    private static int y(int a) {
+        // floor((a + 1) 2^28 / 10^8) - 1: a / 10^8 as a fixed point fraction with 28 bits
+        return (int) (Math.multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static int exponent(char[] buf, int pos, int e) {
+        buf[pos++] = 'E';
+        if (e < 0) {
+            buf[pos++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            buf[pos++] = (char) ('0' + e);
+            return pos;
+        }
+        if (e >= 100) {
+            int d = e * 1_311 >>> 17; // e / 100
+            buf[pos++] = (char) ('0' + d);
+            e -= 100 * d;
+        }
+        int d = e * 103 >>> 10; // e / 10
+        buf[pos++] = (char) ('0' + d);
+        buf[pos++] = (char) ('0' + e - 10 * d);
+        return pos;
+    }
+
+    private static int appendString(char[] buf, int pos, String s) {
+        s.getChars(0, s.length(), buf, pos);
+        return pos + s.length();
+    }
+
+    private static String ascii(byte[] jsonBytes, int beginOffset, int endOffset) {
+        return new String(jsonBytes, beginOffset, endOffset - beginOffset + 1, StandardCharsets.ISO_8859_1);
+    }
+}
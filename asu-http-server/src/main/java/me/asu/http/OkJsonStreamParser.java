@@ -0,0 +1,525 @@
+package me.asu.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@code OkJsonStreamParser} 是一个拉取式的流式 JSON 解析器，从输入流中逐个读出记号，而不是先构建完整的文档。
+ * <p>
+ * 解析器只使用一个有界的缓冲区：缓冲区中只保留当前的记号，因此内存占用与文档大小无关，
+ * 只取决于最长的单个记号，以及以 {@link #readValueAs(Class)} 绑定的最大的单个值。
+ * 例如，逐个处理一个很大的对象数组：
+ * <pre>
+ * OkJsonStreamParser p = new OkJsonStreamParser(request.getBody(), OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE);
+ * if (p.nextToken() != OkJsonStreamParser.Token.START_ARRAY)
+ *     throw new IOException("expect an array");
+ * while (p.nextToken() == OkJsonStreamParser.Token.START_OBJECT) {
+ *     Item item = p.readValueAs(Item.class);
+ *     ...
+ * }
+ * </pre>
+ * 输入按 UTF-8 解码。多个顶层值可以依次出现（例如以换行分隔的 JSON）。解析器不是线程安全的。
+ */
+public class OkJsonStreamParser implements Closeable {
+
+    /** 记号类型 */
+    public enum Token {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, FIELD_NAME,
+        STRING, NUMBER_INT, NUMBER_FLOAT, TRUE, FALSE, NULL
+    }
+
+    /** 默认的缓冲区初始大小（字节） */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    /** 默认的单个记号或绑定值的最大字节数 */
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 1024 * 1024;
+
+    // what may come next
+    private static final int EXPECT_VALUE = 0;         // a value (at the top level, after ':' or after ',' in an array)
+    private static final int EXPECT_VALUE_OR_END = 1;  // after '['
+    private static final int EXPECT_NAME_OR_END = 2;   // after '{'
+    private static final int EXPECT_NAME = 3;          // after ',' in an object
+    private static final int EXPECT_COMMA_OR_END = 4;  // after a value in an array or object
+
+    private final InputStream in;
+    private final int options;
+    private final int maxValueLength;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private long consumed; // bytes discarded from the front of the buffer, for error positions
+    private boolean eof;
+
+    private int tokenStart; // the first byte of the current token (for strings, after the quote)
+    private int tokenEnd;   // after the last byte of the current token (for strings, before the quote)
+    private int mark = -1;  // the first byte of the value being bound, kept in the buffer
+    private boolean escaped;
+    private Token token;
+
+    private boolean[] objects = new boolean[16]; // whether each open container is an object
+    private int depth;
+    private int state = EXPECT_VALUE;
+
+    private StringBuilder textBuilder;
+
+    /**
+     * 构造一个解析器，使用默认的缓冲区大小和最大值长度。
+     *
+     * @param in      输入流
+     * @param options {@link #readValueAs(Class)} 绑定时使用的 OKJSON 选项
+     */
+    public OkJsonStreamParser(InputStream in, int options) {
+        this(in, options, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * 构造一个解析器。
+     *
+     * @param in             输入流
+     * @param options        {@link #readValueAs(Class)} 绑定时使用的 OKJSON 选项
+     * @param bufferSize     缓冲区的初始大小（字节）
+     * @param maxValueLength 单个记号或以 {@link #readValueAs(Class)} 绑定的值的最大字节数，缓冲区不会超过此大小
+     */
+    public OkJsonStreamParser(InputStream in, int options, int bufferSize, int maxValueLength) {
+        if (bufferSize < 16 || maxValueLength < bufferSize)
+            throw new IllegalArgumentException("invalid buffer size");
+        this.in = in;
+        this.options = options;
+        this.maxValueLength = maxValueLength;
+        this.buf = new byte[bufferSize];
+    }
+
+    /**
+     * 读出下一个记号。
+     *
+     * @return 记号，输入结束时返回 null
+     * @throws IOException 如果读取时发生错误，JSON 不合法，或记号超过最大长度
+     */
+    public Token nextToken() throws IOException {
+        while (true) {
+            int c = skipWhitespace(true);
+            if (c < 0) {
+                if (depth > 0 || state != EXPECT_VALUE)
+                    throw error("unexpected end of input");
+                return token = null;
+            }
+            switch (state) {
+            case EXPECT_NAME_OR_END:
+            case EXPECT_NAME:
+                if (c == '}' && state == EXPECT_NAME_OR_END)
+                    return end(Token.END_OBJECT);
+                if (c != '"')
+                    throw error("expect a name");
+                readString();
+                if (skipWhitespace(false) != ':')
+                    throw error("expect ':'");
+                pos++;
+                state = EXPECT_VALUE;
+                return token = Token.FIELD_NAME;
+            case EXPECT_COMMA_OR_END:
+                if (c == ',') {
+                    pos++;
+                    state = objects[depth - 1] ? EXPECT_NAME : EXPECT_VALUE;
+                    continue;
+                }
+                if (c == (objects[depth - 1] ? '}' : ']'))
+                    return end(objects[depth - 1] ? Token.END_OBJECT : Token.END_ARRAY);
+                throw error("expect ',' or '" + (objects[depth - 1] ? '}' : ']') + "'");
+            case EXPECT_VALUE_OR_END:
+                if (c == ']')
+                    return end(Token.END_ARRAY);
+                return readValue(c);
+            default:
+                return readValue(c);
+            }
+        }
+    }
+
+    /**
+     * 返回当前的记号。
+     */
+    public Token currentToken() {
+        return token;
+    }
+
+    /**
+     * 返回当前所在的对象和数组的嵌套层数。
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * 返回当前记号的文本：字段名、字符串（已处理转义），或数字、true、false、null 的原文。
+     */
+    public String getText() {
+        if (token == null)
+            return null;
+        switch (token) {
+        case FIELD_NAME:
+        case STRING:
+            return escaped ? unescape() : new String(buf, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+        case NUMBER_INT:
+        case NUMBER_FLOAT:
+        case TRUE:
+        case FALSE:
+        case NULL:
+            return new String(buf, tokenStart, tokenEnd - tokenStart, StandardCharsets.ISO_8859_1);
+        default:
+            return String.valueOf((char) buf[tokenStart]);
+        }
+    }
+
+    /**
+     * 返回当前字段名；当前记号不是字段名时返回 null。
+     */
+    public String getFieldName() {
+        return token == Token.FIELD_NAME ? getText() : null;
+    }
+
+    /**
+     * 返回当前整数记号的值。
+     *
+     * @throws NumberFormatException 如果当前记号不是 long 范围内的整数
+     */
+    public long getLongValue() {
+        if (token != Token.NUMBER_INT)
+            throw new NumberFormatException("not an integer: " + getText());
+        return OkJsonNumbers.parseLong(buf, tokenStart, tokenEnd - 1);
+    }
+
+    /**
+     * 返回当前整数记号的值。
+     *
+     * @throws NumberFormatException 如果当前记号不是 int 范围内的整数
+     */
+    public int getIntValue() {
+        if (token != Token.NUMBER_INT)
+            throw new NumberFormatException("not an integer: " + getText());
+        return OkJsonNumbers.parseInt(buf, tokenStart, tokenEnd - 1);
+    }
+
+    /**
+     * 返回当前数字记号的值。
+     *
+     * @throws NumberFormatException 如果当前记号不是数字
+     */
+    public double getDoubleValue() {
+        if (token != Token.NUMBER_INT && token != Token.NUMBER_FLOAT)
+            throw new NumberFormatException("not a number: " + getText());
+        return OkJsonNumbers.parseDouble(buf, tokenStart, tokenEnd - 1);
+    }
+
+    /**
+     * 返回当前 true 或 false 记号的值。
+     *
+     * @throws IllegalStateException 如果当前记号不是 true 或 false
+     */
+    public boolean getBooleanValue() {
+        if (token != Token.TRUE && token != Token.FALSE)
+            throw new IllegalStateException("not a boolean: " + token);
+        return token == Token.TRUE;
+    }
+
+    /**
+     * 当前记号是 {@link Token#START_OBJECT} 或 {@link Token#START_ARRAY} 时，跳过其全部内容，
+     * 停在与之对应的结束记号上；其他记号不做任何处理。跳过的字符串不会被解码。
+     *
+     * @throws IOException 如果读取时发生错误，或 JSON 不合法
+     */
+    public void skipChildren() throws IOException {
+        if (token != Token.START_OBJECT && token != Token.START_ARRAY)
+            return;
+        int target = depth - 1;
+        while (depth > target) {
+            if (nextToken() == null)
+                throw error("unexpected end of input");
+        }
+    }
+
+    /**
+     * 将当前的值绑定到给定类型，并停在值的最后一个记号上。
+     * <p>
+     * 当前记号是 {@link Token#START_OBJECT} 或 {@link Token#START_ARRAY} 时，整个对象或数组被读入缓冲区，
+     * 直接从缓冲区中的字节绑定（见 {@link OKJSON#toJson(byte[], int, int, Class, int)}），
+     * 因此值的大小不能超过最大值长度。标量值可以绑定到 String、Integer、Long、Double 和 Boolean（包括基本类型），null 绑定为 null。
+     *
+     * @param clazz 类型：对象、Map、List 或上述标量类型
+     * @return 值
+     * @throws IOException 如果读取时发生错误，JSON 不合法，值过大，或值不能绑定到给定类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readValueAs(Class<T> clazz) throws IOException {
+        if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+            mark = tokenStart;
+            try {
+                skipChildren();
+                T value = OKJSON.toJson(buf, mark, pos - mark, clazz, options);
+                if (value == null)
+                    throw error("cannot bind to " + clazz.getName() + ": " + OKJSON.getErrorDesc());
+                return value;
+            } finally {
+                mark = -1;
+            }
+        }
+        if (token == Token.NULL)
+            return null;
+        try {
+            if (clazz == String.class && (token == Token.STRING || token == Token.FIELD_NAME))
+                return (T) getText();
+            if ((clazz == Long.class || clazz == long.class) && token == Token.NUMBER_INT)
+                return (T) Long.valueOf(getLongValue());
+            if ((clazz == Integer.class || clazz == int.class) && token == Token.NUMBER_INT)
+                return (T) Integer.valueOf(getIntValue());
+            if ((clazz == Double.class || clazz == double.class)
+                    && (token == Token.NUMBER_INT || token == Token.NUMBER_FLOAT))
+                return (T) Double.valueOf(getDoubleValue());
+            if ((clazz == Boolean.class || clazz == boolean.class) && (token == Token.TRUE || token == Token.FALSE))
+                return (T) Boolean.valueOf(getBooleanValue());
+        } catch (NumberFormatException e) {
+            throw error(e.getMessage());
+        }
+        throw error("cannot bind " + token + " to " + clazz.getName());
+    }
+
+    /**
+     * 关闭输入流。
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Token readValue(int c) throws IOException {
+        tokenStart = pos;
+        if (c == '{' || c == '[') {
+            pos++;
+            tokenEnd = pos;
+            if (depth == objects.length)
+                objects = Arrays.copyOf(objects, depth * 2);
+            objects[depth++] = c == '{';
+            state = c == '{' ? EXPECT_NAME_OR_END : EXPECT_VALUE_OR_END;
+            return token = c == '{' ? Token.START_OBJECT : Token.START_ARRAY;
+        }
+        if (c == '"') {
+            readString();
+            token = Token.STRING;
+        } else if (c == '-' || ('0' <= c && c <= '9')) {
+            token = readNumber();
+        } else if (c == 't') {
+            token = readLiteral("true", Token.TRUE);
+        } else if (c == 'f') {
+            token = readLiteral("false", Token.FALSE);
+        } else if (c == 'n') {
+            token = readLiteral("null", Token.NULL);
+        } else {
+            throw error("unexpected '" + (char) c + "'");
+        }
+        state = depth == 0 ? EXPECT_VALUE : EXPECT_COMMA_OR_END;
+        return token;
+    }
+
+    private Token end(Token end) {
+        tokenStart = pos;
+        pos++;
+        tokenEnd = pos;
+        depth--;
+        state = depth == 0 ? EXPECT_VALUE : EXPECT_COMMA_OR_END;
+        return token = end;
+    }
+
+    private void readString() throws IOException {
+        pos++; // the opening quote
+        tokenStart = pos;
+        escaped = false;
+        while (true) {
+            if (pos == limit && !fill())
+                throw error("unterminated string");
+            pos = OkJsonStrings.indexOfQuoteOrBackslash(buf, pos, limit);
+            if (pos == limit)
+                continue;
+            byte b = buf[pos];
+            if (b == '"')
+                break;
+            pos++;
+            if (b == '\\') {
+                escaped = true;
+                if (pos == limit && !fill())
+                    throw error("unterminated string");
+                byte e = buf[pos];
+                if (e == 'u') {
+                    while (limit - pos < 5) {
+                        if (!fill())
+                            throw error("unterminated string");
+                    }
+                    for (int i = pos + 1; i < pos + 5; i++) {
+                        if (Character.digit(buf[i], 16) < 0)
+                            throw error("invalid \\u escape");
+                    }
+                    pos += 5;
+                } else if (e == '"' || e == '\\' || e == '/' || e == 'b' || e == 'f' || e == 'n' || e == 'r'
+                        || e == 't') {
+                    pos++;
+                } else {
+                    throw error("invalid escape '\\" + (char) (e & 0xFF) + "'");
+                }
+            }
+        }
+        tokenEnd = pos;
+        pos++; // the closing quote
+    }
+
+    // -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+    private Token readNumber() throws IOException {
+        if (peek() == '-')
+            pos++;
+        int c = peek();
+        if (c == '0')
+            pos++;
+        else if (skipDigits() == 0)
+            throw error("invalid number");
+        boolean decimal = false;
+        if (peek() == '.') {
+            pos++;
+            decimal = true;
+            if (skipDigits() == 0)
+                throw error("invalid number");
+        }
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            pos++;
+            decimal = true;
+            c = peek();
+            if (c == '+' || c == '-')
+                pos++;
+            if (skipDigits() == 0)
+                throw error("invalid number");
+        }
+        tokenEnd = pos;
+        return decimal ? Token.NUMBER_FLOAT : Token.NUMBER_INT;
+    }
+
+    private int skipDigits() throws IOException {
+        int n = 0;
+        for (int c = peek(); '0' <= c && c <= '9'; c = peek(), n++)
+            pos++;
+        return n;
+    }
+
+    /**
+     * 返回下一个字节（不消费它），输入结束时返回 -1。
+     */
+    private int peek() throws IOException {
+        return pos < limit || fill() ? buf[pos] & 0xFF : -1;
+    }
+
+    private Token readLiteral(String literal, Token t) throws IOException {
+        int n = literal.length();
+        while (limit - pos < n) {
+            if (!fill())
+                throw error("unexpected end of input");
+        }
+        for (int i = 0; i < n; i++) {
+            if (buf[pos + i] != literal.charAt(i))
+                throw error("invalid literal");
+        }
+        pos += n;
+        tokenEnd = pos;
+        return t;
+    }
+
+    /**
+     * 跳过空白，返回下一个字节（不消费它），输入结束时返回 -1。
+     *
+     * @param discard 是否可以丢弃当前记号
+     */
+    private int skipWhitespace(boolean discard) throws IOException {
+        while (true) {
+            if (pos == limit) {
+                if (discard)
+                    tokenStart = pos;
+                if (!fill())
+                    return -1;
+            }
+            byte b = buf[pos];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r')
+                return b & 0xFF;
+            pos++;
+        }
+    }
+
+    /**
+     * 读入更多数据：先丢弃当前记号（或正在绑定的值）之前的字节，缓冲区仍然已满时再扩大它。
+     *
+     * @return 是否读入了数据
+     */
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+        int keep = mark >= 0 ? Math.min(mark, tokenStart) : tokenStart;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            limit -= keep;
+            pos -= keep;
+            tokenStart -= keep;
+            tokenEnd = Math.max(0, tokenEnd - keep);
+            if (mark >= 0)
+                mark -= keep;
+            consumed += keep;
+        }
+        if (limit == buf.length) {
+            if (buf.length >= maxValueLength)
+                throw error("JSON value too large (more than " + maxValueLength + " bytes)");
+            buf = Arrays.copyOf(buf, (int) Math.min(2L * buf.length, maxValueLength));
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private String unescape() {
+        StringBuilder sb = textBuilder;
+        if (sb == null)
+            sb = textBuilder = new StringBuilder();
+        sb.setLength(0);
+        int run = tokenStart;
+        int i = tokenStart;
+        while (i < tokenEnd) {
+            // quotes inside the token are always escaped, so this stops at backslashes only
+            i = OkJsonStrings.indexOfQuoteOrBackslash(buf, i, tokenEnd);
+            if (i == tokenEnd)
+                break;
+            if (i > run)
+                sb.append(new String(buf, run, i - run, StandardCharsets.UTF_8));
+            char c = (char) buf[i + 1]; // a valid escape, checked by readString
+            i += 2;
+            switch (c) {
+            case 'b': sb.append('\b'); break;
+            case 'f': sb.append('\f'); break;
+            case 'n': sb.append('\n'); break;
+            case 'r': sb.append('\r'); break;
+            case 't': sb.append('\t'); break;
+            case 'u': // four hex digits, checked by readString
+                sb.append((char) Integer.parseInt(new String(buf, i, 4, StandardCharsets.ISO_8859_1), 16));
+                i += 4;
+                break;
+            default:
+                sb.append(c); // '"', '\\' or '/', the only other escapes readString accepts
+            }
+            run = i;
+        }
+        if (tokenEnd > run)
+            sb.append(new String(buf, run, tokenEnd - run, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + (consumed + pos));
+    }
+}
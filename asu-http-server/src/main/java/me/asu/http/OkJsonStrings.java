@@ -0,0 +1,114 @@
+package me.asu.http;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * OKJSON 的字符串扫描和转义。
+ * <p>
+ * 解析时以 SWAR（SIMD within a register）方式每次读取 8 个字节，用位运算同时检查其中是否有引号或反斜杠，
+ * 没有时整段跳过（与原来一样，字符串中的控制字符按原样接受）；不足 8 个字节的尾部逐字节检查。
+ * 生成时先将整个字符串批量复制到输出缓冲区，再检查是否有需要转义的字符，只有存在时才从该位置起逐段重写。
+ */
+final class OkJsonStrings {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+
+    /** 需要转义的字符对应的转义字母，0 表示不需要转义 */
+    private static final char[] ESCAPES = new char['\\' + 1];
+
+    static {
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['/'] = '/';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+    }
+
+    private OkJsonStrings() {
+    }
+
+    // ------ 解析 ------
+
+    /**
+     * 查找第一个引号或反斜杠。
+     *
+     * @param jsonBytes 输入
+     * @param from      开始位置（包含）
+     * @param to        结束位置（不包含）
+     * @return 找到的位置；没有时返回 {@code to}
+     */
+    static int indexOfQuoteOrBackslash(byte[] jsonBytes, int from, int to) {
+        int i = from;
+        for (int last = to - 8; i <= last; i += 8) {
+            long word = (long) LONGS.get(jsonBytes, i);
+            long found = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES);
+            if (found != 0)
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+        }
+        for (; i < to; i++) {
+            byte b = jsonBytes[i];
+            if (b == '"' || b == '\\')
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * 为值为 0 的字节置最高位。借位只会向高位的字节传播，所以结果中最低的置位总是对应第一个值为 0 的字节，
+     * 更高位的字节可能误报，调用方只使用最低的置位。
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGHS;
+    }
+
+    // ------ 生成 ------
+
+    /**
+     * 查找第一个需要转义的字符：引号、反斜杠、斜杠以及 \t \f \b \n \r。
+     *
+     * @param chars 字符
+     * @param from  开始位置（包含）
+     * @param to    结束位置（不包含）
+     * @return 找到的位置；没有时返回 {@code to}
+     */
+    static int indexOfEscape(char[] chars, int from, int to) {
+        char[] escapes = ESCAPES;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c <= '\\' && escapes[c] != 0)
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * 同 {@link #indexOfEscape(char[], int, int)}，在字符串中查找。
+     */
+    static int indexOfEscape(String str, int from, int to) {
+        char[] escapes = ESCAPES;
+        for (int i = from; i < to; i++) {
+            char c = str.charAt(i);
+            if (c <= '\\' && escapes[c] != 0)
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * 返回字符对应的转义字母，例如换行符返回 {@code 'n'}；不需要转义时返回 0。
+     */
+    static char escapeOf(char c) {
+        return c <= '\\' ? ESCAPES[c] : 0;
+    }
+}
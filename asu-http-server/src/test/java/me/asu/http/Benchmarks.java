@@ -0,0 +1,132 @@
+package me.asu.http;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 各个 *Benchmark 共用的计时工具。
+ * <p>
+ * 基准测试以 main 方法运行（不属于单元测试），第一个参数是每轮的秒数，默认为 3：
+ * <pre>
+ * java -cp ... me.asu.http.XxxBenchmark [每轮秒数]
+ * </pre>
+ * 被测操作返回一个 long，各次的返回值会被累加，防止 JIT 把操作当作死代码消除。
+ */
+final class Benchmarks {
+
+    /** 一次被测操作 */
+    interface Op {
+        long run() throws Exception;
+    }
+
+    /** 一轮测量的结果 */
+    static final class Result {
+        /** 完成的操作次数 */
+        final long ops;
+        /** 耗时（秒） */
+        final double seconds;
+        /** 测量线程分配的内存（字节），多线程测量时为 -1 */
+        final long allocated;
+        /** 各次操作返回值之和 */
+        final long sum;
+
+        Result(long ops, double seconds, long allocated, long sum) {
+            this.ops = ops;
+            this.seconds = seconds;
+            this.allocated = allocated;
+            this.sum = sum;
+        }
+
+        double opsPerSecond() {
+            return ops / seconds;
+        }
+
+        double bytesPerOp() {
+            return allocated / (double) ops;
+        }
+
+        double megabytesPerSecond(long bytesPerOp) {
+            return ops * (double) bytesPerOp / seconds / (1 << 20);
+        }
+    }
+
+    static volatile long blackhole;
+
+    private Benchmarks() {
+    }
+
+    /** 返回命令行指定的每轮秒数 */
+    static long seconds(String[] args) {
+        return args.length > 0 ? Long.parseLong(args[0]) : 3;
+    }
+
+    /** 将 OKJSON 的结果转换为操作的返回值，结果为 null（解析或序列化失败）时抛出异常 */
+    static long check(Object result) {
+        if (result == null)
+            throw new IllegalStateException("unexpected result: " + OKJSON.getErrorDesc());
+        return 1;
+    }
+
+    /** 预热：在当前线程反复执行 op 一秒 */
+    static void warmUp(Op op) throws Exception {
+        run(op, 1);
+    }
+
+    /** 在当前线程反复执行 op，直到经过指定的秒数（至少执行一次），同时统计分配的内存 */
+    static Result run(Op op, long seconds) throws Exception {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long allocated = mx.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        long n = 0;
+        long sum = 0;
+        while (n == 0 || System.nanoTime() < end) {
+            sum += op.run();
+            n++;
+        }
+        long nanos = System.nanoTime() - begin;
+        allocated = mx.getCurrentThreadAllocatedBytes() - allocated;
+        blackhole += sum;
+        return new Result(n, nanos / 1e9, allocated, sum);
+    }
+
+    /** 以指定数量的线程同时反复执行 op，直到经过指定的秒数；任一线程失败时抛出其异常 */
+    static Result run(int threads, Op op, long seconds) throws Exception {
+        LongAdder count = new LongAdder();
+        LongAdder total = new LongAdder();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds) + TimeUnit.MILLISECONDS.toNanos(10);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                long n = 0;
+                long sum = 0;
+                try {
+                    start.await();
+                    while (n == 0 || System.nanoTime() < end) {
+                        sum += op.run();
+                        n++;
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+                count.add(n);
+                total.add(sum);
+            });
+            workers[i].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread t : workers)
+            t.join();
+        long nanos = System.nanoTime() - begin;
+        if (failure.get() != null)
+            throw failure.get();
+        blackhole += total.sum();
+        return new Result(count.sum(), nanos / 1e9, -1, total.sum());
+    }
+}
@@ -0,0 +1,90 @@
+package me.asu.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * 对象绑定基准测试。
+ * <p>
+ * 将含 10 万个元素的对象数组绑定到 POJO 和 record，字段分别按声明顺序和打乱的顺序出现，
+ * 输出每秒绑定次数和每个元素分配的内存。
+ * <pre>
+ * java -cp ... me.asu.http.BindBenchmark [每轮秒数]
+ * </pre>
+ */
+public class BindBenchmark {
+
+    public static class Point {
+        public long id;
+        public int x;
+        public int y;
+        public boolean visible;
+        public String label;
+    }
+
+    public static class Points {
+        public ArrayList<Point> points;
+    }
+
+    public record PointRecord(long id, int x, int y, boolean visible, String label) {
+    }
+
+    public static class PointRecords {
+        public ArrayList<PointRecord> points;
+    }
+
+    static final int COUNT = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        byte[] ordered = payload(false);
+        byte[] shuffled = payload(true);
+        for (int options : new int[]{OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE,
+                OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE | OKJSON.OPTIONS_CODEC_ENABLE}) {
+            run("warm-up", ordered, options, 1);
+            run("warm-up", shuffled, options, 1);
+            String codec = (options & OKJSON.OPTIONS_CODEC_ENABLE) != 0 ? " codec" : "";
+            run("ordered" + codec, ordered, options, seconds);
+            run("shuffled" + codec, shuffled, options, seconds);
+        }
+        int options = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+        run("warm-up", ordered, options, 1, PointRecords.class);
+        run("ordered record", ordered, options, seconds, PointRecords.class);
+        run("shuffled record", shuffled, options, seconds, PointRecords.class);
+    }
+
+    static void run(String name, byte[] body, int options, long seconds) throws Exception {
+        run(name, body, options, seconds, Points.class);
+    }
+
+    static void run(String name, byte[] body, int options, long seconds, Class<?> type) throws Exception {
+        Benchmarks.Result r = Benchmarks.run(() -> {
+            Object p = OKJSON.toJson(body, 0, body.length, type, options);
+            int size = p instanceof Points ? ((Points) p).points.size()
+                    : p instanceof PointRecords ? ((PointRecords) p).points.size() : -1;
+            if (size != COUNT)
+                throw new IllegalStateException("unexpected result: " + OKJSON.getErrorDesc());
+            return size;
+        }, seconds);
+        if (name.startsWith("warm"))
+            return;
+        System.out.printf("%-16s %,10.1f ops/s  %,8.1f bytes/element%n", name, r.opsPerSecond(),
+                r.bytesPerOp() / COUNT);
+    }
+
+    static byte[] payload(boolean shuffled) {
+        StringBuilder sb = new StringBuilder("{\"points\":[");
+        for (int i = 0; i < COUNT; i++) {
+            sb.append(i == 0 ? "{" : ",{");
+            if (shuffled)
+                sb.append("\"label\":\"p").append(i).append("\",\"y\":").append(i * 3 % 1000)
+                        .append(",\"visible\":").append(i % 2 == 0).append(",\"x\":").append(i % 1000)
+                        .append(",\"id\":").append(i).append('}');
+            else
+                sb.append("\"id\":").append(i).append(",\"x\":").append(i % 1000).append(",\"y\":")
+                        .append(i * 3 % 1000).append(",\"visible\":").append(i % 2 == 0)
+                        .append(",\"label\":\"p").append(i).append("\"}");
+        }
+        return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
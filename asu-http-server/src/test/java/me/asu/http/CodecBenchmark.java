@@ -0,0 +1,92 @@
+package me.asu.http;
+
+/**
+ * 按类生成的编解码器基准测试。
+ * <p>
+ * 对典型的 DTO（以基本类型字段为主的订单明细，以及含字符串、枚举和嵌套对象的订单），
+ * 分别比较反射路径与 {@link OKJSON#OPTIONS_CODEC_ENABLE} 下的序列化和反序列化，输出每秒操作次数。
+ * <pre>
+ * java -cp ... me.asu.http.CodecBenchmark [每轮秒数]
+ * </pre>
+ */
+public class CodecBenchmark {
+
+    public enum Status { NEW, PAID, SHIPPED }
+
+    public static class Item {
+        public long sku;
+        public int quantity;
+        public double price;
+        public float discount;
+        public boolean gift;
+        public short warehouse;
+    }
+
+    public static class Customer {
+        public long id;
+        public String name;
+        public String email;
+        public boolean vip;
+    }
+
+    public static class Order {
+        public long id;
+        public int version;
+        public String number;
+        public Status status;
+        public double total;
+        public boolean paid;
+        public Customer customer;
+        public String note;
+    }
+
+    static final int OPTIONS = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+
+        Item item = new Item();
+        item.sku = 9780201633610L;
+        item.quantity = 3;
+        item.price = 45.99;
+        item.discount = 0.15f;
+        item.gift = true;
+        item.warehouse = 12;
+
+        Order order = new Order();
+        order.id = 1234567890123L;
+        order.version = 7;
+        order.number = "SO-2024-000123";
+        order.status = Status.PAID;
+        order.total = 137.97;
+        order.paid = true;
+        order.customer = new Customer();
+        order.customer.id = 42;
+        order.customer.name = "张三";
+        order.customer.email = "zhang.san@example.com";
+        order.customer.vip = true;
+        order.note = "leave at the front door";
+
+        bench("Item", item, Item.class, seconds);
+        bench("Order", order, Order.class, seconds);
+    }
+
+    static void bench(String name, Object dto, Class<?> clazz, long seconds) throws Exception {
+        String json = OKJSON.stringify(dto, OPTIONS);
+        if (!json.equals(OKJSON.stringify(dto, OPTIONS | OKJSON.OPTIONS_CODEC_ENABLE)))
+            throw new IllegalStateException("codec output differs: " + json);
+        System.out.printf("%s %s%n", name, json);
+
+        Benchmarks.Op[] ops = {
+                () -> Benchmarks.check(OKJSON.stringify(dto, OPTIONS)),
+                () -> Benchmarks.check(OKJSON.stringify(dto, OPTIONS | OKJSON.OPTIONS_CODEC_ENABLE)),
+                () -> Benchmarks.check(OKJSON.toJson(json, clazz, OPTIONS)),
+                () -> Benchmarks.check(OKJSON.toJson(json, clazz, OPTIONS | OKJSON.OPTIONS_CODEC_ENABLE)),
+        };
+        String[] names = {"stringify", "stringify codec", "parse", "parse codec"};
+        for (Benchmarks.Op op : ops)
+            Benchmarks.warmUp(op);
+        for (int i = 0; i < ops.length; i++)
+            System.out.printf("  %-16s %,12.0f ops/s%n", names[i], Benchmarks.run(ops[i], seconds).opsPerSecond());
+    }
+}
@@ -0,0 +1,107 @@
+package me.asu.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 响应压缩的 CPU 与本地内存基准测试。
+ * <p>
+ * 分别以每个响应新建 {@link GZIPOutputStream}（旧的做法）和使用 {@link DeflaterPool} 中的 Deflater
+ * 压缩同一个 JSON 响应体，输出每秒压缩次数、输入吞吐量、新建的 Deflater 数，
+ * 以及进程的常驻内存（Linux 上读取 /proc/self/status 的 VmRSS，zlib 的本地内存不在 Java 堆中）。
+ * 最后比较串行压缩与 {@link ParallelGzipOutputStream} 压缩单个大响应体的耗时。
+ * <pre>
+ * java -cp ... me.asu.http.CompressionBenchmark [每轮秒数] [线程数]
+ * </pre>
+ */
+public class CompressionBenchmark {
+
+    interface Compressor {
+        OutputStream open(OutputStream out) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        byte[] body = payload(16 * 1024);
+
+        Compressor unpooled = out -> new GZIPOutputStream(out, 4096);
+        Compressor pooled = out -> new Response.CompressedOutputStream(out, DeflaterPool.GZIP,
+                Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        Compressor fast = out -> new Response.CompressedOutputStream(out, DeflaterPool.GZIP,
+                Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY);
+
+        run("warm-up", unpooled, body, threads, 1);
+        run("warm-up", pooled, body, threads, 1);
+        System.out.printf("body=%d bytes, threads=%d%n", body.length, threads);
+        run("new GZIPOutputStream", unpooled, body, threads, seconds);
+        long created = DeflaterPool.GZIP.getCreated();
+        run("pooled (level 6)", pooled, body, threads, seconds);
+        run("pooled (level 1)", fast, body, threads, seconds);
+        System.out.printf("pool: %s, created during runs=%d%n", DeflaterPool.GZIP, DeflaterPool.GZIP.getCreated() - created);
+
+        byte[] large = payload(16 << 20);
+        Compressor parallel = out -> new ParallelGzipOutputStream(out, ForkJoinPool.commonPool(), DeflaterPool.GZIP,
+                Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, 128 * 1024,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("large body=%d bytes, cores=%d%n", large.length, Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < 3; i++) { // the first round warms up
+            latency("pooled serial", pooled, large, i > 0);
+            latency("parallel gzip", parallel, large, i > 0);
+        }
+    }
+
+    static void latency(String name, Compressor compressor, byte[] body, boolean print) throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream(body.length / 4);
+        long begin = System.nanoTime();
+        try (OutputStream out = compressor.open(sink)) {
+            for (int off = 0; off < body.length; off += 8192) // as a handler streaming an export would
+                out.write(body, off, Math.min(8192, body.length - off));
+        }
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        if (print)
+            System.out.printf("%-22s %,6d ms  ratio=%.3f%n", name, ms, sink.size() / (double) body.length);
+    }
+
+    static void run(String name, Compressor compressor, byte[] body, int threads, long seconds) throws Exception {
+        ThreadLocal<ByteArrayOutputStream> sinks = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(body.length));
+        Benchmarks.Result r = Benchmarks.run(threads, () -> {
+            ByteArrayOutputStream sink = sinks.get();
+            sink.reset();
+            try (OutputStream out = compressor.open(sink)) {
+                out.write(body);
+            }
+            return sink.size();
+        }, seconds);
+        if (name.startsWith("warm"))
+            return;
+        System.out.printf("%-22s %,10.0f ops/s  %,8.1f MB/s in  ratio=%.3f  rss=%s%n", name, r.opsPerSecond(),
+                r.megabytesPerSecond(body.length), r.sum / (double) (r.ops * body.length), rss());
+    }
+
+    static byte[] payload(int size) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < size; i++)
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"user")
+                    .append(i * 7919 % 1000).append("\",\"active\":").append(i % 3 == 0).append('}');
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String rss() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status")))
+                if (line.startsWith("VmRSS:"))
+                    return line.substring(6).trim();
+        } catch (IOException | RuntimeException ignore) {
+        }
+        return "n/a";
+    }
+}
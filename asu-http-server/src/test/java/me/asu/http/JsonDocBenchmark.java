@@ -0,0 +1,66 @@
+package me.asu.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 惰性 JSON 文档基准测试。
+ * <p>
+ * 对 1 KB、64 KB 和 1 MB 的请求体，比较解析为完整的 Map 再读取三个字段（服务器默认的请求体解析方式）
+ * 与以 {@link JsonDoc} 建立索引后按需读取相同的字段，输出每秒操作次数、输入吞吐量和每次操作分配的内存。
+ * <pre>
+ * java -cp ... me.asu.http.JsonDocBenchmark [每轮秒数]
+ * </pre>
+ */
+public class JsonDocBenchmark {
+
+    interface Read {
+        long read(byte[] body) throws Exception;
+    }
+
+    static final int OPTIONS = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+
+        Read map = body -> {
+            Map<?, ?> m = OKJSON.toJson(body, 0, body.length, Map.class, OPTIONS);
+            Map<?, ?> user = (Map<?, ?>) m.get("user");
+            return ((Number) user.get("id")).longValue() + ((String) user.get("name")).length()
+                    + ((Number) m.get("total")).longValue();
+        };
+        Read doc = body -> {
+            JsonDoc d = JsonDoc.parse(body);
+            JsonDoc user = d.get("user");
+            return user.get("id").asLong() + user.get("name").asString().length() + d.get("total").asLong();
+        };
+
+        for (int size : new int[]{1024, 64 * 1024, 1 << 20}) {
+            byte[] body = payload(size);
+            if (map.read(body) != doc.read(body))
+                throw new IllegalStateException("results differ");
+            run("warm-up", map, body, 1);
+            run("warm-up", doc, body, 1);
+            System.out.printf("body=%,d bytes%n", body.length);
+            run("Map", map, body, seconds);
+            run("JsonDoc", doc, body, seconds);
+        }
+    }
+
+    static void run(String name, Read read, byte[] body, long seconds) throws Exception {
+        Benchmarks.Result r = Benchmarks.run(() -> read.read(body), seconds);
+        if (name.startsWith("warm"))
+            return;
+        System.out.printf("%-16s %,12.0f ops/s  %,8.1f MB/s  %,12.0f bytes/op%n", name, r.opsPerSecond(),
+                r.megabytesPerSecond(body.length), r.bytesPerOp());
+    }
+
+    static byte[] payload(int size) {
+        StringBuilder sb = new StringBuilder("{\"user\":{\"id\":10001,\"name\":\"张三\"},\"items\":[");
+        for (int i = 0; sb.length() < size - 16; i++)
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"用户")
+                    .append(i * 7919 % 1000).append("\",\"score\":").append(i % 100).append(".5,\"active\":")
+                    .append(i % 3 == 0).append(",\"note\":\"line\\n\\\"quoted\\\"\"}");
+        return sb.append("],\"total\":3}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
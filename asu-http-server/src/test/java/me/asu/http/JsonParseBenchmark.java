@@ -0,0 +1,66 @@
+package me.asu.http;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 请求体 JSON 解析基准测试。
+ * <p>
+ * 对 1 KB、64 KB 和 4 MB 的 UTF-8 请求体，分别比较先解码为字符串再解析（旧的请求解析方式）、
+ * 直接解析字节数组，以及按 Content-Length 从输入流读取并解析三种方式，
+ * 输出每秒解析次数、输入吞吐量和每次解析分配的内存。
+ * <pre>
+ * java -cp ... me.asu.http.JsonParseBenchmark [每轮秒数]
+ * </pre>
+ */
+public class JsonParseBenchmark {
+
+    interface Parse {
+        Map<?, ?> parse(byte[] body) throws Exception;
+    }
+
+    static final int OPTIONS = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+
+        Parse string = body -> OKJSON.toJson(new String(body, StandardCharsets.UTF_8), Map.class, OPTIONS);
+        Parse bytes = body -> OKJSON.toJson(body, 0, body.length, Map.class, OPTIONS);
+        Parse stream = body -> OKJSON.toJson(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE,
+                Map.class, OPTIONS);
+
+        for (int size : new int[]{1024, 64 * 1024, 4 << 20}) {
+            byte[] body = payload(size);
+            run("warm-up", string, body, 1);
+            run("warm-up", bytes, body, 1);
+            run("warm-up", stream, body, 1);
+            System.out.printf("body=%,d bytes%n", body.length);
+            run("decode + String", string, body, seconds);
+            run("byte[]", bytes, body, seconds);
+            run("InputStream", stream, body, seconds);
+        }
+    }
+
+    static void run(String name, Parse parse, byte[] body, long seconds) throws Exception {
+        Benchmarks.Result r = Benchmarks.run(() -> {
+            Map<?, ?> m = parse.parse(body);
+            if (m == null || m.get("items") == null)
+                throw new IllegalStateException("unexpected result: " + OKJSON.getErrorDesc());
+            return m.size();
+        }, seconds);
+        if (name.startsWith("warm"))
+            return;
+        System.out.printf("%-16s %,12.0f ops/s  %,8.1f MB/s  %,12.0f bytes/op%n", name, r.opsPerSecond(),
+                r.megabytesPerSecond(body.length), r.bytesPerOp());
+    }
+
+    static byte[] payload(int size) {
+        StringBuilder sb = new StringBuilder("{\"total\":0,\"items\":[");
+        for (int i = 0; sb.length() < size - 2; i++)
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"用户")
+                    .append(i * 7919 % 1000).append("\",\"score\":").append(i % 100).append(".5,\"active\":")
+                    .append(i % 3 == 0).append(",\"note\":\"line\\n\\\"quoted\\\"\"}");
+        return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
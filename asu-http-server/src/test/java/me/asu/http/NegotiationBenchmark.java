@@ -0,0 +1,58 @@
+package me.asu.http;
+
+/**
+ * 内容编码协商和可压缩类型判断的基准测试。
+ * <p>
+ * 以几个常见浏览器和客户端发送的 Accept-Encoding 和 Content-Type 值轮流作为输入，
+ * 比较每次都重新解析（{@link Response#getHighestQValue}、逐个匹配可压缩类型）
+ * 与经 {@link LookupCache} 缓存后的耗时。输出每次操作的纳秒数。
+ * <pre>
+ * java -cp ... me.asu.http.NegotiationBenchmark [每轮秒数]
+ * </pre>
+ */
+public class NegotiationBenchmark {
+
+    interface Op {
+        long run(int i);
+    }
+
+    static final int BATCH = 1000;
+
+    static final String[] ACCEPTED = {
+            "gzip, deflate, br, zstd",
+            "gzip, deflate, br",
+            "gzip;q=1.0, identity; q=0.5, *;q=0",
+            "deflate, gzip;q=0.8",
+    };
+
+    static final String[] CONTENT_TYPES = {
+            "application/json; charset=utf-8",
+            "text/html; charset=UTF-8",
+            "image/png",
+            "application/javascript",
+    };
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        HTTPServer.GzipConfig config = new HTTPServer.GzipConfig();
+        run("negotiate parse", i -> Response.getHighestQValue(ACCEPTED[i & 3], "identity",
+                "identity", "gzip", "deflate").length(), seconds);
+        run("negotiate cached", i -> Response.negotiatedEncodings.get(ACCEPTED[i & 3]).length(), seconds);
+        run("compressible match", i -> config.matchCompressible(CONTENT_TYPES[i & 3]) ? 1 : 0, seconds);
+        run("compressible cached", i -> config.isCompressible(CONTENT_TYPES[i & 3]) ? 1 : 0, seconds);
+    }
+
+    static void run(String name, Op op, long seconds) throws Exception {
+        // each operation is a few nanoseconds, so time them in batches rather than reading the clock every call
+        Benchmarks.Op batch = () -> {
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++)
+                sum += op.run(i);
+            return sum;
+        };
+        Benchmarks.warmUp(batch);
+        Benchmarks.Result r = Benchmarks.run(batch, seconds);
+        System.out.printf("%-20s %,8.1f ns/op%n", name, r.seconds * 1e9 / r.ops / BATCH);
+    }
+
+}
@@ -0,0 +1,100 @@
+package me.asu.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * 数字解析和格式化基准测试。
+ * <p>
+ * 对 1 万个随机 double 的最短表示，分别比较 JDK（先创建字符串）与 {@link OkJsonNumbers} 的解析和格式化；
+ * 再以一个以数字数组为主的遥测对象测试完整的序列化和反序列化。输出每秒操作次数和每次操作分配的内存。
+ * <pre>
+ * java -cp ... me.asu.http.NumberBenchmark [每轮秒数]
+ * </pre>
+ */
+public class NumberBenchmark {
+
+    public static class Sample {
+        public long timestamp;
+        public double value;
+        public double min;
+        public double max;
+    }
+
+    public static class Telemetry {
+        public String metric;
+        public ArrayList<Double> values;
+        public ArrayList<Sample> samples;
+    }
+
+    static final int COUNT = 10_000;
+    static final int OPTIONS = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        Random random = new Random(1);
+        double[] doubles = new double[COUNT];
+        byte[][] texts = new byte[COUNT][];
+        for (int i = 0; i < COUNT; i++) {
+            doubles[i] = random.nextDouble() * Math.pow(10, random.nextInt(12) - 4);
+            texts[i] = Double.toString(doubles[i]).getBytes(StandardCharsets.US_ASCII);
+        }
+        char[] buf = new char[COUNT * OkJsonNumbers.MAX_DOUBLE_LENGTH];
+
+        run("parse JDK", () -> {
+            long bits = 0;
+            for (byte[] t : texts)
+                bits ^= Double.doubleToRawLongBits(Double.parseDouble(new String(t, StandardCharsets.ISO_8859_1)));
+            return bits;
+        }, COUNT, seconds);
+        run("parse OKJSON", () -> {
+            long bits = 0;
+            for (byte[] t : texts)
+                bits ^= Double.doubleToRawLongBits(OkJsonNumbers.parseDouble(t, 0, t.length - 1));
+            return bits;
+        }, COUNT, seconds);
+        run("format JDK", () -> {
+            int pos = 0;
+            for (double d : doubles) {
+                String s = Double.toString(d);
+                s.getChars(0, s.length(), buf, pos);
+                pos += s.length();
+            }
+            return pos;
+        }, COUNT, seconds);
+        run("format OKJSON", () -> {
+            int pos = 0;
+            for (double d : doubles)
+                pos = OkJsonNumbers.appendDouble(buf, pos, d);
+            return pos;
+        }, COUNT, seconds);
+
+        Telemetry telemetry = new Telemetry();
+        telemetry.metric = "cpu.load";
+        telemetry.values = new ArrayList<>();
+        telemetry.samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            telemetry.values.add(doubles[i]);
+            Sample sample = new Sample();
+            sample.timestamp = 1_700_000_000_000L + i * 1000L;
+            sample.value = doubles[i];
+            sample.min = doubles[i] / 2;
+            sample.max = doubles[i] * 2;
+            telemetry.samples.add(sample);
+        }
+        String json = OKJSON.stringify(telemetry, OPTIONS);
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        run("telemetry stringify", () -> OKJSON.stringify(telemetry, OPTIONS).length(), 1, seconds);
+        run("telemetry parse", () -> OKJSON.toJson(body, 0, body.length, Telemetry.class, OPTIONS).values.size(), 1,
+                seconds);
+    }
+
+    static void run(String name, Benchmarks.Op op, int batch, long seconds) throws Exception {
+        Benchmarks.warmUp(op);
+        Benchmarks.Result r = Benchmarks.run(op, seconds);
+        System.out.printf("%-20s %,14.0f ops/s  %,10.1f bytes/op%n", name, r.opsPerSecond() * batch,
+                r.bytesPerOp() / batch);
+    }
+
+}
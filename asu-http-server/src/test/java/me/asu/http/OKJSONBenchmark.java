@@ -0,0 +1,45 @@
+package me.asu.http;
+
+import java.util.Map;
+
+/**
+ * OKJSON 多线程解析吞吐量基准测试。
+ * <p>
+ * 依次以 1、2、4 … 直到 CPU 核数个线程并发解析同一个 JSON 请求体，输出每秒解析次数及相对单线程的加速比。
+ * 解析器的获取不加锁时，吞吐量应随线程数（不超过核数）近似线性增长。
+ * <pre>
+ * java -cp ... me.asu.http.OKJSONBenchmark [每轮秒数]
+ * </pre>
+ */
+public class OKJSONBenchmark {
+
+    static final String JSON = "{\"id\": 12345, \"name\": \"asu-http\", \"active\": true, \"score\": 98.5, "
+            + "\"tags\": [\"http\", \"json\", \"server\"], \"values\": [1, 2, 3, 4, 5, 6, 7, 8], "
+            + "\"owner\": {\"id\": 1, \"name\": \"admin\", \"email\": \"admin@example.com\"}}";
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        run(1, 1); // warm up
+        double base = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            double ops = run(threads, seconds);
+            if (threads == 1)
+                base = ops;
+            System.out.printf("threads=%-3d %,14.0f ops/s  speedup=%.2fx%n", threads, ops, ops / base);
+            if (threads == cores)
+                break;
+        }
+    }
+
+    static double run(int threads, long seconds) throws Exception {
+        return Benchmarks.run(threads, () -> {
+            Map<?, ?> m = OKJSON.toJson(JSON, Map.class, OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE);
+            if (m == null || m.size() != 7)
+                throw new IllegalStateException("unexpected result: " + m);
+            return m.size();
+        }, seconds).opsPerSecond();
+    }
+
+}
@@ -4,6 +4,13 @@ import junit.framework.TestCase;
 import me.asu.log.Log;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 
 public class OKJSONTest extends TestCase {
@@ -43,4 +50,429 @@ public class OKJSONTest extends TestCase {
         }
         Log.info(OKJSON.stringify(listObj,  OKJSON.OPTIONS_PRETTY_FORMAT_ENABLE));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStringifyToStream() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            text.append("é😀\"ab\n"); // spans several buffer flushes, with split surrogate pairs
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("text", text.toString());
+        m.put("long", Long.MIN_VALUE);
+        m.put("list", Arrays.asList(1, -2, 3.5, "x"));
+        m.put("array", new int[]{1, 2, 3});
+        for (int options : new int[]{0, OKJSON.OPTIONS_PRETTY_FORMAT_ENABLE}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(0, OKJSON.stringify(m, out, options));
+            assertEquals(OKJSON.stringify(m, options), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    public static class Broken {
+        private String name = "broken";
+
+        public String getName() {
+            throw new IllegalStateException("unavailable");
+        }
+    }
+
+    @Test
+    public void testStringifyLoneSurrogate() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, OKJSON.stringify("ab\uD83D", out, 0)); // the stream ends with a high surrogate
+        assertEquals("ab?", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals("ab?", new String("ab\uD83D".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testStringifyToFile() throws Exception {
+        File dir = Files.createTempDirectory("okjson").toFile();
+        try {
+            File file = new File(dir, "data.json");
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("a", 1);
+            assertEquals(0, OKJSON.stringify(m, file.getPath(), 0));
+            String written = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            assertEquals(OKJSON.stringify(m, 0), written);
+            m.put("b", new Broken());
+            assertEquals(-1, OKJSON.stringify(m, file.getPath(), 0));
+            // the previous content is left intact, and no temporary file is left behind
+            assertEquals(written, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            assertEquals(1, dir.list().length);
+        } finally {
+            for (File f : dir.listFiles())
+                f.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testParseFromBytes() throws Exception {
+        String json = "{\"name\": \"日本語 😀\", \"esc\": \"a\\\"b\\u00e9\", \"n\": [1, 2.5, {\"k\": \"ü\"}]}";
+        byte[] bytes = ("  " + json + "  ").getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> expected = OKJSON.toMap(json, 0);
+        assertEquals("日本語 😀", expected.get("name"));
+        assertEquals("a\"bé", expected.get("esc"));
+        assertEquals(expected, OKJSON.toJson(bytes, 0, bytes.length, Map.class, 0));
+        assertEquals(expected, OKJSON.toJson(new ByteArrayInputStream(bytes), bytes.length, bytes.length,
+                Map.class, 0));
+        assertEquals(expected, OKJSON.toJson(new ByteArrayInputStream(bytes), -1, bytes.length, Map.class, 0));
+        try {
+            OKJSON.toJson(new ByteArrayInputStream(bytes), -1, bytes.length - 1, Map.class, 0);
+            fail("input larger than the maximum length must be rejected");
+        } catch (IOException expectedException) {
+            // expected
+        }
+    }
+
+    public static class CodecBean {
+        public int id;
+        public long version;
+        public short s;
+        public boolean active;
+        public double score;
+        public float ratio;
+        public String name;
+        public Integer boxed;
+        public ArrayList<String> tags;
+        private int doubled;
+
+        public int getDoubled() {
+            return doubled;
+        }
+
+        public void setDoubled(int doubled) {
+            this.doubled = doubled * 2;
+        }
+    }
+
+    @Test
+    public void testCodecMatchesReflection() throws Exception {
+        String json = "{\"id\": -42, \"version\": 9223372036854775807, \"s\": 70000, \"active\": true, "
+                + "\"score\": 1.5e3, \"ratio\": 0.1, \"name\": \"a\\\"b\", \"boxed\": null, "
+                + "\"tags\": [\"x\", \"y\"], \"doubled\": 21}";
+        int options = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+        CodecBean expected = OKJSON.toJson(json, CodecBean.class, options);
+        CodecBean actual = OKJSON.toJson(json, CodecBean.class, options | OKJSON.OPTIONS_CODEC_ENABLE);
+        assertEquals(-42, actual.id);
+        assertEquals(Long.MAX_VALUE, actual.version);
+        assertEquals(expected.s, actual.s);
+        assertEquals(42, actual.getDoubled());
+        for (int o : new int[]{0, OKJSON.OPTIONS_NULLABLE, OKJSON.OPTIONS_PRETTY_FORMAT_ENABLE}) {
+            String s = OKJSON.stringify(expected, o);
+            assertEquals(s, OKJSON.stringify(actual, o));
+            assertEquals(s, OKJSON.stringify(actual, o | OKJSON.OPTIONS_CODEC_ENABLE));
+        }
+        assertNull(OKJSON.toJson("{\"id\": 2147483648}", CodecBean.class, options | OKJSON.OPTIONS_CODEC_ENABLE));
+    }
+
+    public static class NameBean {
+        public int a;
+        public String b;
+        public boolean 名字;
+    }
+
+    @Test
+    public void testFieldNameMatching() throws Exception {
+        for (int options : new int[]{OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE,
+                OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE | OKJSON.OPTIONS_CODEC_ENABLE}) {
+            NameBean bean = OKJSON.toJson("{\"名字\": true, \"x\": 1, \"b\": \"s\", \"a\": 7, \"aa\": 8}",
+                    NameBean.class, options);
+            assertEquals(7, bean.a);
+            assertEquals("s", bean.b);
+            assertTrue(bean.名字);
+            assertNull(OKJSON.toJson("{\"a\": 1, \"A\": 2}", NameBean.class, options | OKJSON.OPTIONS_STRICT_POLICY));
+            assertEquals(OKJSON.OKJSON_ERROR_NAME_NOT_FOUND_IN_OBJECT, (int) OKJSON.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testStreamParser() throws Exception {
+        StringBuilder sb = new StringBuilder("{\"name\": \"批量\\u0021\", \"meta\": {\"x\": [1, 2]}, \"points\": [");
+        for (int i = 0; i < 1000; i++)
+            sb.append(i == 0 ? "" : ",").append("{\"a\":").append(i).append(",\"x\":").append(i % 7).append('}');
+        byte[] body = sb.append("], \"done\": true}").toString().getBytes(StandardCharsets.UTF_8);
+        // deliver a few bytes per read, as a slow client would
+        ByteArrayInputStream in = new ByteArrayInputStream(body) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+        long sum = 0;
+        int count = 0;
+        try (OkJsonStreamParser parser = new OkJsonStreamParser(in, OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE, 16, 64)) {
+            assertEquals(OkJsonStreamParser.Token.START_OBJECT, parser.nextToken());
+            assertEquals(OkJsonStreamParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals("name", parser.getFieldName());
+            assertEquals(OkJsonStreamParser.Token.STRING, parser.nextToken());
+            assertEquals("批量!", parser.getText());
+            assertEquals(OkJsonStreamParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals(OkJsonStreamParser.Token.START_OBJECT, parser.nextToken());
+            parser.skipChildren();
+            assertEquals(OkJsonStreamParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals("points", parser.getFieldName());
+            assertEquals(OkJsonStreamParser.Token.START_ARRAY, parser.nextToken());
+            while (parser.nextToken() == OkJsonStreamParser.Token.START_OBJECT) {
+                NameBean bean = parser.readValueAs(NameBean.class);
+                assertNotNull(bean);
+                sum += bean.a;
+                count++;
+            }
+            assertEquals(OkJsonStreamParser.Token.END_ARRAY, parser.currentToken());
+            assertEquals(OkJsonStreamParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals(OkJsonStreamParser.Token.TRUE, parser.nextToken());
+            assertEquals(OkJsonStreamParser.Token.END_OBJECT, parser.nextToken());
+            assertNull(parser.nextToken());
+        }
+        assertEquals(1000, count);
+        assertEquals(499500, sum);
+
+        try (OkJsonStreamParser parser = new OkJsonStreamParser(
+                new ByteArrayInputStream(body), OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE, 16, 64)) {
+            parser.nextToken();
+            parser.nextToken();
+            parser.nextToken();
+            parser.nextToken();
+            parser.nextToken();
+            parser.skipChildren();
+            parser.nextToken();
+            assertEquals(OkJsonStreamParser.Token.START_ARRAY, parser.nextToken());
+            parser.readValueAs(ArrayList.class);
+            fail("the points array exceeds the maximum value length");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("too large"));
+        }
+    }
+
+    @Test
+    public void testStreamParserRejectsInvalidTokens() throws Exception {
+        String[] invalid = {
+                "{\"a\":-}", "{\"a\":1e}", "{\"a\":01}", "{\"a\":1.}", "{\"a\":1e+}", "[-]", "[.5]",
+                "{\"a\":\"\\x\"}", "{\"a\":\"\\u12G4\"}", "[\"\\u12\"]"
+        };
+        for (String json : invalid) {
+            try (OkJsonStreamParser parser = new OkJsonStreamParser(slowly(json), 0, 16, 64)) {
+                while (parser.nextToken() != null) {
+                }
+                fail("accepted " + json);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        try (OkJsonStreamParser parser = new OkJsonStreamParser(
+                slowly("[0, -0, 1.5e-3, 2E+10, -12, \"\\/\\t\\u0041\"]"), 0, 16, 64)) {
+            assertEquals(OkJsonStreamParser.Token.START_ARRAY, parser.nextToken());
+            assertEquals(OkJsonStreamParser.Token.NUMBER_INT, parser.nextToken());
+            assertEquals(0, parser.getIntValue());
+            assertEquals(OkJsonStreamParser.Token.NUMBER_INT, parser.nextToken());
+            assertEquals(0, parser.getIntValue());
+            assertEquals(OkJsonStreamParser.Token.NUMBER_FLOAT, parser.nextToken());
+            assertEquals(1.5e-3, parser.getDoubleValue());
+            assertEquals(OkJsonStreamParser.Token.NUMBER_FLOAT, parser.nextToken());
+            assertEquals(2E+10, parser.getDoubleValue());
+            assertEquals(OkJsonStreamParser.Token.NUMBER_INT, parser.nextToken());
+            assertEquals(-12L, parser.getLongValue());
+            assertEquals(OkJsonStreamParser.Token.STRING, parser.nextToken());
+            assertEquals("/\tA", parser.getText());
+            assertEquals(OkJsonStreamParser.Token.END_ARRAY, parser.nextToken());
+            assertNull(parser.nextToken());
+        }
+    }
+
+    // deliver a few bytes per read, as a slow client would
+    private static ByteArrayInputStream slowly(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    @Test
+    public void testJsonDocMatchesDataMap() throws Exception {
+        byte[] body = ("{\"user\": {\"id\": 12345678901, \"tags\": [\"a\", null, 2.5e1, [true]]}, \"n\": null}")
+                .getBytes(StandardCharsets.UTF_8);
+        // JsonDoc.toMap gives the same form as the eagerly parsed data map
+        assertEquals(OKJSON.toJson(body, 0, body.length, Map.class, OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE),
+                JsonDoc.parse(body).toMap());
+    }
+
+    @Test
+    public void testNumbersMatchJdk() throws Exception {
+        Random random = new Random(48);
+        char[] buf = new char[OkJsonNumbers.MAX_DOUBLE_LENGTH];
+        List<String> inputs = new ArrayList<>(Arrays.asList("0", "-0.0", "1e400", "1e-400", "4.9e-324",
+                "2.2250738585072011e-308", "1.7976931348623157e308", "9007199254740993", "3.4028236e38",
+                "123456789012345678901234567890", "0.1", "1E22", "1e23", "01", "1.", "-"));
+        for (int i = 0; i < 100000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (i % 2 == 1)
+                d = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            int length = OkJsonNumbers.appendDouble(buf, 0, d);
+            assertEquals(Double.toString(d), new String(buf, 0, length));
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                inputs.add(Double.toString(d));
+                inputs.add(Float.toString((float) d));
+            }
+            StringBuilder sb = new StringBuilder().append(random.nextInt(2) == 0 ? "-" : "").append(1 + random.nextInt(9));
+            for (int k = random.nextInt(22); k > 0; k--)
+                sb.append(random.nextInt(10));
+            sb.append('.').append(random.nextInt(1000000)).append('e').append(random.nextInt(700) - 350);
+            inputs.add(sb.toString());
+        }
+        for (String input : inputs) {
+            byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+            double expected;
+            try {
+                expected = Double.parseDouble(input);
+            } catch (NumberFormatException e) {
+                expected = Double.NaN; // neither parser may accept it
+            }
+            if (Double.isNaN(expected)) {
+                try {
+                    OkJsonNumbers.parseDouble(bytes, 0, bytes.length - 1);
+                    fail("accepted " + input);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+            assertEquals(input, Double.doubleToRawLongBits(expected),
+                    Double.doubleToRawLongBits(OkJsonNumbers.parseDouble(bytes, 0, bytes.length - 1)));
+            assertEquals(input, Float.floatToRawIntBits(Float.parseFloat(input)),
+                    Float.floatToRawIntBits(OkJsonNumbers.parseFloat(bytes, 0, bytes.length - 1)));
+        }
+        for (String input : new String[]{"0.0", "-0.0", "1.50", "-123.456", "0.000123", "1234567890.123456789", "1.5e3"}) {
+            byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+            BigDecimal actual = OkJsonNumbers.parseBigDecimal(bytes, 0, bytes.length - 1);
+            assertEquals(new BigDecimal(input), actual);
+            assertEquals(new BigDecimal(input).scale(), actual.scale());
+        }
+    }
+
+    @Test
+    public void testStringScanning() throws Exception {
+        Random random = new Random(49);
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < 100000; i++) {
+            for (int k = 0; k < bytes.length; k++)
+                bytes[k] = (byte) (random.nextInt(8) == 0 ? "\"\\\u0001a".charAt(random.nextInt(4)) : random.nextInt(256));
+            int from = random.nextInt(bytes.length);
+            int to = from + random.nextInt(bytes.length - from + 1);
+            int expected = from;
+            while (expected < to && bytes[expected] != '"' && bytes[expected] != '\\')
+                expected++;
+            assertEquals(expected, OkJsonStrings.indexOfQuoteOrBackslash(bytes, from, to));
+        }
+
+        String alphabet = "abcé中\"\\/\n\t\r\b\f\u0001";
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = random.nextInt(40); k > 0; k--)
+                sb.append(random.nextInt(4) == 0 ? alphabet.charAt(random.nextInt(alphabet.length())) : 'x');
+            String value = sb.toString();
+            StringBuilder escaped = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                int at = "\"\\/\t\f\b\n\r".indexOf(c);
+                escaped.append(at < 0 ? String.valueOf(c) : "\\" + "\"\\/tfbnr".charAt(at));
+            }
+            escaped.append('"');
+            OkJsonCharArrayBuilder builder = new OkJsonCharArrayBuilder(4);
+            builder.appendJsonStringEscapedWithQuote(value);
+            assertEquals(escaped.toString(), builder.toString());
+
+            String json = "{\"k\":" + escaped + ",\"n\":1}";
+            assertEquals(value, OKJSON.toMap(json, OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE).get("k"));
+            try (OkJsonStreamParser parser = new OkJsonStreamParser(
+                    new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0, 16, 1024)) {
+                parser.nextToken();
+                parser.nextToken();
+                assertEquals(OkJsonStreamParser.Token.STRING, parser.nextToken());
+                assertEquals(value, parser.getText());
+            }
+        }
+    }
+
+    public record Point(int x, int y, String label) {
+    }
+
+    public record Shape(String name, Point origin, List<Point> points, Set<String> tags, NameBean bean,
+                        boolean closed, Double area) {
+    }
+
+    @Test
+    public void testRecordBinding() throws Exception {
+        String json = "{\"name\": \"tri\", \"origin\": {\"x\": 1, \"y\": -2, \"label\": \"o\"}, "
+                + "\"points\": [{\"x\": 3}, {\"y\": 4, \"label\": null}], \"tags\": [\"b\", \"a\", \"b\"], "
+                + "\"bean\": {\"a\": 7, \"b\": \"b\"}, "
+                + "\"closed\": true, \"unknown\": [1, {\"x\": 9}]}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        for (int options : new int[]{OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE,
+                OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE | OKJSON.OPTIONS_CODEC_ENABLE}) {
+            Shape shape = OKJSON.toJson(body, 0, body.length, Shape.class, options);
+            assertNotNull(shape);
+            assertEquals("tri", shape.name());
+            assertEquals(new Point(1, -2, "o"), shape.origin());
+            assertEquals(Arrays.asList(new Point(3, 0, null), new Point(0, 4, null)), shape.points());
+            assertEquals(Arrays.asList("b", "a"), new ArrayList<>(shape.tags())); // in order, without duplicates
+            assertEquals(7, shape.bean().a);
+            assertTrue(shape.closed());
+            assertNull(shape.area()); // absent
+        }
+        // the JSON module binds request bodies the same way (see Request#getBodyAs)
+        JsonParser parser = new JsonParser();
+        byte[] point = "{\"x\":5,\"y\":6,\"label\":\"p\"}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(new Point(5, 6, "p"), parser.bind(point, 0, point.length, Point.class));
+        assertEquals(7, parser.bind(body, 0, body.length, Shape.class).bean().a);
+        try {
+            parser.bind(point, 7, 5, Point.class); // "y":6
+            fail("accepted a non-object");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("invalid JSON"));
+        }
+    }
+
+    @Test
+    public void testBodyBindingUnderDefaultConfig() throws Exception {
+        HTTPServer server = new HTTPServer(0);
+        server.addContext("/", (req, resp) -> 404, "POST");
+        Request req = jsonRequest(server, "{\"name\": \"tri\", \"points\": [{\"x\": 3}], \"closed\": true}");
+        req.initBody();
+        Shape shape = req.getBodyAs(Shape.class); // bound from the body bytes kept by initBody
+        assertEquals("tri", shape.name());
+        assertEquals(Collections.singletonList(new Point(3, 0, null)), shape.points());
+        assertEquals(true, req.getDataMap().get("closed"));
+        assertEquals("tri", req.getBodyAs(Shape.class).name()); // bindable more than once
+
+        req = jsonRequest(server, "{\"name\" \"tri\"}");
+        try {
+            req.initBody(); // rejected before the handler runs, and answered with 400
+            fail("accepted an invalid body");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getCause().getMessage().startsWith("invalid JSON"));
+        }
+
+        // a declared charset is decoded by the same path for the data map and for binding
+        byte[] latin1 = "{\"name\": \"caf\u00e9\", \"points\": [{\"x\": 1}], \"closed\": false}"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("POST /shape HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json; charset=ISO-8859-1\r\n"
+                + "Content-Length: " + latin1.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.write(latin1);
+        req = new Request(server, new ByteArrayInputStream(out.toByteArray()), null);
+        req.initBody();
+        assertEquals("caf\u00e9", req.getDataMap().get("name"));
+        assertEquals("caf\u00e9", req.getBodyAs(Shape.class).name());
+    }
+
+    static Request jsonRequest(HTTPServer server, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("POST /shape HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+        return new Request(server, new ByteArrayInputStream(out.toByteArray()), null);
+    }
+}
@@ -0,0 +1,85 @@
+package me.asu.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 字符串扫描和转义基准测试。
+ * <p>
+ * 以 1000 条日志记录（每条带一段几百字节的消息，少数含换行和引号）为负载，
+ * 先比较逐字节与 {@link OkJsonStrings} 按 8 字节查找引号和反斜杠的速度，再测试完整的序列化和反序列化。
+ * 输出每秒操作次数和每次操作分配的内存。
+ * <pre>
+ * java -cp ... me.asu.http.StringBenchmark [每轮秒数]
+ * </pre>
+ */
+public class StringBenchmark {
+
+    public static class Entry {
+        public String level;
+        public String logger;
+        public String message;
+    }
+
+    public static class Entries {
+        public ArrayList<Entry> entries;
+    }
+
+    static final int COUNT = 1000;
+    static final int OPTIONS = OKJSON.OPTIONS_DIRECT_ACCESS_PROPERTY_ENABLE;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = Benchmarks.seconds(args);
+        Random random = new Random(1);
+        String[] words = {"request", "handled", "in", "ms", "user", "session", "cache", "miss", "for", "key",
+                "upstream", "timeout", "retrying", "connection", "pool", "exhausted", "请求", "完成"};
+        Entries log = new Entries();
+        log.entries = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = 100 + random.nextInt(200); sb.length() < k; )
+                sb.append(words[random.nextInt(words.length)]).append(' ');
+            if (i % 10 == 0)
+                sb.append("\n\tat \"handler\" line ").append(i);
+            Entry entry = new Entry();
+            entry.level = i % 7 == 0 ? "WARN" : "INFO";
+            entry.logger = "me.asu.http.HTTPServer";
+            entry.message = sb.toString();
+            log.entries.add(entry);
+        }
+        String json = OKJSON.stringify(log, OPTIONS);
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        System.out.printf("payload: %,d bytes%n", body.length);
+
+        run("scan bytewise", () -> {
+            long count = 0;
+            for (int i = 0; i < body.length; i++) {
+                byte b = body[i];
+                if (b == '"' || b == '\\')
+                    count++;
+            }
+            return count;
+        }, seconds);
+        run("scan SWAR", () -> {
+            long count = 0;
+            for (int i = 0; (i = OkJsonStrings.indexOfQuoteOrBackslash(body, i, body.length)) < body.length; i++)
+                count++;
+            return count;
+        }, seconds);
+        run("stringify", () -> OKJSON.stringify(log, OPTIONS).length(), seconds);
+        run("parse POJO", () -> OKJSON.toJson(body, 0, body.length, Entries.class, OPTIONS).entries.size(), seconds);
+        run("parse Map", () -> {
+            Map<String, Object> map = OKJSON.toMap(json, OPTIONS);
+            return map.size();
+        }, seconds);
+    }
+
+    static void run(String name, Benchmarks.Op op, long seconds) throws Exception {
+        Benchmarks.warmUp(op);
+        Benchmarks.Result r = Benchmarks.run(op, seconds);
+        System.out.printf("%-20s %,14.1f ops/s  %,12.1f bytes/op%n", name, r.opsPerSecond(), r.bytesPerOp());
+    }
+
+}